@@ -68,6 +68,11 @@ public class Annotations {
             .value();
     }
 
+    private static Number findNumberAnnotationValue(AnnotationRef ref) {
+        return (Number) ref.structuredValue()
+            .value();
+    }
+
     /**
      * Find all annotations with the given name on the given declaration.
      *
@@ -111,6 +116,116 @@ public class Annotations {
             .orElse(null);
     }
 
+    /**
+     * Finds the value of the {@code (async)} annotation on the given declaration.
+     *
+     * @param decl
+     *            declaration
+     * @return annotation value, or null if annotation not present
+     */
+    public static String findAsync(Annotable decl) {
+        return annotationsByName(decl, "async").findFirst()
+            .map(Annotations::findStringAnnotationValue)
+            .orElse(null);
+    }
+
+    /**
+     * Finds the value of the {@code (asyncTimeout)} annotation on the given declaration.
+     *
+     * @param decl
+     *            declaration
+     * @return annotation value in milliseconds, or null if annotation not present
+     */
+    public static Long findAsyncTimeout(Annotable decl) {
+        return annotationsByName(decl, "asyncTimeout").findFirst()
+            .map(Annotations::findNumberAnnotationValue)
+            .map(Number::longValue)
+            .orElse(null);
+    }
+
+    /**
+     * Finds the value of the {@code (bulk)} annotation on the given declaration.
+     *
+     * @param decl
+     *            declaration
+     * @return client batching window in milliseconds, or null if annotation not present
+     */
+    public static Long findBulk(Annotable decl) {
+        return annotationsByName(decl, "bulk").findFirst()
+            .map(Annotations::findNumberAnnotationValue)
+            .map(Number::longValue)
+            .orElse(null);
+    }
+
+    /**
+     * Finds the value of the {@code (cacheable)} annotation on the given declaration.
+     *
+     * @param decl
+     *            declaration
+     * @return maximum age of cached responses in seconds, or null if annotation not present
+     */
+    public static Long findCacheable(Annotable decl) {
+        return annotationsByName(decl, "cacheable").findFirst()
+            .map(Annotations::findNumberAnnotationValue)
+            .map(Number::longValue)
+            .orElse(null);
+    }
+
+    /**
+     * Finds the value of the {@code (maxConcurrency)} annotation on the given declaration.
+     *
+     * @param decl
+     *            declaration
+     * @return maximum number of concurrent requests, or null if annotation not present
+     */
+    public static Integer findMaxConcurrency(Annotable decl) {
+        return annotationsByName(decl, "maxConcurrency").findFirst()
+            .map(Annotations::findNumberAnnotationValue)
+            .map(Number::intValue)
+            .orElse(null);
+    }
+
+    /**
+     * Finds the value of the {@code (paged)} annotation on the given declaration.
+     *
+     * @param decl
+     *            declaration
+     * @return default page size, or null if annotation not present
+     */
+    public static Integer findPaged(Annotable decl) {
+        return annotationsByName(decl, "paged").findFirst()
+            .map(Annotations::findNumberAnnotationValue)
+            .map(Number::intValue)
+            .orElse(null);
+    }
+
+    /**
+     * Finds the value of the {@code (rateLimit)} annotation on the given declaration.
+     *
+     * @param decl
+     *            declaration
+     * @return maximum number of requests per second, or null if annotation not present
+     */
+    public static Integer findRateLimit(Annotable decl) {
+        return annotationsByName(decl, "rateLimit").findFirst()
+            .map(Annotations::findNumberAnnotationValue)
+            .map(Number::intValue)
+            .orElse(null);
+    }
+
+    /**
+     * Finds the value of the {@code (streaming)} annotation on the given declaration.
+     *
+     * @param decl
+     *            declaration
+     * @return annotation value, or null if annotation not present
+     */
+    public static String findStreaming(Annotable decl) {
+        return annotationsByName(decl, "streaming").findFirst()
+            .map(Annotations::findStringAnnotationValue)
+            .orElse(null);
+    }
+
     /**
      * Checks if the given declaration has an {@code (id)} annotation.
      *
@@ -122,4 +237,28 @@ public class Annotations {
         return annotationsByName(decl, "id").findFirst()
             .isPresent();
     }
+
+    /**
+     * Checks if the given declaration has an {@code (etag)} annotation.
+     *
+     * @param decl
+     *            declaration
+     * @return true if annotation is present
+     */
+    public static boolean isEtag(Annotable decl) {
+        return annotationsByName(decl, "etag").findFirst()
+            .isPresent();
+    }
+
+    /**
+     * Checks if the given declaration has a {@code (sparseFieldsets)} annotation.
+     *
+     * @param decl
+     *            declaration
+     * @return true if annotation is present
+     */
+    public static boolean isSparseFieldsets(Annotable decl) {
+        return annotationsByName(decl, "sparseFieldsets").findFirst()
+            .isPresent();
+    }
 }
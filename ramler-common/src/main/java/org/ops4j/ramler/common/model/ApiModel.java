@@ -36,14 +36,17 @@ import static org.ops4j.ramler.common.model.Metatype.TIME_ONLY;
 import static org.ops4j.ramler.common.model.Metatype.UNION;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
-import org.raml.v2.api.model.v08.parameters.NumberTypeDeclaration;
+import org.ops4j.ramler.common.exc.GeneratorException;
 import org.raml.v2.api.model.v10.api.Api;
 import org.raml.v2.api.model.v10.datamodel.AnyTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.ArrayTypeDeclaration;
@@ -54,6 +57,7 @@ import org.raml.v2.api.model.v10.datamodel.DateTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.FileTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.IntegerTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.NullTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.NumberTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.StringTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.TimeOnlyTypeDeclaration;
@@ -75,6 +79,10 @@ import org.raml.v2.api.model.v10.resources.Resource;
  */
 public class ApiModel {
 
+    private static final String MULTIPART_FORM_DATA = "multipart/form-data";
+
+    private static final List<String> BULK_METHODS = Arrays.asList("post", "put", "patch");
+
     private Api api;
 
     private Map<String, TypeDeclaration> types = new LinkedHashMap<>();
@@ -138,6 +146,28 @@ public class ApiModel {
         return derived == null ? emptyList() : derived;
     }
 
+    /**
+     * Finds all types derived from the given type, directly or indirectly. Each type is listed
+     * before its own derived types, and only once in case of multiple inheritance.
+     *
+     * @param typeName
+     *            type name
+     * @return list of derived types (never null)
+     */
+    public List<String> findAllDerivedTypes(String typeName) {
+        Set<String> result = new LinkedHashSet<>();
+        addDerivedTypes(typeName, result);
+        return new ArrayList<>(result);
+    }
+
+    private void addDerivedTypes(String typeName, Set<String> result) {
+        for (String derivedType : findDerivedTypes(typeName)) {
+            if (result.add(derivedType)) {
+                addDerivedTypes(derivedType, result);
+            }
+        }
+    }
+
     /**
      * Gets all types defined in this API.
      *
@@ -439,6 +469,29 @@ public class ApiModel {
             .orElse(null);
     }
 
+    /**
+     * Gets the discriminator value of the given type. The RAML parser passes on the discriminator
+     * value of a base type to derived types without a value of their own. In this case, the default
+     * value, i.e. the type name, is returned.
+     *
+     * @param type
+     *            type declaration
+     * @return discriminator value
+     */
+    public String getDiscriminatorValue(ObjectTypeDeclaration type) {
+        String discriminatorValue = type.discriminatorValue();
+        if (discriminatorValue == null) {
+            return type.name();
+        }
+        for (TypeDeclaration baseType : type.parentTypes()) {
+            if (baseType instanceof ObjectTypeDeclaration && discriminatorValue
+                .equals(((ObjectTypeDeclaration) baseType).discriminatorValue())) {
+                return type.name();
+            }
+        }
+        return discriminatorValue;
+    }
+
     /**
      * Checks if the given type is annotated with {@code (internal)}. No code or documentation will
      * be generated for internal types.
@@ -472,4 +525,83 @@ public class ApiModel {
             .uriParameters());
         return pathParams;
     }
+
+    /**
+     * Checks if a bulk variant is to be derived from the given method. The method must be a POST,
+     * PUT or PATCH method with an object body.
+     *
+     * @param method
+     *            HTTP method
+     * @return true if the method is annotated with {@code (bulk)}
+     * @throws GeneratorException
+     *             if the annotation is not applicable to the method
+     */
+    public boolean isBulk(Method method) {
+        if (Annotations.findBulk(method) == null) {
+            return false;
+        }
+        if (!BULK_METHODS.contains(method.method())) {
+            throw new GeneratorException(
+                "(bulk) is only supported for POST, PUT or PATCH methods, found "
+                    + method.method());
+        }
+        if (method.body()
+            .size() != 1
+            || !(method.body()
+                .get(0) instanceof ObjectTypeDeclaration)
+            || method.body()
+                .get(0)
+                .name()
+                .equals(MULTIPART_FORM_DATA)) {
+            throw new GeneratorException("(bulk) requires a single object request body");
+        }
+        return true;
+    }
+
+    /**
+     * Checks if generated clients collect single-item calls of the given method into bulk requests.
+     * This requires a bulk method with a positive batching window and without path or query
+     * parameters, since all items of a bulk request share these parameters.
+     *
+     * @param method
+     *            HTTP method
+     * @return true if calls are to be batched
+     */
+    public boolean isBatched(Method method) {
+        return isBulk(method) && Annotations.findBulk(method) > 0 && findAllUriParameters(method)
+            .isEmpty()
+            && method.queryParameters()
+                .isEmpty();
+    }
+
+    /**
+     * Checks if responses of the given method may be cached by clients. The method must be a GET
+     * method with a response body.
+     *
+     * @param method
+     *            HTTP method
+     * @return true if the method is annotated with {@code (cacheable)} or {@code (etag)}
+     * @throws GeneratorException
+     *             if the annotations are not applicable to the method
+     */
+    public boolean isCached(Method method) {
+        if (Annotations.findCacheable(method) == null && !Annotations.isEtag(method)) {
+            return false;
+        }
+        if (!method.method()
+            .equals("get")) {
+            throw new GeneratorException(
+                "(cacheable) and (etag) are only supported for GET methods, found "
+                    + method.method());
+        }
+        if (method.responses()
+            .isEmpty()
+            || method.responses()
+                .get(0)
+                .body()
+                .isEmpty()) {
+            throw new GeneratorException("(cacheable) and (etag) require a response body");
+        }
+        return true;
+    }
 }
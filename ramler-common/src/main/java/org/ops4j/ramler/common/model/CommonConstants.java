@@ -38,6 +38,11 @@ public class CommonConstants {
      */
     public static final String INTEGER = "integer";
 
+    /**
+     * Name of built-in RAML number type.
+     */
+    public static final String NUMBER = "number";
+
     /**
      * Name of built-in RAML string type.
      */
@@ -48,6 +53,16 @@ public class CommonConstants {
      */
     public static final String BOOLEAN = "boolean";
 
+    /**
+     * Path suffix of bulk variants of methods annotated with {@code (bulk)}.
+     */
+    public static final String BULK_PATH = "/bulk";
+
+    /**
+     * Name suffix of bulk variants of methods annotated with {@code (bulk)}.
+     */
+    public static final String BULK_SUFFIX = "Bulk";
+
     private CommonConstants() {
         throw new UnsupportedOperationException();
     }
@@ -48,6 +48,50 @@ public abstract class AbstractRamlerJavaGenerator extends AbstractRamlerTask {
 
     private boolean jacksonUnion;
 
+    private boolean jacksonStreaming;
+
+    private boolean enumParamConverters;
+
+    private boolean valueClasses;
+
+    private boolean primitiveArrays;
+
+    private boolean clients;
+
+    private boolean delegators;
+
+    private boolean validation;
+
+    private boolean nativeImage;
+
+    private boolean application;
+
+    private boolean flyweights;
+
+    private boolean columnarBatches;
+
+    private boolean presenceTracking;
+
+    private boolean modelProvider;
+
+    private boolean metrics;
+
+    private String asyncResources;
+
+    private long asyncTimeout;
+
+    private String delegatorSuffix;
+
+    private String delegateFieldName;
+
+    private String delegatorDispatch;
+
+    private int delegatorConcurrency;
+
+    private boolean delegatorCoalescing;
+
+    private String applicationName;
+
     /**
      * Gets the fully qualified package name for generated Java sources. The generated classes will
      * be located in subpackages {@code model} and {@code api}.
@@ -174,6 +218,473 @@ public abstract class AbstractRamlerJavaGenerator extends AbstractRamlerTask {
         this.jacksonUnion = jacksonUnion;
     }
 
+    /**
+     * Should streaming Jackson serializers and deserializers and a Jackson module be generated for
+     * model types?
+     *
+     * @return true if streaming (de)serializers shall be generated
+     */
+    @Input
+    public boolean isJacksonStreaming() {
+        return jacksonStreaming;
+    }
+
+    /**
+     * Sets the flag enabling streaming Jackson serializers and deserializers.
+     *
+     * @param jacksonStreaming
+     *            the flag to set
+     */
+    public void setJacksonStreaming(boolean jacksonStreaming) {
+        this.jacksonStreaming = jacksonStreaming;
+    }
+
+    /**
+     * Should a JAX-RS parameter converter provider be generated for enumeration types?
+     *
+     * @return true if the provider shall be generated
+     */
+    @Input
+    public boolean isEnumParamConverters() {
+        return enumParamConverters;
+    }
+
+    /**
+     * Sets the flag enabling the JAX-RS parameter converter provider for enumeration types.
+     *
+     * @param enumParamConverters
+     *            the flag to set
+     */
+    public void setEnumParamConverters(boolean enumParamConverters) {
+        this.enumParamConverters = enumParamConverters;
+    }
+
+    /**
+     * Should object types be mapped to immutable value classes with builders instead of mutable
+     * beans?
+     *
+     * @return true if immutable value classes shall be generated
+     */
+    @Input
+    public boolean isValueClasses() {
+        return valueClasses;
+    }
+
+    /**
+     * Sets the flag enabling immutable value classes.
+     *
+     * @param valueClasses
+     *            the flag to set
+     */
+    public void setValueClasses(boolean valueClasses) {
+        this.valueClasses = valueClasses;
+    }
+
+    /**
+     * Should array properties with integer, number or boolean items be mapped to primitive Java
+     * arrays instead of lists?
+     *
+     * @return true if primitive arrays shall be generated
+     */
+    @Input
+    public boolean isPrimitiveArrays() {
+        return primitiveArrays;
+    }
+
+    /**
+     * Sets the flag enabling primitive arrays.
+     *
+     * @param primitiveArrays
+     *            the flag to set
+     */
+    public void setPrimitiveArrays(boolean primitiveArrays) {
+        this.primitiveArrays = primitiveArrays;
+    }
+
+    /**
+     * Gets the asynchronous mode for generated resource methods. Supported values are {@code none},
+     * {@code completionStage} (methods return a {@code CompletionStage}) and {@code asyncResponse}
+     * (methods take a suspended {@code AsyncResponse} parameter). The mode may be overridden per
+     * method by the {@code (async)} annotation.
+     *
+     * @return the asyncResources
+     */
+    @Input
+    @Optional
+    public String getAsyncResources() {
+        return asyncResources;
+    }
+
+    /**
+     * Sets the asynchronous mode for generated resource methods.
+     *
+     * @param asyncResources
+     *            the asyncResources to set
+     */
+    public void setAsyncResources(String asyncResources) {
+        this.asyncResources = asyncResources;
+    }
+
+    /**
+     * Gets the default timeout in milliseconds for asynchronous resource methods. A value of zero
+     * means no timeout. The timeout may be overridden per method by the {@code (asyncTimeout)}
+     * annotation.
+     *
+     * @return the asyncTimeout
+     */
+    @Input
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    /**
+     * Sets the default timeout for asynchronous resource methods.
+     *
+     * @param asyncTimeout
+     *            the asyncTimeout to set
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    /**
+     * Should HTTP client classes based on the JDK HttpClient be generated for all resources?
+     *
+     * @return true if client classes will be generated
+     */
+    @Input
+    public boolean isClients() {
+        return clients;
+    }
+
+    /**
+     * Sets the flag for client generation.
+     *
+     * @param clients
+     *            the flag to set
+     */
+    public void setClients(boolean clients) {
+        this.clients = clients;
+    }
+
+    /**
+     * Should delegator classes be generated for all resource interfaces, forwarding each call to a
+     * delegate implementing the same interface?
+     *
+     * @return true if delegator classes will be generated
+     */
+    @Input
+    public boolean isDelegators() {
+        return delegators;
+    }
+
+    /**
+     * Sets the flag for delegator generation.
+     *
+     * @param delegators
+     *            the flag to set
+     */
+    public void setDelegators(boolean delegators) {
+        this.delegators = delegators;
+    }
+
+    /**
+     * Gets the suffix for delegator class names. This suffix is appended to the code name of a
+     * resource.
+     *
+     * @return the delegatorSuffix
+     */
+    @Input
+    @Optional
+    public String getDelegatorSuffix() {
+        return delegatorSuffix;
+    }
+
+    /**
+     * Sets the suffix for delegator class names.
+     *
+     * @param delegatorSuffix
+     *            the delegatorSuffix to set
+     */
+    public void setDelegatorSuffix(String delegatorSuffix) {
+        this.delegatorSuffix = delegatorSuffix;
+    }
+
+    /**
+     * Gets the name of the delegate field of generated delegator classes.
+     *
+     * @return the delegateFieldName
+     */
+    @Input
+    @Optional
+    public String getDelegateFieldName() {
+        return delegateFieldName;
+    }
+
+    /**
+     * Sets the name of the delegate field.
+     *
+     * @param delegateFieldName
+     *            the delegateFieldName to set
+     */
+    public void setDelegateFieldName(String delegateFieldName) {
+        this.delegateFieldName = delegateFieldName;
+    }
+
+    /**
+     * Gets the dispatch mode of delegators for asynchronous resource methods. Supported values are
+     * {@code direct} (the delegate is called on the container thread), {@code executor} (the
+     * delegate is called on an executor passed to the delegator) and {@code virtualThreads} (like
+     * {@code executor}, with a default executor starting a virtual thread per call).
+     *
+     * @return the delegatorDispatch
+     */
+    @Input
+    @Optional
+    public String getDelegatorDispatch() {
+        return delegatorDispatch;
+    }
+
+    /**
+     * Sets the dispatch mode of delegators.
+     *
+     * @param delegatorDispatch
+     *            the delegatorDispatch to set
+     */
+    public void setDelegatorDispatch(String delegatorDispatch) {
+        this.delegatorDispatch = delegatorDispatch;
+    }
+
+    /**
+     * Gets the maximum number of concurrent asynchronous calls dispatched by each delegator. A
+     * value of zero means no limit.
+     *
+     * @return the delegatorConcurrency
+     */
+    @Input
+    public int getDelegatorConcurrency() {
+        return delegatorConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of concurrent calls per delegator.
+     *
+     * @param delegatorConcurrency
+     *            the delegatorConcurrency to set
+     */
+    public void setDelegatorConcurrency(int delegatorConcurrency) {
+        this.delegatorConcurrency = delegatorConcurrency;
+    }
+
+    /**
+     * Should delegators share a single call of the delegate among concurrent calls of a GET method
+     * with equal arguments?
+     *
+     * @return true if calls are coalesced
+     */
+    @Input
+    public boolean isDelegatorCoalescing() {
+        return delegatorCoalescing;
+    }
+
+    /**
+     * Sets the flag for request coalescing in delegators.
+     *
+     * @param delegatorCoalescing
+     *            the flag to set
+     */
+    public void setDelegatorCoalescing(boolean delegatorCoalescing) {
+        this.delegatorCoalescing = delegatorCoalescing;
+    }
+
+    /**
+     * Should validation methods be generated, checking the RAML facets of model properties and
+     * parameters?
+     *
+     * @return true if validation methods are generated
+     */
+    @Input
+    public boolean isValidation() {
+        return validation;
+    }
+
+    /**
+     * Sets the flag for validation method generation.
+     *
+     * @param validation
+     *            the flag to set
+     */
+    public void setValidation(boolean validation) {
+        this.validation = validation;
+    }
+
+    /**
+     * Should GraalVM native image configuration files be generated for all generated classes?
+     *
+     * @return true if native image configuration files will be generated
+     */
+    @Input
+    public boolean isNativeImage() {
+        return nativeImage;
+    }
+
+    /**
+     * Sets the flag for native image configuration generation.
+     *
+     * @param nativeImage
+     *            the flag to set
+     */
+    public void setNativeImage(boolean nativeImage) {
+        this.nativeImage = nativeImage;
+    }
+
+    /**
+     * Should a JAX-RS application class be generated, listing all resources and providers
+     * explicitly?
+     *
+     * @return true if an application class will be generated
+     */
+    @Input
+    public boolean isApplication() {
+        return application;
+    }
+
+    /**
+     * Sets the flag for application class generation.
+     *
+     * @param application
+     *            the flag to set
+     */
+    public void setApplication(boolean application) {
+        this.application = application;
+    }
+
+    /**
+     * Gets the simple name of the generated JAX-RS application class.
+     *
+     * @return the applicationName
+     */
+    @Input
+    @Optional
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    /**
+     * Sets the simple name of the generated JAX-RS application class.
+     *
+     * @param applicationName
+     *            the applicationName to set
+     */
+    public void setApplicationName(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    /**
+     * Should the generator create flyweight accessors and encoders for a binary layout of model
+     * types?
+     *
+     * @return true if flyweights will be generated
+     */
+    @Input
+    public boolean isFlyweights() {
+        return flyweights;
+    }
+
+    /**
+     * Sets the flag for flyweight generation.
+     *
+     * @param flyweights
+     *            the flag to set
+     */
+    public void setFlyweights(boolean flyweights) {
+        this.flyweights = flyweights;
+    }
+
+    /**
+     * Should the generator create columnar batch classes with one array per property for model
+     * types?
+     *
+     * @return true if columnar batches will be generated
+     */
+    @Input
+    public boolean isColumnarBatches() {
+        return columnarBatches;
+    }
+
+    /**
+     * Sets the flag for columnar batch generation.
+     *
+     * @param columnarBatches
+     *            the flag to set
+     */
+    public void setColumnarBatches(boolean columnarBatches) {
+        this.columnarBatches = columnarBatches;
+    }
+
+    /**
+     * Should the generator track the presence of properties in a bit mask, with primitive fields
+     * for optional scalars?
+     *
+     * @return true if the presence of properties will be tracked
+     */
+    @Input
+    public boolean isPresenceTracking() {
+        return presenceTracking;
+    }
+
+    /**
+     * Sets the flag for presence tracking.
+     *
+     * @param presenceTracking
+     *            the flag to set
+     */
+    public void setPresenceTracking(boolean presenceTracking) {
+        this.presenceTracking = presenceTracking;
+    }
+
+    /**
+     * Should the generator create a JAX-RS provider reading and writing model types with cached
+     * Jackson readers and writers?
+     *
+     * @return true if a model provider will be generated
+     */
+    @Input
+    public boolean isModelProvider() {
+        return modelProvider;
+    }
+
+    /**
+     * Sets the flag for model provider generation.
+     *
+     * @param modelProvider
+     *            the flag to set
+     */
+    public void setModelProvider(boolean modelProvider) {
+        this.modelProvider = modelProvider;
+    }
+
+    /**
+     * Should the generator create filters recording request counts and latency histograms per
+     * endpoint?
+     *
+     * @return true if metrics filters will be generated
+     */
+    @Input
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the flag for metrics filter generation.
+     *
+     * @param metrics
+     *            the flag to set
+     */
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Gets the default output subdirectory. This path will be appended to {@code project.buildDir}.
      *
@@ -181,6 +692,14 @@ public abstract class AbstractRamlerJavaGenerator extends AbstractRamlerTask {
      */
     protected abstract String getDefaultOutputSubdir();
 
+    /**
+     * Gets the output subdirectory for generated resources. This path will be appended to
+     * {@code project.buildDir}.
+     *
+     * @return resource output subdirectory
+     */
+    protected abstract String getDefaultResourceOutputSubdir();
+
     /**
      * Gets the source set to which sources generated by this taks will be added.
      *
@@ -201,11 +720,36 @@ public abstract class AbstractRamlerJavaGenerator extends AbstractRamlerTask {
         config.setSourceFile(sourceFile);
         config.setBasePackage(packageName);
         config.setTargetDir(new File(outputDir));
+        File resourceOutputDir = new File(getProject().getBuildDir(),
+            getDefaultResourceOutputSubdir());
+        config.setResourceTargetDir(resourceOutputDir);
         config.setDiscriminatorMutable(discriminatorMutable);
         config.setInterfaceNameSuffix(interfaceNameSuffix);
         config.setJacksonTypeInfo(jacksonTypeInfo);
         config.setJacksonPropertyName(jacksonPropertyName);
         config.setJacksonUnion(jacksonUnion);
+        config.setJacksonStreaming(jacksonStreaming);
+        config.setEnumParamConverters(enumParamConverters);
+        config.setValueClasses(valueClasses);
+        config.setPrimitiveArrays(primitiveArrays);
+        config.setAsyncResources(asyncResources);
+        config.setAsyncTimeout(asyncTimeout);
+        config.setClients(clients);
+        config.setDelegators(delegators);
+        config.setDelegatorSuffix(delegatorSuffix);
+        config.setDelegateFieldName(delegateFieldName);
+        config.setDelegatorDispatch(delegatorDispatch);
+        config.setDelegatorConcurrency(delegatorConcurrency);
+        config.setDelegatorCoalescing(delegatorCoalescing);
+        config.setValidation(validation);
+        config.setNativeImage(nativeImage);
+        config.setApplication(application);
+        config.setApplicationName(applicationName);
+        config.setFlyweights(flyweights);
+        config.setColumnarBatches(columnarBatches);
+        config.setPresenceTracking(presenceTracking);
+        config.setModelProvider(modelProvider);
+        config.setMetrics(metrics);
 
         JavaPluginConvention javaPluginConvention = getProject().getConvention()
             .getPlugin(JavaPluginConvention.class);
@@ -213,6 +757,12 @@ public abstract class AbstractRamlerJavaGenerator extends AbstractRamlerTask {
             .getByName(getSourceSet())
             .getJava()
             .srcDir(outputDir);
+        if (nativeImage) {
+            javaPluginConvention.getSourceSets()
+                .getByName(getSourceSet())
+                .getResources()
+                .srcDir(resourceOutputDir);
+        }
 
         try {
             JavaGenerator generator = new JavaGenerator(config);
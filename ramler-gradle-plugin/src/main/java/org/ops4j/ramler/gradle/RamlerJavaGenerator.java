@@ -32,6 +32,11 @@ public class RamlerJavaGenerator extends AbstractRamlerJavaGenerator {
         return "generated-sources";
     }
 
+    @Override
+    protected String getDefaultResourceOutputSubdir() {
+        return "generated-resources/ramler";
+    }
+
     @Override
     protected String getSourceSet() {
         return SourceSet.MAIN_SOURCE_SET_NAME;
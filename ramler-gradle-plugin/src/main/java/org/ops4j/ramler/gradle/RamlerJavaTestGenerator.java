@@ -32,6 +32,11 @@ public class RamlerJavaTestGenerator extends AbstractRamlerJavaGenerator {
         return "generated-test-sources";
     }
 
+    @Override
+    protected String getDefaultResourceOutputSubdir() {
+        return "generated-test-resources/ramler";
+    }
+
     @Override
     protected String getSourceSet() {
         return SourceSet.TEST_SOURCE_SET_NAME;
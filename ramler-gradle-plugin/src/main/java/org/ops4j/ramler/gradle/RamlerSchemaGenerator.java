@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.gradle;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.TaskAction;
+import org.ops4j.ramler.common.exc.RamlerException;
+import org.ops4j.ramler.schema.SchemaConfiguration;
+import org.ops4j.ramler.schema.SchemaGenerator;
+
+public class RamlerSchemaGenerator extends AbstractRamlerTask {
+
+    /**
+     * Protobuf package and Avro namespace of generated schemas.
+     */
+    private String packageName;
+
+    /**
+     * Sidecar file with persistent Protobuf field numbers, relative to the project directory.
+     */
+    private String fieldNumberFile;
+
+    /**
+     * Generate Protobuf schema.
+     */
+    private boolean protobuf = true;
+
+    /**
+     * Generate Avro schema.
+     */
+    private boolean avro;
+
+    /**
+     * Gets the package name.
+     *
+     * @return the package name
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Sets the package name.
+     *
+     * @param packageName
+     *            the package name to set
+     */
+    public void setPackageName(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Gets the field number file.
+     *
+     * @return the field number file
+     */
+    public String getFieldNumberFile() {
+        return fieldNumberFile;
+    }
+
+    /**
+     * Sets the field number file.
+     *
+     * @param fieldNumberFile
+     *            the field number file to set
+     */
+    public void setFieldNumberFile(String fieldNumberFile) {
+        this.fieldNumberFile = fieldNumberFile;
+    }
+
+    /**
+     * Gets the protobuf.
+     *
+     * @return the protobuf
+     */
+    public boolean isProtobuf() {
+        return protobuf;
+    }
+
+    /**
+     * Sets the protobuf.
+     *
+     * @param protobuf
+     *            the protobuf to set
+     */
+    public void setProtobuf(boolean protobuf) {
+        this.protobuf = protobuf;
+    }
+
+    /**
+     * Gets the avro.
+     *
+     * @return the avro
+     */
+    public boolean isAvro() {
+        return avro;
+    }
+
+    /**
+     * Sets the avro.
+     *
+     * @param avro
+     *            the avro to set
+     */
+    public void setAvro(boolean avro) {
+        this.avro = avro;
+    }
+
+    @TaskAction
+    public void generate() {
+        getLogger().info("Generating schemas from {}", getModel());
+        String sourceFile = new File(getProject().getProjectDir(), getModel()).getPath();
+        String outputDir = java.util.Optional.ofNullable(getOutputDir())
+            .orElse(new File(getProject().getBuildDir(), "ramler/schema").getPath());
+        SchemaConfiguration config = new SchemaConfiguration();
+        config.setSourceFile(sourceFile);
+        config.setTargetDir(new File(outputDir));
+        config.setPackageName(packageName);
+        if (fieldNumberFile != null) {
+            config.setFieldNumberFile(new File(getProject().getProjectDir(), fieldNumberFile));
+        }
+        config.setGenerateProtobuf(protobuf);
+        config.setGenerateAvro(avro);
+
+        try {
+            SchemaGenerator generator = new SchemaGenerator(config);
+            generator.generate();
+        }
+        catch (RamlerException | IOException exc) {
+            throw new GradleException("Schema generation failed", exc);
+        }
+    }
+}
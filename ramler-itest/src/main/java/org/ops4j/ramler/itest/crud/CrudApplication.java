@@ -18,9 +18,15 @@
 package org.ops4j.ramler.itest.crud;
 
 import javax.ws.rs.ApplicationPath;
-import javax.ws.rs.core.Application;
+
+import org.ops4j.ramler.itest.crud.api.ApiApplication;
+import org.ops4j.ramler.itest.crud.api.UserResource;
 
 @ApplicationPath("/")
-public class CrudApplication extends Application {
+public class CrudApplication extends ApiApplication {
 
+    @Override
+    protected Class<? extends UserResource> getUserResourceClass() {
+        return UserResourceImpl.class;
+    }
 }
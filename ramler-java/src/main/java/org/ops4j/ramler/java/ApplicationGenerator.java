@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.ext.Provider;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates an abstract JAX-RS application class listing all resources and providers explicitly, so
+ * that the container need not scan the deployment for annotated classes.
+ * <p>
+ * The application class has an abstract method per resource interface returning the implementation
+ * class, and a static index of the generated resource interfaces, providers and model classes.
+ * <p>
+ * This generator inspects the complete code model, so it must be run after all visitors.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class ApplicationGenerator {
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    /**
+     * Creates an application generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public ApplicationGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+    }
+
+    /**
+     * Generates the application class in the API package.
+     */
+    public void generateApplication() {
+        JPackage pkg = context.getApiPackage();
+        List<JDefinedClass> resources = new ArrayList<>();
+        List<JDefinedClass> providers = new ArrayList<>();
+        Iterator<JDefinedClass> it = pkg.classes();
+        while (it.hasNext()) {
+            JDefinedClass klass = it.next();
+            if (klass.isInterface() && isAnnotated(klass, Path.class)) {
+                resources.add(klass);
+            }
+            else if (isAnnotated(klass, Provider.class)) {
+                providers.add(klass);
+            }
+        }
+        List<JDefinedClass> modelClasses = new ArrayList<>();
+        context.getModelPackage()
+            .classes()
+            .forEachRemaining(modelClasses::add);
+
+        JDefinedClass app;
+        try {
+            app = pkg._class(JMod.PUBLIC | JMod.ABSTRACT, context.getConfig()
+                .getApplicationName());
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        app._extends(Application.class);
+        context.annotateAsGenerated(app);
+        app.javadoc()
+            .add("JAX-RS application with all generated resources and providers. Subclasses "
+                + "provide the resource implementation classes.");
+
+        generateClassIndex(app, "RESOURCE_INTERFACES", resources, "Generated resource interfaces.");
+        JFieldVar providerIndex = generateClassIndex(app, "PROVIDERS", providers,
+            "Generated JAX-RS providers.");
+        generateClassIndex(app, "MODEL_CLASSES", modelClasses, "Generated model classes.");
+
+        List<JMethod> implementationGetters = new ArrayList<>();
+        for (JDefinedClass resource : resources) {
+            JMethod getter = app.method(JMod.PROTECTED | JMod.ABSTRACT, codeModel.ref(Class.class)
+                .narrow(resource.wildcard()), "get" + resource.name() + "Class");
+            getter.javadoc()
+                .add(String.format("Gets the implementation class of {@link %s}.",
+                    resource.name()));
+            getter.javadoc()
+                .addReturn()
+                .add("resource class");
+            implementationGetters.add(getter);
+        }
+
+        generateGetClasses(app, implementationGetters, providerIndex);
+    }
+
+    private boolean isAnnotated(JDefinedClass klass, Class<? extends Annotation> annotation) {
+        return klass.annotations()
+            .stream()
+            .anyMatch(a -> a.getAnnotationClass()
+                .fullName()
+                .equals(annotation.getName()));
+    }
+
+    private JFieldVar generateClassIndex(JDefinedClass app, String name,
+        List<JDefinedClass> classes, String comment) {
+        JClass classType = codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard());
+        JInvocation asList = codeModel.ref(Arrays.class)
+            .staticInvoke("asList");
+        classes.forEach(c -> asList.arg(c.dotclass()));
+        JFieldVar field = app.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL,
+            codeModel.ref(List.class)
+                .narrow(classType),
+            name, codeModel.ref(Collections.class)
+                .staticInvoke("unmodifiableList")
+                .arg(asList));
+        field.javadoc()
+            .add(comment);
+        return field;
+    }
+
+    private void generateGetClasses(JDefinedClass app, List<JMethod> implementationGetters,
+        JFieldVar providerIndex) {
+        JClass classType = codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard());
+        JClass setType = codeModel.ref(Set.class)
+            .narrow(classType);
+        JMethod getClasses = app.method(JMod.PUBLIC, setType, "getClasses");
+        getClasses.annotate(Override.class);
+
+        JBlock body = getClasses.body();
+        JVar classes = body.decl(setType, "classes", JExpr._new(codeModel.ref(LinkedHashSet.class)
+            .narrow(classType)));
+        for (JMethod getter : implementationGetters) {
+            body.invoke(classes, "add")
+                .arg(JExpr.invoke(getter));
+        }
+        body.invoke(classes, "addAll")
+            .arg(providerIndex);
+        body._return(classes);
+    }
+}
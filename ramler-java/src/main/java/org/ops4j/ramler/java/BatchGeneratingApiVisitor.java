@@ -0,0 +1,887 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.common.helper.NameFactory.getAccessorName;
+import static org.ops4j.ramler.common.helper.NameFactory.getCheckerName;
+import static org.ops4j.ramler.common.helper.NameFactory.getGetterName;
+import static org.ops4j.ramler.common.helper.NameFactory.getSetterName;
+import static org.ops4j.ramler.java.JavaConstants.BATCH_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.DISCRIMINATOR;
+import static org.ops4j.ramler.java.JavaConstants.TYPE_VARS;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.helper.NameFactory;
+import org.ops4j.ramler.common.model.Annotations;
+import org.ops4j.ramler.common.model.ApiVisitor;
+import org.raml.v2.api.model.v10.api.Api;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JAssignmentTarget;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * API visitor generating columnar batch classes for the POJO classes created by the other visitors.
+ * A batch holds a sequence of objects of a given type in a struct-of-arrays layout, with one array
+ * per property instead of one POJO per object.
+ * <p>
+ * Numeric and boolean properties are stored in primitive arrays, with a bit set marking the
+ * presence of optional values. Enumeration properties are stored as ordinals, and string properties
+ * are dictionary encoded, storing an index into a list of distinct values. All columns are exposed
+ * to consumers iterating over a property of all objects.
+ * <p>
+ * Each batch class has a streaming Jackson serializer and deserializer, reading and writing a JSON
+ * array of objects directly from and to the columns. Types with properties which do not fit into a
+ * column of scalars, like arrays, nested objects or temporal types, are skipped, as well as generic
+ * types and types with derived types. A row of a batch always has the discriminator value of the
+ * batch type, and the deserializer rejects rows with any other discriminator value.
+ * <p>
+ * This visitor must be run after the POJO generating visitors.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class BatchGeneratingApiVisitor implements ApiVisitor {
+
+    private static Logger log = LoggerFactory.getLogger(BatchGeneratingApiVisitor.class);
+
+    private static final String DEFAULT_CAPACITY = "DEFAULT_CAPACITY";
+
+    private static final String SIZE = "size";
+
+    private static final String CAPACITY = "capacity";
+
+    private static final String ROW = "row";
+
+    private static final String ADD_ROW = "addRow";
+
+    private static final String ENCODE = "encode";
+
+    /**
+     * Kind of a column, with the methods for reading the corresponding JSON value.
+     */
+    private enum Kind {
+        BOOLEAN("getBooleanValue"), INT("getIntValue"), LONG("getLongValue"), FLOAT(
+            "getFloatValue"), DOUBLE("getDoubleValue"), ENUM("getText"), STRING("getText");
+
+        private String parserMethod;
+
+        Kind(String parserMethod) {
+            this.parserMethod = parserMethod;
+        }
+    }
+
+    /**
+     * Column of a batch class, storing the values of a given property.
+     */
+    private static class Column {
+
+        private TypeDeclaration property;
+
+        private JFieldVar field;
+
+        private Kind kind;
+
+        private JFieldVar values;
+
+        private JFieldVar present;
+
+        private JFieldVar dictionary;
+
+        private JFieldVar index;
+
+        private JMethod getter;
+
+        private JMethod checker;
+
+        private JMethod setter;
+
+        private boolean isOptional() {
+            return present != null;
+        }
+    }
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private NameFactory nameFactory;
+
+    private List<ObjectTypeDeclaration> objectTypes = new ArrayList<>();
+
+    /**
+     * Creates a visitor for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public BatchGeneratingApiVisitor(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getBatchPackage();
+        this.nameFactory = new JavaNameFactory();
+    }
+
+    @Override
+    public void visitObjectTypeStart(ObjectTypeDeclaration type) {
+        if (context.getApiModel()
+            .isInternal(type) || isGeneric(type)) {
+            return;
+        }
+        if (!context.getApiModel()
+            .findDerivedTypes(type.name())
+            .isEmpty()) {
+            log.debug("skipping batch for {} with derived types", type.name());
+            return;
+        }
+        objectTypes.add(type);
+    }
+
+    @Override
+    public void visitApiEnd(Api api) {
+        for (ObjectTypeDeclaration type : objectTypes) {
+            List<Column> columns = buildColumns(type);
+            if (columns != null) {
+                generateBatch(type, columns);
+            }
+        }
+    }
+
+    private boolean isGeneric(TypeDeclaration type) {
+        if (!Annotations.getStringAnnotations(type, TYPE_VARS)
+            .isEmpty()) {
+            return true;
+        }
+        return type.parentTypes()
+            .stream()
+            .anyMatch(this::isGeneric);
+    }
+
+    /**
+     * Computes the columns of the given type.
+     *
+     * @param type
+     *            object type
+     * @return list of columns, or null if the type cannot be stored in columns
+     */
+    private List<Column> buildColumns(ObjectTypeDeclaration type) {
+        JDefinedClass pojo = context.getModelPackage()
+            ._getClass(type.name());
+        List<Column> columns = new ArrayList<>();
+        for (TypeDeclaration property : type.properties()) {
+            if (property.name()
+                .startsWith("/")) {
+                log.debug("skipping batch for {} with additional properties", type.name());
+                return null;
+            }
+            JFieldVar field = findField(pojo, nameFactory.buildVariableName(property));
+            if (field == null) {
+                // immutable discriminator
+                continue;
+            }
+            Kind kind = toKind(field.type());
+            if (kind == null) {
+                log.debug("skipping batch for {}, property {} is not a scalar", type.name(),
+                    property.name());
+                return null;
+            }
+            Column column = new Column();
+            column.property = property;
+            column.field = field;
+            column.kind = kind;
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    private Kind toKind(JType type) {
+        JType primitive = type.unboxify();
+        if (primitive == codeModel.BOOLEAN) {
+            return Kind.BOOLEAN;
+        }
+        if (primitive == codeModel.INT) {
+            return Kind.INT;
+        }
+        if (primitive == codeModel.LONG) {
+            return Kind.LONG;
+        }
+        if (primitive == codeModel.FLOAT) {
+            return Kind.FLOAT;
+        }
+        if (primitive == codeModel.DOUBLE) {
+            return Kind.DOUBLE;
+        }
+        if (type.fullName()
+            .equals(String.class.getName())) {
+            return Kind.STRING;
+        }
+        if (type instanceof JDefinedClass
+            && ((JDefinedClass) type).getClassType() == ClassType.ENUM) {
+            return Kind.ENUM;
+        }
+        return null;
+    }
+
+    private JFieldVar findField(JDefinedClass klass, String fieldName) {
+        JClass current = klass;
+        while (current instanceof JDefinedClass) {
+            JFieldVar field = ((JDefinedClass) current).fields()
+                .get(fieldName);
+            if (field != null) {
+                return field;
+            }
+            current = current._extends();
+        }
+        return null;
+    }
+
+    private void generateBatch(ObjectTypeDeclaration type, List<Column> columns) {
+        JDefinedClass pojo = context.getModelPackage()
+            ._getClass(type.name());
+        JDefinedClass batch = createClass(type.name() + BATCH_SUFFIX);
+        batch.javadoc()
+            .add(String.format("Sequence of {@link %s} objects stored column by column, with one "
+                + "array per property. Rows are appended with {@link #%s()} or "
+                + "{@link #add(%s)}.", pojo.fullName(), ADD_ROW, pojo.name()));
+
+        JFieldVar defaultCapacity = batch.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            codeModel.INT, DEFAULT_CAPACITY, JExpr.lit(16));
+        JFieldVar size = batch.field(JMod.PRIVATE, codeModel.INT, SIZE);
+        JFieldVar capacity = batch.field(JMod.PRIVATE, codeModel.INT, CAPACITY);
+        for (Column column : columns) {
+            generateColumnFields(batch, column);
+        }
+        generateConstructors(batch, columns, defaultCapacity, capacity);
+
+        JMethod sizeMethod = batch.method(JMod.PUBLIC, codeModel.INT, SIZE);
+        sizeMethod.javadoc()
+            .add("Gets the number of rows in this batch.");
+        sizeMethod.javadoc()
+            .addReturn()
+            .add("number of rows");
+        sizeMethod.body()
+            ._return(size);
+
+        generateClear(batch, columns, size);
+        JMethod encode = null;
+        for (Column column : columns) {
+            if (column.kind == Kind.STRING && encode == null) {
+                encode = generateEncode(batch);
+            }
+            generateColumnAccessors(batch, column, encode);
+        }
+        JMethod addRow = generateAddRow(batch, columns, defaultCapacity, size, capacity);
+        generateAdd(batch, pojo, columns, addRow);
+
+        JDefinedClass serializer = generateSerializer(type, pojo, batch, columns);
+        JDefinedClass deserializer = generateDeserializer(type, batch, columns);
+        batch.annotate(JsonSerialize.class)
+            .param("using", serializer);
+        batch.annotate(JsonDeserialize.class)
+            .param("using", deserializer);
+    }
+
+    private JDefinedClass createClass(String className) {
+        try {
+            JDefinedClass klass = pkg._class(className);
+            context.annotateAsGenerated(klass);
+            return klass;
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+    }
+
+    private void generateColumnFields(JDefinedClass batch, Column column) {
+        String fieldName = column.field.name();
+        column.values = batch.field(JMod.PRIVATE, columnType(column), fieldName + "Column");
+        if (column.kind == Kind.STRING) {
+            column.dictionary = batch.field(JMod.PRIVATE | JMod.FINAL,
+                codeModel.ref(List.class)
+                    .narrow(String.class),
+                fieldName + "Dictionary", JExpr._new(codeModel.ref(ArrayList.class)
+                    .narrow(String.class)));
+            column.index = batch.field(JMod.PRIVATE | JMod.FINAL, codeModel.ref(Map.class)
+                .narrow(String.class, Integer.class), fieldName + "Index",
+                JExpr._new(codeModel.ref(HashMap.class)
+                    .narrow(String.class, Integer.class)));
+        }
+        else if (column.kind != Kind.ENUM && mayBeAbsent(column)) {
+            column.present = batch.field(JMod.PRIVATE | JMod.FINAL, BitSet.class,
+                fieldName + "Present", JExpr._new(codeModel.ref(BitSet.class)));
+        }
+    }
+
+    /**
+     * Checks if the values of the given column may be absent. This is the case for reference types
+     * and for optional properties with presence tracking.
+     */
+    private boolean mayBeAbsent(Column column) {
+        return !column.field.type()
+            .isPrimitive() || !Boolean.TRUE.equals(column.property.required());
+    }
+
+    /**
+     * Gets the array type of the given column. Enumerations and strings are stored as {@code int}
+     * codes, with {@code -1} representing null.
+     */
+    private JType columnType(Column column) {
+        switch (column.kind) {
+            case ENUM:
+            case STRING:
+                return codeModel.INT.array();
+            default:
+                return column.field.type()
+                    .unboxify()
+                    .array();
+        }
+    }
+
+    private void generateConstructors(JDefinedClass batch, List<Column> columns,
+        JFieldVar defaultCapacity, JFieldVar capacity) {
+        JMethod defaultConstructor = batch.constructor(JMod.PUBLIC);
+        defaultConstructor.javadoc()
+            .add("Creates an empty batch with default capacity.");
+        defaultConstructor.body()
+            .invoke("this")
+            .arg(defaultCapacity);
+
+        JMethod constructor = batch.constructor(JMod.PUBLIC);
+        JVar capacityParam = constructor.param(codeModel.INT, CAPACITY);
+        constructor.javadoc()
+            .add("Creates an empty batch with the given initial capacity.");
+        constructor.javadoc()
+            .addParam(capacityParam)
+            .add("initial number of rows");
+        JBlock body = constructor.body();
+        body.assign(JExpr._this()
+            .ref(capacity), capacityParam);
+        for (Column column : columns) {
+            body.assign(JExpr._this()
+                .ref(column.values),
+                JExpr.newArray(columnType(column).elementType(),
+                    capacityParam));
+        }
+    }
+
+    private void generateClear(JDefinedClass batch, List<Column> columns, JFieldVar size) {
+        JMethod clear = batch.method(JMod.PUBLIC, codeModel.VOID, "clear");
+        clear.javadoc()
+            .add("Removes all rows, keeping the allocated capacity.");
+        JBlock body = clear.body();
+        body.assign(size, JExpr.lit(0));
+        for (Column column : columns) {
+            if (column.isOptional()) {
+                body.invoke(column.present, "clear");
+            }
+            if (column.kind == Kind.STRING) {
+                body.invoke(column.dictionary, "clear");
+                body.invoke(column.index, "clear");
+            }
+        }
+    }
+
+    /**
+     * Generates a method returning the dictionary code for a given string, adding the string to the
+     * dictionary if needed.
+     */
+    private JMethod generateEncode(JDefinedClass batch) {
+        JMethod encode = batch.method(JMod.PRIVATE | JMod.STATIC, codeModel.INT, ENCODE);
+        JVar value = encode.param(String.class, VALUE);
+        JVar dictionary = encode.param(codeModel.ref(List.class)
+            .narrow(String.class), "dictionary");
+        JVar index = encode.param(codeModel.ref(Map.class)
+            .narrow(String.class, Integer.class), "index");
+        JBlock body = encode.body();
+        body._if(value.eq(JExpr._null()))
+            ._then()
+            ._return(JExpr.lit(-1));
+        JVar code = body.decl(codeModel.ref(Integer.class), "code", index.invoke("get")
+            .arg(value));
+        JBlock then = body._if(code.eq(JExpr._null()))
+            ._then();
+        then.assign(code, dictionary.invoke(SIZE));
+        then.invoke(dictionary, "add")
+            .arg(value);
+        then.invoke(index, "put")
+            .arg(value)
+            .arg(code);
+        body._return(code);
+        return encode;
+    }
+
+    private void generateColumnAccessors(JDefinedClass batch, Column column, JMethod encode) {
+        String fieldName = column.field.name();
+        JType type = column.field.type();
+
+        JType valueType = (column.kind == Kind.STRING || column.kind == Kind.ENUM) ? type
+            : type.unboxify();
+        String getterName = (column.kind == Kind.BOOLEAN) ? getCheckerName(fieldName)
+            : getGetterName(fieldName);
+        column.getter = batch.method(JMod.PUBLIC, valueType, getterName);
+        JVar row = column.getter.param(codeModel.INT, ROW);
+        if (column.property.description() != null) {
+            column.getter.javadoc()
+                .add(column.property.description()
+                    .value());
+        }
+        column.getter.javadoc()
+            .addParam(row)
+            .add("row index");
+        column.getter.javadoc()
+            .addReturn()
+            .add("property value");
+        JExpression element = column.values.component(row);
+        switch (column.kind) {
+            case STRING:
+                column.getter.body()
+                    ._return(JOp.cond(element.lt(JExpr.lit(0)), JExpr._null(),
+                        column.dictionary.invoke("get")
+                            .arg(element)));
+                break;
+            case ENUM:
+                JFieldVar values = batch.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                    type.array(), NameFactory.buildConstantName(fieldName) + "_VALUES",
+                    ((JClass) type).staticInvoke("values"));
+                column.getter.body()
+                    ._return(JOp.cond(element.lt(JExpr.lit(0)), JExpr._null(),
+                        values.component(element)));
+                break;
+            default:
+                column.getter.body()
+                    ._return(element);
+        }
+
+        if (column.isOptional()) {
+            column.checker = batch.method(JMod.PUBLIC, codeModel.BOOLEAN,
+                getAccessorName("has", fieldName));
+            row = column.checker.param(codeModel.INT, ROW);
+            column.checker.javadoc()
+                .add(String.format("Checks if property {@code %s} is present in the given row.",
+                    column.property.name()));
+            column.checker.javadoc()
+                .addParam(row)
+                .add("row index");
+            column.checker.javadoc()
+                .addReturn()
+                .add("true if present");
+            column.checker.body()
+                ._return(column.present.invoke("get")
+                    .arg(row));
+        }
+
+        column.setter = batch.method(JMod.PUBLIC, codeModel.VOID, getSetterName(fieldName));
+        row = column.setter.param(codeModel.INT, ROW);
+        JVar value = column.setter.param(valueType, VALUE);
+        column.setter.javadoc()
+            .add(String.format("Sets property {@code %s} in the given row.",
+                column.property.name()));
+        column.setter.javadoc()
+            .addParam(row)
+            .add("row index");
+        column.setter.javadoc()
+            .addParam(value)
+            .add("property value");
+        JBlock body = column.setter.body();
+        JAssignmentTarget target = JExpr.component(column.values, row);
+        switch (column.kind) {
+            case STRING:
+                body.assign(target, JExpr.invoke(encode)
+                    .arg(value)
+                    .arg(column.dictionary)
+                    .arg(column.index));
+                break;
+            case ENUM:
+                body.assign(target, JOp.cond(value.eq(JExpr._null()), JExpr.lit(-1),
+                    value.invoke("ordinal")));
+                break;
+            default:
+                body.assign(target, value);
+        }
+        if (column.isOptional()) {
+            body.invoke(column.present, "set")
+                .arg(row);
+        }
+
+        generateColumnGetter(batch, column);
+    }
+
+    private void generateColumnGetter(JDefinedClass batch, Column column) {
+        JMethod columnGetter = batch.method(JMod.PUBLIC, column.values.type(),
+            getGetterName(column.values.name()));
+        switch (column.kind) {
+            case STRING:
+                columnGetter.javadoc()
+                    .add(String.format("Gets the dictionary codes of property {@code %s}, with "
+                        + "{@code -1} representing null.", column.property.name()));
+                break;
+            case ENUM:
+                columnGetter.javadoc()
+                    .add(String.format("Gets the ordinals of property {@code %s}, with "
+                        + "{@code -1} representing null.", column.property.name()));
+                break;
+            default:
+                columnGetter.javadoc()
+                    .add(String.format("Gets the values of property {@code %s}.",
+                        column.property.name()));
+        }
+        columnGetter.javadoc()
+            .add(" The array is shared with this batch and may be longer than the number of "
+                + "rows.");
+        columnGetter.javadoc()
+            .addReturn()
+            .add("column array");
+        columnGetter.body()
+            ._return(column.values);
+
+        if (column.kind == Kind.STRING) {
+            JMethod dictionaryGetter = batch.method(JMod.PUBLIC, column.dictionary.type(),
+                getGetterName(column.dictionary.name()));
+            dictionaryGetter.javadoc()
+                .add(String.format("Gets the distinct values of property {@code %s}, indexed "
+                    + "by dictionary code.", column.property.name()));
+            dictionaryGetter.javadoc()
+                .addReturn()
+                .add("unmodifiable list of values");
+            dictionaryGetter.body()
+                ._return(codeModel.ref(Collections.class)
+                    .staticInvoke("unmodifiableList")
+                    .arg(column.dictionary));
+        }
+    }
+
+    private JMethod generateAddRow(JDefinedClass batch, List<Column> columns,
+        JFieldVar defaultCapacity, JFieldVar size, JFieldVar capacity) {
+        JMethod addRow = batch.method(JMod.PUBLIC, codeModel.INT, ADD_ROW);
+        addRow.javadoc()
+            .add("Appends a row with all properties set to their default values, growing the "
+                + "columns as needed.");
+        addRow.javadoc()
+            .addReturn()
+            .add("index of the new row");
+        JBlock body = addRow.body();
+        JBlock grow = body._if(size.eq(capacity))
+            ._then();
+        grow.assign(capacity, codeModel.ref(Math.class)
+            .staticInvoke("max")
+            .arg(capacity.mul(JExpr.lit(2)))
+            .arg(defaultCapacity));
+        for (Column column : columns) {
+            grow.assign(column.values, codeModel.ref(Arrays.class)
+                .staticInvoke("copyOf")
+                .arg(column.values)
+                .arg(capacity));
+        }
+        for (Column column : columns) {
+            if (column.kind == Kind.STRING || column.kind == Kind.ENUM) {
+                body.assign(column.values.component(size), JExpr.lit(-1));
+            }
+        }
+        body._return(size.incr());
+        return addRow;
+    }
+
+    private void generateAdd(JDefinedClass batch, JDefinedClass pojo, List<Column> columns,
+        JMethod addRow) {
+        JMethod add = batch.method(JMod.PUBLIC, codeModel.INT, "add");
+        JVar value = add.param(pojo, VALUE);
+        add.javadoc()
+            .add("Appends a row with all properties of the given object.");
+        add.javadoc()
+            .addParam(value)
+            .add("object to be added");
+        add.javadoc()
+            .addReturn()
+            .add("index of the new row");
+        JBlock body = add.body();
+        JVar row = body.decl(codeModel.INT, ROW, JExpr.invoke(addRow));
+        for (Column column : columns) {
+            String fieldName = column.field.name();
+            String getterName = (column.kind == Kind.BOOLEAN) ? getCheckerName(fieldName)
+                : getGetterName(fieldName);
+            if (column.isOptional()) {
+                body._if(isPresent(value, column.field, getterName))
+                    ._then()
+                    .invoke(column.setter)
+                    .arg(row)
+                    .arg(value.invoke(getterName));
+            }
+            else {
+                body.invoke(column.setter)
+                    .arg(row)
+                    .arg(value.invoke(getterName));
+            }
+        }
+        body._return(row);
+    }
+
+    private JExpression isPresent(JVar value, JFieldVar field, String getterName) {
+        if (field.type()
+            .isPrimitive()) {
+            return value.invoke(getAccessorName("has", field.name()));
+        }
+        return value.invoke(getterName)
+            .ne(JExpr._null());
+    }
+
+    private JDefinedClass generateSerializer(ObjectTypeDeclaration type, JDefinedClass pojo,
+        JDefinedClass batch, List<Column> columns) {
+        JDefinedClass serializer = createClass(batch.name() + "Serializer");
+        serializer._extends(codeModel.ref(StdSerializer.class)
+            .narrow(batch));
+        addDefaultSerialVersionUid(serializer);
+        addConstructor(serializer, batch);
+        serializer.javadoc()
+            .add(String.format("Writes a {@link %s} as a JSON array of objects.", batch.name()));
+
+        JMethod serialize = serializer.method(JMod.PUBLIC, codeModel.VOID, "serialize");
+        serialize.annotate(Override.class);
+        JVar value = serialize.param(batch, VALUE);
+        JVar gen = serialize.param(JsonGenerator.class, "gen");
+        serialize.param(SerializerProvider.class, "provider");
+        serialize._throws(IOException.class);
+        JBlock body = serialize.body();
+        body.invoke(gen, "writeStartArray")
+            .arg(value.invoke(SIZE));
+        JForLoop loop = body._for();
+        JVar row = loop.init(codeModel.INT, ROW, JExpr.lit(0));
+        loop.test(row.lt(value.invoke(SIZE)));
+        loop.update(row.incr());
+        JBlock loopBody = loop.body();
+        loopBody.invoke(gen, "writeStartObject");
+        int columnIndex = 0;
+        for (TypeDeclaration property : type.properties()) {
+            Column column = (columnIndex < columns.size()) ? columns.get(columnIndex) : null;
+            JFieldVar propertyName = serializer.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                SerializedString.class, buildConstantName(serializer, property),
+                JExpr._new(codeModel.ref(SerializedString.class))
+                    .arg(property.name()));
+            loopBody.invoke(gen, "writeFieldName")
+                .arg(propertyName);
+            if (column == null || !column.property.name()
+                .equals(property.name())) {
+                // immutable discriminator
+                loopBody.invoke(gen, "writeString")
+                    .arg(pojo.staticRef(DISCRIMINATOR));
+                continue;
+            }
+            writeColumnValue(loopBody, column, value, row, gen);
+            columnIndex++;
+        }
+        loopBody.invoke(gen, "writeEndObject");
+        body.invoke(gen, "writeEndArray");
+        return serializer;
+    }
+
+    private void writeColumnValue(JBlock block, Column column, JVar value, JVar row,
+        JVar gen) {
+        JExpression element = value.invoke(column.getter)
+            .arg(row);
+        switch (column.kind) {
+            case STRING:
+                block.invoke(gen, "writeString")
+                    .arg(element);
+                break;
+            case ENUM:
+                JConditional ifNull = block._if(element.eq(JExpr._null()));
+                ifNull._then()
+                    .invoke(gen, "writeNull");
+                ifNull._else()
+                    .invoke(gen, "writeString")
+                    .arg(value.invoke(column.getter)
+                        .arg(row)
+                        .invoke(VALUE));
+                break;
+            default:
+                JBlock present = block;
+                if (column.isOptional()) {
+                    JConditional ifPresent = block._if(value.invoke(column.checker)
+                        .arg(row));
+                    ifPresent._else()
+                        .invoke(gen, "writeNull");
+                    present = ifPresent._then();
+                }
+                present.invoke(gen, (column.kind == Kind.BOOLEAN) ? "writeBoolean"
+                    : "writeNumber")
+                    .arg(element);
+        }
+    }
+
+    private JDefinedClass generateDeserializer(ObjectTypeDeclaration type, JDefinedClass batch,
+        List<Column> columns) {
+        JDefinedClass deserializer = createClass(batch.name() + "Deserializer");
+        deserializer._extends(codeModel.ref(StdDeserializer.class)
+            .narrow(batch));
+        addDefaultSerialVersionUid(deserializer);
+        addConstructor(deserializer, batch);
+        deserializer.javadoc()
+            .add(String.format("Reads a JSON array of objects into a {@link %s}, filling the "
+                + "columns directly.", batch.name()));
+
+        JMethod deserialize = deserializer.method(JMod.PUBLIC, batch, "deserialize");
+        deserialize.annotate(Override.class);
+        JVar parser = deserialize.param(JsonParser.class, "parser");
+        JVar ctxt = deserialize.param(DeserializationContext.class, "context");
+        deserialize._throws(IOException.class);
+
+        JBlock body = deserialize.body();
+        body._if(parser.invoke("isExpectedStartArrayToken")
+            .not())
+            ._then()
+            ._return(JExpr.cast(batch, ctxt.invoke("handleUnexpectedToken")
+                .arg(batch.dotclass())
+                .arg(parser)));
+        JVar result = body.decl(batch, "result", JExpr._new(batch));
+        JWhileLoop rows = body._while(parser.invoke("nextToken")
+            .eq(token("START_OBJECT")));
+        JBlock rowBody = rows.body();
+        JVar row = rowBody.decl(codeModel.INT, ROW, result.invoke(ADD_ROW));
+        JWhileLoop fields = rowBody._while(parser.invoke("nextToken")
+            .eq(token("FIELD_NAME")));
+        JBlock fieldBody = fields.body();
+        JVar name = fieldBody.decl(codeModel.ref(String.class), "name",
+            parser.invoke("getCurrentName"));
+        fieldBody._if(parser.invoke("nextToken")
+            .eq(token("VALUE_NULL")))
+            ._then()
+            ._continue();
+        JSwitch switchBlock = fieldBody._switch(name);
+        for (Column column : columns) {
+            JBlock caseBody = switchBlock._case(JExpr.lit(column.property.name()))
+                .body();
+            JExpression parsed = parser.invoke(column.kind.parserMethod);
+            if (column.kind == Kind.ENUM) {
+                parsed = ((JClass) column.field.type()).staticInvoke("fromString")
+                    .arg(parsed);
+            }
+            caseBody.invoke(result, column.setter)
+                .arg(row)
+                .arg(parsed);
+            caseBody._break();
+        }
+        if (type.discriminator() != null && columns.stream()
+            .noneMatch(c -> c.property.name()
+                .equals(type.discriminator()))) {
+            JDefinedClass pojo = context.getModelPackage()
+                ._getClass(type.name());
+            JBlock caseBody = switchBlock._case(JExpr.lit(type.discriminator()))
+                .body();
+            JVar discriminator = caseBody.decl(codeModel.ref(String.class), "discriminator",
+                parser.invoke("getText"));
+            caseBody._if(pojo.staticRef(DISCRIMINATOR)
+                .invoke("equals")
+                .arg(discriminator)
+                .not())
+                ._then()
+                .invoke(ctxt, "reportInputMismatch")
+                .arg(JExpr._this())
+                .arg(String.format("Unexpected discriminator value '%%s' in %s, expected '%%s'",
+                    batch.name()))
+                .arg(discriminator)
+                .arg(pojo.staticRef(DISCRIMINATOR));
+            caseBody._break();
+        }
+        switchBlock._default()
+            .body()
+            .invoke(ctxt, "handleUnknownProperty")
+            .arg(parser)
+            .arg(JExpr._this())
+            .arg(result)
+            .arg(name);
+        body._if(parser.invoke("getCurrentToken")
+            .ne(token("END_ARRAY")))
+            ._then()
+            ._return(JExpr.cast(batch, ctxt.invoke("handleUnexpectedToken")
+                .arg(batch.dotclass())
+                .arg(parser)));
+        body._return(result);
+        return deserializer;
+    }
+
+    private String buildConstantName(JDefinedClass klass, TypeDeclaration property) {
+        String constantName = NameFactory.buildConstantName(property.name());
+        String uniqueName = constantName;
+        int suffix = 1;
+        while (klass.fields()
+            .containsKey(uniqueName)) {
+            uniqueName = constantName + "_" + suffix++;
+        }
+        return uniqueName;
+    }
+
+    private void addDefaultSerialVersionUid(JDefinedClass klass) {
+        JFieldVar uid = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, codeModel.LONG,
+            "serialVersionUID");
+        uid.init(JExpr.lit(1L));
+    }
+
+    private void addConstructor(JDefinedClass klass, JClass valueClass) {
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        constructor.body()
+            .invoke("super")
+            .arg(valueClass.dotclass());
+    }
+
+    private JExpression token(String name) {
+        return codeModel.ref(JsonToken.class)
+            .staticRef(name);
+    }
+}
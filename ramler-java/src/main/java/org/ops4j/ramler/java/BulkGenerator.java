@@ -0,0 +1,582 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.common.helper.NameFactory.getGetterName;
+import static org.ops4j.ramler.common.helper.NameFactory.getSetterName;
+import static org.ops4j.ramler.java.JavaConstants.BULK_BATCHER;
+import static org.ops4j.ramler.java.JavaConstants.BULK_DISPATCHER;
+import static org.ops4j.ramler.java.JavaConstants.BULK_ITEMS;
+import static org.ops4j.ramler.java.JavaConstants.BULK_ITEM_RESULT;
+import static org.ops4j.ramler.java.JavaConstants.BULK_RESULT;
+import static org.ops4j.ramler.java.JavaConstants.CLIENT_EXCEPTION;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.exc.GeneratorException;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates the support classes for methods annotated with {@code (bulk)}: the result envelope
+ * {@code BulkResult} with a {@code BulkItemResult} per item in the model package, a
+ * {@code BulkDispatcher} in the delegator package, which fans out the items of a bulk call to the
+ * single-item method in parallel, and a {@code BulkBatcher} in the client package, which collects
+ * single-item calls within a time window into one bulk request.
+ * <p>
+ * Each class is generated on demand, only once per code model.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class BulkGenerator {
+
+    private static final String STATUS = "status";
+
+    private static final String VALUE = "value";
+
+    private static final String ERROR = "error";
+
+    private static final String EXECUTOR = "executor";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    /**
+     * Creates a bulk generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public BulkGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+    }
+
+    private JDefinedClass createClass(JPackage pkg, int mods, String name) {
+        if (pkg == context.getModelPackage() && context.getApiModel()
+            .getDeclaredType(name) != null) {
+            throw new GeneratorException(
+                "type " + name + " conflicts with the generated envelope of (bulk) methods");
+        }
+        JDefinedClass klass;
+        try {
+            klass = pkg._class(mods, name);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(klass);
+        return klass;
+    }
+
+    private JFieldVar addProperty(JDefinedClass klass, JType type, String fieldName) {
+        JFieldVar field = klass.field(JMod.PRIVATE, type, fieldName);
+        klass.method(JMod.PUBLIC, type, getGetterName(fieldName))
+            .body()
+            ._return(field);
+        JMethod setter = klass.method(JMod.PUBLIC, codeModel.VOID, getSetterName(fieldName));
+        JVar param = setter.param(type, fieldName);
+        setter.body()
+            .assign(JExpr._this()
+                .ref(field), param);
+        return field;
+    }
+
+    /**
+     * Gets the result class for a single item of a bulk method, generating it on first use.
+     *
+     * @return bulk item result class
+     */
+    public JDefinedClass getBulkItemResultClass() {
+        JDefinedClass itemResult = context.getModelPackage()
+            ._getClass(BULK_ITEM_RESULT);
+        if (itemResult != null) {
+            return itemResult;
+        }
+        itemResult = createClass(context.getModelPackage(), JMod.PUBLIC, BULK_ITEM_RESULT);
+        JTypeVar t = itemResult.generify("T");
+        itemResult.javadoc()
+            .add("Result of a single item of a bulk method, with the HTTP status of the item and "
+                + "either the value or an error message.");
+
+        JFieldVar status = addProperty(itemResult, codeModel.INT, STATUS);
+        addProperty(itemResult, t, VALUE);
+        addProperty(itemResult, codeModel.ref(String.class), ERROR);
+
+        JMethod hasFailed = itemResult.method(JMod.PUBLIC, codeModel.BOOLEAN, "hasFailed");
+        hasFailed.javadoc()
+            .add("Checks if this item has failed.");
+        hasFailed.javadoc()
+            .addReturn()
+            .add("true if the status is not a success status");
+        hasFailed.body()
+            ._return(status.lt(JExpr.lit(200))
+                .cor(status.gte(JExpr.lit(300))));
+        return itemResult;
+    }
+
+    /**
+     * Gets the result envelope class of bulk methods, generating it on first use.
+     *
+     * @return bulk result class
+     */
+    public JDefinedClass getBulkResultClass() {
+        JDefinedClass result = context.getModelPackage()
+            ._getClass(BULK_RESULT);
+        if (result != null) {
+            return result;
+        }
+        JDefinedClass itemResult = getBulkItemResultClass();
+        result = createClass(context.getModelPackage(), JMod.PUBLIC, BULK_RESULT);
+        JTypeVar t = result.generify("T");
+        result.javadoc()
+            .add("Result of a bulk method, with one result per item in the order of the request. "
+                + "Some items may have failed while others have succeeded.");
+
+        JClass itemType = itemResult.narrow(t);
+        JFieldVar items = addProperty(result, codeModel.ref(List.class)
+            .narrow(itemType), BULK_ITEMS);
+
+        JMethod hasFailures = result.method(JMod.PUBLIC, codeModel.BOOLEAN, "hasFailures");
+        hasFailures.javadoc()
+            .add("Checks if any item has failed.");
+        hasFailures.javadoc()
+            .addReturn()
+            .add("true if at least one item has failed");
+        JBlock body = hasFailures.body();
+        body._if(items.eq(JExpr._null()))
+            ._then()
+            ._return(JExpr.FALSE);
+        JForEach forEach = body.forEach(itemType, "item", items);
+        forEach.body()
+            ._if(forEach.var()
+                .invoke("hasFailed"))
+            ._then()
+            ._return(JExpr.TRUE);
+        body._return(JExpr.FALSE);
+        return result;
+    }
+
+    /**
+     * Gets the dispatcher class of delegators for bulk methods, generating it on first use.
+     *
+     * @return bulk dispatcher class
+     */
+    public JDefinedClass getBulkDispatcherClass() {
+        JPackage pkg = context.getDelegatorPackage();
+        JDefinedClass dispatcher = pkg._getClass(BULK_DISPATCHER);
+        if (dispatcher != null) {
+            return dispatcher;
+        }
+        dispatcher = createClass(pkg, JMod.PUBLIC | JMod.FINAL, BULK_DISPATCHER);
+        dispatcher.javadoc()
+            .add("Dispatches the items of a bulk call to the corresponding single-item method in "
+                + "parallel. The failure of an item is recorded in the item result and does not "
+                + "affect the other items.");
+        dispatcher.constructor(JMod.PRIVATE);
+
+        JMethod toItemResult = generateToItemResult(dispatcher);
+        generateDispatch(dispatcher, toItemResult);
+        return dispatcher;
+    }
+
+    private JMethod generateToItemResult(JDefinedClass dispatcher) {
+        JMethod method = dispatcher.method(JMod.PRIVATE | JMod.STATIC, codeModel.VOID,
+            "toItemResult");
+        JTypeVar r = method.generify("R");
+        JClass itemResultType = getBulkItemResultClass().narrow(r);
+        method.type(itemResultType);
+        JVar value = method.param(r, VALUE);
+        JVar exc = method.param(Throwable.class, "exc");
+
+        JBlock body = method.body();
+        JVar result = body.decl(itemResultType, "result", JExpr._new(itemResultType));
+        JBlock success = body._if(exc.eq(JExpr._null()))
+            ._then();
+        success.invoke(result, getSetterName(STATUS))
+            .arg(JExpr.lit(200));
+        success.invoke(result, getSetterName(VALUE))
+            .arg(value);
+        success._return(result);
+
+        JVar cause = body.decl(codeModel.ref(Throwable.class), "cause",
+            JOp.cond(exc._instanceof(codeModel.ref(CompletionException.class))
+                .cand(exc.invoke("getCause")
+                    .ne(JExpr._null())),
+                exc.invoke("getCause"), exc));
+        JVar status = body.decl(codeModel.INT, STATUS, JExpr.lit(500));
+        JBlock webAppExc = body._if(cause._instanceof(codeModel.ref(WebApplicationException.class)))
+            ._then();
+        JExpression webAppCause = JExpr.cast(codeModel.ref(WebApplicationException.class), cause);
+        webAppExc.assign(status, webAppCause.invoke("getResponse")
+            .invoke("getStatus"));
+        body.invoke(result, getSetterName(STATUS))
+            .arg(status);
+        body.invoke(result, getSetterName(ERROR))
+            .arg(cause.invoke("getMessage"));
+        body._return(result);
+        return method;
+    }
+
+    private void generateDispatch(JDefinedClass dispatcher, JMethod toItemResult) {
+        JMethod dispatch = dispatcher.method(JMod.PUBLIC | JMod.STATIC, codeModel.VOID,
+            "dispatch");
+        JTypeVar t = dispatch.generify("T");
+        JTypeVar r = dispatch.generify("R");
+        JClass resultType = getBulkResultClass().narrow(r);
+        JClass itemResultType = getBulkItemResultClass().narrow(r);
+        JClass itemStageType = codeModel.ref(CompletionStage.class)
+            .narrow(r);
+        JClass itemFutureType = codeModel.ref(CompletableFuture.class)
+            .narrow(itemResultType);
+        dispatch.type(codeModel.ref(CompletionStage.class)
+            .narrow(resultType));
+        JVar items = dispatch.param(codeModel.ref(List.class)
+            .narrow(t), BULK_ITEMS);
+        JVar call = dispatch.param(JMod.FINAL, codeModel.ref(Function.class)
+            .narrow(t, itemStageType), "call");
+        JVar executor = dispatch.param(Executor.class, EXECUTOR);
+        dispatch.javadoc()
+            .add("Calls the given single-item method for each item on the given executor.");
+        dispatch.javadoc()
+            .addParam(items)
+            .add("items of the bulk call");
+        dispatch.javadoc()
+            .addParam(call)
+            .add("single-item method");
+        dispatch.javadoc()
+            .addParam(executor)
+            .add("executor for the single-item calls");
+        dispatch.javadoc()
+            .addReturn()
+            .add("bulk result, completed when all items have completed");
+
+        JBlock body = dispatch.body();
+        JClass listType = codeModel.ref(List.class)
+            .narrow(itemFutureType);
+        JVar futures = body.decl(JMod.FINAL, listType, "futures",
+            JExpr._new(codeModel.ref(ArrayList.class)
+                .narrow(itemFutureType)));
+        JForEach forEach = body.forEach(t, "item", items);
+        JVar item = forEach.var();
+
+        JDefinedClass supplier = codeModel.anonymousClass(codeModel.ref(Supplier.class)
+            .narrow(itemStageType));
+        JMethod get = supplier.method(JMod.PUBLIC, itemStageType, "get");
+        get.annotate(Override.class);
+        get.body()
+            ._return(call.invoke("apply")
+                .arg(item));
+
+        JDefinedClass handler = codeModel.anonymousClass(codeModel.ref(BiFunction.class)
+            .narrow(r, codeModel.ref(Throwable.class), itemResultType));
+        JMethod apply = handler.method(JMod.PUBLIC, itemResultType, "apply");
+        apply.annotate(Override.class);
+        JVar value = apply.param(r, VALUE);
+        JVar exc = apply.param(Throwable.class, "exc");
+        apply.body()
+            ._return(dispatcher.staticInvoke(toItemResult)
+                .arg(value)
+                .arg(exc));
+
+        forEach.body()
+            .invoke(futures, "add")
+            .arg(codeModel.ref(CompletableFuture.class)
+                .staticInvoke("supplyAsync")
+                .arg(JExpr._new(supplier))
+                .arg(executor)
+                .invoke("thenCompose")
+                .arg(codeModel.ref(Function.class)
+                    .staticInvoke("identity"))
+                .invoke("handle")
+                .arg(JExpr._new(handler)));
+
+        JDefinedClass collector = codeModel.anonymousClass(codeModel.ref(Function.class)
+            .narrow(codeModel.ref(Void.class), resultType));
+        JMethod collect = collector.method(JMod.PUBLIC, resultType, "apply");
+        collect.annotate(Override.class);
+        collect.param(Void.class, "ignored");
+        JBlock collectBody = collect.body();
+        JClass itemListType = codeModel.ref(List.class)
+            .narrow(itemResultType);
+        JVar itemResults = collectBody.decl(itemListType, "itemResults",
+            JExpr._new(codeModel.ref(ArrayList.class)
+                .narrow(itemResultType))
+                .arg(futures.invoke("size")));
+        JForEach collectLoop = collectBody.forEach(itemFutureType, "future", futures);
+        collectLoop.body()
+            .invoke(itemResults, "add")
+            .arg(collectLoop.var()
+                .invoke("join"));
+        JVar result = collectBody.decl(resultType, "result", JExpr._new(resultType));
+        collectBody.invoke(result, getSetterName(BULK_ITEMS))
+            .arg(itemResults);
+        collectBody._return(result);
+
+        body._return(codeModel.ref(CompletableFuture.class)
+            .staticInvoke("allOf")
+            .arg(futures.invoke("toArray")
+                .arg(JExpr.newArray(codeModel.ref(CompletableFuture.class), 0)))
+            .invoke("thenApply")
+            .arg(JExpr._new(collector)));
+    }
+
+    /**
+     * Gets the client class collecting single-item calls into bulk requests, generating it on first
+     * use.
+     *
+     * @return bulk batcher class
+     */
+    public JDefinedClass getBulkBatcherClass() {
+        JPackage pkg = context.getClientPackage();
+        JDefinedClass batcher = pkg._getClass(BULK_BATCHER);
+        if (batcher != null) {
+            return batcher;
+        }
+        batcher = createClass(pkg, JMod.PUBLIC | JMod.FINAL, BULK_BATCHER);
+        JTypeVar t = batcher.generify("T");
+        JTypeVar r = batcher.generify("R");
+        batcher.javadoc()
+            .add("Collects single-item calls of a bulk method within a time window and sends "
+                + "them as one bulk request. The first call of a batch starts the window.");
+
+        JClass resultType = getBulkResultClass().narrow(r);
+        JClass senderType = codeModel.ref(Function.class)
+            .narrow(codeModel.ref(List.class)
+                .narrow(t),
+                codeModel.ref(CompletableFuture.class)
+                    .narrow(resultType));
+        JClass entryType = codeModel.ref(Map.Entry.class)
+            .narrow(t, codeModel.ref(CompletableFuture.class)
+                .narrow(r));
+        JClass pendingType = codeModel.ref(List.class)
+            .narrow(entryType);
+
+        JFieldVar sender = batcher.field(JMod.PRIVATE | JMod.FINAL, senderType, "sender");
+        JFieldVar window = batcher.field(JMod.PRIVATE | JMod.FINAL, codeModel.LONG, "window");
+        JFieldVar pending = batcher.field(JMod.PRIVATE, pendingType, "pending",
+            JExpr._new(codeModel.ref(ArrayList.class)
+                .narrow(entryType)));
+
+        JMethod constructor = batcher.constructor(JMod.PUBLIC);
+        JVar senderParam = constructor.param(senderType, "sender");
+        JVar windowParam = constructor.param(codeModel.LONG, "window");
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(sender), senderParam);
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(window), windowParam);
+        constructor.javadoc()
+            .add("Creates a batcher for the given bulk request sender.");
+        constructor.javadoc()
+            .addParam(senderParam)
+            .add("function sending a bulk request");
+        constructor.javadoc()
+            .addParam(windowParam)
+            .add("time window in milliseconds");
+
+        JMethod enqueue = batcher.method(JMod.PRIVATE | JMod.SYNCHRONIZED, codeModel.BOOLEAN,
+            "enqueue");
+        JVar entry = enqueue.param(entryType, "entry");
+        enqueue.body()
+            .invoke(pending, "add")
+            .arg(entry);
+        enqueue.body()
+            ._return(pending.invoke("size")
+                .eq(JExpr.lit(1)));
+
+        JMethod drain = batcher.method(JMod.PRIVATE | JMod.SYNCHRONIZED, pendingType, "drain");
+        JVar drained = drain.body()
+            .decl(pendingType, "drained", pending);
+        drain.body()
+            .assign(pending, JExpr._new(codeModel.ref(ArrayList.class)
+                .narrow(entryType)));
+        drain.body()
+            ._return(drained);
+
+        JMethod complete = generateComplete(batcher, r, pendingType, resultType);
+        JMethod flush = generateFlush(batcher, t, sender, drain, complete, pendingType,
+            resultType);
+
+        JMethod submit = batcher.method(JMod.PUBLIC, codeModel.ref(CompletableFuture.class)
+            .narrow(r), "submit");
+        JVar item = submit.param(t, "item");
+        submit.javadoc()
+            .add("Submits an item to be sent with the next bulk request.");
+        submit.javadoc()
+            .addParam(item)
+            .add("item");
+        submit.javadoc()
+            .addReturn()
+            .add("future result of this item");
+        JBlock body = submit.body();
+        JClass futureType = codeModel.ref(CompletableFuture.class)
+            .narrow(r);
+        JVar future = body.decl(futureType, "future", JExpr._new(futureType));
+        JDefinedClass flushTask = codeModel.anonymousClass(Runnable.class);
+        JMethod run = flushTask.method(JMod.PUBLIC, codeModel.VOID, "run");
+        run.annotate(Override.class);
+        run.body()
+            .invoke(flush);
+        body._if(JExpr.invoke(enqueue)
+            .arg(JExpr._new(codeModel.ref(AbstractMap.SimpleImmutableEntry.class)
+                .narrow(t, futureType))
+                .arg(item)
+                .arg(future)))
+            ._then()
+            .add(codeModel.ref(CompletableFuture.class)
+                .staticInvoke("delayedExecutor")
+                .arg(window)
+                .arg(codeModel.ref(TimeUnit.class)
+                    .staticRef("MILLISECONDS"))
+                .invoke("execute")
+                .arg(JExpr._new(flushTask)));
+        body._return(future);
+        return batcher;
+    }
+
+    private JMethod generateFlush(JDefinedClass batcher, JTypeVar t, JFieldVar sender,
+        JMethod drain, JMethod complete, JClass pendingType, JClass resultType) {
+        JMethod flush = batcher.method(JMod.PUBLIC, codeModel.VOID, "flush");
+        flush.javadoc()
+            .add("Sends all pending items immediately.");
+        JBlock body = flush.body();
+        JVar batch = body.decl(JMod.FINAL, pendingType, "batch", JExpr.invoke(drain));
+        body._if(batch.invoke("isEmpty"))
+            ._then()
+            ._return();
+        JClass listType = codeModel.ref(List.class)
+            .narrow(t);
+        JVar items = body.decl(listType, BULK_ITEMS, JExpr._new(codeModel.ref(ArrayList.class)
+            .narrow(t))
+            .arg(batch.invoke("size")));
+        JForEach forEach = body.forEach(((JClass) pendingType).getTypeParameters()
+            .get(0), "entry", batch);
+        forEach.body()
+            .invoke(items, "add")
+            .arg(forEach.var()
+                .invoke("getKey"));
+
+        JDefinedClass callback = codeModel.anonymousClass(codeModel.ref(BiConsumer.class)
+            .narrow(resultType, codeModel.ref(Throwable.class)));
+        JMethod accept = callback.method(JMod.PUBLIC, codeModel.VOID, "accept");
+        accept.annotate(Override.class);
+        JVar result = accept.param(resultType, "result");
+        JVar exc = accept.param(Throwable.class, "exc");
+        accept.body()
+            .invoke(complete)
+            .arg(batch)
+            .arg(result)
+            .arg(exc);
+
+        body.add(sender.invoke("apply")
+            .arg(items)
+            .invoke("whenComplete")
+            .arg(JExpr._new(callback)));
+        return flush;
+    }
+
+    private JMethod generateComplete(JDefinedClass batcher, JTypeVar r, JClass pendingType,
+        JClass resultType) {
+        JMethod complete = batcher.method(JMod.PRIVATE, codeModel.VOID, "complete");
+        JVar batch = complete.param(pendingType, "batch");
+        JVar result = complete.param(resultType, "result");
+        JVar exc = complete.param(Throwable.class, "exc");
+
+        JClass itemResultType = getBulkItemResultClass().narrow(r);
+        JForLoop loop = complete.body()
+            ._for();
+        JVar i = loop.init(codeModel.INT, "i", JExpr.lit(0));
+        loop.test(i.lt(batch.invoke("size")));
+        loop.update(i.incr());
+        JBlock body = loop.body();
+        JVar future = body.decl(codeModel.ref(CompletableFuture.class)
+            .narrow(r), "future",
+            batch.invoke("get")
+                .arg(i)
+                .invoke("getValue"));
+        JConditional ifFailed = body._if(exc.ne(JExpr._null()));
+        ifFailed._then()
+            .invoke(future, "completeExceptionally")
+            .arg(exc);
+        JConditional ifMissing = ifFailed._else()
+            ._if(i.gte(result.invoke(getGetterName(BULK_ITEMS))
+                .invoke("size")));
+        ifMissing._then()
+            .invoke(future, "completeExceptionally")
+            .arg(JExpr._new(codeModel.ref(IllegalStateException.class))
+                .arg("missing result of bulk item"));
+        JBlock found = ifMissing._else();
+        JVar itemResult = found.decl(itemResultType, "itemResult",
+            result.invoke(getGetterName(BULK_ITEMS))
+                .invoke("get")
+                .arg(i));
+        JConditional ifItemFailed = found._if(itemResult.invoke("hasFailed"));
+        JVar error = ifItemFailed._then()
+            .decl(codeModel.ref(String.class), ERROR, itemResult.invoke(getGetterName(ERROR)));
+        ifItemFailed._then()
+            .invoke(future, "completeExceptionally")
+            .arg(JExpr._new(context.getClientPackage()
+                ._getClass(CLIENT_EXCEPTION))
+                .arg(itemResult.invoke(getGetterName(STATUS)))
+                .arg(JOp.cond(error.eq(JExpr._null()), JExpr.newArray(codeModel.BYTE, 0),
+                    error.invoke("getBytes")
+                        .arg(codeModel.ref(StandardCharsets.class)
+                            .staticRef("UTF_8")))));
+        ifItemFailed._else()
+            .invoke(future, "complete")
+            .arg(itemResult.invoke(getGetterName(VALUE)));
+        return complete;
+    }
+}
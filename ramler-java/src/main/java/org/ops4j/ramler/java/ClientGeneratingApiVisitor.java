@@ -0,0 +1,575 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.common.model.CommonConstants.BULK_PATH;
+import static org.ops4j.ramler.common.model.CommonConstants.BULK_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.BULK_ITEMS;
+import static org.ops4j.ramler.java.JavaConstants.CLIENT_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.CURSOR;
+import static org.ops4j.ramler.java.JavaConstants.LIMIT;
+import static org.ops4j.ramler.java.JavaConstants.TYPE_ARGS;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.helper.NameFactory;
+import org.ops4j.ramler.common.model.Annotations;
+import org.ops4j.ramler.common.model.ApiVisitor;
+import org.raml.v2.api.model.v10.api.Api;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+import org.raml.v2.api.model.v10.methods.Method;
+import org.raml.v2.api.model.v10.resources.Resource;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * API visitor generating an HTTP client class for each RAML resource, based on the JDK
+ * {@code HttpClient}.
+ * <p>
+ * For each resource method, the client has a synchronous method and an asynchronous method with
+ * suffix {@code Async} returning a {@code CompletableFuture}. The request URI is built from literal
+ * path segments and encoded parameters computed at generation time, so no URI templates are parsed
+ * at run time.
+ * <p>
+ * Responses of methods annotated with {@code (cacheable)} or {@code (etag)} are cached by the
+ * client base class and revalidated with an {@code If-None-Match} header.
+ * <p>
+ * Methods with {@code multipart/form-data} bodies are not supported and will be skipped.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class ClientGeneratingApiVisitor implements ApiVisitor {
+
+    private static final Pattern URI_PARAM = Pattern.compile("\\{([^}]+)\\}");
+
+    private static final String HTTP_REQUEST = "java.net.http.HttpRequest";
+
+    private static final String BODY_KEY = "";
+
+    private static final String QUERY_PREFIX = "?";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private JDefinedClass baseClass;
+
+    private JDefinedClass klass;
+
+    private Resource outerResource;
+
+    private NameFactory nameFactory;
+
+    private PageGenerator pageGenerator;
+
+    private BulkGenerator bulkGenerator;
+
+    /**
+     * Creates a visitor for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public ClientGeneratingApiVisitor(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getClientPackage();
+        this.nameFactory = new JavaNameFactory();
+        this.pageGenerator = new PageGenerator(context);
+        this.bulkGenerator = new BulkGenerator(context);
+    }
+
+    @Override
+    public void visitApiStart(Api api) {
+        baseClass = new ClientSupportGenerator(context)
+            .generateSupportClasses(hasCachedMethods(api.resources()));
+    }
+
+    private boolean hasCachedMethods(List<Resource> resources) {
+        for (Resource resource : resources) {
+            for (Method method : resource.methods()) {
+                if (context.getApiModel()
+                    .isCached(method)) {
+                    return true;
+                }
+            }
+            if (hasCachedMethods(resource.resources())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void visitResourceStart(Resource resource) {
+        if (outerResource == null) {
+            outerResource = resource;
+            createClientClass(resource);
+        }
+    }
+
+    @Override
+    public void visitResourceEnd(Resource resource) {
+        if (resource.equals(outerResource)) {
+            klass = null;
+            outerResource = null;
+        }
+    }
+
+    private void createClientClass(Resource resource) {
+        try {
+            klass = pkg._class(nameFactory.buildResourceInterfaceName(resource, CLIENT_SUFFIX));
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        klass._extends(baseClass);
+        context.annotateAsGenerated(klass);
+        klass.javadoc()
+            .add(String.format("HTTP client for resource {@code %s}.", resource.resourcePath()));
+
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        JVar httpClient = constructor.param(codeModel.ref("java.net.http.HttpClient"),
+            "httpClient");
+        JVar baseUri = constructor.param(URI.class, "baseUri");
+        JVar codec = constructor.param(pkg._getClass(JavaConstants.BODY_CODEC), "codec");
+        constructor.body()
+            .invoke("super")
+            .arg(httpClient)
+            .arg(baseUri)
+            .arg(codec);
+    }
+
+    @Override
+    public void visitMethodStart(Method method) {
+        if (isMultipart(method)) {
+            return;
+        }
+        if (method.responses()
+            .isEmpty()
+            || method.responses()
+                .get(0)
+                .body()
+                .isEmpty()) {
+            buildClientMethods(method, -1, null);
+            if (context.getApiModel()
+                .isBulk(method)) {
+                buildBulkClientMethods(method, -1, null);
+            }
+        }
+        else {
+            List<TypeDeclaration> bodies = method.responses()
+                .get(0)
+                .body();
+            for (int bodyIndex = 0; bodyIndex < bodies.size(); bodyIndex++) {
+                buildClientMethods(method, bodyIndex, bodies.get(bodyIndex));
+            }
+            if (context.getApiModel()
+                .isBulk(method)) {
+                buildBulkClientMethods(method, 0, bodies.get(0));
+            }
+        }
+    }
+
+    private boolean isMultipart(Method method) {
+        return !method.body()
+            .isEmpty()
+            && method.body()
+                .get(0)
+                .name()
+                .equals(MediaType.MULTIPART_FORM_DATA);
+    }
+
+    private void buildClientMethods(Method method, int bodyIndex, TypeDeclaration responseBody) {
+        String methodName = nameFactory.buildMethodName(method, bodyIndex);
+        JType resultType = (responseBody == null) ? codeModel.ref(Void.class)
+            : addTypeArguments(context.getJavaType(responseBody), responseBody).boxify();
+        boolean paged = responseBody != null && Annotations.findPaged(method) != null;
+        JClass itemType = null;
+        if (paged) {
+            itemType = ((JClass) resultType).getTypeParameters()
+                .get(0);
+            resultType = pageGenerator.getPageClass()
+                .narrow(itemType);
+        }
+
+        JMethod requestMethod = klass.method(JMod.PRIVATE, codeModel.ref(HTTP_REQUEST),
+            methodName + "Request");
+        Map<String, JVar> params = addParameters(method, requestMethod, paged, false);
+        buildRequest(method, requestMethod, params,
+            (responseBody == null) ? null : responseBody.name(), "");
+
+        Long maxAge = null;
+        if (context.getApiModel()
+            .isCached(method)) {
+            maxAge = Optional.ofNullable(Annotations.findCacheable(method))
+                .orElse(0L);
+        }
+        JMethod asyncMethod = buildSendMethods(method, methodName, resultType,
+            responseBody == null, requestMethod, params, maxAge);
+
+        if (paged) {
+            buildIteratorMethod(method, methodName, asyncMethod, params, itemType);
+        }
+    }
+
+    /**
+     * Builds a synchronous and an asynchronous method sending the request built by the given
+     * request method. If a maximum age is given, the response is cached.
+     *
+     * @return asynchronous method
+     */
+    private JMethod buildSendMethods(Method method, String methodName, JType resultType,
+        boolean voidResult, JMethod requestMethod, Map<String, JVar> params, Long maxAge) {
+        JExpression typeToken = buildTypeToken(methodName, resultType);
+        String send = (maxAge == null) ? "send" : "sendCached";
+
+        JMethod syncMethod = klass.method(JMod.PUBLIC, voidResult ? codeModel.VOID : resultType,
+            methodName);
+        addJavadoc(method, syncMethod);
+        JInvocation syncSend = JExpr.invoke(send)
+            .arg(invokeRequest(requestMethod, syncMethod, params))
+            .arg(typeToken);
+        if (maxAge != null) {
+            syncSend.arg(JExpr.lit(maxAge.longValue()));
+        }
+        if (voidResult) {
+            syncMethod.body()
+                .add(syncSend);
+        }
+        else {
+            syncMethod.body()
+                ._return(syncSend);
+        }
+
+        JMethod asyncMethod = klass.method(JMod.PUBLIC, codeModel.ref(CompletableFuture.class)
+            .narrow(resultType), methodName + "Async");
+        addJavadoc(method, asyncMethod);
+        JInvocation asyncSend = JExpr.invoke(send + "Async")
+            .arg(invokeRequest(requestMethod, asyncMethod, params))
+            .arg(typeToken);
+        if (maxAge != null) {
+            asyncSend.arg(JExpr.lit(maxAge.longValue()));
+        }
+        asyncMethod.body()
+            ._return(asyncSend);
+        return asyncMethod;
+    }
+
+    /**
+     * Builds the client methods for the bulk variant of the given method, and a method batching
+     * single-item calls if enabled.
+     */
+    private void buildBulkClientMethods(Method method, int bodyIndex,
+        TypeDeclaration responseBody) {
+        String itemMethodName = nameFactory.buildMethodName(method, bodyIndex);
+        JClass itemResultType = (responseBody == null) ? codeModel.ref(Void.class)
+            : (JClass) addTypeArguments(context.getJavaType(responseBody), responseBody)
+                .boxify();
+        JClass resultType = bulkGenerator.getBulkResultClass()
+            .narrow(itemResultType);
+        String methodName = itemMethodName + BULK_SUFFIX;
+
+        JMethod requestMethod = klass.method(JMod.PRIVATE, codeModel.ref(HTTP_REQUEST),
+            methodName + "Request");
+        Map<String, JVar> params = addParameters(method, requestMethod, false, true);
+        buildRequest(method, requestMethod, params,
+            (responseBody == null) ? MediaType.APPLICATION_JSON : responseBody.name(), BULK_PATH);
+
+        JMethod asyncMethod = buildSendMethods(method, methodName, resultType, false,
+            requestMethod, params, null);
+
+        if (context.getApiModel()
+            .isBatched(method)) {
+            buildBatchedMethod(method, itemMethodName, asyncMethod, itemResultType);
+        }
+    }
+
+    /**
+     * Builds a method submitting a single item to a batcher, which sends all items submitted within
+     * the batching window as one bulk request.
+     */
+    private void buildBatchedMethod(Method method, String itemMethodName, JMethod asyncMethod,
+        JClass itemResultType) {
+        TypeDeclaration body = method.body()
+            .get(0);
+        JClass bodyType = (JClass) context.getJavaType(body);
+        JClass listType = codeModel.ref(List.class)
+            .narrow(bodyType);
+        JClass futureType = (JClass) asyncMethod.type();
+        long window = Annotations.findBulk(method);
+
+        JDefinedClass sender = codeModel.anonymousClass(codeModel.ref(Function.class)
+            .narrow(listType, futureType));
+        JMethod apply = sender.method(JMod.PUBLIC, futureType, "apply");
+        apply.annotate(Override.class);
+        JVar items = apply.param(listType, BULK_ITEMS);
+        apply.body()
+            ._return(JExpr.invoke(asyncMethod)
+                .arg(items));
+
+        JClass batcherType = bulkGenerator.getBulkBatcherClass()
+            .narrow(bodyType, itemResultType);
+        JFieldVar batcher = klass.field(JMod.PRIVATE | JMod.FINAL, batcherType,
+            itemMethodName + "Batcher", JExpr._new(batcherType)
+                .arg(JExpr._new(sender))
+                .arg(JExpr.lit(window)));
+
+        JMethod batchedMethod = klass.method(JMod.PUBLIC, codeModel.ref(CompletableFuture.class)
+            .narrow(itemResultType), itemMethodName + "Batched");
+        batchedMethod.javadoc()
+            .add(String.format("Calls {@link #%s} as part of a bulk request, together with all "
+                + "other calls within %d ms.", itemMethodName, window));
+        JVar item = batchedMethod.param(bodyType, nameFactory.buildVariableName(body.type()));
+        batchedMethod.body()
+            ._return(batcher.invoke("submit")
+                .arg(item));
+    }
+
+    /**
+     * Builds a method iterating over all items of a paged collection. The cursor parameter is
+     * supplied by the page iterator, all other parameters are passed to each page request.
+     */
+    private void buildIteratorMethod(Method method, String methodName, JMethod asyncMethod,
+        Map<String, JVar> params, JClass itemType) {
+        JClass pageType = pageGenerator.getPageClass()
+            .narrow(itemType);
+        JClass futureType = codeModel.ref(CompletableFuture.class)
+            .narrow(pageType);
+        JMethod iteratorMethod = klass.method(JMod.PUBLIC, codeModel.ref(Iterator.class)
+            .narrow(itemType), methodName + "Iterator");
+        addJavadoc(method, iteratorMethod);
+
+        JDefinedClass fetcher = codeModel.anonymousClass(codeModel.ref(Function.class)
+            .narrow(codeModel.ref(String.class), futureType));
+        JMethod apply = fetcher.method(JMod.PUBLIC, futureType, "apply");
+        apply.annotate(Override.class);
+        JVar cursor = apply.param(String.class, CURSOR);
+        JInvocation fetch = JExpr.invoke(asyncMethod);
+        for (Map.Entry<String, JVar> entry : params.entrySet()) {
+            if (entry.getKey()
+                .equals(QUERY_PREFIX + CURSOR)) {
+                fetch.arg(cursor);
+            }
+            else {
+                JVar param = entry.getValue();
+                fetch.arg(iteratorMethod.param(JMod.FINAL, param.type(), param.name()));
+            }
+        }
+        apply.body()
+            ._return(fetch);
+
+        iteratorMethod.body()
+            ._return(JExpr._new(pageGenerator.getPageIteratorClass()
+                .narrow(itemType))
+                .arg(JExpr._new(fetcher)));
+    }
+
+    private JType addTypeArguments(JType resultType, TypeDeclaration body) {
+        List<String> args = Annotations.getStringAnnotations(body, TYPE_ARGS);
+        if (args.isEmpty()) {
+            return resultType;
+        }
+        JClass jclass = (JClass) resultType;
+        for (String arg : args) {
+            jclass = jclass.narrow(context.getJavaType(arg));
+        }
+        return jclass;
+    }
+
+    /**
+     * Raw types are passed as class literals. For parameterized types, a {@code Type} constant is
+     * captured once from a {@code GenericType} subclass.
+     */
+    private JExpression buildTypeToken(String methodName, JType resultType) {
+        JClass resultClass = (JClass) resultType;
+        if (resultClass.getTypeParameters()
+            .isEmpty()) {
+            return resultClass.dotclass();
+        }
+        JDefinedClass capture = codeModel.anonymousClass(codeModel.ref(GenericType.class)
+            .narrow(resultClass));
+        JFieldVar constant = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, Type.class,
+            NameFactory.buildConstantName(methodName) + "_TYPE", JExpr._new(capture)
+                .invoke("getType"));
+        return constant;
+    }
+
+    private Map<String, JVar> addParameters(Method method, JMethod codeMethod, boolean paged,
+        boolean bulk) {
+        Map<String, JVar> params = new LinkedHashMap<>();
+        if (!method.body()
+            .isEmpty()) {
+            TypeDeclaration body = method.body()
+                .get(0);
+            if (bulk) {
+                params.put(BODY_KEY, codeMethod.param(codeModel.ref(List.class)
+                    .narrow(context.getJavaType(body)), BULK_ITEMS));
+            }
+            else {
+                params.put(BODY_KEY, codeMethod.param(context.getJavaType(body),
+                    nameFactory.buildVariableName(body.type())));
+            }
+        }
+        for (TypeDeclaration pathParam : context.getApiModel()
+            .findAllUriParameters(method)) {
+            params.put(pathParam.name(), codeMethod.param(context.getJavaType(pathParam),
+                nameFactory.buildVariableName(pathParam.name())));
+        }
+        Matcher matcher = URI_PARAM.matcher(method.resource()
+            .resourcePath());
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            if (!params.containsKey(name)) {
+                params.put(name,
+                    codeMethod.param(String.class, nameFactory.buildVariableName(name)));
+            }
+        }
+        for (TypeDeclaration queryParam : method.queryParameters()) {
+            JVar param = codeMethod.param(context.getJavaType(queryParam),
+                nameFactory.buildVariableName(queryParam.name()));
+            params.put(QUERY_PREFIX + queryParam.name(), param);
+        }
+        if (paged && !params.containsKey(QUERY_PREFIX + CURSOR)) {
+            params.put(QUERY_PREFIX + CURSOR, codeMethod.param(String.class, CURSOR));
+        }
+        if (paged && !params.containsKey(QUERY_PREFIX + LIMIT)) {
+            params.put(QUERY_PREFIX + LIMIT, codeMethod.param(Integer.class, LIMIT));
+        }
+        return params;
+    }
+
+    private JInvocation invokeRequest(JMethod requestMethod, JMethod codeMethod,
+        Map<String, JVar> params) {
+        JInvocation invocation = JExpr.invoke(requestMethod);
+        for (JVar param : params.values()) {
+            invocation.arg(codeMethod.param(param.type(), param.name()));
+        }
+        return invocation;
+    }
+
+    private void buildRequest(Method method, JMethod requestMethod, Map<String, JVar> params,
+        String accept, String pathSuffix) {
+        JBlock body = requestMethod.body();
+        JInvocation uriBuilder = JExpr.invoke("newUri");
+        String path = method.resource()
+            .resourcePath() + pathSuffix;
+        Matcher matcher = URI_PARAM.matcher(path);
+        int start = 0;
+        while (matcher.find()) {
+            if (matcher.start() > start) {
+                uriBuilder = uriBuilder.invoke("append")
+                    .arg(path.substring(start, matcher.start()));
+            }
+            uriBuilder = uriBuilder.invoke("append")
+                .arg(JExpr.invoke("encodePath")
+                    .arg(params.get(matcher.group(1))));
+            start = matcher.end();
+        }
+        if (start < path.length()) {
+            uriBuilder = uriBuilder.invoke("append")
+                .arg(path.substring(start));
+        }
+        JVar uri = body.decl(codeModel.ref(StringBuilder.class), "uri", uriBuilder);
+
+        for (Map.Entry<String, JVar> entry : params.entrySet()) {
+            if (entry.getKey()
+                .startsWith(QUERY_PREFIX)) {
+                body.invoke("appendQuery")
+                    .arg(uri)
+                    .arg(entry.getKey()
+                        .substring(QUERY_PREFIX.length()))
+                    .arg(entry.getValue());
+            }
+        }
+
+        JInvocation request = codeModel.ref(HTTP_REQUEST)
+            .staticInvoke("newBuilder")
+            .arg(codeModel.ref(URI.class)
+                .staticInvoke("create")
+                .arg(uri.invoke("toString")));
+        if (accept != null) {
+            request = request.invoke("header")
+                .arg("Accept")
+                .arg(accept);
+        }
+        JVar requestBody = params.get(BODY_KEY);
+        JExpression publisher;
+        if (requestBody == null) {
+            publisher = JExpr.invoke("noBody");
+        }
+        else {
+            request = request.invoke("header")
+                .arg("Content-Type")
+                .arg(method.body()
+                    .get(0)
+                    .name());
+            publisher = JExpr.invoke("publish")
+                .arg(requestBody);
+        }
+        request = request.invoke("method")
+            .arg(method.method()
+                .toUpperCase())
+            .arg(publisher)
+            .invoke("build");
+        body._return(request);
+    }
+
+    private void addJavadoc(Method method, JMethod codeMethod) {
+        if (method.description() != null) {
+            codeMethod.javadoc()
+                .add(method.description()
+                    .value());
+        }
+        else if (method.displayName() != null) {
+            codeMethod.javadoc()
+                .add(method.displayName()
+                    .value());
+        }
+    }
+}
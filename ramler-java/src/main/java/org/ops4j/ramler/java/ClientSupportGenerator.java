@@ -0,0 +1,753 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.ABSTRACT_CLIENT;
+import static org.ops4j.ramler.java.JavaConstants.BODY_CODEC;
+import static org.ops4j.ramler.java.JavaConstants.CACHED_RESPONSE;
+import static org.ops4j.ramler.java.JavaConstants.CLIENT_EXCEPTION;
+import static org.ops4j.ramler.java.JavaConstants.JACKSON_BODY_CODEC;
+import static org.ops4j.ramler.java.JavaConstants.JACKSON_MODULE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCatchBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates the support classes shared by all HTTP client classes: the {@code BodyCodec} interface
+ * with a Jackson implementation, the {@code ClientException} for unexpected responses and the
+ * {@code AbstractClient} base class wrapping a JDK {@code HttpClient}.
+ * <p>
+ * The {@code java.net.http} classes are referenced by name, since the generator itself may run on a
+ * Java 8 runtime.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class ClientSupportGenerator {
+
+    private static final String HTTP_CLIENT = "java.net.http.HttpClient";
+
+    private static final String HTTP_REQUEST = "java.net.http.HttpRequest";
+
+    private static final String HTTP_RESPONSE = "java.net.http.HttpResponse";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private JDefinedClass codecInterface;
+
+    private JDefinedClass exceptionClass;
+
+    /**
+     * Creates a client support generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public ClientSupportGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getClientPackage();
+    }
+
+    /**
+     * Generates all client support classes.
+     *
+     * @param caching
+     *            true if the client base class needs a response cache
+     * @return the client base class
+     */
+    public JDefinedClass generateSupportClasses(boolean caching) {
+        try {
+            generateBodyCodec();
+            generateJacksonBodyCodec();
+            generateClientException();
+            return generateAbstractClient(caching);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+    }
+
+    private void generateBodyCodec() throws JClassAlreadyExistsException {
+        codecInterface = pkg._interface(BODY_CODEC);
+        context.annotateAsGenerated(codecInterface);
+        codecInterface.javadoc()
+            .add("Encodes request bodies and decodes response bodies of HTTP clients.");
+
+        JMethod encode = codecInterface.method(JMod.NONE, byte[].class, "encode");
+        encode.param(Object.class, "value");
+
+        JMethod decode = codecInterface.method(JMod.NONE, codeModel.VOID, "decode");
+        JTypeVar t = decode.generify("T");
+        decode.type(t);
+        decode.param(byte[].class, "data");
+        decode.param(Type.class, "type");
+    }
+
+    private void generateJacksonBodyCodec() throws JClassAlreadyExistsException {
+        JDefinedClass codec = pkg._class(JACKSON_BODY_CODEC);
+        codec._implements(codecInterface);
+        context.annotateAsGenerated(codec);
+        codec.javadoc()
+            .add("Body codec for JSON bodies based on a Jackson object mapper.");
+
+        JFieldVar mapper = codec.field(JMod.PRIVATE | JMod.FINAL, ObjectMapper.class, "mapper");
+
+        JMethod defaultConstructor = codec.constructor(JMod.PUBLIC);
+        JInvocation defaultMapper = JExpr._new(codeModel.ref(ObjectMapper.class))
+            .invoke("findAndRegisterModules");
+        if (context.getConfig()
+            .isJacksonStreaming()) {
+            defaultMapper = defaultMapper.invoke("registerModule")
+                .arg(JExpr._new(context.getModelPackage()
+                    ._getClass(JACKSON_MODULE)));
+        }
+        defaultConstructor.body()
+            .invoke("this")
+            .arg(defaultMapper);
+
+        JMethod constructor = codec.constructor(JMod.PUBLIC);
+        JVar mapperParam = constructor.param(ObjectMapper.class, "mapper");
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(mapper), mapperParam);
+
+        JMethod encode = codec.method(JMod.PUBLIC, byte[].class, "encode");
+        encode.annotate(Override.class);
+        JVar value = encode.param(Object.class, "value");
+        JTryBlock tryEncode = encode.body()
+            ._try();
+        tryEncode.body()
+            ._return(mapper.invoke("writeValueAsBytes")
+                .arg(value));
+        rethrowUnchecked(tryEncode);
+
+        JMethod decode = codec.method(JMod.PUBLIC, codeModel.VOID, "decode");
+        decode.annotate(Override.class);
+        JTypeVar t = decode.generify("T");
+        decode.type(t);
+        JVar data = decode.param(byte[].class, "data");
+        JVar type = decode.param(Type.class, "type");
+        JTryBlock tryDecode = decode.body()
+            ._try();
+        tryDecode.body()
+            ._return(mapper.invoke("readValue")
+                .arg(data)
+                .arg(mapper.invoke("getTypeFactory")
+                    .invoke("constructType")
+                    .arg(type)));
+        rethrowUnchecked(tryDecode);
+    }
+
+    private void rethrowUnchecked(JTryBlock tryBlock) {
+        JCatchBlock catchBlock = tryBlock._catch(codeModel.ref(IOException.class));
+        JVar exc = catchBlock.param("exc");
+        catchBlock.body()
+            ._throw(JExpr._new(codeModel.ref(UncheckedIOException.class))
+                .arg(exc));
+    }
+
+    private void generateClientException() throws JClassAlreadyExistsException {
+        exceptionClass = pkg._class(CLIENT_EXCEPTION);
+        exceptionClass._extends(RuntimeException.class);
+        context.annotateAsGenerated(exceptionClass);
+        exceptionClass.javadoc()
+            .add("Thrown by HTTP clients for responses with a status code other than 2xx.");
+        exceptionClass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, codeModel.LONG,
+            "serialVersionUID", JExpr.lit(1L));
+
+        JFieldVar statusCode = exceptionClass.field(JMod.PRIVATE | JMod.FINAL, codeModel.INT,
+            "statusCode");
+        JFieldVar body = exceptionClass.field(JMod.PRIVATE | JMod.FINAL | JMod.TRANSIENT,
+            byte[].class, "body");
+
+        JMethod constructor = exceptionClass.constructor(JMod.PUBLIC);
+        JVar statusCodeParam = constructor.param(codeModel.INT, "statusCode");
+        JVar bodyParam = constructor.param(byte[].class, "body");
+        constructor.body()
+            .invoke("super")
+            .arg(JExpr.lit("HTTP status ")
+                .plus(statusCodeParam));
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(statusCode), statusCodeParam);
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(body), bodyParam);
+
+        JMethod getStatusCode = exceptionClass.method(JMod.PUBLIC, codeModel.INT,
+            "getStatusCode");
+        getStatusCode.body()
+            ._return(statusCode);
+
+        JMethod getBody = exceptionClass.method(JMod.PUBLIC, byte[].class, "getBody");
+        getBody.body()
+            ._return(body);
+    }
+
+    private JDefinedClass generateAbstractClient(boolean caching)
+        throws JClassAlreadyExistsException {
+        JDefinedClass klass = pkg._class(JMod.PUBLIC | JMod.ABSTRACT, ABSTRACT_CLIENT);
+        context.annotateAsGenerated(klass);
+        klass.javadoc()
+            .add("Base class of generated HTTP clients. All requests of a client are sent via the "
+                + "given {@code HttpClient}, which should be shared by all clients for connection "
+                + "reuse.");
+
+        JClass httpClient = codeModel.ref(HTTP_CLIENT);
+        JClass httpResponse = codeModel.ref(HTTP_RESPONSE)
+            .narrow(byte[].class);
+
+        JFieldVar client = klass.field(JMod.PRIVATE | JMod.FINAL, httpClient, "httpClient");
+        JFieldVar baseUri = klass.field(JMod.PRIVATE | JMod.FINAL, String.class, "baseUri");
+        JFieldVar codec = klass.field(JMod.PRIVATE | JMod.FINAL, codecInterface, "codec");
+
+        generateClientConstructor(klass, client, baseUri, codec);
+        generateNewHttpClient(klass, httpClient);
+        generateNewUri(klass, baseUri);
+        JMethod encodePath = generateEncodePath(klass);
+        generateAppendQuery(klass, encodePath);
+        generatePublish(klass, codec);
+        generateNoBody(klass);
+        JMethod decode = generateDecode(klass, codec, httpResponse);
+        generateSend(klass, client, decode, httpResponse);
+        generateSendAsync(klass, client, decode, httpResponse);
+        if (caching) {
+            generateResponseCache(klass, client, codec, decode, httpResponse);
+        }
+        return klass;
+    }
+
+    private void generateClientConstructor(JDefinedClass klass, JFieldVar client,
+        JFieldVar baseUri, JFieldVar codec) {
+        JMethod constructor = klass.constructor(JMod.PROTECTED);
+        JVar clientParam = constructor.param(client.type(), "httpClient");
+        JVar baseUriParam = constructor.param(URI.class, "baseUri");
+        JVar codecParam = constructor.param(codec.type(), "codec");
+
+        JBlock body = constructor.body();
+        body.assign(JExpr._this()
+            .ref(client), clientParam);
+        JVar uri = body.decl(codeModel.ref(String.class), "uri", baseUriParam.invoke("toString"));
+        body.assign(JExpr._this()
+            .ref(baseUri),
+            JOp.cond(uri.invoke("endsWith")
+                .arg("/"),
+                uri.invoke("substring")
+                    .arg(JExpr.lit(0))
+                    .arg(uri.invoke("length")
+                        .minus(JExpr.lit(1))),
+                uri));
+        body.assign(JExpr._this()
+            .ref(codec), codecParam);
+    }
+
+    private void generateNewHttpClient(JDefinedClass klass, JClass httpClient) {
+        JMethod method = klass.method(JMod.PUBLIC | JMod.STATIC, httpClient, "newHttpClient");
+        method.javadoc()
+            .add("Creates an HTTP client preferring HTTP/2. The client should be created once and "
+                + "shared by all generated clients.");
+        method.javadoc()
+            .addReturn()
+            .add("new HTTP client");
+        method.body()
+            ._return(httpClient.staticInvoke("newBuilder")
+                .invoke("version")
+                .arg(codeModel.ref(HTTP_CLIENT + ".Version")
+                    .staticRef("HTTP_2"))
+                .invoke("build"));
+    }
+
+    private void generateNewUri(JDefinedClass klass, JFieldVar baseUri) {
+        JMethod method = klass.method(JMod.PROTECTED, StringBuilder.class, "newUri");
+        method.body()
+            ._return(JExpr._new(codeModel.ref(StringBuilder.class))
+                .arg(baseUri));
+    }
+
+    private JMethod generateEncodePath(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PROTECTED | JMod.STATIC, String.class, "encodePath");
+        JVar value = method.param(Object.class, "value");
+        method.body()
+            ._return(codeModel.ref(URLEncoder.class)
+                .staticInvoke("encode")
+                .arg(codeModel.ref(String.class)
+                    .staticInvoke("valueOf")
+                    .arg(value))
+                .arg(codeModel.ref(StandardCharsets.class)
+                    .staticRef("UTF_8"))
+                .invoke("replace")
+                .arg("+")
+                .arg("%20"));
+        return method;
+    }
+
+    private void generateAppendQuery(JDefinedClass klass, JMethod encodePath) {
+        JMethod method = klass.method(JMod.PROTECTED | JMod.STATIC, codeModel.VOID,
+            "appendQuery");
+        JVar uri = method.param(StringBuilder.class, "uri");
+        JVar name = method.param(String.class, "name");
+        JVar value = method.param(Object.class, "value");
+
+        JBlock body = method.body();
+        body._if(value.eq(JExpr._null()))
+            ._then()
+            ._return();
+        JConditional ifIterable = body._if(value._instanceof(codeModel.ref(Iterable.class)));
+        JForEach forEach = ifIterable._then()
+            .forEach(codeModel.ref(Object.class), "item",
+                JExpr.cast(codeModel.ref(Iterable.class)
+                    .narrow(codeModel.wildcard()), value));
+        forEach.body()
+            .invoke("appendQuery")
+            .arg(uri)
+            .arg(name)
+            .arg(forEach.var());
+        ifIterable._then()
+            ._return();
+        body.add(uri.invoke("append")
+            .arg(JOp.cond(uri.invoke("indexOf")
+                .arg("?")
+                .lt(JExpr.lit(0)), JExpr.lit('?'), JExpr.lit('&')))
+            .invoke("append")
+            .arg(name)
+            .invoke("append")
+            .arg(JExpr.lit('='))
+            .invoke("append")
+            .arg(JExpr.invoke(encodePath)
+                .arg(value)));
+    }
+
+    private void generatePublish(JDefinedClass klass, JFieldVar codec) {
+        JMethod method = klass.method(JMod.PROTECTED,
+            codeModel.ref(HTTP_REQUEST + ".BodyPublisher"), "publish");
+        JVar body = method.param(Object.class, "body");
+        method.body()
+            ._return(codeModel.ref(HTTP_REQUEST + ".BodyPublishers")
+                .staticInvoke("ofByteArray")
+                .arg(codec.invoke("encode")
+                    .arg(body)));
+    }
+
+    private void generateNoBody(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PROTECTED | JMod.STATIC,
+            codeModel.ref(HTTP_REQUEST + ".BodyPublisher"), "noBody");
+        method.body()
+            ._return(codeModel.ref(HTTP_REQUEST + ".BodyPublishers")
+                .staticInvoke("noBody"));
+    }
+
+    private JMethod generateDecode(JDefinedClass klass, JFieldVar codec, JClass httpResponse) {
+        JMethod method = klass.method(JMod.PRIVATE, codeModel.VOID, "decode");
+        JTypeVar t = method.generify("T");
+        method.type(t);
+        JVar response = method.param(httpResponse, "response");
+        JVar type = method.param(Type.class, "type");
+
+        JBlock body = method.body();
+        JVar statusCode = body.decl(codeModel.INT, "statusCode", response.invoke("statusCode"));
+        body._if(statusCode.lt(JExpr.lit(200))
+            .cor(statusCode.gte(JExpr.lit(300))))
+            ._then()
+            ._throw(JExpr._new(exceptionClass)
+                .arg(statusCode)
+                .arg(response.invoke("body")));
+        body._if(type.eq(codeModel.ref(Void.class)
+            .dotclass())
+            .cor(response.invoke("body")
+                .ref("length")
+                .eq(JExpr.lit(0))))
+            ._then()
+            ._return(JExpr._null());
+        body._return(codec.invoke("decode")
+            .arg(response.invoke("body"))
+            .arg(type));
+        return method;
+    }
+
+    private JExpression ofByteArray() {
+        return codeModel.ref(HTTP_RESPONSE + ".BodyHandlers")
+            .staticInvoke("ofByteArray");
+    }
+
+    private void generateSend(JDefinedClass klass, JFieldVar client, JMethod decode,
+        JClass httpResponse) {
+        JMethod method = klass.method(JMod.PROTECTED, codeModel.VOID, "send");
+        JTypeVar t = method.generify("T");
+        method.type(t);
+        JVar request = method.param(codeModel.ref(HTTP_REQUEST), "request");
+        JVar type = method.param(Type.class, "type");
+
+        JTryBlock tryBlock = method.body()
+            ._try();
+        JVar response = tryBlock.body()
+            .decl(httpResponse, "response", client.invoke("send")
+                .arg(request)
+                .arg(ofByteArray()));
+        tryBlock.body()
+            ._return(JExpr.invoke(decode)
+                .arg(response)
+                .arg(type));
+
+        rethrowUnchecked(tryBlock);
+        rethrowInterrupted(tryBlock);
+    }
+
+    private void rethrowInterrupted(JTryBlock tryBlock) {
+        JCatchBlock catchInterrupted = tryBlock._catch(codeModel.ref(InterruptedException.class));
+        JVar exc = catchInterrupted.param("exc");
+        catchInterrupted.body()
+            .add(codeModel.ref(Thread.class)
+                .staticInvoke("currentThread")
+                .invoke("interrupt"));
+        catchInterrupted.body()
+            ._throw(JExpr._new(codeModel.ref(IllegalStateException.class))
+                .arg(exc));
+    }
+
+    private void generateSendAsync(JDefinedClass klass, JFieldVar client, JMethod decode,
+        JClass httpResponse) {
+        JMethod method = klass.method(JMod.PROTECTED, codeModel.VOID, "sendAsync");
+        JTypeVar t = method.generify("T");
+        method.type(codeModel.ref(CompletableFuture.class)
+            .narrow(t));
+        JVar request = method.param(codeModel.ref(HTTP_REQUEST), "request");
+        JVar type = method.param(JMod.FINAL, Type.class, "type");
+
+        JDefinedClass decoder = codeModel.anonymousClass(codeModel.ref(Function.class)
+            .narrow(httpResponse, t));
+        JMethod apply = decoder.method(JMod.PUBLIC, t, "apply");
+        apply.annotate(Override.class);
+        JVar response = apply.param(httpResponse, "response");
+        apply.body()
+            ._return(JExpr.invoke(decode)
+                .arg(response)
+                .arg(type));
+
+        method.body()
+            ._return(client.invoke("sendAsync")
+                .arg(request)
+                .arg(ofByteArray())
+                .invoke("thenApply")
+                .arg(JExpr._new(decoder)));
+    }
+
+    /**
+     * Generates a response cache for methods with cacheable responses. Cached responses are
+     * returned without a request within their maximum age. Afterwards, they are revalidated with an
+     * {@code If-None-Match} header, if the server has sent an entity tag, so that an unchanged
+     * response is not transferred again.
+     */
+    private void generateResponseCache(JDefinedClass klass, JFieldVar client, JFieldVar codec,
+        JMethod decode, JClass httpResponse) throws JClassAlreadyExistsException {
+        JDefinedClass cachedResponse = generateCachedResponse(klass);
+        JFieldVar cacheSize = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, codeModel.INT,
+            "RESPONSE_CACHE_SIZE", JExpr.lit(256));
+        JClass mapType = codeModel.ref(LinkedHashMap.class)
+            .narrow(codeModel.ref(String.class), cachedResponse);
+        JDefinedClass lruMap = codeModel.anonymousClass(mapType);
+        lruMap.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, codeModel.LONG, "serialVersionUID",
+            JExpr.lit(1L));
+        JMethod removeEldest = lruMap.method(JMod.PROTECTED, codeModel.BOOLEAN,
+            "removeEldestEntry");
+        removeEldest.annotate(Override.class);
+        removeEldest.param(codeModel.ref(Map.Entry.class)
+            .narrow(codeModel.ref(String.class), cachedResponse), "eldest");
+        removeEldest.body()
+            ._return(JExpr.invoke("size")
+                .gt(cacheSize));
+        JFieldVar responseCache = klass.field(JMod.PRIVATE | JMod.FINAL, codeModel.ref(Map.class)
+            .narrow(codeModel.ref(String.class), cachedResponse), "responseCache",
+            codeModel.ref(Collections.class)
+                .staticInvoke("synchronizedMap")
+                .arg(JExpr._new(lruMap)
+                    .arg(JExpr.lit(16))
+                    .arg(JExpr.lit(0.75F))
+                    .arg(JExpr.TRUE)));
+
+        JMethod cacheKey = generateCacheKey(klass);
+        JMethod revalidate = generateRevalidate(klass, cachedResponse);
+        JMethod decodeCached = generateDecodeCached(klass, cachedResponse, responseCache, codec,
+            decode, httpResponse);
+        generateSendCached(klass, cachedResponse, responseCache, client, codec, cacheKey,
+            revalidate, decodeCached, httpResponse);
+        generateSendCachedAsync(klass, cachedResponse, responseCache, client, codec, cacheKey,
+            revalidate, decodeCached, httpResponse);
+    }
+
+    private JDefinedClass generateCachedResponse(JDefinedClass klass)
+        throws JClassAlreadyExistsException {
+        JDefinedClass nested = klass._class(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            CACHED_RESPONSE);
+        JFieldVar etag = nested.field(JMod.PRIVATE | JMod.FINAL, String.class, "etag");
+        JFieldVar body = nested.field(JMod.PRIVATE | JMod.FINAL, byte[].class, "body");
+        JFieldVar expires = nested.field(JMod.PRIVATE | JMod.FINAL, codeModel.LONG, "expires");
+
+        JMethod constructor = nested.constructor(JMod.NONE);
+        JVar etagParam = constructor.param(String.class, "etag");
+        JVar bodyParam = constructor.param(byte[].class, "body");
+        JVar maxAge = constructor.param(codeModel.LONG, "maxAge");
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(etag), etagParam);
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(body), bodyParam);
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(expires),
+                codeModel.ref(System.class)
+                    .staticInvoke("nanoTime")
+                    .plus(codeModel.ref(TimeUnit.class)
+                        .staticRef("SECONDS")
+                        .invoke("toNanos")
+                        .arg(maxAge)));
+
+        JMethod isFresh = nested.method(JMod.NONE, codeModel.BOOLEAN, "isFresh");
+        isFresh.body()
+            ._return(codeModel.ref(System.class)
+                .staticInvoke("nanoTime")
+                .minus(expires)
+                .lt(JExpr.lit(0L)));
+        return nested;
+    }
+
+    private JMethod generateCacheKey(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, String.class, "cacheKey");
+        JVar request = method.param(codeModel.ref(HTTP_REQUEST), "request");
+        method.body()
+            ._return(request.invoke("uri")
+                .plus(JExpr.lit(" "))
+                .plus(request.invoke("headers")
+                    .invoke("firstValue")
+                    .arg("Accept")
+                    .invoke("orElse")
+                    .arg("")));
+        return method;
+    }
+
+    private JMethod generateRevalidate(JDefinedClass klass, JDefinedClass cachedResponse) {
+        JClass requestType = codeModel.ref(HTTP_REQUEST);
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, requestType, "revalidate");
+        JVar request = method.param(requestType, "request");
+        JVar cached = method.param(cachedResponse, "cached");
+
+        JBlock body = method.body();
+        body._if(cached.eq(JExpr._null())
+            .cor(cached.ref("etag")
+                .eq(JExpr._null())))
+            ._then()
+            ._return(request);
+        JVar builder = body.decl(codeModel.ref(HTTP_REQUEST + ".Builder"), "builder",
+            requestType.staticInvoke("newBuilder")
+                .arg(request.invoke("uri")));
+        JForEach forHeaders = body.forEach(codeModel.ref(Map.Entry.class)
+            .narrow(codeModel.ref(String.class), codeModel.ref(List.class)
+                .narrow(String.class)),
+            "header", request.invoke("headers")
+                .invoke("map")
+                .invoke("entrySet"));
+        JForEach forValues = forHeaders.body()
+            .forEach(codeModel.ref(String.class), "value", forHeaders.var()
+                .invoke("getValue"));
+        forValues.body()
+            .invoke(builder, "header")
+            .arg(forHeaders.var()
+                .invoke("getKey"))
+            .arg(forValues.var());
+        body._return(builder.invoke("header")
+            .arg("If-None-Match")
+            .arg(cached.ref("etag"))
+            .invoke("GET")
+            .invoke("build"));
+        return method;
+    }
+
+    private JMethod generateDecodeCached(JDefinedClass klass, JDefinedClass cachedResponse,
+        JFieldVar responseCache, JFieldVar codec, JMethod decode, JClass httpResponse) {
+        JMethod method = klass.method(JMod.PRIVATE, codeModel.VOID, "decodeCached");
+        JTypeVar t = method.generify("T");
+        method.type(t);
+        JVar key = method.param(String.class, "key");
+        JVar cached = method.param(cachedResponse, "cached");
+        JVar response = method.param(httpResponse, "response");
+        JVar type = method.param(Type.class, "type");
+        JVar maxAge = method.param(codeModel.LONG, "maxAge");
+
+        JBlock body = method.body();
+        JBlock notModified = body._if(response.invoke("statusCode")
+            .eq(JExpr.lit(304))
+            .cand(cached.ne(JExpr._null())))
+            ._then();
+        notModified.invoke(responseCache, "put")
+            .arg(key)
+            .arg(JExpr._new(cachedResponse)
+                .arg(cached.ref("etag"))
+                .arg(cached.ref("body"))
+                .arg(maxAge));
+        notModified._return(codec.invoke("decode")
+            .arg(cached.ref("body"))
+            .arg(type));
+
+        JVar result = body.decl(t, "result", JExpr.invoke(decode)
+            .arg(response)
+            .arg(type));
+        JVar etag = body.decl(codeModel.ref(String.class), "etag", response.invoke("headers")
+            .invoke("firstValue")
+            .arg("ETag")
+            .invoke("orElse")
+            .arg(JExpr._null()));
+        body._if(etag.ne(JExpr._null())
+            .cor(maxAge.gt(JExpr.lit(0L))))
+            ._then()
+            .invoke(responseCache, "put")
+            .arg(key)
+            .arg(JExpr._new(cachedResponse)
+                .arg(etag)
+                .arg(response.invoke("body"))
+                .arg(maxAge));
+        body._return(result);
+        return method;
+    }
+
+    private void generateSendCached(JDefinedClass klass, JDefinedClass cachedResponse,
+        JFieldVar responseCache, JFieldVar client, JFieldVar codec, JMethod cacheKey,
+        JMethod revalidate, JMethod decodeCached, JClass httpResponse) {
+        JMethod method = klass.method(JMod.PROTECTED, codeModel.VOID, "sendCached");
+        JTypeVar t = method.generify("T");
+        method.type(t);
+        JVar request = method.param(codeModel.ref(HTTP_REQUEST), "request");
+        JVar type = method.param(Type.class, "type");
+        JVar maxAge = method.param(codeModel.LONG, "maxAge");
+
+        JBlock body = method.body();
+        JVar key = body.decl(codeModel.ref(String.class), "key", JExpr.invoke(cacheKey)
+            .arg(request));
+        JVar cached = body.decl(cachedResponse, "cached", responseCache.invoke("get")
+            .arg(key));
+        body._if(cached.ne(JExpr._null())
+            .cand(cached.invoke("isFresh")))
+            ._then()
+            ._return(codec.invoke("decode")
+                .arg(cached.ref("body"))
+                .arg(type));
+
+        JTryBlock tryBlock = body._try();
+        JVar response = tryBlock.body()
+            .decl(httpResponse, "response", client.invoke("send")
+                .arg(JExpr.invoke(revalidate)
+                    .arg(request)
+                    .arg(cached))
+                .arg(ofByteArray()));
+        tryBlock.body()
+            ._return(JExpr.invoke(decodeCached)
+                .arg(key)
+                .arg(cached)
+                .arg(response)
+                .arg(type)
+                .arg(maxAge));
+        rethrowUnchecked(tryBlock);
+        rethrowInterrupted(tryBlock);
+    }
+
+    private void generateSendCachedAsync(JDefinedClass klass, JDefinedClass cachedResponse,
+        JFieldVar responseCache, JFieldVar client, JFieldVar codec, JMethod cacheKey,
+        JMethod revalidate, JMethod decodeCached, JClass httpResponse) {
+        JMethod method = klass.method(JMod.PROTECTED, codeModel.VOID, "sendCachedAsync");
+        JTypeVar t = method.generify("T");
+        method.type(codeModel.ref(CompletableFuture.class)
+            .narrow(t));
+        JVar request = method.param(codeModel.ref(HTTP_REQUEST), "request");
+        JVar type = method.param(JMod.FINAL, Type.class, "type");
+        JVar maxAge = method.param(JMod.FINAL, codeModel.LONG, "maxAge");
+
+        JBlock body = method.body();
+        JVar key = body.decl(JMod.FINAL, codeModel.ref(String.class), "key",
+            JExpr.invoke(cacheKey)
+                .arg(request));
+        JVar cached = body.decl(JMod.FINAL, cachedResponse, "cached", responseCache.invoke("get")
+            .arg(key));
+        body._if(cached.ne(JExpr._null())
+            .cand(cached.invoke("isFresh")))
+            ._then()
+            ._return(codeModel.ref(CompletableFuture.class)
+                .staticInvoke("completedFuture")
+                .arg(codec.invoke("decode")
+                    .arg(cached.ref("body"))
+                    .arg(type)));
+
+        JDefinedClass decoder = codeModel.anonymousClass(codeModel.ref(Function.class)
+            .narrow(httpResponse, t));
+        JMethod apply = decoder.method(JMod.PUBLIC, t, "apply");
+        apply.annotate(Override.class);
+        JVar response = apply.param(httpResponse, "response");
+        apply.body()
+            ._return(JExpr.invoke(decodeCached)
+                .arg(key)
+                .arg(cached)
+                .arg(response)
+                .arg(type)
+                .arg(maxAge));
+
+        body._return(client.invoke("sendAsync")
+            .arg(JExpr.invoke(revalidate)
+                .arg(request)
+                .arg(cached))
+            .arg(ofByteArray())
+            .invoke("thenApply")
+            .arg(JExpr._new(decoder)));
+    }
+}
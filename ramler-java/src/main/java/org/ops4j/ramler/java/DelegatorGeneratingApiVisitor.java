@@ -0,0 +1,1004 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.BOUNDED_EXECUTOR;
+import static org.ops4j.ramler.java.JavaConstants.COALESCER_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.COALESCING_KEY_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.DISPATCH_DIRECT;
+import static org.ops4j.ramler.java.JavaConstants.DISPATCH_EXECUTOR;
+import static org.ops4j.ramler.java.JavaConstants.DISPATCH_VIRTUAL_THREADS;
+import static org.ops4j.ramler.java.JavaConstants.REQUEST_COALESCER;
+import static org.ops4j.ramler.java.JavaConstants.TIMEOUT_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.VALIDATION_EXCEPTION;
+import static org.ops4j.ramler.java.JavaConstants.VALIDATOR_SUFFIX;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.GET;
+import javax.ws.rs.container.AsyncResponse;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.exc.GeneratorException;
+import org.ops4j.ramler.common.helper.NameFactory;
+import org.ops4j.ramler.common.model.ApiVisitor;
+import org.raml.v2.api.model.v10.api.Api;
+import org.raml.v2.api.model.v10.resources.Resource;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCatchBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * API visitor generating a delegator class for each resource interface. A delegator implements the
+ * resource interface and forwards each call to a delegate implementing the same interface. Since
+ * the delegator methods have no JAX-RS annotations of their own, the annotations of the interface
+ * are inherited.
+ * <p>
+ * Depending on the dispatch mode, asynchronous methods returning a {@code CompletionStage} or
+ * taking a suspended {@code AsyncResponse} call the delegate on an executor instead of the
+ * container thread, so the delegate may block. The number of concurrent calls per delegator
+ * instance may be limited by a semaphore. Synchronous methods are always called directly.
+ * <p>
+ * Bulk methods are not forwarded to the delegate. Instead, the delegator validates each item and
+ * calls the single-item method of the delegate for each item in parallel and collects the results.
+ * With direct dispatch, the items are processed on the calling thread unless the delegator is
+ * constructed with a bulk executor.
+ * <p>
+ * With request coalescing, concurrent calls of a GET method returning a {@code CompletionStage}
+ * with equal arguments share a single call of the delegate. The arguments are wrapped in a
+ * generated key class with a precomputed hash code.
+ * <p>
+ * The resource generating visitor must be run before this visitor.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class DelegatorGeneratingApiVisitor implements ApiVisitor {
+
+    private static final String EXECUTOR = "executor";
+
+    private static final String CONCURRENCY = "concurrency";
+
+    private static final String BULK_EXECUTOR = "bulkExecutor";
+
+    private static final String DEFAULT_CONCURRENCY = "DEFAULT_CONCURRENCY";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private NameFactory nameFactory;
+
+    private String dispatch;
+
+    private int concurrency;
+
+    private JDefinedClass boundedExecutor;
+
+    private JDefinedClass requestCoalescer;
+
+    private Resource outerResource;
+
+    /**
+     * Creates a visitor for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public DelegatorGeneratingApiVisitor(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getDelegatorPackage();
+        this.nameFactory = new JavaNameFactory();
+        this.dispatch = context.getConfig()
+            .getDelegatorDispatch();
+        this.concurrency = context.getConfig()
+            .getDelegatorConcurrency();
+    }
+
+    @Override
+    public void visitApiStart(Api api) {
+        if (!DISPATCH_DIRECT.equals(dispatch) && !DISPATCH_EXECUTOR.equals(dispatch)
+            && !DISPATCH_VIRTUAL_THREADS.equals(dispatch)) {
+            throw new GeneratorException("unsupported delegator dispatch mode: " + dispatch);
+        }
+        if (isDispatching() && concurrency > 0) {
+            generateBoundedExecutor();
+        }
+        if (context.getConfig()
+            .isDelegatorCoalescing()) {
+            generateRequestCoalescer();
+        }
+    }
+
+    @Override
+    public void visitResourceStart(Resource resource) {
+        if (outerResource == null) {
+            outerResource = resource;
+        }
+    }
+
+    @Override
+    public void visitResourceEnd(Resource resource) {
+        if (resource.equals(outerResource)) {
+            generateDelegator(resource);
+            outerResource = null;
+        }
+    }
+
+    private boolean isDispatching() {
+        return !DISPATCH_DIRECT.equals(dispatch);
+    }
+
+    private void generateDelegator(Resource resource) {
+        JavaConfiguration config = context.getConfig();
+        JDefinedClass resourceInterface = context.getApiPackage()
+            ._getClass(nameFactory.buildResourceInterfaceName(resource,
+                config.getInterfaceNameSuffix()));
+        JDefinedClass klass;
+        try {
+            klass = pkg._class(nameFactory.buildResourceInterfaceName(resource,
+                config.getDelegatorSuffix()));
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        klass._implements(resourceInterface);
+        context.annotateAsGenerated(klass);
+        klass.javadoc()
+            .add(String.format("Delegator for {@link %s}, forwarding all calls to a delegate.",
+                resourceInterface.name()));
+
+        JFieldVar delegate = klass.field(JMod.PRIVATE | JMod.FINAL, resourceInterface,
+            config.getDelegateFieldName());
+        JFieldVar executor = null;
+        JFieldVar bulkExecutor = null;
+        if (isDispatching()) {
+            JClass executorType = (boundedExecutor == null) ? codeModel.ref(Executor.class)
+                : boundedExecutor;
+            executor = klass.field(JMod.PRIVATE | JMod.FINAL, executorType, EXECUTOR);
+            bulkExecutor = executor;
+        }
+        else if (hasBulkMethods(resourceInterface)) {
+            bulkExecutor = klass.field(JMod.PRIVATE | JMod.FINAL, Executor.class, BULK_EXECUTOR);
+        }
+        generateConstructors(klass, delegate, bulkExecutor);
+
+        for (JMethod method : resourceInterface.methods()) {
+            generateDelegatingMethod(klass, resourceInterface, method, delegate, executor,
+                bulkExecutor);
+        }
+    }
+
+    private boolean hasBulkMethods(JDefinedClass resourceInterface) {
+        return resourceInterface.methods()
+            .stream()
+            .anyMatch(m -> context.findItemMethod(m) != null);
+    }
+
+    private void generateConstructors(JDefinedClass klass, JFieldVar delegate,
+        JFieldVar executor) {
+        if (executor != null && !isDispatching()) {
+            generateCallingThreadConstructor(klass, delegate);
+        }
+
+        if (DISPATCH_VIRTUAL_THREADS.equals(dispatch)) {
+            JMethod createExecutor = generateCreateVirtualThreadExecutor(klass);
+            JFieldVar virtualThreads = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                Executor.class, "VIRTUAL_THREADS", JExpr.invoke(createExecutor));
+            JMethod constructor = klass.constructor(JMod.PUBLIC);
+            JVar delegateParam = constructor.param(delegate.type(), delegate.name());
+            constructor.body()
+                .invoke("this")
+                .arg(delegateParam)
+                .arg(virtualThreads);
+        }
+
+        if (executor != null && boundedExecutor != null) {
+            JFieldVar defaultConcurrency = klass.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL,
+                codeModel.INT, DEFAULT_CONCURRENCY, JExpr.lit(concurrency));
+            defaultConcurrency.javadoc()
+                .add("Default maximum number of concurrent calls dispatched by each instance.");
+            JMethod constructor = klass.constructor(JMod.PUBLIC);
+            JVar delegateParam = constructor.param(delegate.type(), delegate.name());
+            JVar executorParam = constructor.param(Executor.class, EXECUTOR);
+            constructor.body()
+                .invoke("this")
+                .arg(delegateParam)
+                .arg(executorParam)
+                .arg(defaultConcurrency);
+        }
+
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        JVar delegateParam = constructor.param(delegate.type(), delegate.name());
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(delegate), delegateParam);
+        if (executor != null) {
+            JVar executorParam = constructor.param(Executor.class, executor.name());
+            if (boundedExecutor == null) {
+                constructor.body()
+                    .assign(JExpr._this()
+                        .ref(executor), executorParam);
+            }
+            else {
+                JVar concurrencyParam = constructor.param(codeModel.INT, CONCURRENCY);
+                constructor.body()
+                    .assign(JExpr._this()
+                        .ref(executor),
+                        JExpr._new(boundedExecutor)
+                            .arg(executorParam)
+                            .arg(concurrencyParam));
+            }
+        }
+    }
+
+    /**
+     * Generates a method creating an executor with a new virtual thread per task. The generated
+     * code compiles with Java 8, so the executor is created reflectively, and a cached thread pool
+     * is used instead before Java 21.
+     */
+    private JMethod generateCreateVirtualThreadExecutor(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, Executor.class,
+            "createVirtualThreadExecutor");
+        method.javadoc()
+            .add("Creates an executor starting a new virtual thread for each task on Java 21 or "
+                + "higher, or a cached thread pool on older Java versions.");
+        method.javadoc()
+            .addReturn()
+            .add("executor");
+        JClass executors = codeModel.ref(Executors.class);
+        JTryBlock tryBlock = method.body()
+            ._try();
+        tryBlock.body()
+            ._return(JExpr.cast(codeModel.ref(Executor.class), executors.dotclass()
+                .invoke("getMethod")
+                .arg("newVirtualThreadPerTaskExecutor")
+                .invoke("invoke")
+                .arg(JExpr._null())));
+        tryBlock._catch(codeModel.ref(ReflectiveOperationException.class))
+            .param("exc");
+        method.body()
+            ._return(executors.staticInvoke("newCachedThreadPool"));
+        return method;
+    }
+
+    /**
+     * Generates a constructor for a direct dispatching delegator with bulk methods, processing the
+     * items of bulk calls on the calling thread.
+     */
+    private void generateCallingThreadConstructor(JDefinedClass klass, JFieldVar delegate) {
+        JDefinedClass callingThread = codeModel.anonymousClass(Executor.class);
+        JMethod execute = callingThread.method(JMod.PUBLIC, codeModel.VOID, "execute");
+        execute.annotate(Override.class);
+        JVar command = execute.param(Runnable.class, "command");
+        execute.body()
+            .invoke(command, "run");
+        JFieldVar callingThreadField = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            Executor.class, "CALLING_THREAD", JExpr._new(callingThread));
+
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        JVar delegateParam = constructor.param(delegate.type(), delegate.name());
+        constructor.body()
+            .invoke("this")
+            .arg(delegateParam)
+            .arg(callingThreadField);
+    }
+
+    private void generateDelegatingMethod(JDefinedClass klass, JDefinedClass resourceInterface,
+        JMethod method, JFieldVar delegate, JFieldVar executor, JFieldVar bulkExecutor) {
+        JMethod itemMethod = context.findItemMethod(method);
+        if (itemMethod != null) {
+            generateBulkMethod(klass, resourceInterface, method, itemMethod, delegate,
+                bulkExecutor);
+            return;
+        }
+        boolean coalesced = isCoalesced(method);
+        JMethod delegatingMethod = klass.method(JMod.PUBLIC, method.type(), method.name());
+        delegatingMethod.annotate(Override.class);
+        JInvocation call = delegate.invoke(method.name());
+        for (JVar param : method.params()) {
+            call.arg(delegatingMethod.param(coalesced ? JMod.FINAL : JMod.NONE, param.type(),
+                param.name()));
+        }
+
+        JBlock body = delegatingMethod.body();
+        JInvocation validation = findValidation(resourceInterface, method,
+            name -> findParam(delegatingMethod, name));
+        if (validation != null) {
+            body.add(validation);
+        }
+        JVar asyncResponse = findAsyncResponse(delegatingMethod);
+        if (asyncResponse != null) {
+            addTimeout(body, resourceInterface, method, asyncResponse);
+        }
+
+        if (coalesced) {
+            JExpression stage = (executor == null) ? call
+                : dispatchCompletionStage(method, call, executor);
+            body._return(coalesce(klass, delegatingMethod, stage));
+        }
+        else if (executor != null && isCompletionStage(method)) {
+            body._return(dispatchCompletionStage(method, call, executor));
+        }
+        else if (executor != null && asyncResponse != null) {
+            body.add(executor.invoke("execute")
+                .arg(JExpr._new(dispatchAsyncResponse(call, asyncResponse))));
+        }
+        else if (method.type() == codeModel.VOID) {
+            body.add(call);
+        }
+        else {
+            body._return(call);
+        }
+    }
+
+    /**
+     * Implements a bulk method by calling the single-item method of the delegate for each item in
+     * parallel, on the executor or the bulk executor of this delegator. The parameters of the bulk
+     * method are the list of items followed by the parameters of the single-item method except the
+     * body. Each item is validated like the body of a single-item call, and a violation fails the
+     * item with {@code 400 Bad Request}.
+     */
+    private void generateBulkMethod(JDefinedClass klass, JDefinedClass resourceInterface,
+        JMethod method, JMethod itemMethod, JFieldVar delegate, JFieldVar executor) {
+        JMethod bulkMethod = klass.method(JMod.PUBLIC, method.type(), method.name());
+        bulkMethod.annotate(Override.class);
+        List<JVar> params = new ArrayList<>();
+        for (JVar param : method.params()) {
+            params.add(bulkMethod.param(JMod.FINAL, param.type(), param.name()));
+        }
+
+        JClass bulkResultType = ((JClass) method.type()).getTypeParameters()
+            .get(0);
+        JClass resultType = bulkResultType.getTypeParameters()
+            .get(0);
+        JClass stageType = codeModel.ref(CompletionStage.class)
+            .narrow(resultType);
+        JClass itemType = ((JClass) params.get(0)
+            .type()).getTypeParameters()
+                .get(0);
+
+        JDefinedClass call = codeModel.anonymousClass(codeModel.ref(Function.class)
+            .narrow(itemType, stageType));
+        JMethod apply = call.method(JMod.PUBLIC, stageType, "apply");
+        apply.annotate(Override.class);
+        JVar item = apply.param(itemType, "item");
+        String bodyName = itemMethod.params()
+            .get(0)
+            .name();
+        JInvocation validation = findValidation(resourceInterface, itemMethod,
+            name -> name.equals(bodyName) ? item : findParam(bulkMethod, name));
+        if (validation != null) {
+            JTryBlock tryBlock = apply.body()
+                ._try();
+            tryBlock.body()
+                .add(validation);
+            JCatchBlock catchBlock = tryBlock._catch(context.getModelPackage()
+                ._getClass(VALIDATION_EXCEPTION));
+            JVar exc = catchBlock.param("exc");
+            catchBlock.body()
+                ._throw(JExpr._new(codeModel.ref(BadRequestException.class))
+                    .arg(exc.invoke("getMessage"))
+                    .arg(exc));
+        }
+        JInvocation itemCall = delegate.invoke(itemMethod.name())
+            .arg(item);
+        for (JVar param : params.subList(1, params.size())) {
+            itemCall.arg(param);
+        }
+        if (itemMethod.type() == codeModel.VOID) {
+            apply.body()
+                .add(itemCall);
+            apply.body()
+                ._return(codeModel.ref(CompletableFuture.class)
+                    .staticInvoke("completedFuture")
+                    .arg(JExpr._null()));
+        }
+        else if (isCompletionStage(itemMethod)) {
+            apply.body()
+                ._return(itemCall);
+        }
+        else {
+            apply.body()
+                ._return(codeModel.ref(CompletableFuture.class)
+                    .staticInvoke("completedFuture")
+                    .arg(itemCall));
+        }
+
+        bulkMethod.body()
+            ._return(new BulkGenerator(context).getBulkDispatcherClass()
+                .staticInvoke("dispatch")
+                .arg(params.get(0))
+                .arg(JExpr._new(call))
+                .arg(executor));
+    }
+
+    /**
+     * Builds a call of the parameter validator of the given method, if there is one, taking the
+     * arguments for the given parameter names from the given function. The delegator calls the
+     * validator before forwarding the call, so violations are thrown on the container thread, even
+     * for dispatched methods.
+     *
+     * @return validator call, or null
+     */
+    private JInvocation findValidation(JDefinedClass resourceInterface, JMethod method,
+        Function<String, JExpression> args) {
+        JDefinedClass validator = context.getApiPackage()
+            ._getClass(resourceInterface.name() + VALIDATOR_SUFFIX);
+        if (validator == null) {
+            return null;
+        }
+        String validatorName = ValidationGenerator.getValidatorMethodName(method.name());
+        for (JMethod validate : validator.methods()) {
+            if (validate.name()
+                .equals(validatorName)) {
+                JInvocation call = validator.staticInvoke(validate);
+                for (JVar param : validate.params()) {
+                    call.arg(args.apply(param.name()));
+                }
+                return call;
+            }
+        }
+        return null;
+    }
+
+    private JVar findParam(JMethod method, String name) {
+        for (JVar param : method.params()) {
+            if (param.name()
+                .equals(name)) {
+                return param;
+            }
+        }
+        throw new GeneratorException("no parameter " + name + " in method " + method.name());
+    }
+
+    private boolean isCompletionStage(JMethod method) {
+        return method.type()
+            .erasure()
+            .fullName()
+            .equals(CompletionStage.class.getName());
+    }
+
+    private boolean isCoalesced(JMethod method) {
+        return requestCoalescer != null && isCompletionStage(method) && method.annotations()
+            .stream()
+            .anyMatch(a -> a.getAnnotationClass()
+                .fullName()
+                .equals(GET.class.getName()));
+    }
+
+    /**
+     * Wraps the given stage returned by a delegating method in a call of a request coalescer owned
+     * by the delegator instance, keyed by the method arguments. Instances may wrap different
+     * delegates, so calls must never be shared across instances.
+     */
+    private JInvocation coalesce(JDefinedClass klass, JMethod method, JExpression stage) {
+        JClass stageType = (JClass) method.type();
+        JClass resultType = stageType.getTypeParameters()
+            .get(0);
+        JDefinedClass keyClass = generateCoalescingKey(klass, method);
+        JClass coalescerType = requestCoalescer.narrow(keyClass, resultType);
+        JFieldVar coalescer = klass.field(JMod.PRIVATE | JMod.FINAL, coalescerType,
+            method.name() + COALESCER_SUFFIX, JExpr._new(coalescerType));
+
+        JDefinedClass supplier = codeModel.anonymousClass(codeModel.ref(Supplier.class)
+            .narrow(stageType));
+        JMethod get = supplier.method(JMod.PUBLIC, stageType, "get");
+        get.annotate(Override.class);
+        get.body()
+            ._return(stage);
+
+        JInvocation key = JExpr._new(keyClass);
+        for (JVar param : method.params()) {
+            key.arg(param);
+        }
+        return coalescer.invoke("coalesce")
+            .arg(key)
+            .arg(JExpr._new(supplier));
+    }
+
+    private JDefinedClass generateCoalescingKey(JDefinedClass klass, JMethod method) {
+        JDefinedClass keyClass;
+        try {
+            keyClass = klass._class(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                NameFactory.buildCodeFriendlyName(method.name()) + COALESCING_KEY_SUFFIX);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        keyClass.javadoc()
+            .add(String.format("Arguments of {@link #%s} identifying coalesced calls.",
+                method.name()));
+        JFieldVar hash = keyClass.field(JMod.PRIVATE | JMod.FINAL, codeModel.INT,
+            "precomputedHash");
+
+        JMethod constructor = keyClass.constructor(JMod.NONE);
+        List<JFieldVar> fields = new ArrayList<>();
+        JExpression hashExpr = JExpr.lit(1);
+        for (JVar param : method.params()) {
+            JFieldVar field = keyClass.field(JMod.PRIVATE | JMod.FINAL, param.type(),
+                param.name());
+            JVar fieldParam = constructor.param(param.type(), param.name());
+            constructor.body()
+                .assign(JExpr._this()
+                    .ref(field), fieldParam);
+            JExpression fieldHash = param.type()
+                .isPrimitive()
+                    ? param.type()
+                        .boxify()
+                        .staticInvoke("hashCode")
+                        .arg(fieldParam)
+                    : codeModel.ref(Objects.class)
+                        .staticInvoke("hashCode")
+                        .arg(fieldParam);
+            hashExpr = JExpr.lit(31)
+                .mul(hashExpr)
+                .plus(fieldHash);
+            fields.add(field);
+        }
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(hash), hashExpr);
+
+        JMethod hashCode = keyClass.method(JMod.PUBLIC, codeModel.INT, "hashCode");
+        hashCode.annotate(Override.class);
+        hashCode.body()
+            ._return(hash);
+
+        JMethod equals = keyClass.method(JMod.PUBLIC, codeModel.BOOLEAN, "equals");
+        equals.annotate(Override.class);
+        JVar obj = equals.param(Object.class, "obj");
+        JBlock body = equals.body();
+        body._if(JExpr._this()
+            .eq(obj))
+            ._then()
+            ._return(JExpr.TRUE);
+        body._if(obj._instanceof(keyClass)
+            .not())
+            ._then()
+            ._return(JExpr.FALSE);
+        JVar other = body.decl(keyClass, "other", JExpr.cast(keyClass, obj));
+        JExpression result = JExpr._this()
+            .ref(hash)
+            .eq(other.ref(hash));
+        for (JFieldVar field : fields) {
+            JExpression own = JExpr._this()
+                .ref(field);
+            result = result.cand(field.type()
+                .isPrimitive() ? own.eq(other.ref(field))
+                    : codeModel.ref(Objects.class)
+                        .staticInvoke("equals")
+                        .arg(own)
+                        .arg(other.ref(field)));
+        }
+        body._return(result);
+        return keyClass;
+    }
+
+    private JVar findAsyncResponse(JMethod method) {
+        List<JVar> params = method.params();
+        if (params.isEmpty()) {
+            return null;
+        }
+        JVar lastParam = params.get(params.size() - 1);
+        if (lastParam.type()
+            .fullName()
+            .equals(AsyncResponse.class.getName())) {
+            return lastParam;
+        }
+        return null;
+    }
+
+    private void addTimeout(JBlock body, JDefinedClass resourceInterface, JMethod method,
+        JVar asyncResponse) {
+        JFieldVar timeout = resourceInterface.fields()
+            .get(NameFactory.buildConstantName(method.name()) + TIMEOUT_SUFFIX);
+        if (timeout != null) {
+            body.add(asyncResponse.invoke("setTimeout")
+                .arg(resourceInterface.staticRef(timeout))
+                .arg(codeModel.ref(TimeUnit.class)
+                    .staticRef("MILLISECONDS")));
+        }
+    }
+
+    /**
+     * Calls the delegate on the executor of the delegator. A bounded executor holds the permit of
+     * the call until the returned stage has completed, so the limit also applies to delegates
+     * completing their stages asynchronously.
+     */
+    private JInvocation dispatchCompletionStage(JMethod method, JInvocation call,
+        JFieldVar executor) {
+        JClass stageType = (JClass) method.type();
+        JDefinedClass supplier = codeModel.anonymousClass(codeModel.ref(Supplier.class)
+            .narrow(stageType));
+        JMethod get = supplier.method(JMod.PUBLIC, stageType, "get");
+        get.annotate(Override.class);
+        get.body()
+            ._return(call);
+
+        if (boundedExecutor != null) {
+            return executor.invoke("submit")
+                .arg(JExpr._new(supplier));
+        }
+        return codeModel.ref(CompletableFuture.class)
+            .staticInvoke("supplyAsync")
+            .arg(JExpr._new(supplier))
+            .arg(executor)
+            .invoke("thenCompose")
+            .arg(codeModel.ref(Function.class)
+                .staticInvoke("identity"));
+    }
+
+    private JDefinedClass dispatchAsyncResponse(JInvocation call, JVar asyncResponse) {
+        JDefinedClass runnable = codeModel.anonymousClass(Runnable.class);
+        JMethod run = runnable.method(JMod.PUBLIC, codeModel.VOID, "run");
+        run.annotate(Override.class);
+        JTryBlock tryBlock = run.body()
+            ._try();
+        tryBlock.body()
+            .add(call);
+        JCatchBlock catchBlock = tryBlock._catch(codeModel.ref(RuntimeException.class));
+        JVar exc = catchBlock.param("exc");
+        catchBlock.body()
+            .add(asyncResponse.invoke("resume")
+                .arg(exc));
+        return runnable;
+    }
+
+    private void generateRequestCoalescer() {
+        try {
+            requestCoalescer = pkg._class(REQUEST_COALESCER);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(requestCoalescer);
+        requestCoalescer.javadoc()
+            .add("Shares the result of an asynchronous call among all concurrent calls with an "
+                + "equal key. A call is removed from the calls in flight before its result is "
+                + "published, so results are never cached.");
+        JTypeVar keyType = requestCoalescer.generify("K");
+        JTypeVar valueType = requestCoalescer.generify("V");
+        JClass futureType = codeModel.ref(CompletableFuture.class)
+            .narrow(valueType);
+        JClass stageType = codeModel.ref(CompletionStage.class)
+            .narrow(valueType);
+
+        JFieldVar inFlight = requestCoalescer.field(JMod.PRIVATE | JMod.FINAL,
+            codeModel.ref(ConcurrentMap.class)
+                .narrow(keyType, futureType),
+            "inFlight", JExpr._new(codeModel.ref(ConcurrentHashMap.class)
+                .narrow(keyType, futureType)));
+
+        JMethod coalesce = requestCoalescer.method(JMod.PUBLIC, stageType, "coalesce");
+        coalesce.javadoc()
+            .add("Returns the result of the call in flight with the given key, or else starts a "
+                + "new call.");
+        JVar key = coalesce.param(JMod.FINAL, keyType, "key");
+        JVar call = coalesce.param(codeModel.ref(Supplier.class)
+            .narrow(stageType.wildcard()), "call");
+        coalesce.javadoc()
+            .addParam(key)
+            .add("key of the call");
+        coalesce.javadoc()
+            .addParam(call)
+            .add("starts a new call");
+        coalesce.javadoc()
+            .addReturn()
+            .add("stage completed with the result of the shared call");
+
+        JBlock body = coalesce.body();
+        JVar future = body.decl(JMod.FINAL, futureType, "future", JExpr._new(futureType));
+        JVar existing = body.decl(futureType, "existing", inFlight.invoke("putIfAbsent")
+            .arg(key)
+            .arg(future));
+        JExpression identity = codeModel.ref(Function.class)
+            .staticInvoke("identity");
+        body._if(existing.ne(JExpr._null()))
+            ._then()
+            ._return(existing.invoke("thenApply")
+                .arg(identity));
+
+        JDefinedClass completion = codeModel.anonymousClass(codeModel.ref(BiConsumer.class)
+            .narrow(valueType, codeModel.ref(Throwable.class)));
+        JMethod accept = completion.method(JMod.PUBLIC, codeModel.VOID, "accept");
+        accept.annotate(Override.class);
+        JVar value = accept.param(valueType, "value");
+        JVar error = accept.param(Throwable.class, "error");
+        accept.body()
+            .add(inFlight.invoke("remove")
+                .arg(key)
+                .arg(future));
+        JConditional failed = accept.body()
+            ._if(error.eq(JExpr._null()));
+        failed._then()
+            .add(future.invoke("complete")
+                .arg(value));
+        failed._else()
+            .add(future.invoke("completeExceptionally")
+                .arg(error));
+
+        JTryBlock tryBlock = body._try();
+        tryBlock.body()
+            .add(call.invoke("get")
+                .invoke("whenComplete")
+                .arg(JExpr._new(completion)));
+        JCatchBlock catchBlock = tryBlock._catch(codeModel.ref(RuntimeException.class));
+        JVar exc = catchBlock.param("exc");
+        catchBlock.body()
+            .add(inFlight.invoke("remove")
+                .arg(key)
+                .arg(future));
+        catchBlock.body()
+            .add(future.invoke("completeExceptionally")
+                .arg(exc));
+        body._return(future.invoke("thenApply")
+            .arg(identity));
+    }
+
+    private void generateBoundedExecutor() {
+        try {
+            boundedExecutor = pkg._class(BOUNDED_EXECUTOR);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        boundedExecutor._implements(Executor.class);
+        context.annotateAsGenerated(boundedExecutor);
+        boundedExecutor.javadoc()
+            .add("Executor limiting the number of concurrently running tasks. A task is only "
+                + "submitted to the underlying executor when a permit is available. Otherwise, "
+                + "it is queued and submitted when a running task completes, so no thread of the "
+                + "underlying executor is ever blocked waiting for a permit. A task submitted "
+                + "with a supplier of a completion stage holds its permit until the stage has "
+                + "completed. If the underlying executor rejects a queued task, the stage "
+                + "returned for a supplier fails with the rejection, and a runnable is run "
+                + "on the thread submitting the queued task.");
+
+        JFieldVar executor = boundedExecutor.field(JMod.PRIVATE | JMod.FINAL, Executor.class,
+            EXECUTOR);
+        JFieldVar permits = boundedExecutor.field(JMod.PRIVATE | JMod.FINAL, Semaphore.class,
+            "permits");
+        JDefinedClass taskClass = generateBoundedTask();
+        JClass queueType = codeModel.ref(ConcurrentLinkedQueue.class)
+            .narrow(taskClass);
+        JFieldVar queue = boundedExecutor.field(JMod.PRIVATE | JMod.FINAL, queueType, "queue",
+            JExpr._new(queueType));
+
+        JMethod constructor = boundedExecutor.constructor(JMod.PUBLIC);
+        JVar executorParam = constructor.param(Executor.class, EXECUTOR);
+        JVar concurrencyParam = constructor.param(codeModel.INT, CONCURRENCY);
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(executor), executorParam);
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(permits),
+                JExpr._new(codeModel.ref(Semaphore.class))
+                    .arg(concurrencyParam));
+
+        JMethod drain = boundedExecutor.method(JMod.PRIVATE, codeModel.VOID, "drain");
+        JMethod release = boundedExecutor.method(JMod.PRIVATE, codeModel.VOID, "release");
+        release.body()
+            .add(permits.invoke("release"));
+        release.body()
+            .invoke(drain);
+        generateBoundedExecute(taskClass, queue, drain, release);
+        generateBoundedSubmit(taskClass, queue, drain, release);
+
+        // submits queued tasks while permits are available, each task releasing its permit
+        // when done and draining again, so that no queued task is left behind
+        JWhileLoop loop = drain.body()
+            ._while(queue.invoke("isEmpty")
+                .not()
+                .cand(permits.invoke("tryAcquire")));
+        JVar task = loop.body()
+            .decl(taskClass, "task", queue.invoke("poll"));
+        JConditional ifNull = loop.body()
+            ._if(task.eq(JExpr._null()));
+        ifNull._then()
+            .add(permits.invoke("release"));
+        ifNull._then()
+            ._continue();
+
+        // drain may run on the thread of an unrelated task, so a rejection is passed to the
+        // rejected task instead of being thrown
+        JTryBlock submitTry = loop.body()
+            ._try();
+        submitTry.body()
+            .add(executor.invoke("execute")
+                .arg(task));
+        JCatchBlock catchBlock = submitTry._catch(codeModel.ref(RuntimeException.class));
+        JVar exc = catchBlock.param("exc");
+        catchBlock.body()
+            .add(permits.invoke("release"));
+        catchBlock.body()
+            .add(task.invoke("reject")
+                .arg(exc));
+    }
+
+    /**
+     * Generates the base class of queued tasks, which handle their own rejection by the underlying
+     * executor.
+     */
+    private JDefinedClass generateBoundedTask() {
+        JDefinedClass taskClass;
+        try {
+            taskClass = boundedExecutor._class(JMod.PRIVATE | JMod.STATIC | JMod.ABSTRACT,
+                "Task");
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        taskClass._implements(Runnable.class);
+        taskClass.javadoc()
+            .add("Queued task, running with a permit.");
+        JMethod reject = taskClass.method(JMod.ABSTRACT, codeModel.VOID, "reject");
+        JVar exc = reject.param(RuntimeException.class, "exc");
+        reject.javadoc()
+            .add("Handles the rejection of this task by the underlying executor. The permit of "
+                + "the task has already been released.");
+        reject.javadoc()
+            .addParam(exc)
+            .add("exception thrown by the underlying executor");
+        return taskClass;
+    }
+
+    /**
+     * Generates the {@code Executor} method. A task rejected by the underlying executor runs on the
+     * thread submitting it, like with {@code CallerRunsPolicy}, since the caller of this method may
+     * have returned already.
+     */
+    private void generateBoundedExecute(JDefinedClass taskClass, JFieldVar queue, JMethod drain,
+        JMethod release) {
+        JMethod execute = boundedExecutor.method(JMod.PUBLIC, codeModel.VOID, "execute");
+        execute.annotate(Override.class);
+        JVar command = execute.param(JMod.FINAL, Runnable.class, "command");
+
+        JDefinedClass task = codeModel.anonymousClass(taskClass);
+        JMethod run = task.method(JMod.PUBLIC, codeModel.VOID, "run");
+        run.annotate(Override.class);
+        JTryBlock runTry = run.body()
+            ._try();
+        runTry.body()
+            .add(command.invoke("run"));
+        runTry._finally()
+            .invoke(release);
+
+        JMethod reject = task.method(JMod.NONE, codeModel.VOID, "reject");
+        reject.annotate(Override.class);
+        reject.param(RuntimeException.class, "exc");
+        reject.body()
+            .add(command.invoke("run"));
+
+        execute.body()
+            .add(queue.invoke("offer")
+                .arg(JExpr._new(task)));
+        execute.body()
+            .invoke(drain);
+    }
+
+    /**
+     * Generates a method running a task returning a completion stage, holding the permit of the
+     * task until the stage has completed.
+     */
+    private void generateBoundedSubmit(JDefinedClass taskClass, JFieldVar queue, JMethod drain,
+        JMethod release) {
+        JMethod submit = boundedExecutor.method(JMod.PUBLIC, codeModel.VOID, "submit");
+        JTypeVar t = submit.generify("T");
+        JClass stageType = codeModel.ref(CompletionStage.class)
+            .narrow(t);
+        JClass futureType = codeModel.ref(CompletableFuture.class)
+            .narrow(t);
+        submit.type(stageType);
+        JVar supplier = submit.param(JMod.FINAL, codeModel.ref(Supplier.class)
+            .narrow(stageType), "supplier");
+        submit.javadoc()
+            .add("Calls the given supplier on the underlying executor when a permit is available. "
+                + "The permit is held until the stage returned by the supplier has completed.");
+        submit.javadoc()
+            .addParam(supplier)
+            .add("supplier of the stage");
+        submit.javadoc()
+            .addReturn()
+            .add("stage completed with the result of the supplied stage");
+
+        JBlock body = submit.body();
+        JVar result = body.decl(JMod.FINAL, futureType, "result", JExpr._new(futureType));
+
+        JDefinedClass completion = codeModel.anonymousClass(codeModel.ref(BiConsumer.class)
+            .narrow(t, codeModel.ref(Throwable.class)));
+        JMethod accept = completion.method(JMod.PUBLIC, codeModel.VOID, "accept");
+        accept.annotate(Override.class);
+        JVar value = accept.param(t, "value");
+        JVar exc = accept.param(Throwable.class, "exc");
+        accept.body()
+            .invoke(release);
+        JConditional ifFailed = accept.body()
+            ._if(exc.eq(JExpr._null()));
+        ifFailed._then()
+            .add(result.invoke("complete")
+                .arg(value));
+        ifFailed._else()
+            .add(result.invoke("completeExceptionally")
+                .arg(exc));
+
+        JDefinedClass task = codeModel.anonymousClass(taskClass);
+        JMethod run = task.method(JMod.PUBLIC, codeModel.VOID, "run");
+        run.annotate(Override.class);
+        JTryBlock runTry = run.body()
+            ._try();
+        runTry.body()
+            .add(supplier.invoke("get")
+                .invoke("whenComplete")
+                .arg(JExpr._new(completion)));
+        JCatchBlock catchBlock = runTry._catch(codeModel.ref(RuntimeException.class));
+        JVar runExc = catchBlock.param("exc");
+        catchBlock.body()
+            .invoke(release);
+        catchBlock.body()
+            .add(result.invoke("completeExceptionally")
+                .arg(runExc));
+
+        JMethod reject = task.method(JMod.NONE, codeModel.VOID, "reject");
+        reject.annotate(Override.class);
+        JVar rejection = reject.param(RuntimeException.class, "exc");
+        reject.body()
+            .add(result.invoke("completeExceptionally")
+                .arg(rejection));
+
+        body.add(queue.invoke("offer")
+            .arg(JExpr._new(task)));
+        body.invoke(drain);
+        body._return(result);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCatchBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates methods looking up a generated annotation of a resource method, or the endpoint id of a
+ * resource method from a generated annotation with an {@code int} value.
+ * <p>
+ * The annotation is declared on the methods of the generated resource interfaces, so the generated
+ * method also inspects the interfaces implemented by the resource class and its superclasses. This
+ * lookup uses reflection, so it is only meant to be called once per resource method, e.g. from a
+ * {@code DynamicFeature}.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class EndpointLookupGenerator {
+
+    private JCodeModel codeModel;
+
+    /**
+     * Creates an endpoint lookup generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public EndpointLookupGenerator(JavaGeneratorContext context) {
+        this.codeModel = context.getCodeModel();
+    }
+
+    /**
+     * Generates a static method {@code findEndpoint(Class, Method)} in the given class.
+     *
+     * @param klass
+     *            class to contain the method
+     * @param mods
+     *            access modifiers of the method
+     * @param annotation
+     *            annotation with the endpoint id as value
+     * @return generated method
+     */
+    public JMethod generateFindEndpoint(JDefinedClass klass, int mods, JDefinedClass annotation) {
+        JMethod method = klass.method(mods | JMod.STATIC, codeModel.INT, "findEndpoint");
+        method.javadoc()
+            .add("Finds the endpoint id of a resource method, declared on the method itself or on "
+                + "a resource interface implemented by the resource class.");
+        generateLookup(method, annotation, "endpoint", a -> a.invoke(VALUE), JExpr.lit(-1));
+        method.javadoc()
+            .addReturn()
+            .add("endpoint id, or -1 if the method is not annotated");
+        return method;
+    }
+
+    /**
+     * Generates a static method {@code find<Annotation>(Class, Method)} in the given class,
+     * returning the given annotation of a resource method.
+     *
+     * @param klass
+     *            class to contain the method
+     * @param mods
+     *            access modifiers of the method
+     * @param annotation
+     *            annotation type
+     * @return generated method
+     */
+    public JMethod generateFindAnnotation(JDefinedClass klass, int mods,
+        JDefinedClass annotation) {
+        JMethod method = klass.method(mods | JMod.STATIC, annotation, "find" + annotation.name());
+        method.javadoc()
+            .add(String.format("Finds the {@code @%s} annotation of a resource method, declared "
+                + "on the method itself or on a resource interface implemented by the resource "
+                + "class.", annotation.name()));
+        generateLookup(method, annotation, "annotation", a -> a, JExpr._null());
+        method.javadoc()
+            .addReturn()
+            .add("annotation, or null if the method is not annotated");
+        return method;
+    }
+
+    private void generateLookup(JMethod method, JDefinedClass annotation, String varName,
+        Function<JExpression, JExpression> result, JExpression notFound) {
+        JClass classType = codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard());
+        JVar resourceClass = method.param(classType, "resourceClass");
+        JVar resourceMethod = method.param(Method.class, "resourceMethod");
+        method.javadoc()
+            .addParam(resourceClass)
+            .add("resource class");
+        method.javadoc()
+            .addParam(resourceMethod)
+            .add("resource method");
+
+        JBlock body = method.body();
+        JVar declaredAnnotation = body.decl(annotation, varName, resourceMethod
+            .invoke("getAnnotation")
+            .arg(annotation.dotclass()));
+        body._if(declaredAnnotation.ne(JExpr._null()))
+            ._then()
+            ._return(result.apply(declaredAnnotation));
+
+        JForLoop forTypes = body._for();
+        JVar type = forTypes.init(classType, "type", resourceClass);
+        forTypes.test(type.ne(JExpr._null()));
+        forTypes.update(JExpr.assign(type, type.invoke("getSuperclass")));
+        JForEach forInterfaces = forTypes.body()
+            .forEach(classType, "resourceInterface", type.invoke("getInterfaces"));
+        JTryBlock tryBlock = forInterfaces.body()
+            ._try();
+        JVar declared = tryBlock.body()
+            .decl(codeModel.ref(Method.class), "declared", forInterfaces.var()
+                .invoke("getMethod")
+                .arg(resourceMethod.invoke("getName"))
+                .arg(resourceMethod.invoke("getParameterTypes")));
+        tryBlock.body()
+            .assign(declaredAnnotation, declared.invoke("getAnnotation")
+                .arg(annotation.dotclass()));
+        tryBlock.body()
+            ._if(declaredAnnotation.ne(JExpr._null()))
+            ._then()
+            ._return(result.apply(declaredAnnotation));
+        JCatchBlock catchBlock = tryBlock._catch(codeModel.ref(NoSuchMethodException.class));
+        catchBlock.param("exc");
+        catchBlock.body()
+            .directStatement("// not declared by this interface");
+        body._return(notFound);
+    }
+}
@@ -19,22 +19,36 @@ package org.ops4j.ramler.java;
 
 import static org.ops4j.ramler.java.JavaConstants.VALUE;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.ext.ParamConverter;
+import javax.ws.rs.ext.ParamConverterProvider;
+import javax.ws.rs.ext.Provider;
+
 import org.ops4j.ramler.common.exc.Exceptions;
 import org.ops4j.ramler.common.model.EnumValue;
 import org.raml.v2.api.model.v10.datamodel.StringTypeDeclaration;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
 import com.sun.codemodel.JClassAlreadyExistsException;
 import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JEnumConstant;
 import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JFieldVar;
-import com.sun.codemodel.JForEach;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
 import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JTypeVar;
 import com.sun.codemodel.JVar;
 
 /**
@@ -53,6 +67,10 @@ public class EnumGenerator {
 
     private JDefinedClass klass;
 
+    private Map<String, JEnumConstant> constants;
+
+    private List<JDefinedClass> enumClasses = new ArrayList<>();
+
     /**
      * Creates a visitor for the given generator context.
      *
@@ -73,6 +91,8 @@ public class EnumGenerator {
      */
     public void generateEnumClassStart(StringTypeDeclaration type) {
         klass = pkg._getClass(type.name());
+        constants = new LinkedHashMap<>();
+        enumClasses.add(klass);
     }
 
     /**
@@ -116,6 +136,7 @@ public class EnumGenerator {
         JEnumConstant constant = klass
             .enumConstant(JavaNameFactory.buildConstantName(enumValue.getName()))
             .arg(JExpr.lit(enumValue.getName()));
+        constants.put(enumValue.getName(), constant);
 
         if (context.getConfig()
             .isJacksonPropertyName()) {
@@ -146,18 +167,26 @@ public class EnumGenerator {
     private void generateEnumFromStringMethod(JDefinedClass klass, JFieldVar valueField) {
         JMethod converter = klass.method(JMod.PUBLIC | JMod.STATIC, klass, "fromString");
         JVar param = converter.param(String.class, VALUE);
+        if (context.getConfig()
+            .isJacksonPropertyName()) {
+            converter.annotate(JsonCreator.class);
+        }
 
         JBlock body = converter.body();
-        JForEach forEach = body.forEach(klass, "v", klass.staticInvoke("values"));
-        JBlock loopBlock = forEach.body();
-        loopBlock._if(forEach.var()
-            .ref(valueField)
-            .invoke("equals")
-            .arg(param))
+        body._if(param.eq(JExpr._null()))
             ._then()
-            ._return(forEach.var());
-        body._throw(JExpr._new(codeModel._ref(IllegalArgumentException.class))
-            .arg(param));
+            ._throw(JExpr._new(codeModel._ref(IllegalArgumentException.class))
+                .arg(param));
+        JSwitch switchBlock = body._switch(param);
+        for (Map.Entry<String, JEnumConstant> entry : constants.entrySet()) {
+            switchBlock._case(JExpr.lit(entry.getKey()))
+                .body()
+                ._return(entry.getValue());
+        }
+        switchBlock._default()
+            .body()
+            ._throw(JExpr._new(codeModel._ref(IllegalArgumentException.class))
+                .arg(param));
     }
 
     private void generateEnumToStringMethod(JDefinedClass klass, JFieldVar valueField) {
@@ -166,4 +195,69 @@ public class EnumGenerator {
         JBlock body = converter.body();
         body._return(valueField);
     }
+
+    /**
+     * Generates a JAX-RS parameter converter provider for all enum classes generated so far,
+     * delegating to the {@code fromString()} and {@code value()} methods of the enum classes.
+     * Nothing is generated when there are no enum classes.
+     */
+    public void generateParamConverterProvider() {
+        if (enumClasses.isEmpty()) {
+            return;
+        }
+        JDefinedClass provider;
+        try {
+            provider = context.getApiPackage()
+                ._class("EnumParamConverterProvider");
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(provider);
+        provider.annotate(Provider.class);
+        provider._implements(ParamConverterProvider.class);
+
+        JMethod getConverter = provider.method(JMod.PUBLIC, codeModel.VOID, "getConverter");
+        JTypeVar t = getConverter.generify("T");
+        JClass converterType = codeModel.ref(ParamConverter.class);
+        getConverter.type(converterType.narrow(t));
+        getConverter.annotate(Override.class);
+        getConverter.annotate(SuppressWarnings.class)
+            .param(VALUE, "unchecked");
+        JVar rawType = getConverter.param(codeModel.ref(Class.class)
+            .narrow(t), "rawType");
+        getConverter.param(Type.class, "genericType");
+        getConverter.param(Annotation[].class, "annotations");
+
+        JBlock body = getConverter.body();
+        for (JDefinedClass enumClass : enumClasses) {
+            JFieldVar converter = generateParamConverter(provider, enumClass);
+            body._if(rawType.eq(enumClass.dotclass()))
+                ._then()
+                ._return(JExpr.cast(converterType.narrow(t), converter));
+        }
+        body._return(JExpr._null());
+    }
+
+    private JFieldVar generateParamConverter(JDefinedClass provider, JDefinedClass enumClass) {
+        JClass converterType = codeModel.ref(ParamConverter.class)
+            .narrow(enumClass);
+        JDefinedClass converterClass = codeModel.anonymousClass(converterType);
+
+        JMethod fromString = converterClass.method(JMod.PUBLIC, enumClass, "fromString");
+        fromString.annotate(Override.class);
+        JVar value = fromString.param(String.class, VALUE);
+        fromString.body()
+            ._return(enumClass.staticInvoke("fromString")
+                .arg(value));
+
+        JMethod toString = converterClass.method(JMod.PUBLIC, String.class, "toString");
+        toString.annotate(Override.class);
+        value = toString.param(enumClass, VALUE);
+        toString.body()
+            ._return(value.invoke(VALUE));
+
+        return provider.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, converterType,
+            JavaNameFactory.buildConstantName(enumClass.name()), JExpr._new(converterClass));
+    }
 }
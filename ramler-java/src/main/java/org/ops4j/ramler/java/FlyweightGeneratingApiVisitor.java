@@ -0,0 +1,666 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.common.helper.NameFactory.getAccessorName;
+import static org.ops4j.ramler.common.helper.NameFactory.getCheckerName;
+import static org.ops4j.ramler.common.helper.NameFactory.getGetterName;
+import static org.ops4j.ramler.common.helper.NameFactory.getSetterName;
+import static org.ops4j.ramler.java.JavaConstants.ENCODER_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.FLYWEIGHT_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.OFFSET_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.TYPE_VARS;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.helper.NameFactory;
+import org.ops4j.ramler.common.model.Annotations;
+import org.ops4j.ramler.common.model.ApiVisitor;
+import org.raml.v2.api.model.v10.api.Api;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldRef;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * API visitor generating flyweight classes for the POJO classes created by the other visitors. For
+ * each object type, there is a flyweight reading the properties directly from a {@code ByteBuffer},
+ * and an encoder writing them.
+ * <p>
+ * The binary layout of an object is derived from the Java types of its properties, so it honors the
+ * number formats of the RAML model:
+ * <ul>
+ * <li>the total length of the encoded object ({@code int32})</li>
+ * <li>a bit set indicating the presence of optional scalar properties, one bit per property</li>
+ * <li>all properties in declaration order, using 1 byte for {@code boolean}, 4 bytes for
+ * {@code int}, {@code float} and enumeration ordinals, 8 bytes for {@code long} and {@code double},
+ * and 8 bytes for strings (offset and length)</li>
+ * <li>the UTF-8 encoded content of all strings, with offsets relative to the start of the
+ * object</li>
+ * </ul>
+ * Types with properties which do not fit into this layout, like arrays, nested objects or temporal
+ * types, are skipped, as well as generic types.
+ * <p>
+ * This visitor must be run after the POJO generating visitors.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class FlyweightGeneratingApiVisitor implements ApiVisitor {
+
+    private static Logger log = LoggerFactory.getLogger(FlyweightGeneratingApiVisitor.class);
+
+    private static final int LENGTH_SIZE = 4;
+
+    private static final String BUFFER = "buffer";
+
+    private static final String OFFSET = "offset";
+
+    private static final String LIMIT = "limit";
+
+    private static final String FIXED_LENGTH = "FIXED_LENGTH";
+
+    private static final String WRAP = "wrap";
+
+    private static final String GET_ENCODED_LENGTH = "getEncodedLength";
+
+    /**
+     * Kind of a property in the binary layout, with its size in bytes.
+     */
+    private enum Kind {
+        BOOLEAN(1, "get", "put"), INT(4, "getInt", "putInt"), LONG(8, "getLong", "putLong"), FLOAT(
+            4, "getFloat", "putFloat"), DOUBLE(8, "getDouble",
+                "putDouble"), ENUM(4, "getInt", "putInt"), STRING(8, null, null);
+
+        private int size;
+
+        private String getter;
+
+        private String setter;
+
+        Kind(int size, String getter, String setter) {
+            this.size = size;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * Position of a property in the binary layout.
+     */
+    private static class Slot {
+
+        private TypeDeclaration property;
+
+        private JFieldVar field;
+
+        private Kind kind;
+
+        private int offset;
+
+        private int presenceBit = -1;
+
+        private JFieldVar offsetConstant;
+    }
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private NameFactory nameFactory;
+
+    private List<ObjectTypeDeclaration> objectTypes = new ArrayList<>();
+
+    /**
+     * Creates a visitor for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public FlyweightGeneratingApiVisitor(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getFlyweightPackage();
+        this.nameFactory = new JavaNameFactory();
+    }
+
+    @Override
+    public void visitObjectTypeStart(ObjectTypeDeclaration type) {
+        if (context.getApiModel()
+            .isInternal(type) || isGeneric(type)) {
+            return;
+        }
+        objectTypes.add(type);
+    }
+
+    @Override
+    public void visitApiEnd(Api api) {
+        for (ObjectTypeDeclaration type : objectTypes) {
+            List<Slot> slots = buildLayout(type);
+            if (slots != null) {
+                generateFlyweight(type, slots);
+            }
+        }
+    }
+
+    private boolean isGeneric(TypeDeclaration type) {
+        if (!Annotations.getStringAnnotations(type, TYPE_VARS)
+            .isEmpty()) {
+            return true;
+        }
+        return type.parentTypes()
+            .stream()
+            .anyMatch(this::isGeneric);
+    }
+
+    /**
+     * Computes the binary layout of the given type.
+     *
+     * @param type
+     *            object type
+     * @return list of slots, or null if the type has no fixed binary layout
+     */
+    private List<Slot> buildLayout(ObjectTypeDeclaration type) {
+        JDefinedClass pojo = context.getModelPackage()
+            ._getClass(type.name());
+        List<Slot> slots = new ArrayList<>();
+        int numPresenceBits = 0;
+        for (TypeDeclaration property : type.properties()) {
+            if (property.name()
+                .startsWith("/")) {
+                log.debug("skipping flyweight for {} with additional properties", type.name());
+                return null;
+            }
+            JFieldVar field = findField(pojo, nameFactory.buildVariableName(property));
+            if (field == null) {
+                // immutable discriminator
+                continue;
+            }
+            Kind kind = toKind(field.type());
+            if (kind == null) {
+                log.debug("skipping flyweight for {}, property {} has no fixed size", type.name(),
+                    property.name());
+                return null;
+            }
+            Slot slot = new Slot();
+            slot.property = property;
+            slot.field = field;
+            slot.kind = kind;
+            if (kind != Kind.STRING && isOptional(property, field)) {
+                slot.presenceBit = numPresenceBits++;
+            }
+            slots.add(slot);
+        }
+
+        int offset = LENGTH_SIZE + (numPresenceBits + 7) / 8;
+        for (Slot slot : slots) {
+            slot.offset = offset;
+            offset += slot.kind.size;
+        }
+        return slots;
+    }
+
+    /**
+     * Checks if the given field may be absent. This is the case for reference types and for
+     * optional properties with presence tracking.
+     */
+    private boolean isOptional(TypeDeclaration property, JFieldVar field) {
+        return !field.type()
+            .isPrimitive() || !Boolean.TRUE.equals(property.required());
+    }
+
+    private Kind toKind(JType type) {
+        JType primitive = type.unboxify();
+        if (primitive == codeModel.BOOLEAN) {
+            return Kind.BOOLEAN;
+        }
+        if (primitive == codeModel.INT) {
+            return Kind.INT;
+        }
+        if (primitive == codeModel.LONG) {
+            return Kind.LONG;
+        }
+        if (primitive == codeModel.FLOAT) {
+            return Kind.FLOAT;
+        }
+        if (primitive == codeModel.DOUBLE) {
+            return Kind.DOUBLE;
+        }
+        if (type.fullName()
+            .equals(String.class.getName())) {
+            return Kind.STRING;
+        }
+        if (type instanceof JDefinedClass
+            && ((JDefinedClass) type).getClassType() == ClassType.ENUM) {
+            return Kind.ENUM;
+        }
+        return null;
+    }
+
+    private JFieldVar findField(JDefinedClass klass, String fieldName) {
+        JClass current = klass;
+        while (current instanceof JDefinedClass) {
+            JFieldVar field = ((JDefinedClass) current).fields()
+                .get(fieldName);
+            if (field != null) {
+                return field;
+            }
+            current = current._extends();
+        }
+        return null;
+    }
+
+    private void generateFlyweight(ObjectTypeDeclaration type, List<Slot> slots) {
+        JDefinedClass pojo = context.getModelPackage()
+            ._getClass(type.name());
+        JDefinedClass flyweight = createClass(type.name() + FLYWEIGHT_SUFFIX);
+        flyweight.javadoc()
+            .add(String.format("Reads {@link %s} objects from a binary layout in a byte buffer, "
+                + "without creating any intermediate objects. "
+                + "The flyweight uses the byte order of the buffer.", pojo.fullName()));
+
+        int fixedLength = LENGTH_SIZE;
+        for (Slot slot : slots) {
+            slot.offsetConstant = flyweight.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL,
+                codeModel.INT, NameFactory.buildConstantName(slot.field.name()) + OFFSET_SUFFIX,
+                JExpr.lit(slot.offset));
+            slot.offsetConstant.javadoc()
+                .add(String.format("Offset of property {@code %s}.", slot.property.name()));
+            fixedLength = slot.offset + slot.kind.size;
+        }
+        JFieldVar fixedLengthConstant = flyweight.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL,
+            codeModel.INT, FIXED_LENGTH, JExpr.lit(fixedLength));
+        fixedLengthConstant.javadoc()
+            .add("Length of the fixed part of an encoded object in bytes.");
+
+        JFieldVar buffer = flyweight.field(JMod.PRIVATE, ByteBuffer.class, BUFFER);
+        JFieldVar offset = flyweight.field(JMod.PRIVATE, codeModel.INT, OFFSET);
+        JMethod wrap = generateWrap(flyweight, buffer, offset);
+        wrap.body()
+            ._return(JExpr._this());
+
+        JMethod getEncodedLength = flyweight.method(JMod.PUBLIC, codeModel.INT,
+            GET_ENCODED_LENGTH);
+        getEncodedLength.javadoc()
+            .add("Gets the length of the wrapped object, including all strings.");
+        getEncodedLength.javadoc()
+            .addReturn()
+            .add("total length of the encoded object in bytes");
+        getEncodedLength.body()
+            ._return(buffer.invoke("getInt")
+                .arg(offset));
+
+        JMethod readString = null;
+        for (Slot slot : slots) {
+            if (slot.kind == Kind.STRING && readString == null) {
+                readString = generateReadString(flyweight, buffer, offset);
+            }
+            generateFlyweightAccessors(flyweight, slot, buffer, offset, readString);
+        }
+
+        generateEncoder(type, pojo, flyweight, fixedLengthConstant, slots);
+    }
+
+    private JDefinedClass createClass(String className) {
+        try {
+            JDefinedClass klass = pkg._class(className);
+            context.annotateAsGenerated(klass);
+            return klass;
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+    }
+
+    private JMethod generateWrap(JDefinedClass klass, JFieldVar buffer, JFieldVar offset) {
+        JMethod wrap = klass.method(JMod.PUBLIC, klass, WRAP);
+        JVar bufferParam = wrap.param(ByteBuffer.class, BUFFER);
+        JVar offsetParam = wrap.param(codeModel.INT, OFFSET);
+        wrap.body()
+            .assign(JExpr._this()
+                .ref(buffer), bufferParam);
+        wrap.body()
+            .assign(JExpr._this()
+                .ref(offset), offsetParam);
+        wrap.javadoc()
+            .add("Wraps the encoded object at the given offset of the given buffer.");
+        wrap.javadoc()
+            .addParam(bufferParam)
+            .add("byte buffer");
+        wrap.javadoc()
+            .addParam(offsetParam)
+            .add("offset of encoded object in buffer");
+        wrap.javadoc()
+            .addReturn()
+            .add("this object");
+        return wrap;
+    }
+
+    private JMethod generateReadString(JDefinedClass flyweight, JFieldVar buffer,
+        JFieldVar offset) {
+        JMethod readString = flyweight.method(JMod.PRIVATE, String.class, "readString");
+        JVar position = readString.param(codeModel.INT, "position");
+        JBlock body = readString.body();
+        JVar length = body.decl(codeModel.INT, "length", buffer.invoke("getInt")
+            .arg(position.plus(JExpr.lit(4))));
+        body._if(length.lt(JExpr.lit(0)))
+            ._then()
+            ._return(JExpr._null());
+        JVar start = body.decl(codeModel.INT, "start", offset.plus(buffer.invoke("getInt")
+            .arg(position)));
+        JVar bytes = body.decl(codeModel.BYTE.array(), "bytes", JExpr.newArray(codeModel.BYTE,
+            length));
+        JForLoop loop = body._for();
+        JVar i = loop.init(codeModel.INT, "i", JExpr.lit(0));
+        loop.test(i.lt(length));
+        loop.update(i.incr());
+        loop.body()
+            .assign(bytes.component(i), buffer.invoke("get")
+                .arg(start.plus(i)));
+        body._return(JExpr._new(codeModel.ref(String.class))
+            .arg(bytes)
+            .arg(codeModel.ref(StandardCharsets.class)
+                .staticRef("UTF_8")));
+        return readString;
+    }
+
+    private void generateFlyweightAccessors(JDefinedClass flyweight, Slot slot, JFieldVar buffer,
+        JFieldVar offset, JMethod readString) {
+        JExpression position = offset.plus(slot.offsetConstant);
+        JType type = slot.field.type();
+        String fieldName = slot.field.name();
+        JMethod getter;
+        switch (slot.kind) {
+            case STRING:
+                getter = flyweight.method(JMod.PUBLIC, type, getGetterName(fieldName));
+                getter.body()
+                    ._return(JExpr.invoke(readString)
+                        .arg(position));
+                break;
+            case ENUM:
+                JFieldVar values = flyweight.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                    type.array(), NameFactory.buildConstantName(fieldName) + "_VALUES",
+                    ((JClass) type).staticInvoke("values"));
+                getter = flyweight.method(JMod.PUBLIC, type, getGetterName(fieldName));
+                getter.body()
+                    ._return(values.component(buffer.invoke(slot.kind.getter)
+                        .arg(position)));
+                break;
+            case BOOLEAN:
+                getter = flyweight.method(JMod.PUBLIC, codeModel.BOOLEAN,
+                    getCheckerName(fieldName));
+                getter.body()
+                    ._return(buffer.invoke(slot.kind.getter)
+                        .arg(position)
+                        .ne(JExpr.lit(0)));
+                break;
+            default:
+                getter = flyweight.method(JMod.PUBLIC, type.unboxify(), getGetterName(fieldName));
+                getter.body()
+                    ._return(buffer.invoke(slot.kind.getter)
+                        .arg(position));
+        }
+        if (slot.property.description() != null) {
+            getter.javadoc()
+                .add(slot.property.description()
+                    .value());
+        }
+
+        if (slot.presenceBit >= 0) {
+            JMethod checker = flyweight.method(JMod.PUBLIC, codeModel.BOOLEAN,
+                getAccessorName("has", fieldName));
+            checker.javadoc()
+                .add(String.format("Checks if property {@code %s} is present.",
+                    slot.property.name()));
+            checker.javadoc()
+                .addReturn()
+                .add("true if present");
+            checker.body()
+                ._return(buffer.invoke("get")
+                    .arg(offset.plus(presenceByte(slot)))
+                    .band(presenceMask(slot))
+                    .ne(JExpr.lit(0)));
+        }
+    }
+
+    private JExpression presenceByte(Slot slot) {
+        return JExpr.lit(LENGTH_SIZE + slot.presenceBit / 8);
+    }
+
+    private JExpression presenceMask(Slot slot) {
+        return JExpr.lit(1 << (slot.presenceBit % 8));
+    }
+
+    private void generateEncoder(ObjectTypeDeclaration type, JDefinedClass pojo,
+        JDefinedClass flyweight, JFieldVar fixedLength, List<Slot> slots) {
+        JDefinedClass encoder = createClass(type.name() + ENCODER_SUFFIX);
+        encoder.javadoc()
+            .add(String.format("Writes {@link %s} objects to a binary layout in a byte buffer, "
+                + "to be read by {@link %s}. Each property should be set at most once after "
+                + "wrapping the buffer.", pojo.fullName(), flyweight.name()));
+
+        JFieldVar buffer = encoder.field(JMod.PRIVATE, ByteBuffer.class, BUFFER);
+        JFieldVar offset = encoder.field(JMod.PRIVATE, codeModel.INT, OFFSET);
+        JFieldVar limit = encoder.field(JMod.PRIVATE, codeModel.INT, LIMIT);
+
+        JMethod wrap = generateWrap(encoder, buffer, offset);
+        wrap.javadoc()
+            .add(" All properties are reset.");
+        JBlock body = wrap.body();
+        JFieldRef fixedLengthRef = flyweight.staticRef(fixedLength);
+        body.assign(JExpr._this()
+            .ref(limit), offset.plus(fixedLengthRef));
+        JForLoop loop = body._for();
+        JVar i = loop.init(codeModel.INT, "i", offset);
+        loop.test(i.lt(limit));
+        loop.update(i.incr());
+        loop.body()
+            .invoke(buffer, "put")
+            .arg(i)
+            .arg(JExpr.cast(codeModel.BYTE, JExpr.lit(0)));
+        body.invoke(buffer, "putInt")
+            .arg(offset)
+            .arg(fixedLengthRef);
+        for (Slot slot : slots) {
+            if (slot.kind == Kind.STRING) {
+                body.invoke(buffer, "putInt")
+                    .arg(offset.plus(flyweight.staticRef(slot.offsetConstant))
+                        .plus(JExpr.lit(4)))
+                    .arg(JExpr.lit(-1));
+            }
+        }
+        body._return(JExpr._this());
+
+        JMethod getEncodedLength = encoder.method(JMod.PUBLIC, codeModel.INT,
+            GET_ENCODED_LENGTH);
+        getEncodedLength.javadoc()
+            .add("Gets the number of bytes written so far, including all strings.");
+        getEncodedLength.javadoc()
+            .addReturn()
+            .add("total length of the encoded object in bytes");
+        getEncodedLength.body()
+            ._return(limit.minus(offset));
+
+        JMethod writeString = null;
+        List<JMethod> setters = new ArrayList<>();
+        for (Slot slot : slots) {
+            if (slot.kind == Kind.STRING && writeString == null) {
+                writeString = generateWriteString(encoder, buffer, offset, limit);
+            }
+            setters.add(generateSetter(encoder, flyweight, slot, buffer, offset, writeString));
+        }
+
+        generateEncode(encoder, pojo, slots, setters);
+    }
+
+    private JMethod generateWriteString(JDefinedClass encoder, JFieldVar buffer,
+        JFieldVar offset, JFieldVar limit) {
+        JMethod writeString = encoder.method(JMod.PRIVATE, codeModel.VOID, "writeString");
+        JVar position = writeString.param(codeModel.INT, "position");
+        JVar value = writeString.param(String.class, VALUE);
+        JBlock body = writeString.body();
+        JBlock ifNull = body._if(value.eq(JExpr._null()))
+            ._then();
+        ifNull.invoke(buffer, "putInt")
+            .arg(position.plus(JExpr.lit(4)))
+            .arg(JExpr.lit(-1));
+        ifNull._return();
+        JVar bytes = body.decl(codeModel.BYTE.array(), "bytes", value.invoke("getBytes")
+            .arg(codeModel.ref(StandardCharsets.class)
+                .staticRef("UTF_8")));
+        body.invoke(buffer, "putInt")
+            .arg(position)
+            .arg(limit.minus(offset));
+        body.invoke(buffer, "putInt")
+            .arg(position.plus(JExpr.lit(4)))
+            .arg(bytes.ref("length"));
+        JForLoop loop = body._for();
+        JVar i = loop.init(codeModel.INT, "i", JExpr.lit(0));
+        loop.test(i.lt(bytes.ref("length")));
+        loop.update(i.incr());
+        loop.body()
+            .invoke(buffer, "put")
+            .arg(limit.plus(i))
+            .arg(bytes.component(i));
+        body.assignPlus(limit, bytes.ref("length"));
+        body.invoke(buffer, "putInt")
+            .arg(offset)
+            .arg(limit.minus(offset));
+        return writeString;
+    }
+
+    private JMethod generateSetter(JDefinedClass encoder, JDefinedClass flyweight, Slot slot,
+        JFieldVar buffer, JFieldVar offset, JMethod writeString) {
+        JType paramType = (slot.kind == Kind.STRING || slot.kind == Kind.ENUM)
+            ? slot.field.type()
+            : slot.field.type()
+                .unboxify();
+        String fieldName = slot.field.name();
+        JMethod setter = encoder.method(JMod.PUBLIC, encoder, getSetterName(fieldName));
+        JVar value = setter.param(paramType, VALUE);
+        setter.javadoc()
+            .add(String.format("Sets property {@code %s}.", slot.property.name()));
+        setter.javadoc()
+            .addParam(value)
+            .add("property value");
+        setter.javadoc()
+            .addReturn()
+            .add("this encoder");
+
+        JBlock body = setter.body();
+        JExpression position = offset.plus(flyweight.staticRef(slot.offsetConstant));
+        switch (slot.kind) {
+            case STRING:
+                body.invoke(writeString)
+                    .arg(position)
+                    .arg(value);
+                break;
+            case ENUM:
+                body.invoke(buffer, slot.kind.setter)
+                    .arg(position)
+                    .arg(value.invoke("ordinal"));
+                break;
+            case BOOLEAN:
+                body.invoke(buffer, slot.kind.setter)
+                    .arg(position)
+                    .arg(JExpr.cast(codeModel.BYTE, JOp.cond(value, JExpr.lit(1),
+                        JExpr.lit(0))));
+                break;
+            default:
+                body.invoke(buffer, slot.kind.setter)
+                    .arg(position)
+                    .arg(value);
+        }
+        if (slot.presenceBit >= 0) {
+            JExpression presencePosition = offset.plus(presenceByte(slot));
+            body.invoke(buffer, "put")
+                .arg(presencePosition)
+                .arg(JExpr.cast(codeModel.BYTE, buffer.invoke("get")
+                    .arg(presencePosition)
+                    .bor(presenceMask(slot))));
+        }
+        body._return(JExpr._this());
+        return setter;
+    }
+
+    private JExpression isPresent(JVar value, JFieldVar field, String getterName) {
+        if (field.type()
+            .isPrimitive()) {
+            return value.invoke(getAccessorName("has", field.name()));
+        }
+        return value.invoke(getterName)
+            .ne(JExpr._null());
+    }
+
+    private void generateEncode(JDefinedClass encoder, JDefinedClass pojo, List<Slot> slots,
+        List<JMethod> setters) {
+        JMethod encode = encoder.method(JMod.PUBLIC, encoder, "encode");
+        JVar value = encode.param(pojo, VALUE);
+        encode.javadoc()
+            .add("Sets all properties from the given object.");
+        encode.javadoc()
+            .addParam(value)
+            .add("object to be encoded");
+        encode.javadoc()
+            .addReturn()
+            .add("this encoder");
+        JBlock body = encode.body();
+        for (int index = 0; index < slots.size(); index++) {
+            Slot slot = slots.get(index);
+            String fieldName = slot.field.name();
+            String getterName = (slot.kind == Kind.BOOLEAN) ? getCheckerName(fieldName)
+                : getGetterName(fieldName);
+            if (slot.presenceBit >= 0) {
+                body._if(isPresent(value, slot.field, getterName))
+                    ._then()
+                    .invoke(setters.get(index))
+                    .arg(value.invoke(getterName));
+            }
+            else {
+                body.invoke(setters.get(index))
+                    .arg(value.invoke(getterName));
+            }
+        }
+        body._return(JExpr._this());
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.HTTP_CACHING;
+import static org.ops4j.ramler.java.JavaConstants.HTTP_CACHING_FEATURE;
+import static org.ops4j.ramler.java.JavaConstants.HTTP_CACHING_FILTER;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+
+import com.sun.codemodel.JAnnotationUse;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCatchBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates the {@code HttpCaching} annotation for resource methods annotated with
+ * {@code (cacheable)} or {@code (etag)}, and a JAX-RS response filter implementing these
+ * annotations.
+ * <p>
+ * The annotation is declared on the methods of the generated resource interfaces, which JAX-RS does
+ * not pass on to the filter. A generated {@code DynamicFeature} looks up the annotation once per
+ * resource method at deployment time and registers a filter instance for it. Filter instances are
+ * not injected, so the feature passes on its injected {@code Providers}.
+ * <p>
+ * The filter adds a {@code Cache-Control} header with the maximum age of the method. For methods
+ * with entity tags, it serializes the response entity with the message body writer selected for the
+ * response into a digest, without buffering the serialized entity. The digest is the {@code ETag}
+ * of the response. If the request preconditions match this tag, the entity is dropped and the
+ * response status is set to {@code 304 Not Modified}.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class HttpCachingGenerator {
+
+    private static final String MAX_AGE = "maxAge";
+
+    private static final String ETAG = "etag";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    /**
+     * Creates an HTTP caching generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public HttpCachingGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+    }
+
+    /**
+     * Generates the caching annotation, the response filter and the feature registering the filter
+     * in the API package.
+     *
+     * @return annotation type
+     */
+    public JDefinedClass generateCaching() {
+        JDefinedClass annotation;
+        JDefinedClass filter;
+        JDefinedClass feature;
+        try {
+            annotation = context.getApiPackage()
+                ._annotationTypeDeclaration(HTTP_CACHING);
+            filter = context.getApiPackage()
+                ._class(HTTP_CACHING_FILTER);
+            feature = context.getApiPackage()
+                ._class(HTTP_CACHING_FEATURE);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        generateAnnotation(annotation);
+        generateFilter(filter, annotation);
+        generateFeature(feature, filter, annotation);
+        return annotation;
+    }
+
+    /**
+     * Annotates the given resource method with the caching annotation.
+     *
+     * @param codeMethod
+     *            resource method
+     * @param annotation
+     *            caching annotation type
+     * @param maxAge
+     *            maximum age in seconds, or null
+     * @param etag
+     *            true if the method supports entity tags
+     */
+    public void annotateMethod(JMethod codeMethod, JDefinedClass annotation, Long maxAge,
+        boolean etag) {
+        JAnnotationUse caching = codeMethod.annotate(annotation);
+        if (maxAge != null) {
+            caching.param(MAX_AGE, maxAge.intValue());
+        }
+        if (etag) {
+            caching.param(ETAG, true);
+        }
+    }
+
+    private void generateAnnotation(JDefinedClass annotation) {
+        context.annotateAsGenerated(annotation);
+        annotation.annotate(Retention.class)
+            .param(VALUE, RetentionPolicy.RUNTIME);
+        annotation.annotate(Target.class)
+            .param(VALUE, ElementType.METHOD);
+        annotation.javadoc()
+            .add("Marks resource methods with cacheable responses.");
+
+        JMethod maxAge = annotation.method(JMod.NONE, codeModel.INT, MAX_AGE);
+        maxAge.declareDefaultValue(JExpr.lit(-1));
+        maxAge.javadoc()
+            .add("Maximum age of cached responses in seconds, or -1 to omit the "
+                + "{@code Cache-Control} header.");
+        maxAge.javadoc()
+            .addReturn()
+            .add("maximum age");
+
+        JMethod etag = annotation.method(JMod.NONE, codeModel.BOOLEAN, ETAG);
+        etag.declareDefaultValue(JExpr.FALSE);
+        etag.javadoc()
+            .add("Computes an entity tag from a digest of the serialized response entity.");
+        etag.javadoc()
+            .addReturn()
+            .add("true if entity tags are enabled");
+    }
+
+    private void generateFilter(JDefinedClass klass, JDefinedClass annotation) {
+        context.annotateAsGenerated(klass);
+        klass._implements(ContainerResponseFilter.class);
+        klass.javadoc()
+            .add("Adds cache control headers and entity tags to responses of a resource method "
+                + "annotated with {@code @" + HTTP_CACHING + "}.");
+
+        JFieldVar caching = klass.field(JMod.PRIVATE | JMod.FINAL, annotation, "caching");
+        JFieldVar providers = klass.field(JMod.PRIVATE | JMod.FINAL, Providers.class,
+            "providers");
+
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        JVar cachingParam = constructor.param(annotation, "caching");
+        JVar providersParam = constructor.param(Providers.class, "providers");
+        constructor.javadoc()
+            .add("Creates a filter for a resource method with the given caching annotation.");
+        constructor.javadoc()
+            .addParam(cachingParam)
+            .add("caching annotation");
+        constructor.javadoc()
+            .addParam(providersParam)
+            .add("providers for looking up message body writers");
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(caching), cachingParam);
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(providers), providersParam);
+
+        JMethod newDigest = generateNewDigest(klass);
+        JMethod computeEntityTag = generateComputeEntityTag(klass, providers, newDigest);
+
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.VOID, "filter");
+        method.annotate(Override.class);
+        JVar request = method.param(ContainerRequestContext.class, "request");
+        JVar response = method.param(ContainerResponseContext.class, "response");
+        method._throws(IOException.class);
+
+        JBlock body = method.body();
+        body._if(response.invoke("getStatus")
+            .ne(codeModel.ref(Response.Status.class)
+                .staticRef("OK")
+                .invoke("getStatusCode")))
+            ._then()
+            ._return();
+
+        JBlock ifMaxAge = body._if(caching.invoke(MAX_AGE)
+            .gte(JExpr.lit(0)))
+            ._then();
+        JVar cacheControl = ifMaxAge.decl(codeModel.ref(CacheControl.class), "cacheControl",
+            JExpr._new(codeModel.ref(CacheControl.class)));
+        ifMaxAge.invoke(cacheControl, "setMaxAge")
+            .arg(caching.invoke(MAX_AGE));
+        ifMaxAge.add(response.invoke("getHeaders")
+            .invoke("putSingle")
+            .arg(codeModel.ref(HttpHeaders.class)
+                .staticRef("CACHE_CONTROL"))
+            .arg(cacheControl));
+
+        body._if(caching.invoke(ETAG)
+            .not()
+            .cor(response.invoke("hasEntity")
+                .not()))
+            ._then()
+            ._return();
+        JVar entityTag = body.decl(codeModel.ref(EntityTag.class), "entityTag",
+            JExpr.invoke(computeEntityTag)
+                .arg(response));
+        body._if(entityTag.eq(JExpr._null()))
+            ._then()
+            ._return();
+        body.add(response.invoke("getHeaders")
+            .invoke("putSingle")
+            .arg(codeModel.ref(HttpHeaders.class)
+                .staticRef("ETAG"))
+            .arg(entityTag));
+        JVar preconditions = body.decl(codeModel.ref(Response.ResponseBuilder.class),
+            "preconditions", request.invoke("getRequest")
+                .invoke("evaluatePreconditions")
+                .arg(entityTag));
+        JBlock failed = body._if(preconditions.ne(JExpr._null()))
+            ._then();
+        failed.invoke(response, "setStatus")
+            .arg(preconditions.invoke("build")
+                .invoke("getStatus"));
+        failed.invoke(response, "setEntity")
+            .arg(JExpr._null());
+    }
+
+    private void generateFeature(JDefinedClass klass, JDefinedClass filter,
+        JDefinedClass annotation) {
+        context.annotateAsGenerated(klass);
+        klass.annotate(Provider.class);
+        klass._implements(DynamicFeature.class);
+        klass.javadoc()
+            .add("Registers a caching filter for each resource method annotated with {@code @"
+                + HTTP_CACHING + "}.");
+
+        JFieldVar providers = klass.field(JMod.PRIVATE, Providers.class, "providers");
+        providers.annotate(Context.class);
+
+        JMethod findCaching = new EndpointLookupGenerator(context).generateFindAnnotation(klass,
+            JMod.PUBLIC, annotation);
+
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.VOID, "configure");
+        method.annotate(Override.class);
+        JVar resourceInfo = method.param(ResourceInfo.class, "resourceInfo");
+        JVar featureContext = method.param(FeatureContext.class, "context");
+        JBlock body = method.body();
+        JVar caching = body.decl(annotation, "caching", JExpr.invoke(findCaching)
+            .arg(resourceInfo.invoke("getResourceClass"))
+            .arg(resourceInfo.invoke("getResourceMethod")));
+        body._if(caching.ne(JExpr._null()))
+            ._then()
+            .invoke(featureContext, "register")
+            .arg(JExpr._new(filter)
+                .arg(caching)
+                .arg(providers));
+    }
+
+    private JMethod generateNewDigest(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, MessageDigest.class,
+            "newDigest");
+        JTryBlock tryBlock = method.body()
+            ._try();
+        tryBlock.body()
+            ._return(codeModel.ref(MessageDigest.class)
+                .staticInvoke("getInstance")
+                .arg("SHA-256"));
+        JCatchBlock catchBlock = tryBlock._catch(codeModel.ref(NoSuchAlgorithmException.class));
+        JVar exc = catchBlock.param("exc");
+        catchBlock.body()
+            ._throw(JExpr._new(codeModel.ref(IllegalStateException.class))
+                .arg(exc));
+        return method;
+    }
+
+    private JMethod generateComputeEntityTag(JDefinedClass klass, JFieldVar providers,
+        JMethod newDigest) {
+        JMethod method = klass.method(JMod.PRIVATE, EntityTag.class, "computeEntityTag");
+        method.annotate(SuppressWarnings.class)
+            .param(VALUE, "unchecked");
+        JVar response = method.param(ContainerResponseContext.class, "response");
+        method._throws(IOException.class);
+
+        JBlock body = method.body();
+        JVar writer = body.decl(codeModel.ref(MessageBodyWriter.class)
+            .narrow(Object.class), "writer",
+            JExpr.cast(codeModel.ref(MessageBodyWriter.class),
+                providers.invoke("getMessageBodyWriter")
+                    .arg(response.invoke("getEntityClass"))
+                    .arg(response.invoke("getEntityType"))
+                    .arg(response.invoke("getEntityAnnotations"))
+                    .arg(response.invoke("getMediaType"))));
+        body._if(writer.eq(JExpr._null()))
+            ._then()
+            ._return(JExpr._null());
+        JVar digest = body.decl(JMod.FINAL, codeModel.ref(MessageDigest.class), "digest",
+            JExpr.invoke(newDigest));
+
+        JDefinedClass digestStream = codeModel.anonymousClass(OutputStream.class);
+        JMethod writeByte = digestStream.method(JMod.PUBLIC, codeModel.VOID, "write");
+        writeByte.annotate(Override.class);
+        JVar b = writeByte.param(codeModel.INT, "b");
+        writeByte.body()
+            .invoke(digest, "update")
+            .arg(JExpr.cast(codeModel.BYTE, b));
+        JMethod writeBytes = digestStream.method(JMod.PUBLIC, codeModel.VOID, "write");
+        writeBytes.annotate(Override.class);
+        JVar bytes = writeBytes.param(byte[].class, "bytes");
+        JVar off = writeBytes.param(codeModel.INT, "off");
+        JVar len = writeBytes.param(codeModel.INT, "len");
+        writeBytes.body()
+            .invoke(digest, "update")
+            .arg(bytes)
+            .arg(off)
+            .arg(len);
+
+        JClass headersType = codeModel.ref(MultivaluedHashMap.class)
+            .narrow(String.class, Object.class);
+        body.invoke(writer, "writeTo")
+            .arg(response.invoke("getEntity"))
+            .arg(response.invoke("getEntityClass"))
+            .arg(response.invoke("getEntityType"))
+            .arg(response.invoke("getEntityAnnotations"))
+            .arg(response.invoke("getMediaType"))
+            .arg(JExpr._new(headersType))
+            .arg(JExpr._new(digestStream));
+        body._return(JExpr._new(codeModel.ref(EntityTag.class))
+            .arg(codeModel.ref(Base64.class)
+                .staticInvoke("getUrlEncoder")
+                .invoke("withoutPadding")
+                .invoke("encodeToString")
+                .arg(digest.invoke("digest"))));
+        return method;
+    }
+}
@@ -0,0 +1,883 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.common.helper.NameFactory.getCheckerName;
+import static org.ops4j.ramler.common.helper.NameFactory.getGetterName;
+import static org.ops4j.ramler.common.helper.NameFactory.getSetterName;
+import static org.ops4j.ramler.java.JavaConstants.BUILDER;
+import static org.ops4j.ramler.java.JavaConstants.JACKSON_MODULE;
+import static org.ops4j.ramler.java.JavaConstants.TYPE_VARS;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.helper.NameFactory;
+import org.ops4j.ramler.common.model.Annotations;
+import org.ops4j.ramler.common.model.ApiVisitor;
+import org.raml.v2.api.model.v10.api.Api;
+import org.raml.v2.api.model.v10.datamodel.BooleanTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.StringTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JCase;
+import com.sun.codemodel.JCatchBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * API visitor generating streaming Jackson serializers and deserializers for the POJO and enum
+ * classes created by the other visitors, and a Jackson module registering all of them.
+ * <p>
+ * The generated code works directly on {@code JsonGenerator} and {@code JsonParser}, using
+ * precomputed property names, so there is no bean introspection or reflection at run-time. Generic
+ * types and types derived from generic types are skipped and left to Jackson databind.
+ * <p>
+ * This visitor must be run after the POJO generating visitors.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class JacksonStreamingApiVisitor implements ApiVisitor {
+
+    private static final List<Class<?>> TEMPORAL_TYPES = Arrays.asList(LocalDate.class,
+        LocalTime.class, LocalDateTime.class, ZonedDateTime.class);
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private NameFactory nameFactory;
+
+    private List<ObjectTypeDeclaration> objectTypes = new ArrayList<>();
+
+    private List<StringTypeDeclaration> enumTypes = new ArrayList<>();
+
+    private Map<String, JDefinedClass> serializers = new HashMap<>();
+
+    private Map<String, JDefinedClass> deserializers = new HashMap<>();
+
+    private int varIndex;
+
+    /**
+     * Creates a visitor for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public JacksonStreamingApiVisitor(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getModelPackage();
+        this.nameFactory = new JavaNameFactory();
+    }
+
+    @Override
+    public void visitObjectTypeStart(ObjectTypeDeclaration type) {
+        if (context.getApiModel()
+            .isInternal(type) || isGeneric(type)) {
+            return;
+        }
+        createSerializerClasses(type.name());
+        objectTypes.add(type);
+    }
+
+    @Override
+    public void visitEnumTypeStart(StringTypeDeclaration type) {
+        createSerializerClasses(type.name());
+        enumTypes.add(type);
+    }
+
+    @Override
+    public void visitApiEnd(Api api) {
+        objectTypes.forEach(this::generateObjectSerializer);
+        objectTypes.forEach(this::generateObjectDeserializer);
+        enumTypes.forEach(this::generateEnumSerializer);
+        enumTypes.forEach(this::generateEnumDeserializer);
+        generateModule();
+    }
+
+    /**
+     * Checks if the given type or any of its base types is a generic type. The type variables of
+     * such types cannot be resolved statically, so these types are left to Jackson databind.
+     *
+     * @param type
+     *            type declaration
+     * @return true if the type is generic
+     */
+    private boolean isGeneric(TypeDeclaration type) {
+        if (!Annotations.getStringAnnotations(type, TYPE_VARS)
+            .isEmpty()) {
+            return true;
+        }
+        return type.parentTypes()
+            .stream()
+            .anyMatch(this::isGeneric);
+    }
+
+    private void createSerializerClasses(String typeName) {
+        JDefinedClass valueClass = pkg._getClass(typeName);
+        JDefinedClass serializer = createClass(typeName + "Serializer",
+            codeModel.ref(StdSerializer.class)
+                .narrow(valueClass));
+        addConstructor(serializer, valueClass);
+        serializers.put(typeName, serializer);
+
+        JDefinedClass deserializer = createClass(typeName + "Deserializer",
+            codeModel.ref(StdDeserializer.class)
+                .narrow(valueClass));
+        addConstructor(deserializer, valueClass);
+        deserializers.put(typeName, deserializer);
+    }
+
+    private JDefinedClass createClass(String className, JClass baseClass) {
+        try {
+            JDefinedClass klass = pkg._class(className);
+            context.annotateAsGenerated(klass);
+            klass._extends(baseClass);
+            addDefaultSerialVersionUid(klass);
+            klass.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL, klass, "INSTANCE",
+                JExpr._new(klass));
+            return klass;
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+    }
+
+    private void addDefaultSerialVersionUid(JDefinedClass klass) {
+        JFieldVar uid = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, codeModel.LONG,
+            "serialVersionUID");
+        uid.init(JExpr.lit(1L));
+    }
+
+    private void addConstructor(JDefinedClass klass, JClass valueClass) {
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        constructor.body()
+            .invoke("super")
+            .arg(valueClass.dotclass());
+    }
+
+    private void generateObjectSerializer(ObjectTypeDeclaration type) {
+        JDefinedClass serializer = serializers.get(type.name());
+        JDefinedClass pojo = pkg._getClass(type.name());
+        varIndex = 0;
+
+        JMethod writeFields = serializer.method(JMod.PRIVATE, codeModel.VOID, "writeFields");
+        JVar value = writeFields.param(pojo, VALUE);
+        JVar gen = writeFields.param(JsonGenerator.class, "gen");
+        JVar provider = writeFields.param(SerializerProvider.class, "provider");
+        writeFields._throws(IOException.class);
+        for (TypeDeclaration property : type.properties()) {
+            writeProperty(serializer, writeFields.body(), type, property, value, gen, provider);
+        }
+
+        JMethod serialize = serializer.method(JMod.PUBLIC, codeModel.VOID, "serialize");
+        serialize.annotate(Override.class);
+        value = serialize.param(pojo, VALUE);
+        gen = serialize.param(JsonGenerator.class, "gen");
+        provider = serialize.param(SerializerProvider.class, "provider");
+        serialize._throws(IOException.class);
+        JBlock body = serialize.body();
+        body.invoke(gen, "writeStartObject")
+            .arg(value);
+        body.invoke(writeFields)
+            .arg(value)
+            .arg(gen)
+            .arg(provider);
+        body.invoke(gen, "writeEndObject");
+
+        JMethod serializeWithType = serializer.method(JMod.PUBLIC, codeModel.VOID,
+            "serializeWithType");
+        serializeWithType.annotate(Override.class);
+        value = serializeWithType.param(pojo, VALUE);
+        gen = serializeWithType.param(JsonGenerator.class, "gen");
+        provider = serializeWithType.param(SerializerProvider.class, "provider");
+        JVar typeSer = serializeWithType.param(TypeSerializer.class, "typeSer");
+        serializeWithType._throws(IOException.class);
+        body = serializeWithType.body();
+        JVar typeId = body.decl(codeModel.ref(WritableTypeId.class), "typeId",
+            typeSer.invoke("writeTypePrefix")
+                .arg(gen)
+                .arg(typeSer.invoke("typeId")
+                    .arg(value)
+                    .arg(token("START_OBJECT"))));
+        body.invoke(writeFields)
+            .arg(value)
+            .arg(gen)
+            .arg(provider);
+        body.invoke(typeSer, "writeTypeSuffix")
+            .arg(gen)
+            .arg(typeId);
+    }
+
+    private void writeProperty(JDefinedClass serializer, JBlock block,
+        ObjectTypeDeclaration type, TypeDeclaration property, JVar value, JVar gen,
+        JVar provider) {
+        String fieldName = nameFactory.buildVariableName(property);
+        JExpression getter;
+        JType fieldType;
+        JBlock present = block;
+        if (isImmutableDiscriminator(type, property)) {
+            getter = value.invoke(getGetterName(property.name()));
+            fieldType = codeModel.ref(String.class);
+        }
+        else {
+            JFieldVar field = findField(pkg._getClass(type.name()), fieldName);
+            if (field == null) {
+                return;
+            }
+            getter = value.invoke(getAccessorName(property, fieldName));
+            fieldType = field.type();
+            if (hasPresenceChecker(pkg._getClass(type.name()), fieldName)) {
+                present = block._if(value.invoke(NameFactory.getAccessorName("has", fieldName)))
+                    ._then();
+            }
+        }
+        JFieldVar propertyName = serializer.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            SerializedString.class, buildConstantName(serializer, fieldName),
+            JExpr._new(codeModel.ref(SerializedString.class))
+                .arg(context.getJsonName(property)));
+        present.invoke(gen, "writeFieldName")
+            .arg(propertyName);
+        writeValue(present, getter, fieldType, gen, provider);
+    }
+
+    private void writeValue(JBlock block, JExpression expr, JType type, JVar gen,
+        JVar provider) {
+        if (type.isPrimitive()) {
+            writePrimitive(block, expr, type, gen);
+            return;
+        }
+        JVar var = block.decl(type, nextVarName("value"), expr);
+        JConditional ifNull = block._if(var.eq(JExpr._null()));
+        ifNull._then()
+            .invoke(gen, "writeNull");
+        JBlock notNull = ifNull._else();
+        if (type.unboxify()
+            .isPrimitive()) {
+            writePrimitive(notNull, var, type.unboxify(), gen);
+        }
+        else if (isString(type)) {
+            notNull.invoke(gen, "writeString")
+                .arg(var);
+        }
+        else if (isEnum(type)) {
+            notNull.invoke(gen, "writeString")
+                .arg(enumJsonValue(var));
+        }
+        else if (isTemporal(type)) {
+            notNull.invoke(gen, "writeString")
+                .arg(formatter(type).invoke("format")
+                    .arg(var));
+        }
+        else if (isPrimitiveArray(type)) {
+            writePrimitiveArray(notNull, var, type.elementType(), gen);
+        }
+        else if (isList(type)) {
+            JType itemType = getItemType(type);
+            notNull.invoke(gen, "writeStartArray");
+            JForEach forEach = notNull.forEach(itemType, nextVarName("item"), var);
+            writeValue(forEach.body(), forEach.var(), itemType, gen, provider);
+            notNull.invoke(gen, "writeEndArray");
+        }
+        else if (isDirectlySerializable(type)) {
+            notNull.invoke(serializers.get(type.name())
+                .staticRef("INSTANCE"), "serialize")
+                .arg(var)
+                .arg(gen)
+                .arg(provider);
+        }
+        else {
+            notNull.invoke(provider, "defaultSerializeValue")
+                .arg(var)
+                .arg(gen);
+        }
+    }
+
+    private void writePrimitiveArray(JBlock block, JVar array, JType elementType, JVar gen) {
+        if (elementType == codeModel.INT || elementType == codeModel.LONG
+            || elementType == codeModel.DOUBLE) {
+            block.invoke(gen, "writeArray")
+                .arg(array)
+                .arg(JExpr.lit(0))
+                .arg(array.ref("length"));
+            return;
+        }
+        block.invoke(gen, "writeStartArray")
+            .arg(array.ref("length"));
+        JForEach forEach = block.forEach(elementType, nextVarName("item"), array);
+        writePrimitive(forEach.body(), forEach.var(), elementType, gen);
+        block.invoke(gen, "writeEndArray");
+    }
+
+    private void writePrimitive(JBlock block, JExpression expr, JType type, JVar gen) {
+        if (type == codeModel.BOOLEAN) {
+            block.invoke(gen, "writeBoolean")
+                .arg(expr);
+        }
+        else {
+            block.invoke(gen, "writeNumber")
+                .arg(expr);
+        }
+    }
+
+    private void generateObjectDeserializer(ObjectTypeDeclaration type) {
+        JDefinedClass deserializer = deserializers.get(type.name());
+        JDefinedClass pojo = pkg._getClass(type.name());
+        varIndex = 0;
+
+        JMethod deserialize = deserializer.method(JMod.PUBLIC, pojo, "deserialize");
+        deserialize.annotate(Override.class);
+        JVar parser = deserialize.param(JsonParser.class, "parser");
+        JVar ctxt = deserialize.param(DeserializationContext.class, "context");
+        deserialize._throws(IOException.class);
+
+        JBlock body = deserialize.body();
+        JVar token = body.decl(codeModel.ref(JsonToken.class), "token",
+            parser.invoke("getCurrentToken"));
+        body._if(token.eq(token("START_OBJECT")))
+            ._then()
+            .assign(token, parser.invoke("nextToken"));
+        addIdentityShortcut(deserializer, body, type, pojo, token, parser, ctxt);
+        body._if(token.ne(token("FIELD_NAME"))
+            .cand(token.ne(token("END_OBJECT"))))
+            ._then()
+            ._return(JExpr.cast(pojo, ctxt.invoke("handleUnexpectedToken")
+                .arg(pojo.dotclass())
+                .arg(parser)));
+
+        JDefinedClass builder = findBuilder(pojo);
+        JVar result;
+        if (builder == null) {
+            result = body.decl(pojo, "result", JExpr._new(pojo));
+        }
+        else {
+            result = body.decl(builder, "result", JExpr._new(builder));
+        }
+        JWhileLoop loop = body._while(token.eq(token("FIELD_NAME")));
+        JBlock loopBody = loop.body();
+        JVar name = loopBody.decl(codeModel.ref(String.class), "name",
+            parser.invoke("getCurrentName"));
+        loopBody.invoke(parser, "nextToken");
+        JSwitch switchBlock = loopBody._switch(name);
+        for (TypeDeclaration property : type.properties()) {
+            JCase caseBlock = switchBlock._case(JExpr.lit(context.getJsonName(property)));
+            readProperty(deserializer, caseBlock.body(), type, property, result, parser, ctxt);
+            caseBlock.body()
+                ._break();
+        }
+        switchBlock._default()
+            .body()
+            .invoke(ctxt, "handleUnknownProperty")
+            .arg(parser)
+            .arg(JExpr._this())
+            .arg(result)
+            .arg(name);
+        loopBody.assign(token, parser.invoke("nextToken"));
+        body._return((builder == null) ? result : result.invoke("build"));
+    }
+
+    private void addIdentityShortcut(JDefinedClass deserializer, JBlock body,
+        ObjectTypeDeclaration type, JDefinedClass pojo, JVar token, JVar parser, JVar ctxt) {
+        for (TypeDeclaration property : type.properties()) {
+            if (Annotations.isIdentity(property)) {
+                JFieldVar field = findField(pojo, nameFactory.buildVariableName(property));
+                if (field != null) {
+                    JBlock then = body._if(token.invoke("isScalarValue"))
+                        ._then();
+                    JExpression id = readValue(deserializer, then, field.type(), parser, ctxt);
+                    JDefinedClass builder = findBuilder(pojo);
+                    if (builder == null) {
+                        then._return(JExpr._new(pojo)
+                            .arg(id));
+                    }
+                    else {
+                        then._return(JExpr._new(builder)
+                            .invoke(field.name())
+                            .arg(id)
+                            .invoke("build"));
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private void readProperty(JDefinedClass deserializer, JBlock block,
+        ObjectTypeDeclaration type, TypeDeclaration property, JVar result, JVar parser,
+        JVar ctxt) {
+        if (isImmutableDiscriminator(type, property)) {
+            block.invoke(parser, "skipChildren");
+            return;
+        }
+        String fieldName = nameFactory.buildVariableName(property);
+        JFieldVar field = findField(pkg._getClass(type.name()), fieldName);
+        if (field == null) {
+            block.invoke(parser, "skipChildren");
+            return;
+        }
+        if (field.type()
+            .isPrimitive() && !Boolean.TRUE.equals(property.required())) {
+            // optional primitive with presence tracking, where null means absent
+            block = block._if(parser.invoke("getCurrentToken")
+                .ne(token("VALUE_NULL")))
+                ._then();
+        }
+        JExpression value = readValue(deserializer, block, field.type(), parser, ctxt);
+        block.invoke(result, getMutatorName(result, fieldName))
+            .arg(value);
+    }
+
+    /**
+     * Gets the name of the method for setting the given field, which is a setter for mutable POJOs
+     * and a builder method for value classes.
+     */
+    private String getMutatorName(JVar result, String fieldName) {
+        return isBuilder(result) ? fieldName : getSetterName(fieldName);
+    }
+
+    private boolean isBuilder(JVar result) {
+        return result.type()
+            .name()
+            .equals(BUILDER);
+    }
+
+    private JDefinedClass findBuilder(JDefinedClass pojo) {
+        for (Iterator<JDefinedClass> it = pojo.classes(); it.hasNext();) {
+            JDefinedClass nestedClass = it.next();
+            if (nestedClass.name()
+                .equals(BUILDER)) {
+                return nestedClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Generates code reading a value of the given type from the current parser position.
+     *
+     * @return expression for the value read, which may refer to local variables declared in the
+     *         given block
+     */
+    private JExpression readValue(JDefinedClass deserializer, JBlock block, JType type,
+        JVar parser, JVar ctxt) {
+        if (type.isPrimitive()) {
+            return readPrimitive(type, parser);
+        }
+        if (isString(type)) {
+            return parser.invoke("getValueAsString");
+        }
+        if (isList(type)) {
+            return readList(deserializer, block, type, parser, ctxt);
+        }
+        JExpression value;
+        if (type.unboxify()
+            .isPrimitive()) {
+            value = ((JClass) type).staticInvoke("valueOf")
+                .arg(readPrimitive(type.unboxify(), parser));
+        }
+        else if (isEnum(type)) {
+            value = deserializers.get(type.name())
+                .staticRef("INSTANCE")
+                .invoke("deserialize")
+                .arg(parser)
+                .arg(ctxt);
+        }
+        else if (isTemporal(type)) {
+            value = ((JClass) type).staticInvoke("parse")
+                .arg(parser.invoke("getText"))
+                .arg(formatter(type));
+        }
+        else if (isDirectlySerializable(type)) {
+            value = deserializers.get(type.name())
+                .staticRef("INSTANCE")
+                .invoke("deserialize")
+                .arg(parser)
+                .arg(ctxt);
+        }
+        else if (type instanceof JClass && !((JClass) type).getTypeParameters()
+            .isEmpty()) {
+                value = ctxt.invoke("readValue")
+                    .arg(parser)
+                    .arg(javaType(ctxt.invoke("getTypeFactory"), (JClass) type));
+            }
+        else {
+            value = ctxt.invoke("readValue")
+                .arg(parser)
+                .arg(((JClass) type).dotclass());
+        }
+        return JOp.cond(parser.invoke("getCurrentToken")
+            .eq(token("VALUE_NULL")), JExpr._null(), value);
+    }
+
+    private JExpression readPrimitive(JType type, JVar parser) {
+        if (type == codeModel.BOOLEAN) {
+            return parser.invoke("getBooleanValue");
+        }
+        if (type == codeModel.LONG) {
+            return parser.invoke("getLongValue");
+        }
+        if (type == codeModel.FLOAT) {
+            return parser.invoke("getFloatValue");
+        }
+        if (type == codeModel.DOUBLE) {
+            return parser.invoke("getDoubleValue");
+        }
+        return parser.invoke("getIntValue");
+    }
+
+    private JExpression readList(JDefinedClass deserializer, JBlock block, JType type,
+        JVar parser, JVar ctxt) {
+        JType itemType = getItemType(type);
+        JVar list = block.decl(type, nextVarName("list"), JExpr._null());
+        JConditional isArray = block._if(parser.invoke("isExpectedStartArrayToken"));
+        JBlock then = isArray._then();
+        then.assign(list, JExpr._new(codeModel.ref(ArrayList.class)
+            .narrow(itemType)));
+        JWhileLoop loop = then._while(parser.invoke("nextToken")
+            .ne(token("END_ARRAY")));
+        JExpression item = readValue(deserializer, loop.body(), itemType, parser, ctxt);
+        loop.body()
+            .invoke(list, "add")
+            .arg(item);
+        isArray._else()
+            ._if(parser.invoke("getCurrentToken")
+                .ne(token("VALUE_NULL")))
+            ._then()
+            .invoke(ctxt, "handleUnexpectedToken")
+            .arg(((JClass) type).erasure()
+                .dotclass())
+            .arg(parser);
+        return list;
+    }
+
+    /**
+     * Builds an expression constructing the Jackson type of a parameterized class from its raw
+     * class and type arguments, so that the generated code does not need a {@code TypeReference}
+     * subclass for each parameterized type.
+     */
+    private JExpression javaType(JExpression typeFactory, JClass type) {
+        List<JClass> typeArgs = type.getTypeParameters();
+        if (typeArgs.isEmpty()) {
+            return typeFactory.invoke("constructType")
+                .arg(type.dotclass());
+        }
+        boolean rawArgs = typeArgs.stream()
+            .allMatch(t -> t.getTypeParameters()
+                .isEmpty());
+        JClass rawType = type.erasure();
+        JInvocation invocation;
+        if (rawType.fullName()
+            .equals(Map.class.getName())) {
+            invocation = typeFactory.invoke("constructMapType");
+        }
+        else if (rawType.fullName()
+            .equals(List.class.getName())) {
+                invocation = typeFactory.invoke("constructCollectionType");
+            }
+        else {
+            invocation = typeFactory.invoke("constructParametricType");
+        }
+        invocation.arg(rawType.dotclass());
+        for (JClass typeArg : typeArgs) {
+            invocation.arg(rawArgs ? typeArg.dotclass() : javaType(typeFactory, typeArg));
+        }
+        return invocation;
+    }
+
+    private void generateEnumSerializer(StringTypeDeclaration type) {
+        JDefinedClass serializer = serializers.get(type.name());
+        JDefinedClass enumClass = pkg._getClass(type.name());
+
+        JMethod serialize = serializer.method(JMod.PUBLIC, codeModel.VOID, "serialize");
+        serialize.annotate(Override.class);
+        JVar value = serialize.param(enumClass, VALUE);
+        JVar gen = serialize.param(JsonGenerator.class, "gen");
+        serialize.param(SerializerProvider.class, "provider");
+        serialize._throws(IOException.class);
+        serialize.body()
+            .invoke(gen, "writeString")
+            .arg(enumJsonValue(value));
+    }
+
+    /**
+     * Builds an expression for the JSON representation of the given enum value. Like Jackson
+     * databind, this is the RAML value when the enum constants are annotated with
+     * {@code @JsonProperty}, and the Java constant name otherwise.
+     */
+    private JExpression enumJsonValue(JExpression value) {
+        if (context.getConfig()
+            .isJacksonPropertyName()) {
+            return value.invoke(VALUE);
+        }
+        return value.invoke("name");
+    }
+
+    private void generateEnumDeserializer(StringTypeDeclaration type) {
+        JDefinedClass deserializer = deserializers.get(type.name());
+        JDefinedClass enumClass = pkg._getClass(type.name());
+
+        JMethod deserialize = deserializer.method(JMod.PUBLIC, enumClass, "deserialize");
+        deserialize.annotate(Override.class);
+        JVar parser = deserialize.param(JsonParser.class, "parser");
+        JVar ctxt = deserialize.param(DeserializationContext.class, "context");
+        deserialize._throws(IOException.class);
+
+        JBlock body = deserialize.body();
+        JVar text = body.decl(codeModel.ref(String.class), "text", parser.invoke("getText"));
+        JTryBlock tryBlock = body._try();
+        String converter = context.getConfig()
+            .isJacksonPropertyName() ? "fromString" : "valueOf";
+        tryBlock.body()
+            ._return(enumClass.staticInvoke(converter)
+                .arg(text));
+        JCatchBlock catchBlock = tryBlock._catch(codeModel.ref(IllegalArgumentException.class));
+        catchBlock.param("exc");
+        catchBlock.body()
+            ._return(JExpr.cast(enumClass, ctxt.invoke("handleWeirdStringValue")
+                .arg(enumClass.dotclass())
+                .arg(text)
+                .arg(JExpr.lit("not one of the values accepted for " + type.name()))));
+    }
+
+    private void generateModule() {
+        JDefinedClass module;
+        try {
+            module = pkg._class(JACKSON_MODULE);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(module);
+        module.javadoc()
+            .add("Registers the generated streaming serializers and deserializers.");
+        module._extends(SimpleModule.class);
+        addDefaultSerialVersionUid(module);
+
+        JMethod constructor = module.constructor(JMod.PUBLIC);
+        JBlock body = constructor.body();
+        body.invoke("super")
+            .arg(JExpr.lit(JACKSON_MODULE));
+        for (String typeName : serializers.keySet()) {
+            JClass valueClass = pkg._getClass(typeName);
+            body.invoke("addSerializer")
+                .arg(valueClass.dotclass())
+                .arg(serializers.get(typeName)
+                    .staticRef("INSTANCE"));
+            body.invoke("addDeserializer")
+                .arg(valueClass.dotclass())
+                .arg(deserializers.get(typeName)
+                    .staticRef("INSTANCE"));
+        }
+    }
+
+    private boolean isImmutableDiscriminator(ObjectTypeDeclaration type,
+        TypeDeclaration property) {
+        return property.name()
+            .equals(type.discriminator())
+            && findField(pkg._getClass(type.name()),
+                nameFactory.buildVariableName(property)) == null;
+    }
+
+    private String getAccessorName(TypeDeclaration property, String fieldName) {
+        if (property instanceof BooleanTypeDeclaration) {
+            return getCheckerName(fieldName);
+        }
+        return getGetterName(fieldName);
+    }
+
+    private String buildConstantName(JDefinedClass klass, String fieldName) {
+        String constantName = NameFactory.buildConstantName(fieldName);
+        String uniqueName = constantName;
+        int suffix = 1;
+        while (klass.fields()
+            .containsKey(uniqueName)) {
+            uniqueName = constantName + "_" + suffix++;
+        }
+        return uniqueName;
+    }
+
+    private String nextVarName(String prefix) {
+        varIndex++;
+        return prefix + varIndex;
+    }
+
+    /**
+     * Finds the field with the given name in the given class or in any of its generated base
+     * classes.
+     *
+     * @param klass
+     *            generated class
+     * @param fieldName
+     *            field name
+     * @return field, or null
+     */
+    private JFieldVar findField(JDefinedClass klass, String fieldName) {
+        JClass current = klass;
+        while (current instanceof JDefinedClass) {
+            JFieldVar field = ((JDefinedClass) current).fields()
+                .get(fieldName);
+            if (field != null) {
+                return field;
+            }
+            current = current._extends();
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the given class or any of its generated base classes has a presence checker for the
+     * given field, which is the case with presence tracking.
+     *
+     * @param klass
+     *            generated class
+     * @param fieldName
+     *            field name
+     * @return true if there is a presence checker
+     */
+    private boolean hasPresenceChecker(JDefinedClass klass, String fieldName) {
+        String checkerName = NameFactory.getAccessorName("has", fieldName);
+        JClass current = klass;
+        while (current instanceof JDefinedClass) {
+            if (((JDefinedClass) current).getMethod(checkerName, new JType[0]) != null) {
+                return true;
+            }
+            current = current._extends();
+        }
+        return false;
+    }
+
+    private JExpression token(String name) {
+        return codeModel.ref(JsonToken.class)
+            .staticRef(name);
+    }
+
+    private JExpression formatter(JType type) {
+        String formatterName;
+        switch (type.fullName()) {
+            case "java.time.LocalDate":
+                formatterName = "ISO_LOCAL_DATE";
+                break;
+            case "java.time.LocalTime":
+                formatterName = "ISO_LOCAL_TIME";
+                break;
+            case "java.time.LocalDateTime":
+                formatterName = "ISO_LOCAL_DATE_TIME";
+                break;
+            default:
+                formatterName = "ISO_OFFSET_DATE_TIME";
+                break;
+        }
+        return codeModel.ref(DateTimeFormatter.class)
+            .staticRef(formatterName);
+    }
+
+    private boolean isString(JType type) {
+        return type.fullName()
+            .equals(String.class.getName());
+    }
+
+    private boolean isEnum(JType type) {
+        return type instanceof JDefinedClass
+            && ((JDefinedClass) type).getClassType() == ClassType.ENUM;
+    }
+
+    private boolean isTemporal(JType type) {
+        return TEMPORAL_TYPES.stream()
+            .anyMatch(t -> t.getName()
+                .equals(type.fullName()));
+    }
+
+    private boolean isPrimitiveArray(JType type) {
+        return type.isArray() && type.elementType()
+            .isPrimitive();
+    }
+
+    private boolean isList(JType type) {
+        return type instanceof JClass && ((JClass) type).erasure()
+            .fullName()
+            .equals(List.class.getName());
+    }
+
+    private JType getItemType(JType type) {
+        return ((JClass) type).getTypeParameters()
+            .get(0);
+    }
+
+    /**
+     * Checks if values of the given type can be handled by invoking the corresponding generated
+     * (de)serializer directly. This is not the case for types with subtypes, where the runtime type
+     * of the value may differ from the declared type.
+     *
+     * @param type
+     *            Java type
+     * @return true if generated (de)serializer can be invoked directly
+     */
+    private boolean isDirectlySerializable(JType type) {
+        return type instanceof JDefinedClass && serializers.containsKey(type.name())
+            && context.getApiModel()
+                .findDerivedTypes(type.name())
+                .isEmpty();
+    }
+}
@@ -36,10 +36,18 @@ public class JavaConfiguration {
 
     private String delegatorPackage;
 
+    private String clientPackage;
+
+    private String flyweightPackage;
+
+    private String batchPackage;
+
     private String sourceFile;
 
     private File targetDir;
 
+    private File resourceTargetDir;
+
     private String interfaceNameSuffix;
 
     private boolean discriminatorMutable;
@@ -50,6 +58,50 @@ public class JavaConfiguration {
 
     private boolean jacksonUnion;
 
+    private boolean jacksonStreaming;
+
+    private boolean enumParamConverters;
+
+    private boolean valueClasses;
+
+    private boolean primitiveArrays;
+
+    private String asyncResources;
+
+    private long asyncTimeout;
+
+    private boolean clients;
+
+    private boolean delegators;
+
+    private String delegatorSuffix;
+
+    private String delegateFieldName;
+
+    private String delegatorDispatch;
+
+    private int delegatorConcurrency;
+
+    private boolean delegatorCoalescing;
+
+    private boolean validation;
+
+    private boolean nativeImage;
+
+    private boolean application;
+
+    private String applicationName;
+
+    private boolean flyweights;
+
+    private boolean columnarBatches;
+
+    private boolean presenceTracking;
+
+    private boolean modelProvider;
+
+    private boolean metrics;
+
     /**
      * Gets the name of the base package for all subpackages created by the code generator.
      *
@@ -142,6 +194,78 @@ public class JavaConfiguration {
         this.delegatorPackage = delegatorPackage;
     }
 
+    /**
+     * Gets the name of the subpackage with HTTP client classes.
+     * <p>
+     * Example: Given the base package {@code com.example.myapi} and the client package
+     * {@code gen.client}, the client classes will be generated in package
+     * {@code com.example.myapi.gen.client}.
+     *
+     * @return the client package, defaulting to {@code client}.
+     */
+    public String getClientPackage() {
+        return Optional.ofNullable(clientPackage)
+            .orElse("client");
+    }
+
+    /**
+     * Gets the name of the subpackage with HTTP client classes.
+     *
+     * @param clientPackage
+     *            name of client subpackage
+     */
+    public void setClientPackage(String clientPackage) {
+        this.clientPackage = clientPackage;
+    }
+
+    /**
+     * Gets the name of the subpackage with flyweight classes.
+     * <p>
+     * Example: Given the base package {@code com.example.myapi} and the flyweight package
+     * {@code gen.flyweight}, the flyweight classes will be generated in package
+     * {@code com.example.myapi.gen.flyweight}.
+     *
+     * @return the flyweight package, defaulting to {@code flyweight}.
+     */
+    public String getFlyweightPackage() {
+        return Optional.ofNullable(flyweightPackage)
+            .orElse("flyweight");
+    }
+
+    /**
+     * Gets the name of the subpackage with flyweight classes.
+     *
+     * @param flyweightPackage
+     *            name of flyweight subpackage
+     */
+    public void setFlyweightPackage(String flyweightPackage) {
+        this.flyweightPackage = flyweightPackage;
+    }
+
+    /**
+     * Gets the name of the subpackage with columnar batch classes.
+     * <p>
+     * Example: Given the base package {@code com.example.myapi} and the batch package
+     * {@code gen.batch}, the batch classes will be generated in package
+     * {@code com.example.myapi.gen.batch}.
+     *
+     * @return the batch package, defaulting to {@code batch}.
+     */
+    public String getBatchPackage() {
+        return Optional.ofNullable(batchPackage)
+            .orElse("batch");
+    }
+
+    /**
+     * Gets the name of the subpackage with columnar batch classes.
+     *
+     * @param batchPackage
+     *            name of batch subpackage
+     */
+    public void setBatchPackage(String batchPackage) {
+        this.batchPackage = batchPackage;
+    }
+
     /**
      * Gets the top-level RAML source file.
      *
@@ -182,6 +306,26 @@ public class JavaConfiguration {
         this.targetDir = targetDir;
     }
 
+    /**
+     * Gets the target directory for generated resources, like native image configuration files.
+     * Defaults to the target directory for generated code.
+     *
+     * @return the resource target directory
+     */
+    public File getResourceTargetDir() {
+        return (resourceTargetDir == null) ? targetDir : resourceTargetDir;
+    }
+
+    /**
+     * Sets the target directory for generated resources.
+     *
+     * @param resourceTargetDir
+     *            the resource target directory to set
+     */
+    public void setResourceTargetDir(File resourceTargetDir) {
+        this.resourceTargetDir = resourceTargetDir;
+    }
+
     /**
      * Gets the interface name suffix for JAX-RS resource interfaces. The default is
      * {@code Resource}.
@@ -281,4 +425,461 @@ public class JavaConfiguration {
     public void setJacksonUnion(boolean jacksonUnion) {
         this.jacksonUnion = jacksonUnion;
     }
+
+    /**
+     * Should streaming Jackson serializers and deserializers be generated for object, enumeration
+     * and date types, together with a Jackson module registering them?
+     *
+     * @return true if streaming (de)serializers should be generated
+     */
+    public boolean isJacksonStreaming() {
+        return jacksonStreaming;
+    }
+
+    /**
+     * Should streaming Jackson serializers and deserializers be generated for object, enumeration
+     * and date types, together with a Jackson module registering them?
+     *
+     * @param jacksonStreaming
+     *            desired setting
+     */
+    public void setJacksonStreaming(boolean jacksonStreaming) {
+        this.jacksonStreaming = jacksonStreaming;
+    }
+
+    /**
+     * Should a JAX-RS parameter converter provider be generated for all enumeration types?
+     *
+     * @return true if the provider should be generated
+     */
+    public boolean isEnumParamConverters() {
+        return enumParamConverters;
+    }
+
+    /**
+     * Should a JAX-RS parameter converter provider be generated for all enumeration types?
+     *
+     * @param enumParamConverters
+     *            desired setting
+     */
+    public void setEnumParamConverters(boolean enumParamConverters) {
+        this.enumParamConverters = enumParamConverters;
+    }
+
+    /**
+     * Should object types be mapped to immutable value classes with builders instead of mutable
+     * beans?
+     *
+     * @return true if immutable value classes shall be generated
+     */
+    public boolean isValueClasses() {
+        return valueClasses;
+    }
+
+    /**
+     * Should object types be mapped to immutable value classes with builders instead of mutable
+     * beans?
+     *
+     * @param valueClasses
+     *            desired setting
+     */
+    public void setValueClasses(boolean valueClasses) {
+        this.valueClasses = valueClasses;
+    }
+
+    /**
+     * Should array properties with integer, number or boolean items be mapped to primitive Java
+     * arrays instead of lists?
+     *
+     * @return true if primitive arrays shall be generated
+     */
+    public boolean isPrimitiveArrays() {
+        return primitiveArrays;
+    }
+
+    /**
+     * Should array properties with integer, number or boolean items be mapped to primitive Java
+     * arrays instead of lists?
+     *
+     * @param primitiveArrays
+     *            desired setting
+     */
+    public void setPrimitiveArrays(boolean primitiveArrays) {
+        this.primitiveArrays = primitiveArrays;
+    }
+
+    /**
+     * Gets the asynchronous mode for generated resource methods. Supported values are {@code none},
+     * {@code completionStage} (methods return a {@code CompletionStage}) and {@code asyncResponse}
+     * (methods take a suspended {@code AsyncResponse} parameter). The mode may be overridden per
+     * method by the {@code (async)} annotation.
+     *
+     * @return the asyncResources
+     */
+    public String getAsyncResources() {
+        return Optional.ofNullable(asyncResources)
+            .orElse("none");
+    }
+
+    /**
+     * Sets the asynchronous mode for generated resource methods.
+     *
+     * @param asyncResources
+     *            the asyncResources to set
+     */
+    public void setAsyncResources(String asyncResources) {
+        this.asyncResources = asyncResources;
+    }
+
+    /**
+     * Gets the default timeout in milliseconds for asynchronous resource methods. A value of zero
+     * means no timeout. The timeout may be overridden per method by the {@code (asyncTimeout)}
+     * annotation.
+     *
+     * @return the asyncTimeout
+     */
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    /**
+     * Sets the default timeout in milliseconds for asynchronous resource methods.
+     *
+     * @param asyncTimeout
+     *            the asyncTimeout to set
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    /**
+     * Should HTTP client classes based on the JDK HttpClient be generated for all resources?
+     *
+     * @return true if client classes will be generated
+     */
+    public boolean isClients() {
+        return clients;
+    }
+
+    /**
+     * Should HTTP client classes based on the JDK HttpClient be generated for all resources?
+     *
+     * @param clients
+     *            desired setting
+     */
+    public void setClients(boolean clients) {
+        this.clients = clients;
+    }
+
+    /**
+     * Should delegator classes be generated for all resource interfaces, forwarding each call to a
+     * delegate implementing the same interface?
+     *
+     * @return true if delegator classes will be generated
+     */
+    public boolean isDelegators() {
+        return delegators;
+    }
+
+    /**
+     * Should delegator classes be generated for all resource interfaces, forwarding each call to a
+     * delegate implementing the same interface?
+     *
+     * @param delegators
+     *            desired setting
+     */
+    public void setDelegators(boolean delegators) {
+        this.delegators = delegators;
+    }
+
+    /**
+     * Gets the suffix for delegator class names. This suffix is appended to the code name of a
+     * resource.
+     *
+     * @return the delegatorSuffix
+     */
+    public String getDelegatorSuffix() {
+        return Optional.ofNullable(delegatorSuffix)
+            .orElse("Delegator");
+    }
+
+    /**
+     * Sets the suffix for delegator class names.
+     *
+     * @param delegatorSuffix
+     *            the delegatorSuffix to set
+     */
+    public void setDelegatorSuffix(String delegatorSuffix) {
+        this.delegatorSuffix = delegatorSuffix;
+    }
+
+    /**
+     * Gets the name of the delegate field of generated delegator classes.
+     *
+     * @return the delegateFieldName
+     */
+    public String getDelegateFieldName() {
+        return Optional.ofNullable(delegateFieldName)
+            .orElse("delegate");
+    }
+
+    /**
+     * Sets the name of the delegate field of generated delegator classes.
+     *
+     * @param delegateFieldName
+     *            the delegateFieldName to set
+     */
+    public void setDelegateFieldName(String delegateFieldName) {
+        this.delegateFieldName = delegateFieldName;
+    }
+
+    /**
+     * Gets the dispatch mode of delegators for asynchronous resource methods. Supported values are
+     * {@code direct} (the delegate is called on the container thread), {@code executor} (the
+     * delegate is called on an executor passed to the delegator) and {@code virtualThreads} (like
+     * {@code executor}, with a default executor starting a virtual thread per call).
+     *
+     * @return the delegatorDispatch
+     */
+    public String getDelegatorDispatch() {
+        return Optional.ofNullable(delegatorDispatch)
+            .orElse("direct");
+    }
+
+    /**
+     * Sets the dispatch mode of delegators for asynchronous resource methods.
+     *
+     * @param delegatorDispatch
+     *            the delegatorDispatch to set
+     */
+    public void setDelegatorDispatch(String delegatorDispatch) {
+        this.delegatorDispatch = delegatorDispatch;
+    }
+
+    /**
+     * Gets the maximum number of concurrent asynchronous calls dispatched by each delegator. A
+     * value of zero means no limit.
+     *
+     * @return the delegatorConcurrency
+     */
+    public int getDelegatorConcurrency() {
+        return delegatorConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of concurrent asynchronous calls dispatched by each delegator.
+     *
+     * @param delegatorConcurrency
+     *            the delegatorConcurrency to set
+     */
+    public void setDelegatorConcurrency(int delegatorConcurrency) {
+        this.delegatorConcurrency = delegatorConcurrency;
+    }
+
+    /**
+     * Should delegators share a single call of the delegate among concurrent calls of a GET method
+     * with equal arguments?
+     *
+     * @return true if calls are coalesced
+     */
+    public boolean isDelegatorCoalescing() {
+        return delegatorCoalescing;
+    }
+
+    /**
+     * Should delegators share a single call of the delegate among concurrent calls of a GET method
+     * with equal arguments?
+     *
+     * @param delegatorCoalescing
+     *            desired setting
+     */
+    public void setDelegatorCoalescing(boolean delegatorCoalescing) {
+        this.delegatorCoalescing = delegatorCoalescing;
+    }
+
+    /**
+     * Should validation methods be generated, checking the RAML facets of model properties and
+     * parameters?
+     *
+     * @return true if validation methods are generated
+     */
+    public boolean isValidation() {
+        return validation;
+    }
+
+    /**
+     * Should validation methods be generated, checking the RAML facets of model properties and
+     * parameters?
+     *
+     * @param validation
+     *            desired setting
+     */
+    public void setValidation(boolean validation) {
+        this.validation = validation;
+    }
+
+    /**
+     * Should GraalVM native image configuration files be generated for all generated classes?
+     *
+     * @return true if native image configuration files will be generated
+     */
+    public boolean isNativeImage() {
+        return nativeImage;
+    }
+
+    /**
+     * Should GraalVM native image configuration files be generated for all generated classes?
+     *
+     * @param nativeImage
+     *            desired setting
+     */
+    public void setNativeImage(boolean nativeImage) {
+        this.nativeImage = nativeImage;
+    }
+
+    /**
+     * Should a JAX-RS application class be generated, listing all resources and providers
+     * explicitly?
+     *
+     * @return true if an application class will be generated
+     */
+    public boolean isApplication() {
+        return application;
+    }
+
+    /**
+     * Should a JAX-RS application class be generated, listing all resources and providers
+     * explicitly?
+     *
+     * @param application
+     *            desired setting
+     */
+    public void setApplication(boolean application) {
+        this.application = application;
+    }
+
+    /**
+     * Gets the simple name of the generated JAX-RS application class.
+     *
+     * @return the applicationName
+     */
+    public String getApplicationName() {
+        return Optional.ofNullable(applicationName)
+            .orElse("ApiApplication");
+    }
+
+    /**
+     * Sets the simple name of the generated JAX-RS application class.
+     *
+     * @param applicationName
+     *            the applicationName to set
+     */
+    public void setApplicationName(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    /**
+     * Should the generator create flyweight accessors and encoders for a binary layout of model
+     * types?
+     *
+     * @return true if flyweights will be generated
+     */
+    public boolean isFlyweights() {
+        return flyweights;
+    }
+
+    /**
+     * Should the generator create flyweight accessors and encoders for a binary layout of model
+     * types?
+     *
+     * @param flyweights
+     *            desired setting
+     */
+    public void setFlyweights(boolean flyweights) {
+        this.flyweights = flyweights;
+    }
+
+    /**
+     * Should the generator create columnar batch classes with one array per property for model
+     * types?
+     *
+     * @return true if columnar batches will be generated
+     */
+    public boolean isColumnarBatches() {
+        return columnarBatches;
+    }
+
+    /**
+     * Should the generator create columnar batch classes with one array per property for model
+     * types?
+     *
+     * @param columnarBatches
+     *            desired setting
+     */
+    public void setColumnarBatches(boolean columnarBatches) {
+        this.columnarBatches = columnarBatches;
+    }
+
+    /**
+     * Should the generator track the presence of properties in a bit mask, with primitive fields
+     * for optional scalars?
+     *
+     * @return true if the presence of properties will be tracked
+     */
+    public boolean isPresenceTracking() {
+        return presenceTracking;
+    }
+
+    /**
+     * Should the generator track the presence of properties in a bit mask, with primitive fields
+     * for optional scalars?
+     *
+     * @param presenceTracking
+     *            desired setting
+     */
+    public void setPresenceTracking(boolean presenceTracking) {
+        this.presenceTracking = presenceTracking;
+    }
+
+    /**
+     * Should the generator create a JAX-RS provider reading and writing model types with cached
+     * Jackson readers and writers?
+     *
+     * @return true if a model provider will be generated
+     */
+    public boolean isModelProvider() {
+        return modelProvider;
+    }
+
+    /**
+     * Should the generator create a JAX-RS provider reading and writing model types with cached
+     * Jackson readers and writers?
+     *
+     * @param modelProvider
+     *            desired setting
+     */
+    public void setModelProvider(boolean modelProvider) {
+        this.modelProvider = modelProvider;
+    }
+
+    /**
+     * Should the generator create filters recording request counts and latency histograms per
+     * endpoint?
+     *
+     * @return true if metrics filters will be generated
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Should the generator create filters recording request counts and latency histograms per
+     * endpoint?
+     *
+     * @param metrics
+     *            desired setting
+     */
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
 }
@@ -81,6 +81,307 @@ public class JavaConstants {
      */
     public static final String DISCRIMINATOR = "DISCRIMINATOR";
 
+    /**
+     * Name of generated Jackson module registering streaming serializers and deserializers.
+     */
+    public static final String JACKSON_MODULE = "JacksonModule";
+
+    /**
+     * Name of nested builder class of generated value classes.
+     */
+    public static final String BUILDER = "Builder";
+
+    /**
+     * Asynchronous mode for synchronous resource methods.
+     */
+    public static final String ASYNC_NONE = "none";
+
+    /**
+     * Asynchronous mode for resource methods returning a {@code CompletionStage}.
+     */
+    public static final String ASYNC_COMPLETION_STAGE = "completionStage";
+
+    /**
+     * Asynchronous mode for resource methods with a suspended {@code AsyncResponse} parameter.
+     */
+    public static final String ASYNC_RESPONSE = "asyncResponse";
+
+    /**
+     * Name of {@code AsyncResponse} parameter of asynchronous resource methods.
+     */
+    public static final String ASYNC_RESPONSE_PARAM = "asyncResponse";
+
+    /**
+     * Suffix of timeout constants for asynchronous resource methods.
+     */
+    public static final String TIMEOUT_SUFFIX = "_TIMEOUT";
+
+    /**
+     * Suffix of generated HTTP client classes.
+     */
+    public static final String CLIENT_SUFFIX = "Client";
+
+    /**
+     * Name of generated base class of HTTP clients.
+     */
+    public static final String ABSTRACT_CLIENT = "AbstractClient";
+
+    /**
+     * Name of generated body codec interface of HTTP clients.
+     */
+    public static final String BODY_CODEC = "BodyCodec";
+
+    /**
+     * Name of generated Jackson body codec of HTTP clients.
+     */
+    public static final String JACKSON_BODY_CODEC = "JacksonBodyCodec";
+
+    /**
+     * Name of generated exception for unexpected HTTP responses.
+     */
+    public static final String CLIENT_EXCEPTION = "ClientException";
+
+    /**
+     * Streaming mode for array results written as JSON arrays.
+     */
+    public static final String STREAMING_JSON_ARRAY = "jsonArray";
+
+    /**
+     * Streaming mode for array results written as newline delimited JSON.
+     */
+    public static final String STREAMING_NDJSON = "ndjson";
+
+    /**
+     * Media type for newline delimited JSON.
+     */
+    public static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * Name of generated message body writer for streaming results.
+     */
+    public static final String STREAM_WRITER = "StreamMessageBodyWriter";
+
+    /**
+     * Dispatch mode for delegators calling the delegate on the container thread.
+     */
+    public static final String DISPATCH_DIRECT = "direct";
+
+    /**
+     * Dispatch mode for delegators calling the delegate of asynchronous methods on an executor.
+     */
+    public static final String DISPATCH_EXECUTOR = "executor";
+
+    /**
+     * Dispatch mode for delegators calling the delegate of asynchronous methods on a virtual
+     * thread.
+     */
+    public static final String DISPATCH_VIRTUAL_THREADS = "virtualThreads";
+
+    /**
+     * Name of generated executor limiting the concurrency of delegators.
+     */
+    public static final String BOUNDED_EXECUTOR = "BoundedExecutor";
+
+    /**
+     * Name of generated class sharing the results of concurrent delegator calls.
+     */
+    public static final String REQUEST_COALESCER = "RequestCoalescer";
+
+    /**
+     * Suffix of request coalescer fields in delegators.
+     */
+    public static final String COALESCER_SUFFIX = "Coalescer";
+
+    /**
+     * Suffix of generated argument key classes for request coalescing.
+     */
+    public static final String COALESCING_KEY_SUFFIX = "Key";
+
+    /**
+     * Name of generated validation methods.
+     */
+    public static final String VALIDATE = "validate";
+
+    /**
+     * Name of generated exception for constraint violations.
+     */
+    public static final String VALIDATION_EXCEPTION = "ValidationException";
+
+    /**
+     * Name of generated exception mapper for constraint violations.
+     */
+    public static final String VALIDATION_EXCEPTION_MAPPER = "ValidationExceptionMapper";
+
+    /**
+     * Suffix for parameter validator class names.
+     */
+    public static final String VALIDATOR_SUFFIX = "Validator";
+
+    /**
+     * Suffix for precompiled regular expression constants.
+     */
+    public static final String PATTERN_SUFFIX = "_PATTERN";
+
+    /**
+     * Suffix of generated flyweight classes.
+     */
+    public static final String FLYWEIGHT_SUFFIX = "Flyweight";
+
+    /**
+     * Suffix of generated flyweight encoder classes.
+     */
+    public static final String ENCODER_SUFFIX = "Encoder";
+
+    /**
+     * Suffix of field offset constants in flyweight classes.
+     */
+    public static final String OFFSET_SUFFIX = "_OFFSET";
+
+    /**
+     * Suffix of generated columnar batch classes.
+     */
+    public static final String BATCH_SUFFIX = "Batch";
+
+    /**
+     * Name of bit mask field tracking the presence of properties in generated POJOs.
+     */
+    public static final String PRESENT_PROPERTIES = "presentProperties";
+
+    /**
+     * Suffix of bit constants for presence tracking.
+     */
+    public static final String PRESENT_SUFFIX = "_PRESENT";
+
+    /**
+     * Name of generated method merging present properties into a POJO.
+     */
+    public static final String MERGE = "merge";
+
+    /**
+     * Suffix of generated Jackson type id resolvers.
+     */
+    public static final String TYPE_ID_RESOLVER_SUFFIX = "TypeIdResolver";
+
+    /**
+     * Name of generated message body reader and writer for model types.
+     */
+    public static final String MODEL_PROVIDER = "ModelMessageBodyProvider";
+
+    /**
+     * Name of query parameter selecting the properties of sparse fieldsets.
+     */
+    public static final String FIELDS = "fields";
+
+    /**
+     * Name of generated marker annotation for resource methods supporting sparse fieldsets.
+     */
+    public static final String SPARSE_FIELDSETS = "SparseFieldsets";
+
+    /**
+     * Name of generated message body writer for sparse fieldsets.
+     */
+    public static final String SPARSE_FIELDSET_WRITER = "SparseFieldsetWriter";
+
+    /**
+     * Name of generated page envelope class for paged collections.
+     */
+    public static final String PAGE = "Page";
+
+    /**
+     * Name of generated client iterator over all items of a paged collection.
+     */
+    public static final String PAGE_ITERATOR = "PageIterator";
+
+    /**
+     * Name of query parameter with the cursor of the requested page.
+     */
+    public static final String CURSOR = "cursor";
+
+    /**
+     * Name of query parameter with the maximum number of items per page.
+     */
+    public static final String LIMIT = "limit";
+
+    /**
+     * Name of generated result envelope of bulk methods.
+     */
+    public static final String BULK_RESULT = "BulkResult";
+
+    /**
+     * Name of generated result class for a single item of a bulk method.
+     */
+    public static final String BULK_ITEM_RESULT = "BulkItemResult";
+
+    /**
+     * Name of generated helper class of delegators dispatching the items of bulk methods.
+     */
+    public static final String BULK_DISPATCHER = "BulkDispatcher";
+
+    /**
+     * Name of generated client class collecting single-item calls into bulk requests.
+     */
+    public static final String BULK_BATCHER = "BulkBatcher";
+
+    /**
+     * Name of the list parameter of bulk methods.
+     */
+    public static final String BULK_ITEMS = "items";
+
+    /**
+     * Name of generated annotation for resource methods with cacheable responses.
+     */
+    public static final String HTTP_CACHING = "HttpCaching";
+
+    /**
+     * Name of generated response filter adding cache control headers and entity tags.
+     */
+    public static final String HTTP_CACHING_FILTER = "HttpCachingFilter";
+
+    /**
+     * Name of generated feature registering HTTP caching filters for resource methods.
+     */
+    public static final String HTTP_CACHING_FEATURE = "HttpCachingFeature";
+
+    /**
+     * Name of generated nested class for cached responses of HTTP clients.
+     */
+    public static final String CACHED_RESPONSE = "CachedResponse";
+
+    /**
+     * Name of generated annotation mapping resource methods to metrics endpoint ids.
+     */
+    public static final String METRICS_ENDPOINT = "MetricsEndpoint";
+
+    /**
+     * Name of generated registry of per-endpoint request metrics.
+     */
+    public static final String ENDPOINT_METRICS = "EndpointMetrics";
+
+    /**
+     * Name of generated filter recording request metrics.
+     */
+    public static final String ENDPOINT_METRICS_FILTER = "EndpointMetricsFilter";
+
+    /**
+     * Name of generated feature registering metrics filters for resource methods.
+     */
+    public static final String ENDPOINT_METRICS_FEATURE = "EndpointMetricsFeature";
+
+    /**
+     * Name of generated annotation mapping resource methods to load shedding endpoint ids.
+     */
+    public static final String LOAD_SHEDDING = "LoadShedding";
+
+    /**
+     * Name of generated filter enforcing concurrency and rate limits.
+     */
+    public static final String LOAD_SHEDDING_FILTER = "LoadSheddingFilter";
+
+    /**
+     * Name of generated feature registering load shedding filters for resource methods.
+     */
+    public static final String LOAD_SHEDDING_FEATURE = "LoadSheddingFeature";
+
     private JavaConstants() {
         throw new UnsupportedOperationException();
     }
@@ -19,13 +19,16 @@ package org.ops4j.ramler.java;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.exc.GeneratorException;
 import org.ops4j.ramler.common.helper.FileHelper;
 import org.ops4j.ramler.common.model.ApiModel;
 import org.ops4j.ramler.common.model.ApiModelBuilder;
 import org.ops4j.ramler.common.model.ApiTraverser;
+import org.ops4j.ramler.common.model.ApiVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,6 +69,10 @@ public class JavaGenerator {
      * Generates code for the given configuration.
      */
     public void generate() {
+        if (config.isPresenceTracking() && !config.isJacksonStreaming()) {
+            // Jackson databind cannot tell absent properties from default values
+            throw new GeneratorException("presence tracking requires Jackson streaming");
+        }
         log.debug("Building API model");
         ApiModel apiModel = new ApiModelBuilder().buildApiModel(config.getSourceFile());
         context.setApiModel(apiModel);
@@ -74,16 +81,41 @@ public class JavaGenerator {
         buildCodeModel();
         log.debug("Writing Java code model");
         writeCodeModel();
+        if (config.isNativeImage()) {
+            log.debug("Writing native image configuration");
+            new NativeImageConfigGenerator(context).generate();
+        }
     }
 
     private void buildCodeModel() {
-        PojoCreatingApiVisitor pojoCreator = new PojoCreatingApiVisitor(context);
-        PojoGeneratingApiVisitor pojoVisitor = new PojoGeneratingApiVisitor(context);
-        ResourceGeneratingApiVisitor resourceVisitor = new ResourceGeneratingApiVisitor(context);
+        List<ApiVisitor> visitors = new ArrayList<>();
+        visitors.add(new PojoCreatingApiVisitor(context));
+        visitors.add(new PojoGeneratingApiVisitor(context));
+        visitors.add(new ResourceGeneratingApiVisitor(context));
+        if (config.isDelegators()) {
+            visitors.add(new DelegatorGeneratingApiVisitor(context));
+        }
+        if (config.isJacksonStreaming()) {
+            visitors.add(new JacksonStreamingApiVisitor(context));
+        }
+        if (config.isClients()) {
+            visitors.add(new ClientGeneratingApiVisitor(context));
+        }
+        if (config.isFlyweights()) {
+            visitors.add(new FlyweightGeneratingApiVisitor(context));
+        }
+        if (config.isColumnarBatches()) {
+            visitors.add(new BatchGeneratingApiVisitor(context));
+        }
         ApiTraverser traverser = new ApiTraverser(context.getApiModel());
-        Stream.of(pojoCreator, pojoVisitor, resourceVisitor)
-            .forEach(v -> traverser.traverse(context.getApiModel()
-                .getApi(), v));
+        visitors.forEach(v -> traverser.traverse(context.getApiModel()
+            .getApi(), v));
+        if (config.isModelProvider()) {
+            new ModelProviderGenerator(context).generateModelProvider();
+        }
+        if (config.isApplication()) {
+            new ApplicationGenerator(context).generateApplication();
+        }
     }
 
     private void writeCodeModel() {
@@ -19,6 +19,8 @@ package org.ops4j.ramler.java;
 
 import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.ops4j.ramler.java.JavaConstants.TYPE_ARGS;
+import static org.ops4j.ramler.java.JavaConstants.TYPE_VARS;
 
 import java.io.InputStream;
 import java.time.LocalDate;
@@ -32,6 +34,7 @@ import java.util.Map;
 import javax.annotation.Generated;
 
 import org.ops4j.ramler.common.helper.Version;
+import org.ops4j.ramler.common.model.Annotations;
 import org.ops4j.ramler.common.model.ApiModel;
 import org.ops4j.ramler.common.model.CommonConstants;
 import org.raml.v2.api.model.v10.datamodel.AnyTypeDeclaration;
@@ -50,6 +53,7 @@ import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
 
 import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JPackage;
 import com.sun.codemodel.JType;
 
@@ -71,10 +75,20 @@ public class JavaGeneratorContext {
 
     private JPackage delegatorPackage;
 
+    private JPackage clientPackage;
+
+    private JPackage flyweightPackage;
+
+    private JPackage batchPackage;
+
     private Map<String, JType> typeMap;
 
+    private Map<JMethod, JMethod> bulkMethods;
+
     private ApiModel apiModel;
 
+    private JavaNameFactory nameFactory;
+
     /**
      * Creates a generator context for the given configuration.
      *
@@ -85,10 +99,15 @@ public class JavaGeneratorContext {
         this.config = config;
         this.codeModel = new JCodeModel();
         this.typeMap = new HashMap<>();
+        this.bulkMethods = new HashMap<>();
+        this.nameFactory = new JavaNameFactory();
         JPackage basePackage = codeModel._package(config.getBasePackage());
         modelPackage = basePackage.subPackage(config.getModelPackage());
         apiPackage = basePackage.subPackage(config.getApiPackage());
         delegatorPackage = basePackage.subPackage(config.getDelegatorPackage());
+        clientPackage = basePackage.subPackage(config.getClientPackage());
+        flyweightPackage = basePackage.subPackage(config.getFlyweightPackage());
+        batchPackage = basePackage.subPackage(config.getBatchPackage());
     }
 
     /**
@@ -115,6 +134,29 @@ public class JavaGeneratorContext {
         return typeMap.get(typeName);
     }
 
+    /**
+     * Stores the single-item method of a generated bulk method.
+     *
+     * @param bulkMethod
+     *            bulk method of a resource interface
+     * @param itemMethod
+     *            corresponding single-item method
+     */
+    public void addBulkMethod(JMethod bulkMethod, JMethod itemMethod) {
+        bulkMethods.put(bulkMethod, itemMethod);
+    }
+
+    /**
+     * Finds the single-item method of a given bulk method.
+     *
+     * @param bulkMethod
+     *            resource method
+     * @return single-item method, or null if the given method is not a bulk method
+     */
+    public JMethod findItemMethod(JMethod bulkMethod) {
+        return bulkMethods.get(bulkMethod);
+    }
+
     private JType getReferencedJavaType(TypeDeclaration decl) {
         JType jtype = null;
         if (decl instanceof StringTypeDeclaration) {
@@ -188,22 +230,25 @@ public class JavaGeneratorContext {
 
     private JType getNumberType(NumberTypeDeclaration decl) {
         if (decl.format() == null) {
-            return getIntegerType((IntegerTypeDeclaration) decl);
+            if (decl instanceof IntegerTypeDeclaration) {
+                return getIntegerType(decl);
+            }
+            return getDoubleType(decl);
         }
         switch (decl.format()) {
             case "long":
             case "int64":
-                return getLongType((IntegerTypeDeclaration) decl);
+                return getLongType(decl);
             case "float":
                 return getFloatType(decl);
             case "double":
                 return getDoubleType(decl);
             default:
-                return getIntegerType((IntegerTypeDeclaration) decl);
+                return getIntegerType(decl);
         }
     }
 
-    private JType getLongType(IntegerTypeDeclaration decl) {
+    private JType getLongType(NumberTypeDeclaration decl) {
         if (decl.required()) {
             return codeModel.LONG;
         }
@@ -230,7 +275,7 @@ public class JavaGeneratorContext {
         }
     }
 
-    private JType getIntegerType(IntegerTypeDeclaration decl) {
+    private JType getIntegerType(NumberTypeDeclaration decl) {
         if (decl.required()) {
             return codeModel.INT;
         }
@@ -290,6 +335,70 @@ public class JavaGeneratorContext {
         return getReferencedJavaType(apiModel.getDeclaredType(type));
     }
 
+    /**
+     * Checks if the given object type shall be mapped to an immutable value class. This requires
+     * the {@code valueClasses} option. Types in a generic type hierarchy are excluded, since the
+     * constructor and builder signatures of value classes cannot be derived for type variables.
+     *
+     * @param type
+     *            RAML object type
+     * @return true if the type is mapped to a value class
+     */
+    public boolean isValueClass(ObjectTypeDeclaration type) {
+        return config.isValueClasses() && !apiModel.isInternal(type)
+            && !isInGenericHierarchy(type);
+    }
+
+    /**
+     * Checks if the given object type is generic, derived from a generic type or a base type of a
+     * generic type. Instances of such types may be serialized by Jackson databind instead of
+     * generated streaming serializers.
+     *
+     * @param type
+     *            RAML object type
+     * @return true if the type is part of a generic type hierarchy
+     */
+    public boolean isInGenericHierarchy(ObjectTypeDeclaration type) {
+        return isGeneric(type) || hasGenericSubtype(type.name());
+    }
+
+    private boolean isGeneric(TypeDeclaration type) {
+        if (!Annotations.getStringAnnotations(type, TYPE_VARS)
+            .isEmpty()
+            || !Annotations.getStringAnnotations(type, TYPE_ARGS)
+                .isEmpty()) {
+            return true;
+        }
+        return type.parentTypes()
+            .stream()
+            .anyMatch(this::isGeneric);
+    }
+
+    private boolean hasGenericSubtype(String typeName) {
+        for (String derivedType : apiModel.findDerivedTypes(typeName)) {
+            TypeDeclaration decl = apiModel.getDeclaredType(derivedType);
+            if (decl == null || isGeneric(decl) || hasGenericSubtype(derivedType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the JSON property name used by Jackson databind for the given property. This is the RAML
+     * property name with the {@code jacksonPropertyName} option, and the Java field name otherwise.
+     *
+     * @param property
+     *            RAML property declaration
+     * @return JSON property name
+     */
+    public String getJsonName(TypeDeclaration property) {
+        if (config.isJacksonPropertyName()) {
+            return property.name();
+        }
+        return nameFactory.buildVariableName(property);
+    }
+
     /**
      * Adds the {@code @Generated} annotation to the given class.
      *
@@ -389,4 +498,31 @@ public class JavaGeneratorContext {
     public JPackage getDelegatorPackage() {
         return delegatorPackage;
     }
+
+    /**
+     * Gets the Java package for the generated HTTP client classes.
+     *
+     * @return the client package
+     */
+    public JPackage getClientPackage() {
+        return clientPackage;
+    }
+
+    /**
+     * Gets the Java package for the generated flyweight classes.
+     *
+     * @return the flyweight package
+     */
+    public JPackage getFlyweightPackage() {
+        return flyweightPackage;
+    }
+
+    /**
+     * Gets the Java package for the generated columnar batch classes.
+     *
+     * @return the batch package
+     */
+    public JPackage getBatchPackage() {
+        return batchPackage;
+    }
 }
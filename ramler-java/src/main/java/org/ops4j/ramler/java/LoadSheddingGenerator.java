@@ -0,0 +1,428 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.LOAD_SHEDDING;
+import static org.ops4j.ramler.java.JavaConstants.LOAD_SHEDDING_FEATURE;
+import static org.ops4j.ramler.java.JavaConstants.LOAD_SHEDDING_FILTER;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates filters limiting the concurrency and the request rate of resource methods annotated
+ * with {@code (maxConcurrency)} or {@code (rateLimit)}.
+ * <p>
+ * Each combination of HTTP method and resource path with limits is mapped to a dense endpoint id at
+ * generation time, and the resource methods are annotated with this id. A generated
+ * {@code DynamicFeature} creates one filter per endpoint with a semaphore and a token bucket sized
+ * by the given limits, and binds this filter to the resource methods of the endpoint at deployment
+ * time.
+ * <p>
+ * The filters never block. A request exceeding the rate limit is rejected with
+ * {@code 429 Too Many Requests}, a request exceeding the concurrency limit with
+ * {@code 503 Service Unavailable}. The token bucket is a single atomic timestamp updated by
+ * compare-and-set.
+ * <p>
+ * The concurrency limit is a semaphore per endpoint. A permit is acquired without blocking by the
+ * request filter and released by the response filter. Asynchronous resource methods can register a
+ * completion callback releasing the permit, to cover unmapped exceptions, where the response filter
+ * is not invoked.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class LoadSheddingGenerator {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private JDefinedClass annotation;
+
+    private Map<String, Integer> endpoints = new LinkedHashMap<>();
+
+    private List<int[]> limits = new ArrayList<>();
+
+    /**
+     * Creates a load shedding generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public LoadSheddingGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getApiPackage();
+    }
+
+    /**
+     * Annotates the given resource method with the id of the endpoint identified by the given HTTP
+     * method and resource path. Methods with the same HTTP method and path share their limits.
+     *
+     * @param codeMethod
+     *            resource method
+     * @param httpMethod
+     *            HTTP method
+     * @param path
+     *            resource path
+     * @param maxConcurrency
+     *            maximum number of concurrent requests, or null
+     * @param rateLimit
+     *            maximum number of requests per second, or null
+     */
+    public void annotateEndpoint(JMethod codeMethod, String httpMethod, String path,
+        Integer maxConcurrency, Integer rateLimit) {
+        if (annotation == null) {
+            generateAnnotation();
+        }
+        String endpoint = httpMethod.toUpperCase() + " " + path;
+        Integer id = endpoints.get(endpoint);
+        if (id == null) {
+            id = endpoints.size();
+            endpoints.put(endpoint, id);
+            limits.add(new int[] { toLimit(maxConcurrency), toLimit(rateLimit) });
+        }
+        codeMethod.annotate(annotation)
+            .param(VALUE, id.intValue());
+    }
+
+    private int toLimit(Integer limit) {
+        return (limit == null) ? 0 : limit;
+    }
+
+    /**
+     * Generates the load shedding filter and the feature registering this filter for all endpoints
+     * with limits.
+     */
+    public void generateLoadShedding() {
+        if (endpoints.isEmpty()) {
+            return;
+        }
+        try {
+            JDefinedClass filter = generateFilter();
+            generateFeature(filter);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+    }
+
+    private void generateAnnotation() {
+        try {
+            annotation = pkg._annotationTypeDeclaration(LOAD_SHEDDING);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(annotation);
+        annotation.annotate(Retention.class)
+            .param(VALUE, RetentionPolicy.RUNTIME);
+        annotation.annotate(Target.class)
+            .param(VALUE, ElementType.METHOD);
+        annotation.javadoc()
+            .add("Maps a resource method to the id of its endpoint in {@code "
+                + LOAD_SHEDDING_FEATURE + "}.");
+        JMethod value = annotation.method(JMod.NONE, codeModel.INT, VALUE);
+        value.javadoc()
+            .addReturn()
+            .add("endpoint id");
+    }
+
+    private JDefinedClass generateFilter() throws JClassAlreadyExistsException {
+        JDefinedClass klass = pkg._class(LOAD_SHEDDING_FILTER);
+        context.annotateAsGenerated(klass);
+        klass._implements(ContainerRequestFilter.class);
+        klass._implements(ContainerResponseFilter.class);
+        klass.javadoc()
+            .add("Rejects requests to a given endpoint exceeding its concurrency or rate limit. "
+                + "A concurrency permit acquired for a request is released when the response is "
+                + "filtered, or when an asynchronous response registered with "
+                + "{@link #releaseOnCompletion} is completed.");
+
+        JFieldVar permitKey = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, String.class,
+            "PERMIT", JExpr.lit(klass.fullName() + ".permit"));
+        JFieldVar burstNanos = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            codeModel.LONG, "BURST_NANOS", JExpr.lit(NANOS_PER_SECOND));
+        JFieldVar permits = klass.field(JMod.PRIVATE | JMod.FINAL, Semaphore.class, "permits");
+        JFieldVar intervalNanos = klass.field(JMod.PRIVATE | JMod.FINAL, codeModel.LONG,
+            "intervalNanos");
+        JFieldVar arrival = klass.field(JMod.PRIVATE | JMod.FINAL, AtomicLong.class, "arrival");
+
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        JVar maxConcurrency = constructor.param(codeModel.INT, "maxConcurrency");
+        JVar rateLimit = constructor.param(codeModel.INT, "rateLimit");
+        constructor.javadoc()
+            .add("Creates a filter with the given limits.");
+        constructor.javadoc()
+            .addParam(maxConcurrency)
+            .add("maximum number of concurrent requests, or 0 for no limit");
+        constructor.javadoc()
+            .addParam(rateLimit)
+            .add("maximum number of requests per second, or 0 for no limit");
+        JBlock body = constructor.body();
+        body.assign(JExpr._this()
+            .ref(permits),
+            JOp.cond(maxConcurrency.gt(JExpr.lit(0)), JExpr._new(codeModel.ref(Semaphore.class))
+                .arg(maxConcurrency), JExpr._null()));
+        body.assign(JExpr._this()
+            .ref(intervalNanos),
+            JOp.cond(rateLimit.gt(JExpr.lit(0)), JExpr.lit(NANOS_PER_SECOND)
+                .div(rateLimit), JExpr.lit(0L)));
+        body.assign(JExpr._this()
+            .ref(arrival),
+            JExpr._new(codeModel.ref(AtomicLong.class))
+                .arg(codeModel.ref(System.class)
+                    .staticInvoke("nanoTime")));
+
+        JDefinedClass permitClass = generatePermitClass(klass);
+        JMethod tryAcquireToken = generateTryAcquireToken(klass, burstNanos, intervalNanos,
+            arrival);
+        JMethod reject = generateReject(klass);
+
+        JMethod requestFilter = klass.method(JMod.PUBLIC, codeModel.VOID, "filter");
+        requestFilter.annotate(Override.class);
+        JVar request = requestFilter.param(ContainerRequestContext.class, "request");
+        JBlock requestBody = requestFilter.body();
+        JBlock rateLimited = requestBody._if(intervalNanos.gt(JExpr.lit(0L))
+            .cand(JExpr.invoke(tryAcquireToken)
+                .not()))
+            ._then();
+        rateLimited.invoke(request, "abortWith")
+            .arg(JExpr.invoke(reject)
+                .arg(JExpr.lit(TOO_MANY_REQUESTS)));
+        rateLimited._return();
+        JBlock limited = requestBody._if(permits.ne(JExpr._null()))
+            ._then();
+        JConditional acquired = limited._if(permits.invoke("tryAcquire"));
+        acquired._then()
+            .invoke(request, "setProperty")
+            .arg(permitKey)
+            .arg(JExpr._new(permitClass)
+                .arg(permits));
+        acquired._else()
+            .invoke(request, "abortWith")
+            .arg(JExpr.invoke(reject)
+                .arg(JExpr.lit(SERVICE_UNAVAILABLE)));
+
+        JMethod responseFilter = klass.method(JMod.PUBLIC, codeModel.VOID, "filter");
+        responseFilter.annotate(Override.class);
+        JVar responseRequest = responseFilter.param(ContainerRequestContext.class, "request");
+        responseFilter.param(ContainerResponseContext.class, "response");
+        JBlock responseBody = responseFilter.body();
+        JVar permit = responseBody.decl(codeModel.ref(Object.class), "permit",
+            responseRequest.invoke("getProperty")
+                .arg(permitKey));
+        JBlock release = responseBody._if(permit._instanceof(permitClass))
+            ._then();
+        release.invoke(responseRequest, "removeProperty")
+            .arg(permitKey);
+        release.invoke(JExpr.cast(permitClass, permit), "release");
+
+        generateReleaseOnCompletion(klass, permitKey, permitClass);
+        return klass;
+    }
+
+    private JDefinedClass generatePermitClass(JDefinedClass klass)
+        throws JClassAlreadyExistsException {
+        JDefinedClass permitClass = klass._class(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            "Permit");
+        permitClass._implements(CompletionCallback.class);
+        permitClass.javadoc()
+            .add("Concurrency permit of an accepted request, released at most once.");
+        JFieldVar permits = permitClass.field(JMod.PRIVATE | JMod.FINAL, Semaphore.class,
+            "permits");
+        JFieldVar released = permitClass.field(JMod.PRIVATE | JMod.FINAL, AtomicBoolean.class,
+            "released", JExpr._new(codeModel.ref(AtomicBoolean.class)));
+
+        JMethod constructor = permitClass.constructor(JMod.NONE);
+        JVar param = constructor.param(Semaphore.class, "permits");
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(permits), param);
+
+        JMethod release = permitClass.method(JMod.NONE, codeModel.VOID, "release");
+        release.body()
+            ._if(released.invoke("compareAndSet")
+                .arg(JExpr.FALSE)
+                .arg(JExpr.TRUE))
+            ._then()
+            .invoke(permits, "release");
+
+        JMethod onComplete = permitClass.method(JMod.PUBLIC, codeModel.VOID, "onComplete");
+        onComplete.annotate(Override.class);
+        onComplete.param(Throwable.class, "throwable");
+        onComplete.body()
+            .invoke(release);
+        return permitClass;
+    }
+
+    private void generateReleaseOnCompletion(JDefinedClass klass, JFieldVar permitKey,
+        JDefinedClass permitClass) {
+        JMethod method = klass.method(JMod.PUBLIC | JMod.STATIC, codeModel.VOID,
+            "releaseOnCompletion");
+        JVar request = method.param(ContainerRequestContext.class, "request");
+        JVar asyncResponse = method.param(AsyncResponse.class, "asyncResponse");
+        method.javadoc()
+            .add("Releases the concurrency permit of the given request when the given "
+                + "asynchronous response is completed, even if the response filter is not "
+                + "invoked due to an unmapped exception. Does nothing for requests without a "
+                + "permit.");
+        method.javadoc()
+            .addParam(request)
+            .add("request context");
+        method.javadoc()
+            .addParam(asyncResponse)
+            .add("asynchronous response of the request");
+        JVar permit = method.body()
+            .decl(codeModel.ref(Object.class), "permit", request.invoke("getProperty")
+                .arg(permitKey));
+        method.body()
+            ._if(permit._instanceof(permitClass))
+            ._then()
+            .invoke(asyncResponse, "register")
+            .arg(permit);
+    }
+
+    private JMethod generateTryAcquireToken(JDefinedClass klass, JFieldVar burstNanos,
+        JFieldVar intervalNanos, JFieldVar arrival) {
+        JMethod method = klass.method(JMod.PRIVATE, codeModel.BOOLEAN, "tryAcquireToken");
+        method.javadoc()
+            .add("Takes a token from the bucket, if available. The bucket is represented by the "
+                + "theoretical arrival time of the next request, which advances by the interval "
+                + "per request and may be at most one second ahead of the current time.");
+        JBlock body = method.body();
+        JVar now = body.decl(JMod.FINAL, codeModel.LONG, "now", codeModel.ref(System.class)
+            .staticInvoke("nanoTime"));
+        JBlock loop = body._while(JExpr.TRUE)
+            .body();
+        JVar current = loop.decl(codeModel.LONG, "current", arrival.invoke("get"));
+        JVar next = loop.decl(codeModel.LONG, "next",
+            JOp.cond(current.minus(now)
+                .gt(JExpr.lit(0L)), current, now)
+                .plus(intervalNanos));
+        loop._if(next.minus(now)
+            .gt(burstNanos))
+            ._then()
+            ._return(JExpr.FALSE);
+        loop._if(arrival.invoke("compareAndSet")
+            .arg(current)
+            .arg(next))
+            ._then()
+            ._return(JExpr.TRUE);
+        return method;
+    }
+
+    private JMethod generateReject(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, Response.class, "reject");
+        JVar status = method.param(codeModel.INT, "status");
+        method.body()
+            ._return(codeModel.ref(Response.class)
+                .staticInvoke("status")
+                .arg(status)
+                .invoke("header")
+                .arg(codeModel.ref(HttpHeaders.class)
+                    .staticRef("RETRY_AFTER"))
+                .arg(JExpr.lit(1))
+                .invoke("build"));
+        return method;
+    }
+
+    private void generateFeature(JDefinedClass filter) throws JClassAlreadyExistsException {
+        JDefinedClass klass = pkg._class(LOAD_SHEDDING_FEATURE);
+        context.annotateAsGenerated(klass);
+        klass.annotate(Provider.class);
+        klass._implements(DynamicFeature.class);
+        klass.javadoc()
+            .add("Registers a load shedding filter for each generated resource method with "
+                + "concurrency or rate limits. Resource methods of the same endpoint share their "
+                + "filter.");
+
+        JArray filters = JExpr.newArray(filter);
+        for (int[] limit : limits) {
+            filters.add(JExpr._new(filter)
+                .arg(JExpr.lit(limit[0]))
+                .arg(JExpr.lit(limit[1])));
+        }
+        JFieldVar filtersField = klass.field(JMod.PRIVATE | JMod.FINAL, filter.array(),
+            "filters", filters);
+
+        JMethod findEndpoint = new EndpointLookupGenerator(context).generateFindEndpoint(klass,
+            JMod.PRIVATE, annotation);
+
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.VOID, "configure");
+        method.annotate(Override.class);
+        JVar resourceInfo = method.param(ResourceInfo.class, "resourceInfo");
+        JVar featureContext = method.param(FeatureContext.class, "context");
+        JBlock body = method.body();
+        JVar endpoint = body.decl(codeModel.INT, "endpoint", JExpr.invoke(findEndpoint)
+            .arg(resourceInfo.invoke("getResourceClass"))
+            .arg(resourceInfo.invoke("getResourceMethod")));
+        body._if(endpoint.gte(JExpr.lit(0)))
+            ._then()
+            .invoke(featureContext, "register")
+            .arg(filtersField.component(endpoint));
+    }
+}
@@ -0,0 +1,595 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.ENDPOINT_METRICS;
+import static org.ops4j.ramler.java.JavaConstants.ENDPOINT_METRICS_FEATURE;
+import static org.ops4j.ramler.java.JavaConstants.ENDPOINT_METRICS_FILTER;
+import static org.ops4j.ramler.java.JavaConstants.METRICS_ENDPOINT;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JForLoop;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates per-endpoint latency and throughput metrics for all resource methods.
+ * <p>
+ * Each combination of HTTP method and resource path is mapped to a dense endpoint id at generation
+ * time. The resource methods are annotated with their endpoint id. A generated
+ * {@code DynamicFeature} looks up this id once per resource method at deployment time and registers
+ * a filter instance for the given endpoint, so that no path or method name needs to be matched or
+ * built per request.
+ * <p>
+ * The counters and the latency histograms of all endpoints are kept in preallocated atomic arrays.
+ * The histograms have logarithmic buckets with 8 linear sub-buckets per power of two, similar to an
+ * HDR histogram, so that the relative error of a recorded latency is at most 12.5 percent.
+ * Recording a request takes a few atomic array updates.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class MetricsGenerator {
+
+    private static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** Enough buckets for latencies of more than a day in microseconds. */
+    private static final int BUCKETS = 304;
+
+    private static final String SNAPSHOT = "Snapshot";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private JDefinedClass annotation;
+
+    private Map<String, Integer> endpoints = new LinkedHashMap<>();
+
+    /**
+     * Creates a metrics generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public MetricsGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getApiPackage();
+    }
+
+    /**
+     * Annotates the given resource method with the id of the endpoint identified by the given HTTP
+     * method and resource path. Methods with the same HTTP method and path share an endpoint.
+     *
+     * @param codeMethod
+     *            resource method
+     * @param httpMethod
+     *            HTTP method
+     * @param path
+     *            resource path
+     */
+    public void annotateEndpoint(JMethod codeMethod, String httpMethod, String path) {
+        if (annotation == null) {
+            generateAnnotation();
+        }
+        String endpoint = httpMethod.toUpperCase() + " " + path;
+        Integer id = endpoints.computeIfAbsent(endpoint, e -> endpoints.size());
+        codeMethod.annotate(annotation)
+            .param(VALUE, id.intValue());
+    }
+
+    /**
+     * Generates the metrics registry, the metrics filter and the feature registering this filter
+     * for all endpoints.
+     */
+    public void generateMetrics() {
+        if (endpoints.isEmpty()) {
+            return;
+        }
+        try {
+            JDefinedClass metrics = generateEndpointMetrics();
+            JDefinedClass filter = generateFilter(metrics);
+            generateFeature(metrics, filter);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+    }
+
+    private void generateAnnotation() {
+        try {
+            annotation = pkg._annotationTypeDeclaration(METRICS_ENDPOINT);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(annotation);
+        annotation.annotate(Retention.class)
+            .param(VALUE, RetentionPolicy.RUNTIME);
+        annotation.annotate(Target.class)
+            .param(VALUE, ElementType.METHOD);
+        annotation.javadoc()
+            .add("Maps a resource method to the id of its endpoint in {@code " + ENDPOINT_METRICS
+                + "}.");
+        JMethod value = annotation.method(JMod.NONE, codeModel.INT, VALUE);
+        value.javadoc()
+            .addReturn()
+            .add("endpoint id");
+    }
+
+    private JDefinedClass generateEndpointMetrics() throws JClassAlreadyExistsException {
+        JDefinedClass klass = pkg._class(JMod.PUBLIC | JMod.FINAL, ENDPOINT_METRICS);
+        context.annotateAsGenerated(klass);
+        klass.javadoc()
+            .add("Request counters and latency histograms per endpoint, indexed by endpoint id.");
+
+        JFieldVar buckets = klass.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL, codeModel.INT,
+            "BUCKETS", JExpr.lit(BUCKETS));
+        buckets.javadoc()
+            .add("Number of latency histogram buckets per endpoint.");
+
+        JArray names = JExpr.newArray(codeModel.ref(String.class));
+        endpoints.keySet()
+            .forEach(e -> names.add(JExpr.lit(e)));
+        JFieldVar endpointNames = klass.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL,
+            codeModel.ref(List.class)
+                .narrow(String.class),
+            "ENDPOINTS", codeModel.ref(Collections.class)
+                .staticInvoke("unmodifiableList")
+                .arg(codeModel.ref(Arrays.class)
+                    .staticInvoke("asList")
+                    .arg(names)));
+        endpointNames.javadoc()
+            .add("HTTP method and resource path of each endpoint, indexed by endpoint id.");
+
+        JExpression numEndpoints = JExpr.lit(endpoints.size());
+        JFieldVar requests = newCounters(klass, "REQUESTS", numEndpoints);
+        JFieldVar errors = newCounters(klass, "ERRORS", numEndpoints);
+        JFieldVar totalNanos = newCounters(klass, "TOTAL_NANOS", numEndpoints);
+        JFieldVar histograms = newCounters(klass, "HISTOGRAMS", numEndpoints.mul(buckets));
+
+        klass.constructor(JMod.PRIVATE);
+
+        JMethod bucket = generateBucket(klass, buckets);
+        JMethod lowerBound = generateBucketLowerBound(klass);
+        generateRecord(klass, requests, totalNanos, histograms, buckets, bucket);
+        generateRecordError(klass, errors);
+        JDefinedClass snapshot = generateSnapshotClass(klass, lowerBound);
+        JMethod snapshotMethod = generateSnapshot(klass, snapshot, endpointNames, requests,
+            errors, totalNanos, histograms, buckets);
+        generateSnapshots(klass, snapshot, endpointNames, snapshotMethod);
+        new EndpointLookupGenerator(context).generateFindEndpoint(klass, JMod.PUBLIC,
+            annotation);
+        return klass;
+    }
+
+    private JFieldVar newCounters(JDefinedClass klass, String name, JExpression length) {
+        return klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, AtomicLongArray.class, name,
+            JExpr._new(codeModel.ref(AtomicLongArray.class))
+                .arg(length));
+    }
+
+    private JMethod generateBucket(JDefinedClass klass, JFieldVar buckets) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, codeModel.INT, "bucket");
+        JVar micros = method.param(codeModel.LONG, "micros");
+        JBlock body = method.body();
+        body._if(micros.lt(JExpr.lit((long) SUB_BUCKETS)))
+            ._then()
+            ._return(JExpr.cast(codeModel.INT, micros));
+        JVar shift = body.decl(codeModel.INT, "shift", JExpr.lit(63 - SUB_BUCKET_BITS)
+            .minus(codeModel.ref(Long.class)
+                .staticInvoke("numberOfLeadingZeros")
+                .arg(micros)));
+        JVar index = body.decl(codeModel.INT, "index", shift.plus(JExpr.lit(1))
+            .shl(JExpr.lit(SUB_BUCKET_BITS))
+            .plus(JExpr.cast(codeModel.INT, micros.shrz(shift)
+                .band(JExpr.lit((long) SUB_BUCKETS - 1)))));
+        body._return(codeModel.ref(Math.class)
+            .staticInvoke("min")
+            .arg(index)
+            .arg(buckets.minus(JExpr.lit(1))));
+        return method;
+    }
+
+    private JMethod generateBucketLowerBound(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PUBLIC | JMod.STATIC, codeModel.LONG,
+            "getBucketLowerBound");
+        method.javadoc()
+            .add("Gets the smallest latency in microseconds recorded in the given histogram "
+                + "bucket.");
+        JVar bucket = method.param(codeModel.INT, "bucket");
+        method.javadoc()
+            .addParam(bucket)
+            .add("bucket index");
+        method.javadoc()
+            .addReturn()
+            .add("latency in microseconds");
+        JBlock body = method.body();
+        body._if(bucket.lt(JExpr.lit(SUB_BUCKETS)))
+            ._then()
+            ._return(bucket);
+        body._return(JExpr.lit((long) SUB_BUCKETS)
+            .plus(bucket.band(JExpr.lit(SUB_BUCKETS - 1)))
+            .shl(bucket.shrz(JExpr.lit(SUB_BUCKET_BITS))
+                .minus(JExpr.lit(1))));
+        return method;
+    }
+
+    private void generateRecord(JDefinedClass klass, JFieldVar requests, JFieldVar totalNanos,
+        JFieldVar histograms, JFieldVar buckets, JMethod bucket) {
+        JMethod method = klass.method(JMod.PUBLIC | JMod.STATIC, codeModel.VOID, "record");
+        method.javadoc()
+            .add("Records a request to the given endpoint with the given latency.");
+        JVar endpoint = method.param(codeModel.INT, "endpoint");
+        JVar nanos = method.param(codeModel.LONG, "nanos");
+        method.javadoc()
+            .addParam(endpoint)
+            .add("endpoint id");
+        method.javadoc()
+            .addParam(nanos)
+            .add("latency in nanoseconds");
+        JBlock body = method.body();
+        body.invoke(requests, "incrementAndGet")
+            .arg(endpoint);
+        body.invoke(totalNanos, "addAndGet")
+            .arg(endpoint)
+            .arg(nanos);
+        body.invoke(histograms, "incrementAndGet")
+            .arg(endpoint.mul(buckets)
+                .plus(JExpr.invoke(bucket)
+                    .arg(nanos.div(JExpr.lit(1000L)))));
+    }
+
+    private void generateRecordError(JDefinedClass klass, JFieldVar errors) {
+        JMethod method = klass.method(JMod.PUBLIC | JMod.STATIC, codeModel.VOID, "recordError");
+        method.javadoc()
+            .add("Records a server error of the given endpoint.");
+        JVar endpoint = method.param(codeModel.INT, "endpoint");
+        method.javadoc()
+            .addParam(endpoint)
+            .add("endpoint id");
+        method.body()
+            .invoke(errors, "incrementAndGet")
+            .arg(endpoint);
+    }
+
+    private JDefinedClass generateSnapshotClass(JDefinedClass klass, JMethod lowerBound)
+        throws JClassAlreadyExistsException {
+        JDefinedClass snapshot = klass._class(JMod.PUBLIC | JMod.STATIC | JMod.FINAL, SNAPSHOT);
+        snapshot.javadoc()
+            .add("Metrics of a single endpoint at a given point in time.");
+
+        JMethod constructor = snapshot.constructor(JMod.PRIVATE);
+        JFieldVar endpoint = addSnapshotProperty(snapshot, constructor,
+            codeModel.ref(String.class), "endpoint", "HTTP method and resource path");
+        JFieldVar requests = addSnapshotProperty(snapshot, constructor, codeModel.LONG,
+            "requests", "number of completed requests");
+        addSnapshotProperty(snapshot, constructor, codeModel.LONG, "errors",
+            "number of responses with a server error status");
+        JFieldVar totalNanos = addSnapshotProperty(snapshot, constructor, codeModel.LONG,
+            "totalNanos", "sum of all latencies in nanoseconds");
+        JFieldVar histogram = snapshot.field(JMod.PRIVATE | JMod.FINAL, long[].class,
+            "histogram");
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(histogram), constructor.param(long[].class, "histogram"));
+
+        JMethod getHistogram = snapshot.method(JMod.PUBLIC, long[].class, "getHistogram");
+        getHistogram.javadoc()
+            .addReturn()
+            .add("number of requests per latency bucket");
+        getHistogram.body()
+            ._return(histogram.invoke("clone"));
+
+        JMethod getMeanNanos = snapshot.method(JMod.PUBLIC, codeModel.LONG, "getMeanNanos");
+        getMeanNanos.javadoc()
+            .addReturn()
+            .add("mean latency in nanoseconds");
+        getMeanNanos.body()
+            ._return(JOp.cond(requests.eq(JExpr.lit(0L)), JExpr.lit(0L),
+                totalNanos.div(requests)));
+
+        generatePercentile(snapshot, histogram, lowerBound);
+
+        JMethod toString = snapshot.method(JMod.PUBLIC, String.class, "toString");
+        toString.annotate(Override.class);
+        toString.body()
+            ._return(endpoint.plus(JExpr.lit(": requests="))
+                .plus(requests)
+                .plus(JExpr.lit(", meanNanos="))
+                .plus(JExpr.invoke(getMeanNanos)));
+        return snapshot;
+    }
+
+    private JFieldVar addSnapshotProperty(JDefinedClass snapshot, JMethod constructor,
+        JType type, String name, String comment) {
+        JFieldVar field = snapshot.field(JMod.PRIVATE | JMod.FINAL, type, name);
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(field), constructor.param(type, name));
+        JMethod getter = snapshot.method(JMod.PUBLIC, type,
+            "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1));
+        getter.javadoc()
+            .addReturn()
+            .add(comment);
+        getter.body()
+            ._return(field);
+        return field;
+    }
+
+    private void generatePercentile(JDefinedClass snapshot, JFieldVar histogram,
+        JMethod lowerBound) {
+        JMethod method = snapshot.method(JMod.PUBLIC, codeModel.LONG, "getPercentileMicros");
+        method.javadoc()
+            .add("Gets the lower bound of the histogram bucket containing the given percentile.");
+        JVar percentile = method.param(codeModel.DOUBLE, "percentile");
+        method.javadoc()
+            .addParam(percentile)
+            .add("percentile between 0 and 100");
+        method.javadoc()
+            .addReturn()
+            .add("latency in microseconds, or 0 if no requests have been recorded");
+
+        JBlock body = method.body();
+        JVar total = body.decl(codeModel.LONG, "total", JExpr.lit(0L));
+        JForEach forCounts = body.forEach(codeModel.LONG, "count", histogram);
+        forCounts.body()
+            .assignPlus(total, forCounts.var());
+        body._if(total.eq(JExpr.lit(0L)))
+            ._then()
+            ._return(JExpr.lit(0L));
+        JVar threshold = body.decl(codeModel.LONG, "threshold", codeModel.ref(Math.class)
+            .staticInvoke("max")
+            .arg(JExpr.lit(1L))
+            .arg(JExpr.cast(codeModel.LONG, codeModel.ref(Math.class)
+                .staticInvoke("ceil")
+                .arg(total.mul(percentile)
+                    .div(JExpr.lit(100.0))))));
+        JVar seen = body.decl(codeModel.LONG, "seen", JExpr.lit(0L));
+        JForLoop forBuckets = body._for();
+        JVar i = forBuckets.init(codeModel.INT, "i", JExpr.lit(0));
+        forBuckets.test(i.lt(histogram.ref("length")));
+        forBuckets.update(i.incr());
+        forBuckets.body()
+            .assignPlus(seen, histogram.component(i));
+        forBuckets.body()
+            ._if(seen.gte(threshold))
+            ._then()
+            ._return(JExpr.invoke(lowerBound)
+                .arg(i));
+        body._return(JExpr.invoke(lowerBound)
+            .arg(histogram.ref("length")
+                .minus(JExpr.lit(1))));
+    }
+
+    private JMethod generateSnapshot(JDefinedClass klass, JDefinedClass snapshot,
+        JFieldVar endpointNames, JFieldVar requests, JFieldVar errors, JFieldVar totalNanos,
+        JFieldVar histograms, JFieldVar buckets) {
+        JMethod method = klass.method(JMod.PUBLIC | JMod.STATIC, snapshot, "snapshot");
+        method.javadoc()
+            .add("Takes a snapshot of the metrics of the given endpoint. The counters are read "
+                + "without locking, so a snapshot taken under load may be slightly "
+                + "inconsistent.");
+        JVar endpoint = method.param(codeModel.INT, "endpoint");
+        method.javadoc()
+            .addParam(endpoint)
+            .add("endpoint id");
+        method.javadoc()
+            .addReturn()
+            .add("metrics snapshot");
+
+        JBlock body = method.body();
+        JVar histogram = body.decl(codeModel.LONG.array(), "histogram",
+            JExpr.newArray(codeModel.LONG, buckets));
+        JForLoop forBuckets = body._for();
+        JVar i = forBuckets.init(codeModel.INT, "i", JExpr.lit(0));
+        forBuckets.test(i.lt(buckets));
+        forBuckets.update(i.incr());
+        forBuckets.body()
+            .assign(histogram.component(i), histograms.invoke("get")
+                .arg(endpoint.mul(buckets)
+                    .plus(i)));
+        body._return(JExpr._new(snapshot)
+            .arg(endpointNames.invoke("get")
+                .arg(endpoint))
+            .arg(requests.invoke("get")
+                .arg(endpoint))
+            .arg(errors.invoke("get")
+                .arg(endpoint))
+            .arg(totalNanos.invoke("get")
+                .arg(endpoint))
+            .arg(histogram));
+        return method;
+    }
+
+    private void generateSnapshots(JDefinedClass klass, JDefinedClass snapshot,
+        JFieldVar endpointNames, JMethod snapshotMethod) {
+        JClass listType = codeModel.ref(List.class)
+            .narrow(snapshot);
+        JMethod method = klass.method(JMod.PUBLIC | JMod.STATIC, listType, "snapshots");
+        method.javadoc()
+            .add("Takes a snapshot of the metrics of all endpoints.");
+        method.javadoc()
+            .addReturn()
+            .add("metrics snapshots, indexed by endpoint id");
+
+        JBlock body = method.body();
+        JVar snapshots = body.decl(listType, "snapshots",
+            JExpr._new(codeModel.ref(ArrayList.class)
+                .narrow(snapshot))
+                .arg(endpointNames.invoke("size")));
+        JForLoop forEndpoints = body._for();
+        JVar i = forEndpoints.init(codeModel.INT, "i", JExpr.lit(0));
+        forEndpoints.test(i.lt(endpointNames.invoke("size")));
+        forEndpoints.update(i.incr());
+        forEndpoints.body()
+            .invoke(snapshots, "add")
+            .arg(JExpr.invoke(snapshotMethod)
+                .arg(i));
+        body._return(snapshots);
+    }
+
+    private JDefinedClass generateFilter(JDefinedClass metrics)
+        throws JClassAlreadyExistsException {
+        JDefinedClass klass = pkg._class(ENDPOINT_METRICS_FILTER);
+        context.annotateAsGenerated(klass);
+        klass._implements(ContainerRequestFilter.class);
+        klass._implements(ContainerResponseFilter.class);
+        klass._implements(WriterInterceptor.class);
+        klass.javadoc()
+            .add("Records the latency of requests to a given endpoint, including the time for "
+                + "writing the response entity.");
+
+        JFieldVar startTime = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, String.class,
+            "START_TIME", JExpr.lit(klass.fullName() + ".startTime"));
+        JFieldVar endpoint = klass.field(JMod.PRIVATE | JMod.FINAL, codeModel.INT, "endpoint");
+
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        JVar endpointParam = constructor.param(codeModel.INT, "endpoint");
+        constructor.javadoc()
+            .add("Creates a filter for the given endpoint.");
+        constructor.javadoc()
+            .addParam(endpointParam)
+            .add("endpoint id");
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(endpoint), endpointParam);
+
+        JMethod record = klass.method(JMod.PRIVATE, codeModel.VOID, "record");
+        JVar start = record.param(Object.class, "start");
+        record.body()
+            ._if(start._instanceof(codeModel.ref(Long.class)))
+            ._then()
+            .add(metrics.staticInvoke("record")
+                .arg(endpoint)
+                .arg(codeModel.ref(System.class)
+                    .staticInvoke("nanoTime")
+                    .minus(JExpr.cast(codeModel.ref(Long.class), start))));
+
+        JMethod requestFilter = klass.method(JMod.PUBLIC, codeModel.VOID, "filter");
+        requestFilter.annotate(Override.class);
+        JVar request = requestFilter.param(ContainerRequestContext.class, "request");
+        requestFilter.body()
+            .invoke(request, "setProperty")
+            .arg(startTime)
+            .arg(codeModel.ref(System.class)
+                .staticInvoke("nanoTime"));
+
+        JMethod responseFilter = klass.method(JMod.PUBLIC, codeModel.VOID, "filter");
+        responseFilter.annotate(Override.class);
+        JVar responseRequest = responseFilter.param(ContainerRequestContext.class, "request");
+        JVar response = responseFilter.param(ContainerResponseContext.class, "response");
+        responseFilter.body()
+            ._if(response.invoke("getStatus")
+                .gte(JExpr.lit(500)))
+            ._then()
+            .add(metrics.staticInvoke("recordError")
+                .arg(endpoint));
+        responseFilter.body()
+            ._if(response.invoke("hasEntity")
+                .not())
+            ._then()
+            .invoke(record)
+            .arg(responseRequest.invoke("getProperty")
+                .arg(startTime));
+
+        JMethod aroundWriteTo = klass.method(JMod.PUBLIC, codeModel.VOID, "aroundWriteTo");
+        aroundWriteTo.annotate(Override.class);
+        JVar writerContext = aroundWriteTo.param(WriterInterceptorContext.class, "context");
+        aroundWriteTo._throws(IOException.class);
+        JTryBlock tryBlock = aroundWriteTo.body()
+            ._try();
+        tryBlock.body()
+            .invoke(writerContext, "proceed");
+        tryBlock._finally()
+            .invoke(record)
+            .arg(writerContext.invoke("getProperty")
+                .arg(startTime));
+        return klass;
+    }
+
+    private void generateFeature(JDefinedClass metrics, JDefinedClass filter)
+        throws JClassAlreadyExistsException {
+        JDefinedClass klass = pkg._class(ENDPOINT_METRICS_FEATURE);
+        context.annotateAsGenerated(klass);
+        klass.annotate(Provider.class);
+        klass._implements(DynamicFeature.class);
+        klass.javadoc()
+            .add("Registers a metrics filter for each generated resource method.");
+
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.VOID, "configure");
+        method.annotate(Override.class);
+        JVar resourceInfo = method.param(ResourceInfo.class, "resourceInfo");
+        JVar featureContext = method.param(FeatureContext.class, "context");
+        JBlock body = method.body();
+        JVar endpoint = body.decl(codeModel.INT, "endpoint", metrics.staticInvoke("findEndpoint")
+            .arg(resourceInfo.invoke("getResourceClass"))
+            .arg(resourceInfo.invoke("getResourceMethod")));
+        body._if(endpoint.gte(JExpr.lit(0)))
+            ._then()
+            .invoke(featureContext, "register")
+            .arg(JExpr._new(filter)
+                .arg(endpoint));
+    }
+}
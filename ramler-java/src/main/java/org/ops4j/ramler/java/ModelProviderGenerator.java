@@ -0,0 +1,386 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.MODEL_PROVIDER;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates a JAX-RS message body reader and writer for the generated model classes.
+ * <p>
+ * The provider only accepts the classes generated for the RAML types of the API, including
+ * subclasses narrowing generic types by {@code (typeArgs)}, generic model classes with type
+ * arguments and collections of model types like {@code List<Book>}. It caches a Jackson
+ * {@code ObjectReader} and {@code ObjectWriter} per generic type, which are precomputed for all
+ * model classes on first use, so reading or writing an entity does not require any serializer
+ * lookup. Entities are read from and written to the entity streams directly, using the recycled
+ * buffers of the Jackson factory.
+ * <p>
+ * The object mapper is obtained from a {@code ContextResolver}, if the application provides one.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class ModelProviderGenerator {
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JClass classType;
+
+    /**
+     * Creates a model provider generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public ModelProviderGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.classType = codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard());
+    }
+
+    /**
+     * Generates the model provider class in the API package.
+     */
+    public void generateModelProvider() {
+        JDefinedClass klass;
+        try {
+            klass = context.getApiPackage()
+                ._class(MODEL_PROVIDER);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(klass);
+        klass.annotate(Provider.class);
+        klass.annotate(Consumes.class)
+            .param(VALUE, codeModel.ref(MediaType.class)
+                .staticRef("APPLICATION_JSON"));
+        klass.annotate(Produces.class)
+            .param(VALUE, codeModel.ref(MediaType.class)
+                .staticRef("APPLICATION_JSON"));
+        klass._implements(codeModel.ref(MessageBodyReader.class)
+            .narrow(Object.class));
+        klass._implements(codeModel.ref(MessageBodyWriter.class)
+            .narrow(Object.class));
+        klass.javadoc()
+            .add("Reads and writes model objects with cached Jackson readers and writers.");
+
+        JFieldVar modelClasses = generateModelClasses(klass);
+        JFieldVar defaultMapper = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            ObjectMapper.class, "DEFAULT_MAPPER", JExpr._new(codeModel.ref(ObjectMapper.class))
+                .invoke("findAndRegisterModules"));
+        JFieldVar readers = generateCache(klass, ObjectReader.class, "readers");
+        JFieldVar writers = generateCache(klass, ObjectWriter.class, "writers");
+        JFieldVar providers = klass.field(JMod.PRIVATE, Providers.class, "providers");
+        providers.annotate(Context.class);
+        JFieldVar objectMapper = klass.field(JMod.PRIVATE | JMod.VOLATILE, ObjectMapper.class,
+            "objectMapper");
+
+        JMethod createReader = generateCreateReader(klass);
+        JMethod createWriter = generateCreateWriter(klass);
+        JMethod getMapper = generateGetMapper(klass, modelClasses, defaultMapper, providers,
+            objectMapper, readers, writers, createReader, createWriter);
+        JMethod findReader = generateFind(klass, ObjectReader.class, "findReader", readers,
+            getMapper, createReader);
+        JMethod findWriter = generateFind(klass, ObjectWriter.class, "findWriter", writers,
+            getMapper, createWriter);
+
+        JMethod isModelType = generateIsModelType(klass, modelClasses);
+        generateIsSupported(klass, "isReadable", modelClasses, isModelType);
+        generateIsSupported(klass, "isWriteable", modelClasses, isModelType);
+        generateGetSize(klass);
+        generateReadFrom(klass, findReader);
+        generateWriteTo(klass, findWriter);
+    }
+
+    private JFieldVar generateModelClasses(JDefinedClass klass) {
+        JPackage pkg = context.getModelPackage();
+        JInvocation asList = codeModel.ref(Arrays.class)
+            .staticInvoke("asList");
+        for (TypeDeclaration type : context.getApiModel()
+            .getTypes()) {
+            JDefinedClass modelClass = pkg._getClass(type.name());
+            if (modelClass != null) {
+                asList.arg(modelClass.dotclass());
+            }
+        }
+        return klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, codeModel.ref(Set.class)
+            .narrow(classType), "MODEL_CLASSES",
+            codeModel.ref(Collections.class)
+                .staticInvoke("unmodifiableSet")
+                .arg(JExpr._new(codeModel.ref(HashSet.class)
+                    .narrow(classType))
+                    .arg(asList)));
+    }
+
+    private JFieldVar generateCache(JDefinedClass klass, Class<?> valueType, String name) {
+        return klass.field(JMod.PRIVATE | JMod.FINAL, codeModel.ref(ConcurrentMap.class)
+            .narrow(codeModel.ref(Type.class), codeModel.ref(valueType)), name,
+            JExpr._new(codeModel.ref(ConcurrentHashMap.class)
+                .narrow(codeModel.ref(Type.class), codeModel.ref(valueType))));
+    }
+
+    private JMethod generateCreateReader(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, ObjectReader.class,
+            "createReader");
+        JVar mapper = method.param(ObjectMapper.class, "mapper");
+        JVar type = method.param(Type.class, "type");
+        method.body()
+            ._return(mapper.invoke("readerFor")
+                .arg(mapper.invoke("constructType")
+                    .arg(type))
+                .invoke("without")
+                .arg(codeModel.ref(JsonParser.Feature.class)
+                    .staticRef("AUTO_CLOSE_SOURCE")));
+        return method;
+    }
+
+    private JMethod generateCreateWriter(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, ObjectWriter.class,
+            "createWriter");
+        JVar mapper = method.param(ObjectMapper.class, "mapper");
+        JVar type = method.param(Type.class, "type");
+        method.body()
+            ._return(mapper.invoke("writerFor")
+                .arg(mapper.invoke("constructType")
+                    .arg(type))
+                .invoke("without")
+                .arg(codeModel.ref(JsonGenerator.Feature.class)
+                    .staticRef("AUTO_CLOSE_TARGET")));
+        return method;
+    }
+
+    private JMethod generateGetMapper(JDefinedClass klass, JFieldVar modelClasses,
+        JFieldVar defaultMapper, JFieldVar providers, JFieldVar objectMapper, JFieldVar readers,
+        JFieldVar writers, JMethod createReader, JMethod createWriter) {
+        JMethod method = klass.method(JMod.PRIVATE, ObjectMapper.class, "getMapper");
+        JBlock body = method.body();
+        JVar mapper = body.decl(codeModel.ref(ObjectMapper.class), "mapper", objectMapper);
+        JBlock ifNull = body._if(mapper.eq(JExpr._null()))
+            ._then();
+        ifNull.assign(mapper, defaultMapper);
+        JClass resolverType = codeModel.ref(ContextResolver.class)
+            .narrow(ObjectMapper.class);
+        JConditional ifProviders = ifNull._if(providers.ne(JExpr._null()));
+        JVar resolver = ifProviders._then()
+            .decl(resolverType, "resolver", providers.invoke("getContextResolver")
+                .arg(codeModel.ref(ObjectMapper.class)
+                    .dotclass())
+                .arg(codeModel.ref(MediaType.class)
+                    .staticRef("APPLICATION_JSON_TYPE")));
+        ifProviders._then()
+            ._if(resolver.ne(JExpr._null()))
+            ._then()
+            .assign(mapper, resolver.invoke("getContext")
+                .arg(codeModel.ref(Object.class)
+                    .dotclass()));
+
+        JForEach forEach = ifNull.forEach(classType, "modelClass", modelClasses);
+        forEach.body()
+            .invoke(readers, "putIfAbsent")
+            .arg(forEach.var())
+            .arg(JExpr.invoke(createReader)
+                .arg(mapper)
+                .arg(forEach.var()));
+        forEach.body()
+            .invoke(writers, "putIfAbsent")
+            .arg(forEach.var())
+            .arg(JExpr.invoke(createWriter)
+                .arg(mapper)
+                .arg(forEach.var()));
+        ifNull.assign(objectMapper, mapper);
+        body._return(mapper);
+        return method;
+    }
+
+    private JMethod generateFind(JDefinedClass klass, Class<?> resultType, String name,
+        JFieldVar cache, JMethod getMapper, JMethod create) {
+        JMethod method = klass.method(JMod.PRIVATE, resultType, name);
+        JVar type = method.param(Type.class, "type");
+        JBlock body = method.body();
+        JVar mapper = body.decl(codeModel.ref(ObjectMapper.class), "mapper",
+            JExpr.invoke(getMapper));
+        JVar result = body.decl(codeModel.ref(resultType), "result", cache.invoke("get")
+            .arg(type));
+        JBlock ifNull = body._if(result.eq(JExpr._null()))
+            ._then();
+        ifNull.assign(result, JExpr.invoke(create)
+            .arg(mapper)
+            .arg(type));
+        ifNull.invoke(cache, "putIfAbsent")
+            .arg(type)
+            .arg(result);
+        body._return(result);
+        return method;
+    }
+
+    private JMethod generateIsModelType(JDefinedClass klass, JFieldVar modelClasses) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, codeModel.BOOLEAN,
+            "isModelType");
+        JVar type = method.param(Type.class, "type");
+        method.javadoc()
+            .add("Checks if the given type is a model class, a model class with type arguments "
+                + "or a collection of model types.");
+        JBlock body = method.body();
+        body._if(type._instanceof(codeModel.ref(Class.class)))
+            ._then()
+            ._return(modelClasses.invoke("contains")
+                .arg(type));
+
+        JBlock ifParameterized = body._if(type._instanceof(codeModel.ref(ParameterizedType.class)))
+            ._then();
+        JVar parameterizedType = ifParameterized.decl(codeModel.ref(ParameterizedType.class),
+            "parameterizedType", JExpr.cast(codeModel.ref(ParameterizedType.class), type));
+        JVar rawType = ifParameterized.decl(codeModel.ref(Type.class), "rawType",
+            parameterizedType.invoke("getRawType"));
+        ifParameterized._if(modelClasses.invoke("contains")
+            .arg(rawType))
+            ._then()
+            ._return(JExpr.TRUE);
+        JVar typeArgs = ifParameterized.decl(codeModel.ref(Type.class)
+            .array(), "typeArgs", parameterizedType.invoke("getActualTypeArguments"));
+        ifParameterized._return(rawType._instanceof(codeModel.ref(Class.class))
+            .cand(codeModel.ref(Collection.class)
+                .dotclass()
+                .invoke("isAssignableFrom")
+                .arg(JExpr.cast(classType, rawType)))
+            .cand(typeArgs.ref("length")
+                .eq(JExpr.lit(1)))
+            .cand(JExpr.invoke(method)
+                .arg(typeArgs.component(JExpr.lit(0)))));
+        body._return(JExpr.FALSE);
+        return method;
+    }
+
+    private void generateIsSupported(JDefinedClass klass, String name, JFieldVar modelClasses,
+        JMethod isModelType) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.BOOLEAN, name);
+        method.annotate(Override.class);
+        JVar type = method.param(classType, "type");
+        JVar genericType = method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        method.body()
+            ._return(modelClasses.invoke("contains")
+                .arg(type)
+                .cor(JExpr.invoke(isModelType)
+                    .arg(genericType)));
+    }
+
+    private void generateGetSize(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.LONG, "getSize");
+        method.annotate(Override.class);
+        method.param(Object.class, "value");
+        method.param(classType, "type");
+        method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        method.body()
+            ._return(JExpr.lit(-1L));
+    }
+
+    private void generateReadFrom(JDefinedClass klass, JMethod findReader) {
+        JMethod method = klass.method(JMod.PUBLIC, Object.class, "readFrom");
+        method.annotate(Override.class);
+        method.param(codeModel.ref(Class.class)
+            .narrow(Object.class), "type");
+        JVar genericType = method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        method.param(codeModel.ref(MultivaluedMap.class)
+            .narrow(String.class, String.class), "httpHeaders");
+        JVar entityStream = method.param(InputStream.class, "entityStream");
+        method._throws(IOException.class);
+        method.body()
+            ._return(JExpr.invoke(findReader)
+                .arg(genericType)
+                .invoke("readValue")
+                .arg(entityStream));
+    }
+
+    private void generateWriteTo(JDefinedClass klass, JMethod findWriter) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.VOID, "writeTo");
+        method.annotate(Override.class);
+        JVar value = method.param(Object.class, "value");
+        method.param(classType, "type");
+        JVar genericType = method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        method.param(codeModel.ref(MultivaluedMap.class)
+            .narrow(String.class, Object.class), "httpHeaders");
+        JVar entityStream = method.param(OutputStream.class, "entityStream");
+        method._throws(IOException.class);
+        method.body()
+            .invoke(JExpr.invoke(findWriter)
+                .arg(genericType), "writeValue")
+            .arg(entityStream)
+            .arg(value);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.JACKSON_MODULE;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.helper.FileHelper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JPackage;
+
+/**
+ * Generates GraalVM native image configuration files for the generated classes, so that the native
+ * image builder can register them for reflective access by Jackson and JAX-RS.
+ * <p>
+ * The files are written to {@code META-INF/native-image/<basePackage>} in the resource target
+ * directory, where the native image builder picks them up automatically. With Jackson streaming,
+ * the generated module is also registered as a service provider, so that
+ * {@code ObjectMapper.findAndRegisterModules()} finds it without classpath scanning.
+ * <p>
+ * Clients and flyweights are not included, since they do not use reflection.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class NativeImageConfigGenerator {
+
+    private static final String NATIVE_IMAGE_DIR = "META-INF/native-image";
+
+    private static final String SERVICES_DIR = "META-INF/services";
+
+    private JavaGeneratorContext context;
+
+    private ObjectMapper mapper;
+
+    /**
+     * Creates a native image configuration generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public NativeImageConfigGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.mapper = new ObjectMapper();
+    }
+
+    /**
+     * Writes the native image configuration files for the current code model.
+     */
+    public void generate() {
+        JavaConfiguration config = context.getConfig();
+        File configDir = new File(config.getResourceTargetDir(),
+            NATIVE_IMAGE_DIR + "/" + config.getBasePackage());
+        FileHelper.createDirectoryIfNeeded(configDir);
+
+        writeJson(buildReflectionConfig(), new File(configDir, "reflect-config.json"));
+
+        if (config.isJacksonStreaming()) {
+            String serviceFile = SERVICES_DIR + "/" + Module.class.getName();
+            writeServiceFile(serviceFile, context.getModelPackage()
+                ._getClass(JACKSON_MODULE));
+            writeJson(buildResourceConfig(Collections.singletonList(serviceFile)),
+                new File(configDir, "resource-config.json"));
+        }
+    }
+
+    private List<Map<String, Object>> buildReflectionConfig() {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        Iterator<JPackage> packages = context.getCodeModel()
+            .packages();
+        while (packages.hasNext()) {
+            JPackage pkg = packages.next();
+            if (pkg == context.getClientPackage() || pkg == context.getFlyweightPackage()) {
+                continue;
+            }
+            Iterator<JDefinedClass> classes = pkg.classes();
+            while (classes.hasNext()) {
+                addReflectionEntries(entries, classes.next());
+            }
+        }
+        return entries;
+    }
+
+    private void addReflectionEntries(List<Map<String, Object>> entries, JDefinedClass klass) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("name", klass.binaryName());
+        entry.put("allDeclaredConstructors", true);
+        entry.put("allDeclaredMethods", true);
+        entry.put("allPublicMethods", true);
+        entry.put("allDeclaredFields", true);
+        entries.add(entry);
+
+        Iterator<JDefinedClass> nestedClasses = klass.classes();
+        while (nestedClasses.hasNext()) {
+            addReflectionEntries(entries, nestedClasses.next());
+        }
+    }
+
+    private Map<String, Object> buildResourceConfig(List<String> resources) {
+        List<Map<String, Object>> includes = new ArrayList<>();
+        for (String resource : resources) {
+            includes.add(Collections.singletonMap("pattern", "\\Q" + resource + "\\E"));
+        }
+        return Collections.singletonMap("resources",
+            Collections.singletonMap("includes", includes));
+    }
+
+    private void writeServiceFile(String serviceFile, JDefinedClass provider) {
+        File file = new File(context.getConfig()
+            .getResourceTargetDir(), serviceFile);
+        FileHelper.createDirectoryIfNeeded(file.getParentFile());
+        FileHelper.writeToFile(provider.fullName() + "\n", file);
+    }
+
+    private void writeJson(Object config, File file) {
+        try {
+            FileHelper.writeToFile(mapper.writerWithDefaultPrettyPrinter()
+                .writeValueAsString(config), file);
+        }
+        catch (JsonProcessingException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+    }
+}
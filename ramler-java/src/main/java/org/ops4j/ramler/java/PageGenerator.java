@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.common.helper.NameFactory.getGetterName;
+import static org.ops4j.ramler.common.helper.NameFactory.getSetterName;
+import static org.ops4j.ramler.java.JavaConstants.PAGE;
+import static org.ops4j.ramler.java.JavaConstants.PAGE_ITERATOR;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.exc.GeneratorException;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JTypeVar;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * Generates the support classes for methods annotated with {@code (paged)}: a generic {@code Page}
+ * envelope in the model package, and a {@code PageIterator} in the client package, which fetches
+ * the next page asynchronously while the items of the current page are consumed.
+ * <p>
+ * Each class is generated on demand, only once per code model.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class PageGenerator {
+
+    private static final String ITEMS = "items";
+
+    private static final String NEXT_CURSOR = "nextCursor";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    /**
+     * Creates a page generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public PageGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+    }
+
+    /**
+     * Gets the page envelope class, generating it on first use.
+     *
+     * @return page class
+     */
+    public JDefinedClass getPageClass() {
+        if (context.getApiModel()
+            .getDeclaredType(PAGE) != null) {
+            throw new GeneratorException(
+                "type " + PAGE + " conflicts with the generated envelope of (paged) methods");
+        }
+        JPackage pkg = context.getModelPackage();
+        JDefinedClass page = pkg._getClass(PAGE);
+        if (page != null) {
+            return page;
+        }
+        try {
+            page = pkg._class(PAGE);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(page);
+        JTypeVar t = page.generify("T");
+        page.javadoc()
+            .add("Page of a paged collection, with the cursor of the next page, if any.");
+
+        addProperty(page, codeModel.ref(List.class)
+            .narrow(t), ITEMS);
+        addProperty(page, codeModel.ref(String.class), NEXT_CURSOR);
+
+        JMethod hasNext = page.method(JMod.PUBLIC, codeModel.BOOLEAN, "hasNext");
+        hasNext.javadoc()
+            .add("Checks if there is a next page.");
+        hasNext.javadoc()
+            .addReturn()
+            .add("true if the next cursor is set");
+        hasNext.body()
+            ._return(JExpr.ref(NEXT_CURSOR)
+                .ne(JExpr._null()));
+        return page;
+    }
+
+    private void addProperty(JDefinedClass klass, JType type, String fieldName) {
+        JFieldVar field = klass.field(JMod.PRIVATE, type, fieldName);
+        klass.method(JMod.PUBLIC, type, getGetterName(fieldName))
+            .body()
+            ._return(field);
+        JMethod setter = klass.method(JMod.PUBLIC, codeModel.VOID, getSetterName(fieldName));
+        JVar param = setter.param(type, fieldName);
+        setter.body()
+            .assign(JExpr._this()
+                .ref(field), param);
+    }
+
+    /**
+     * Gets the page iterator class in the client package, generating it on first use.
+     *
+     * @return page iterator class
+     */
+    public JDefinedClass getPageIteratorClass() {
+        JPackage pkg = context.getClientPackage();
+        JDefinedClass iterator = pkg._getClass(PAGE_ITERATOR);
+        if (iterator != null) {
+            return iterator;
+        }
+        try {
+            iterator = pkg._class(JMod.PUBLIC | JMod.FINAL, PAGE_ITERATOR);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(iterator);
+        JTypeVar t = iterator.generify("T");
+        iterator._implements(codeModel.ref(Iterator.class)
+            .narrow(t));
+        iterator.javadoc()
+            .add("Iterates over all items of a paged collection, fetching the pages lazily. "
+                + "When a page has been received, the next page is requested asynchronously, "
+                + "while the items of the current page are consumed.");
+
+        JClass pageType = getPageClass().narrow(t);
+        JClass futureType = codeModel.ref(CompletableFuture.class)
+            .narrow(pageType);
+        JClass fetcherType = codeModel.ref(Function.class)
+            .narrow(codeModel.ref(String.class), futureType);
+
+        JFieldVar fetcher = iterator.field(JMod.PRIVATE | JMod.FINAL, fetcherType, "fetcher");
+        JFieldVar next = iterator.field(JMod.PRIVATE, futureType, "next");
+        JFieldVar current = iterator.field(JMod.PRIVATE, codeModel.ref(Iterator.class)
+            .narrow(t), "current",
+            codeModel.ref(Collections.class)
+                .staticInvoke("emptyIterator"));
+        JFieldVar started = iterator.field(JMod.PRIVATE, codeModel.BOOLEAN, "started");
+
+        JMethod constructor = iterator.constructor(JMod.PUBLIC);
+        JVar fetcherParam = constructor.param(fetcherType, "fetcher");
+        constructor.body()
+            .assign(JExpr._this()
+                .ref(fetcher), fetcherParam);
+        constructor.javadoc()
+            .add("Creates an iterator with the given page fetcher.");
+        constructor.javadoc()
+            .addParam(fetcherParam)
+            .add("function requesting the page with a given cursor, or the first page for a "
+                + "null cursor");
+
+        JMethod hasNext = iterator.method(JMod.PUBLIC, codeModel.BOOLEAN, "hasNext");
+        hasNext.annotate(Override.class);
+        JBlock body = hasNext.body();
+        JBlock start = body._if(started.not())
+            ._then();
+        start.assign(started, JExpr.TRUE);
+        start.assign(next, fetcher.invoke("apply")
+            .arg(JExpr._null()));
+        JWhileLoop loop = body._while(current.invoke("hasNext")
+            .not());
+        loop.body()
+            ._if(next.eq(JExpr._null()))
+            ._then()
+            ._return(JExpr.FALSE);
+        JVar page = loop.body()
+            .decl(pageType, "page", next.invoke("join"));
+        loop.body()
+            .assign(next, JOp.cond(page.invoke("hasNext"), fetcher.invoke("apply")
+                .arg(page.invoke(getGetterName(NEXT_CURSOR))), JExpr._null()));
+        JVar items = loop.body()
+            .decl(codeModel.ref(List.class)
+                .narrow(t), ITEMS, page.invoke(getGetterName(ITEMS)));
+        loop.body()
+            ._if(items.ne(JExpr._null()))
+            ._then()
+            .assign(current, items.invoke("iterator"));
+        body._return(JExpr.TRUE);
+
+        JMethod nextMethod = iterator.method(JMod.PUBLIC, t, "next");
+        nextMethod.annotate(Override.class);
+        nextMethod.body()
+            ._if(JExpr.invoke(hasNext)
+                .not())
+            ._then()
+            ._throw(JExpr._new(codeModel.ref(NoSuchElementException.class)));
+        nextMethod.body()
+            ._return(current.invoke("next"));
+        return iterator;
+    }
+}
@@ -25,6 +25,7 @@ import org.raml.v2.api.model.v10.datamodel.UnionTypeDeclaration;
 
 import com.sun.codemodel.JClassAlreadyExistsException;
 import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMod;
 import com.sun.codemodel.JPackage;
 
 /**
@@ -62,8 +63,14 @@ public class PojoCreatingApiVisitor implements ApiVisitor {
             .isInternal(type)) {
             return;
         }
+        int mods = JMod.PUBLIC;
+        if (context.isValueClass(type) && context.getApiModel()
+            .findDerivedTypes(type.name())
+            .isEmpty()) {
+            mods |= JMod.FINAL;
+        }
         try {
-            JDefinedClass klass = pkg._class(type.name());
+            JDefinedClass klass = pkg._class(mods, type.name());
             context.addType(type.type(), klass);
             context.annotateAsGenerated(klass);
         }
@@ -17,28 +17,37 @@
  */
 package org.ops4j.ramler.java;
 
+import static org.ops4j.ramler.common.helper.NameFactory.getAccessorName;
 import static org.ops4j.ramler.common.helper.NameFactory.getGetterName;
 import static org.ops4j.ramler.common.helper.NameFactory.getSetterName;
 import static org.ops4j.ramler.common.model.CommonConstants.OBJECT;
 import static org.ops4j.ramler.java.JavaConstants.DISCRIMINATOR;
+import static org.ops4j.ramler.java.JavaConstants.MERGE;
+import static org.ops4j.ramler.java.JavaConstants.PRESENT_PROPERTIES;
+import static org.ops4j.ramler.java.JavaConstants.PRESENT_SUFFIX;
 import static org.ops4j.ramler.java.JavaConstants.TYPE_ARGS;
 import static org.ops4j.ramler.java.JavaConstants.TYPE_VAR;
 import static org.ops4j.ramler.java.JavaConstants.TYPE_VARS;
 import static org.ops4j.ramler.java.JavaConstants.VALUE;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
+import org.ops4j.ramler.common.exc.GeneratorException;
 import org.ops4j.ramler.common.helper.NameFactory;
 import org.ops4j.ramler.common.model.Annotations;
 import org.ops4j.ramler.common.model.ApiVisitor;
 import org.ops4j.ramler.common.model.EnumValue;
+import org.raml.v2.api.model.v10.api.Api;
 import org.raml.v2.api.model.v10.datamodel.AnyTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.ArrayTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.BooleanTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.IntegerTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.NumberTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.StringTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
@@ -46,13 +55,12 @@ import org.raml.v2.api.model.v10.datamodel.UnionTypeDeclaration;
 import org.raml.v2.api.model.v10.declarations.AnnotationRef;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.annotation.JsonSubTypes;
-import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
-import com.sun.codemodel.JAnnotationArrayMember;
+import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
 import com.sun.codemodel.JAnnotationUse;
+import com.sun.codemodel.JBlock;
 import com.sun.codemodel.JClass;
 import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
@@ -60,6 +68,7 @@ import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
 import com.sun.codemodel.JPackage;
 import com.sun.codemodel.JType;
 import com.sun.codemodel.JVar;
@@ -82,8 +91,20 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
 
     private UnionGenerator unionGenerator;
 
+    private TypeIdResolverGenerator typeIdResolverGenerator;
+
+    private ValueClassGenerator valueClassGenerator;
+
+    private ValidationGenerator validationGenerator;
+
     private NameFactory nameFactory;
 
+    private boolean valueClass;
+
+    private boolean genericHierarchy;
+
+    private Map<JDefinedClass, Integer> presenceBits = new HashMap<>();
+
     /**
      * Creates a visitor for the given generator context.
      *
@@ -96,21 +117,37 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
         this.pkg = context.getModelPackage();
         this.enumGenerator = new EnumGenerator(context);
         this.unionGenerator = new UnionGenerator(context);
+        this.typeIdResolverGenerator = new TypeIdResolverGenerator(context);
+        this.valueClassGenerator = new ValueClassGenerator(context);
+        this.validationGenerator = new ValidationGenerator(context);
         this.nameFactory = new JavaNameFactory();
     }
 
+    @Override
+    public void visitApiStart(Api api) {
+        if (context.getConfig()
+            .isValidation()) {
+            validationGenerator.generateValidationSupport();
+        }
+    }
+
     @Override
     public void visitObjectTypeStart(ObjectTypeDeclaration type) {
         if (context.getApiModel()
             .isInternal(type)) {
             return;
         }
+        valueClass = context.isValueClass(type);
+        genericHierarchy = context.isInGenericHierarchy(type);
         JDefinedClass klass = pkg._getClass(type.name());
         context.addJavadoc(klass, type);
         addTypeParameters(klass, type);
         addBaseClass(klass, type);
         addDiscriminator(klass, type);
         addJsonTypeInfo(klass, type);
+        if (isPresenceTracking()) {
+            klass.field(JMod.PRIVATE, codeModel.LONG, PRESENT_PROPERTIES);
+        }
         addMixinProperties(klass, type);
     }
 
@@ -149,17 +186,14 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
         if (type.discriminator() == null) {
             return;
         }
-        String discriminatorValue = type.discriminatorValue();
-        if (discriminatorValue == null) {
-            discriminatorValue = type.name();
-        }
+        String discriminatorValue = context.getApiModel()
+            .getDiscriminatorValue(type);
 
         JFieldVar field = klass.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL,
             codeModel._ref(String.class), DISCRIMINATOR);
         field.init(JExpr.lit(discriminatorValue));
 
-        if (context.getConfig()
-            .isDiscriminatorMutable()) {
+        if (isDiscriminatorMutable()) {
             klass.constructor(JMod.PUBLIC)
                 .body()
                 .invoke(getSetterName(type.discriminator()))
@@ -184,18 +218,13 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
             return;
         }
         JAnnotationUse typeInfo = klass.annotate(JsonTypeInfo.class);
-        typeInfo.param("use", Id.NAME);
+        typeInfo.param("use", Id.CUSTOM);
         typeInfo.param("include", As.EXISTING_PROPERTY);
         typeInfo.param("property", type.discriminator());
 
-        JAnnotationUse subTypes = klass.annotate(JsonSubTypes.class);
-        JAnnotationArrayMember typeArray = subTypes.paramArray(VALUE);
-
-        for (String derivedType : derivedTypes) {
-            JDefinedClass subtype = pkg._getClass(derivedType);
-            typeArray.annotate(Type.class)
-                .param(VALUE, subtype);
-        }
+        JDefinedClass resolver = typeIdResolverGenerator.generateTypeIdResolver(type);
+        klass.annotate(JsonTypeIdResolver.class)
+            .param(VALUE, resolver);
     }
 
     private void addTypeParameters(JDefinedClass klass, ObjectTypeDeclaration type) {
@@ -232,6 +261,9 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
         idConstructor.body()
             .assign(JExpr._this()
                 .ref(fieldName), p1);
+        if (isPresenceTracking()) {
+            markPresent(klass, idConstructor.body(), fieldName);
+        }
     }
 
     @Override
@@ -241,20 +273,77 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
             return;
         }
         JDefinedClass klass = pkg._getClass(type.name());
-        if (!context.getConfig()
-            .isDiscriminatorMutable()
-            && property.name()
-                .equals(type.discriminator())) {
+        if (!isDiscriminatorMutable() && property.name()
+            .equals(type.discriminator())) {
             return;
         }
         if (!isInherited(type, property)) {
             generateFieldAndAccessors(klass, property);
         }
-        if (Annotations.isIdentity(property)) {
+        if (Annotations.isIdentity(property) && !valueClass) {
             addConstructors(klass, property);
         }
     }
 
+    @Override
+    public void visitObjectTypeEnd(ObjectTypeDeclaration type) {
+        if (valueClass) {
+            valueClassGenerator.generateValueClassMembers(pkg._getClass(type.name()), type);
+        }
+        if (context.getConfig()
+            .isValidation()
+            && !context.getApiModel()
+                .isInternal(type)) {
+            validationGenerator.generateValidateMethod(pkg._getClass(type.name()), type);
+        }
+        if (isPresenceTracking() && !context.getApiModel()
+            .isInternal(type)) {
+            generateMergeMethod(pkg._getClass(type.name()));
+        }
+        valueClass = false;
+        genericHierarchy = false;
+    }
+
+    /**
+     * Value classes always have an immutable discriminator, since there are no setters.
+     *
+     * @return true if the discriminator of the current class is mutable
+     */
+    private boolean isDiscriminatorMutable() {
+        return context.getConfig()
+            .isDiscriminatorMutable() && !valueClass;
+    }
+
+    /**
+     * Value classes never track the presence of properties, since all properties are set on
+     * construction.
+     *
+     * @return true if the current class tracks the presence of its properties
+     */
+    private boolean isPresenceTracking() {
+        return context.getConfig()
+            .isPresenceTracking() && !valueClass;
+    }
+
+    /**
+     * Gets the field type for the given Java type of a property. With presence tracking, optional
+     * scalars are mapped to primitive types, since there is no need to represent a missing value by
+     * null. Types in a generic type hierarchy keep boxed fields, since they have no streaming
+     * serializers skipping missing values, and Jackson databind would write them as {@code 0} or
+     * {@code false}.
+     *
+     * @param jtype
+     *            Java type of property
+     * @return field type
+     */
+    private JType toFieldType(JType jtype) {
+        return (isPresenceTracking() && !genericHierarchy) ? jtype.unboxify() : jtype;
+    }
+
+    private int getFieldModifiers() {
+        return valueClass ? (JMod.PRIVATE | JMod.FINAL) : JMod.PRIVATE;
+    }
+
     private boolean isInherited(ObjectTypeDeclaration type, TypeDeclaration property) {
         if (type.name()
             .equals(OBJECT)) {
@@ -265,6 +354,14 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
             .containsKey(property.name());
     }
 
+    @Override
+    public void visitApiEnd(Api api) {
+        if (context.getConfig()
+            .isEnumParamConverters()) {
+            enumGenerator.generateParamConverterProvider();
+        }
+    }
+
     @Override
     public void visitEnumTypeStart(StringTypeDeclaration type) {
         enumGenerator.generateEnumClassStart(type);
@@ -319,7 +416,7 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
         String fieldName = nameFactory.buildVariableName(property);
         JClass mapType = codeModel.ref(Map.class)
             .narrow(String.class, Object.class);
-        JFieldVar field = klass.field(JMod.PRIVATE, mapType, fieldName);
+        JFieldVar field = klass.field(getFieldModifiers(), mapType, fieldName);
         annotateFieldWithPropertyName(field, property);
 
         JMethod getter = klass.method(JMod.PUBLIC, mapType, getGetterName(fieldName));
@@ -336,8 +433,8 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
 
     private void generateSimpleFieldAndAccessor(JDefinedClass klass, TypeDeclaration property) {
         String fieldName = nameFactory.buildVariableName(property);
-        JType jtype = context.getJavaType(property);
-        JFieldVar field = klass.field(JMod.PRIVATE, jtype, fieldName);
+        JType jtype = toFieldType(context.getJavaType(property));
+        JFieldVar field = klass.field(getFieldModifiers(), jtype, fieldName);
         annotateFieldWithPropertyName(field, property);
 
         generateGetter(property, klass, field, JavaNameFactory::getGetterName);
@@ -359,14 +456,27 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
         String itemTypeName = context.getApiModel()
             .getItemType(property);
         JType elementType = findTypeVar(klass, property).orElse(context.getJavaType(itemTypeName));
-        JClass listType = codeModel.ref(List.class)
-            .narrow(elementType);
-        JFieldVar field = klass.field(JMod.PRIVATE, listType, fieldName);
+        JType listType;
+        JType primitiveType = findPrimitiveItemType(property);
+        if (primitiveType != null) {
+            listType = primitiveType.array();
+        }
+        else {
+            listType = codeModel.ref(List.class)
+                .narrow(elementType);
+        }
+        JFieldVar field = klass.field(getFieldModifiers(), listType, fieldName);
         annotateFieldWithPropertyName(field, property);
 
         JMethod getter = klass.method(JMod.PUBLIC, listType, getGetterName(fieldName));
-        getter.body()
-            ._return(field);
+        if (valueClass && primitiveType != null) {
+            getter.body()
+                ._return(JOp.cond(field.eq(JExpr._null()), JExpr._null(), field.invoke("clone")));
+        }
+        else {
+            getter.body()
+                ._return(field);
+        }
 
         if (property.description() != null) {
             getter.javadoc()
@@ -376,6 +486,36 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
         generateSetter(klass, listType, fieldName);
     }
 
+    /**
+     * Finds the primitive Java type for the items of the given array, if primitive arrays are
+     * enabled. The item declaration is used instead of the item type name, so any format facets of
+     * inline item types are taken into account.
+     *
+     * @param property
+     *            array property
+     * @return primitive item type, or null
+     */
+    private JType findPrimitiveItemType(ArrayTypeDeclaration property) {
+        if (!context.getConfig()
+            .isPrimitiveArrays() || property.items() == null) {
+            return null;
+        }
+        TypeDeclaration items = property.items();
+        if (!(items instanceof NumberTypeDeclaration || items instanceof BooleanTypeDeclaration)) {
+            return null;
+        }
+        if (items instanceof NumberTypeDeclaration && !(items instanceof IntegerTypeDeclaration)
+            && ((NumberTypeDeclaration) items).format() == null) {
+            return codeModel.DOUBLE;
+        }
+        JType itemType = context.getJavaType(items);
+        if (itemType == null || !itemType.unboxify()
+            .isPrimitive()) {
+            return null;
+        }
+        return itemType.unboxify();
+    }
+
     private void generateObjectFieldAndAccessors(JDefinedClass klass, TypeDeclaration property) {
         String fieldName = nameFactory.buildVariableName(property);
 
@@ -390,7 +530,7 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
             }
             jtype = jclass;
         }
-        JFieldVar field = klass.field(JMod.PRIVATE, jtype, fieldName);
+        JFieldVar field = klass.field(getFieldModifiers(), jtype, fieldName);
         annotateFieldWithPropertyName(field, property);
 
         generateGetter(property, klass, field, JavaNameFactory::getGetterName);
@@ -443,18 +583,107 @@ public class PojoGeneratingApiVisitor implements ApiVisitor {
     }
 
     private void generateSetter(JDefinedClass klass, JType fieldType, String fieldName) {
+        if (valueClass) {
+            return;
+        }
         JMethod setter = klass.method(JMod.PUBLIC, codeModel.VOID, getSetterName(fieldName));
         JVar p1 = setter.param(fieldType, fieldName);
         setter.body()
             .assign(JExpr._this()
                 .ref(fieldName), p1);
+        if (isPresenceTracking()) {
+            generatePresenceChecker(klass, fieldName);
+            markPresent(klass, setter.body(), fieldName);
+        }
+    }
+
+    private void generatePresenceChecker(JDefinedClass klass, String fieldName) {
+        int bit = presenceBits.getOrDefault(klass, 0);
+        if (bit == Long.SIZE) {
+            throw new GeneratorException(String.format(
+                "cannot track the presence of more than %d properties in %s", Long.SIZE,
+                klass.name()));
+        }
+        presenceBits.put(klass, bit + 1);
+        JFieldVar presentBit = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            codeModel.LONG, getPresentBitName(fieldName), JExpr.lit(1L)
+                .shl(JExpr.lit(bit)));
+
+        JMethod checker = klass.method(JMod.PUBLIC, codeModel.BOOLEAN,
+            getAccessorName("has", fieldName));
+        checker.javadoc()
+            .add(String.format("Checks if {@code %s} has been set.", fieldName));
+        checker.javadoc()
+            .addReturn()
+            .add("true if present");
+        checker.body()
+            ._return(klass.fields()
+                .get(PRESENT_PROPERTIES)
+                .band(presentBit)
+                .ne(JExpr.lit(0L)));
+    }
+
+    private void markPresent(JDefinedClass klass, JBlock block, String fieldName) {
+        JFieldVar presentProperties = klass.fields()
+            .get(PRESENT_PROPERTIES);
+        block.assign(presentProperties, presentProperties.bor(klass.fields()
+            .get(getPresentBitName(fieldName))));
+    }
+
+    private String getPresentBitName(String fieldName) {
+        return NameFactory.buildConstantName(fieldName) + PRESENT_SUFFIX;
+    }
+
+    /**
+     * Generates a method copying all properties which are present in a given object, which can be
+     * used to apply a partial update. Properties of base classes are merged by the base class
+     * method.
+     *
+     * @param klass
+     *            POJO class
+     */
+    private void generateMergeMethod(JDefinedClass klass) {
+        JClass selfType = (klass.typeParams().length == 0) ? klass
+            : klass.narrow(klass.typeParams());
+        JMethod merge = klass.method(JMod.PUBLIC, codeModel.VOID, MERGE);
+        JVar patch = merge.param(selfType, "patch");
+        merge.javadoc()
+            .add("Copies all properties which are present in the given object to this object, "
+                + "leaving all other properties unchanged.");
+        merge.javadoc()
+            .addParam(patch)
+            .add("object with properties to be copied");
+
+        JBlock body = merge.body();
+        if (klass._extends()
+            .erasure() instanceof JDefinedClass) {
+            body.invoke(JExpr._super(), MERGE)
+                .arg(patch);
+        }
+        JFieldVar presentProperties = klass.fields()
+            .get(PRESENT_PROPERTIES);
+        for (JFieldVar field : klass.fields()
+            .values()) {
+            JFieldVar presentBit = klass.fields()
+                .get(getPresentBitName(field.name()));
+            if (presentBit == null) {
+                continue;
+            }
+            body._if(patch.ref(presentProperties)
+                .band(presentBit)
+                .ne(JExpr.lit(0L)))
+                ._then()
+                .assign(JExpr._this()
+                    .ref(field), patch.ref(field));
+        }
+        body.assign(presentProperties, presentProperties.bor(patch.ref(presentProperties)));
     }
 
     private void generateBooleanFieldAndAccessors(JDefinedClass klass,
         BooleanTypeDeclaration property) {
         String fieldName = nameFactory.buildVariableName(property);
-        JType jtype = context.getJavaType(property);
-        JFieldVar field = klass.field(JMod.PRIVATE, jtype, fieldName);
+        JType jtype = toFieldType(context.getJavaType(property));
+        JFieldVar field = klass.field(getFieldModifiers(), jtype, fieldName);
         annotateFieldWithPropertyName(field, property);
 
         generateGetter(property, klass, field, JavaNameFactory::getCheckerName);
@@ -19,14 +19,34 @@ package org.ops4j.ramler.java;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
+import static org.ops4j.ramler.common.model.CommonConstants.BULK_PATH;
+import static org.ops4j.ramler.common.model.CommonConstants.BULK_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.ASYNC_COMPLETION_STAGE;
+import static org.ops4j.ramler.java.JavaConstants.ASYNC_NONE;
+import static org.ops4j.ramler.java.JavaConstants.ASYNC_RESPONSE;
+import static org.ops4j.ramler.java.JavaConstants.ASYNC_RESPONSE_PARAM;
+import static org.ops4j.ramler.java.JavaConstants.BULK_ITEMS;
+import static org.ops4j.ramler.java.JavaConstants.CURSOR;
+import static org.ops4j.ramler.java.JavaConstants.FIELDS;
+import static org.ops4j.ramler.java.JavaConstants.LIMIT;
+import static org.ops4j.ramler.java.JavaConstants.NDJSON;
+import static org.ops4j.ramler.java.JavaConstants.STREAMING_JSON_ARRAY;
+import static org.ops4j.ramler.java.JavaConstants.STREAMING_NDJSON;
+import static org.ops4j.ramler.java.JavaConstants.TIMEOUT_SUFFIX;
 import static org.ops4j.ramler.java.JavaConstants.TYPE_ARGS;
 import static org.ops4j.ramler.java.JavaConstants.VALUE;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
@@ -34,6 +54,8 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
@@ -46,6 +68,7 @@ import org.ops4j.ramler.common.model.ApiVisitor;
 import org.raml.v2.api.model.v10.api.Api;
 import org.raml.v2.api.model.v10.bodies.MimeType;
 import org.raml.v2.api.model.v10.bodies.Response;
+import org.raml.v2.api.model.v10.datamodel.ArrayTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.FileTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
@@ -56,9 +79,11 @@ import com.sun.codemodel.JAnnotatable;
 import com.sun.codemodel.JClass;
 import com.sun.codemodel.JClassAlreadyExistsException;
 import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JCommentPart;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JExpr;
 import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
 import com.sun.codemodel.JPackage;
@@ -94,6 +119,28 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
 
     private NameFactory nameFactory;
 
+    private boolean streaming;
+
+    private Set<String> sparseFieldsetTypes = new LinkedHashSet<>();
+
+    private SparseFieldsetGenerator sparseFieldsetGenerator;
+
+    private JDefinedClass sparseFieldsetMarker;
+
+    private ValidationGenerator validationGenerator;
+
+    private PageGenerator pageGenerator;
+
+    private BulkGenerator bulkGenerator;
+
+    private HttpCachingGenerator httpCachingGenerator;
+
+    private JDefinedClass httpCachingAnnotation;
+
+    private MetricsGenerator metricsGenerator;
+
+    private LoadSheddingGenerator loadSheddingGenerator;
+
     /**
      * Creates a visitor for the given generator context.
      *
@@ -105,6 +152,13 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
         this.codeModel = context.getCodeModel();
         this.pkg = context.getApiPackage();
         this.nameFactory = new JavaNameFactory();
+        this.validationGenerator = new ValidationGenerator(context);
+        this.sparseFieldsetGenerator = new SparseFieldsetGenerator(context);
+        this.pageGenerator = new PageGenerator(context);
+        this.bulkGenerator = new BulkGenerator(context);
+        this.httpCachingGenerator = new HttpCachingGenerator(context);
+        this.metricsGenerator = new MetricsGenerator(context);
+        this.loadSheddingGenerator = new LoadSheddingGenerator(context);
         httpMethodAnnotations = JavaConstants.JAXRS_HTTP_METHODS.stream()
             .collect(toMap(Class::getSimpleName, Function.identity()));
     }
@@ -117,6 +171,22 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
             .collect(toList());
     }
 
+    @Override
+    public void visitApiEnd(Api api) {
+        if (streaming) {
+            new StreamWriterGenerator(context).generateStreamWriter();
+        }
+        if (sparseFieldsetMarker != null) {
+            sparseFieldsetGenerator.generateWriter(new ArrayList<>(sparseFieldsetTypes),
+                sparseFieldsetMarker);
+        }
+        if (context.getConfig()
+            .isMetrics()) {
+            metricsGenerator.generateMetrics();
+        }
+        loadSheddingGenerator.generateLoadShedding();
+    }
+
     @Override
     public void visitResourceStart(Resource resource) {
         try {
@@ -192,15 +262,20 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
     @Override
     public void visitMethodStart(Method method) {
         int numResponseTypes = getNumResponseTypes(method);
+        JMethod itemMethod;
         if (numResponseTypes == 0) {
-            buildVoidMethod(method);
+            itemMethod = buildVoidMethod(method);
         }
         else {
-            buildNonVoidMethods(method, numResponseTypes);
+            itemMethod = buildNonVoidMethods(method, numResponseTypes);
+        }
+        if (context.getApiModel()
+            .isBulk(method)) {
+            buildBulkMethod(method, itemMethod);
         }
     }
 
-    private void buildVoidMethod(Method method) {
+    private JMethod buildVoidMethod(Method method) {
         String methodName = nameFactory.buildMethodName(method, -1);
         JMethod codeMethod = klass.method(JMod.NONE, klass, methodName);
 
@@ -210,10 +285,22 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
         addBodyParameters(method, codeMethod);
         addPathParameters(method, codeMethod);
         addQueryParameters(method, codeMethod);
+        addSparseFieldsets(method, codeMethod, null);
+        addCaching(method, codeMethod);
+        addMetricsEndpoint(method, codeMethod, "");
+        addLoadShedding(method, codeMethod, "");
+        addPagingParameters(method, codeMethod, null);
         addReturnType(method, codeMethod, null);
+        addAsync(method, codeMethod);
+        addParameterValidation(method, codeMethod);
+        return codeMethod;
     }
 
-    private void buildNonVoidMethods(Method method, int numResponseTypes) {
+    /**
+     * Builds the methods for all response media types and returns the first one.
+     */
+    private JMethod buildNonVoidMethods(Method method, int numResponseTypes) {
+        JMethod firstMethod = null;
         for (int bodyIndex = 0; bodyIndex < numResponseTypes; bodyIndex++) {
             TypeDeclaration body = method.responses()
                 .get(0)
@@ -228,9 +315,68 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
             addBodyParameters(method, codeMethod);
             addPathParameters(method, codeMethod);
             addQueryParameters(method, codeMethod);
+            addSparseFieldsets(method, codeMethod, body);
+            addCaching(method, codeMethod);
+            addMetricsEndpoint(method, codeMethod, "");
+            addLoadShedding(method, codeMethod, "");
+            addPagingParameters(method, codeMethod, body);
             addReturnType(method, codeMethod, body);
-            addProduces(codeMethod, body);
+            addAsync(method, codeMethod);
+            addProduces(method, codeMethod, body);
+            addParameterValidation(method, codeMethod);
+            if (firstMethod == null) {
+                firstMethod = codeMethod;
+            }
+        }
+        return firstMethod;
+    }
+
+    /**
+     * Builds the bulk variant of the given single-item method. The bulk method takes a list of
+     * bodies and the same path and query parameters, and always completes asynchronously, since the
+     * items may be processed in parallel.
+     */
+    private void buildBulkMethod(Method method, JMethod itemMethod) {
+        if (ASYNC_RESPONSE.equals(findAsyncMode(method))) {
+            throw new GeneratorException("(bulk) cannot be combined with asynchronous mode "
+                + ASYNC_RESPONSE);
         }
+        JMethod codeMethod = klass.method(JMod.NONE, klass, itemMethod.name() + BULK_SUFFIX);
+        codeMethod.javadoc()
+            .add(String.format("Bulk variant of {@link #%s}. Path and query parameters are "
+                + "shared by all items.", itemMethod.name()));
+        String path = (innerResource == null) ? BULK_PATH
+            : innerResource.relativeUri()
+                .value() + BULK_PATH;
+        codeMethod.annotate(Path.class)
+            .param(VALUE, path);
+        addHttpMethodAnnotation(method.method(), codeMethod);
+        codeMethod.param(codeModel.ref(List.class)
+            .narrow(context.getJavaType(method.body()
+                .get(0))),
+            BULK_ITEMS);
+        addPathParameters(method, codeMethod);
+        addQueryParameters(method, codeMethod);
+        codeMethod.type(codeModel.ref(CompletionStage.class)
+            .narrow(bulkGenerator.getBulkResultClass()
+                .narrow(getItemResultType(itemMethod))));
+        addMetricsEndpoint(method, codeMethod, BULK_PATH);
+        addLoadShedding(method, codeMethod, BULK_PATH);
+        context.addBulkMethod(codeMethod, itemMethod);
+    }
+
+    private JClass getItemResultType(JMethod itemMethod) {
+        JType type = itemMethod.type();
+        if (type == codeModel.VOID) {
+            return codeModel.ref(Void.class);
+        }
+        if (type.erasure()
+            .fullName()
+            .equals(CompletionStage.class.getName())) {
+            return ((JClass) type).getTypeParameters()
+                .get(0);
+        }
+        return (JClass) type.boxify();
     }
 
     private int getNumResponseTypes(Method method) {
@@ -246,8 +392,22 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
         }
     }
 
-    private void addProduces(JMethod codeMethod, TypeDeclaration body) {
+    private void addParameterValidation(Method method, JMethod codeMethod) {
+        if (context.getConfig()
+            .isValidation()) {
+            validationGenerator.generateParameterValidation(klass, codeMethod, method);
+        }
+    }
+
+    private void addProduces(Method method, JMethod codeMethod, TypeDeclaration body) {
         String mediaType = body.name();
+        if (STREAMING_NDJSON.equals(findStreamingMode(method))) {
+            codeMethod.annotate(Produces.class)
+                .paramArray(VALUE)
+                .param(NDJSON)
+                .param(mediaType(mediaType));
+            return;
+        }
         boolean useDefault = (mediaTypes.size() == 1) && mediaTypes.get(0)
             .equals(mediaType);
         if (!useDefault) {
@@ -292,11 +452,96 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
             else {
                 JType resultType = context.getJavaType(body);
                 resultType = addTypeArguments(resultType, body);
+                if (findStreamingMode(method) != null) {
+                    resultType = toStreamType(resultType, body);
+                }
+                else if (Annotations.findPaged(method) != null) {
+                    resultType = toPageType(resultType);
+                }
                 codeMethod.type(resultType);
             }
         }
     }
 
+    private String findStreamingMode(Method method) {
+        String mode = Annotations.findStreaming(method);
+        if (mode != null && !STREAMING_JSON_ARRAY.equals(mode) && !STREAMING_NDJSON.equals(mode)) {
+            throw new GeneratorException("unsupported streaming mode: " + mode);
+        }
+        return mode;
+    }
+
+    private JType toStreamType(JType resultType, TypeDeclaration body) {
+        if (!(body instanceof ArrayTypeDeclaration)) {
+            throw new GeneratorException(
+                "(streaming) requires an array response body, found " + body.type());
+        }
+        streaming = true;
+        JClass itemType = ((JClass) resultType).getTypeParameters()
+            .get(0);
+        return codeModel.ref(Stream.class)
+            .narrow(itemType);
+    }
+
+    private JType toPageType(JType resultType) {
+        JClass itemType = ((JClass) resultType).getTypeParameters()
+            .get(0);
+        return pageGenerator.getPageClass()
+            .narrow(itemType);
+    }
+
+    private void addAsync(Method method, JMethod codeMethod) {
+        String mode = findAsyncMode(method);
+        if (ASYNC_NONE.equals(mode)) {
+            return;
+        }
+
+        JType resultType = codeMethod.type();
+        if (ASYNC_COMPLETION_STAGE.equals(mode)) {
+            codeMethod.type(codeModel.ref(CompletionStage.class)
+                .narrow(resultType.boxify()));
+        }
+        else {
+            codeMethod.type(codeModel.VOID);
+            JVar asyncResponse = codeMethod.param(AsyncResponse.class, ASYNC_RESPONSE_PARAM);
+            asyncResponse.annotate(Suspended.class);
+            JCommentPart paramDoc = codeMethod.javadoc()
+                .addParam(asyncResponse)
+                .append("asynchronous response");
+            if (resultType != codeModel.VOID) {
+                paramDoc.append(", to be resumed with a result of type {@code ")
+                    .append(resultType.name())
+                    .append("}");
+            }
+        }
+        addAsyncTimeout(method, codeMethod);
+    }
+
+    private String findAsyncMode(Method method) {
+        String mode = Optional.ofNullable(Annotations.findAsync(method))
+            .orElse(context.getConfig()
+                .getAsyncResources());
+        if (!ASYNC_NONE.equals(mode) && !ASYNC_COMPLETION_STAGE.equals(mode)
+            && !ASYNC_RESPONSE.equals(mode)) {
+            throw new GeneratorException("unsupported asynchronous mode: " + mode);
+        }
+        return mode;
+    }
+
+    private void addAsyncTimeout(Method method, JMethod codeMethod) {
+        long timeout = Optional.ofNullable(Annotations.findAsyncTimeout(method))
+            .orElse(context.getConfig()
+                .getAsyncTimeout());
+        if (timeout <= 0) {
+            return;
+        }
+        String constantName = NameFactory.buildConstantName(codeMethod.name()) + TIMEOUT_SUFFIX;
+        JFieldVar constant = klass.field(JMod.NONE, codeModel.LONG, constantName,
+            JExpr.lit(timeout));
+        constant.javadoc()
+            .add(String.format("Timeout in milliseconds for {@link #%s}.", codeMethod.name()));
+    }
+
     private JType addTypeArguments(JType resultType, TypeDeclaration body) {
         List<String> args = Annotations.getStringAnnotations(body, TYPE_ARGS);
         JClass jclass = (JClass) resultType;
@@ -320,6 +565,141 @@ public class ResourceGeneratingApiVisitor implements ApiVisitor {
         }
     }
 
+    private void addSparseFieldsets(Method method, JMethod codeMethod, TypeDeclaration body) {
+        if (!Annotations.isSparseFieldsets(method)) {
+            return;
+        }
+        if (!method.method()
+            .equals("get")) {
+            throw new GeneratorException(
+                "(sparseFieldsets) is only supported for GET methods, found " + method.method());
+        }
+        JDefinedClass pojo = findModelClass(body);
+        if (pojo == null) {
+            throw new GeneratorException("(sparseFieldsets) requires an object response body");
+        }
+        sparseFieldsetTypes.add(pojo.name());
+        sparseFieldsetTypes.addAll(context.getApiModel()
+            .findAllDerivedTypes(pojo.name()));
+        if (sparseFieldsetMarker == null) {
+            sparseFieldsetMarker = sparseFieldsetGenerator.generateMarkerAnnotation();
+        }
+        codeMethod.annotate(sparseFieldsetMarker);
+
+        if (!isQueryParameter(method, FIELDS)) {
+            JVar param = codeMethod.param(codeModel.ref(List.class)
+                .narrow(String.class), FIELDS);
+            param.annotate(QueryParam.class)
+                .param(VALUE, FIELDS);
+        }
+    }
+
+    private void addCaching(Method method, JMethod codeMethod) {
+        if (!context.getApiModel()
+            .isCached(method)) {
+            return;
+        }
+        boolean etag = Annotations.isEtag(method);
+        if (etag && Annotations.findStreaming(method) != null) {
+            throw new GeneratorException("(etag) cannot be combined with (streaming)");
+        }
+        if (httpCachingAnnotation == null) {
+            httpCachingAnnotation = httpCachingGenerator.generateCaching();
+        }
+        httpCachingGenerator.annotateMethod(codeMethod, httpCachingAnnotation,
+            Annotations.findCacheable(method), etag);
+    }
+
+    private void addMetricsEndpoint(Method method, JMethod codeMethod, String pathSuffix) {
+        if (context.getConfig()
+            .isMetrics()) {
+            metricsGenerator.annotateEndpoint(codeMethod, method.method(), method.resource()
+                .resourcePath() + pathSuffix);
+        }
+    }
+
+    private void addLoadShedding(Method method, JMethod codeMethod, String pathSuffix) {
+        Integer maxConcurrency = Annotations.findMaxConcurrency(method);
+        Integer rateLimit = Annotations.findRateLimit(method);
+        if (maxConcurrency != null || rateLimit != null) {
+            loadSheddingGenerator.annotateEndpoint(codeMethod, method.method(), method.resource()
+                .resourcePath() + pathSuffix, maxConcurrency, rateLimit);
+        }
+    }
+
+    private void addPagingParameters(Method method, JMethod codeMethod, TypeDeclaration body) {
+        Integer pageSize = Annotations.findPaged(method);
+        if (pageSize == null) {
+            return;
+        }
+        if (!method.method()
+            .equals("get")) {
+            throw new GeneratorException(
+                "(paged) is only supported for GET methods, found " + method.method());
+        }
+        if (!(body instanceof ArrayTypeDeclaration)) {
+            throw new GeneratorException("(paged) requires an array response body");
+        }
+        if (findStreamingMode(method) != null) {
+            throw new GeneratorException("(paged) cannot be combined with (streaming)");
+        }
+        checkPagingParameter(method, CURSOR, String.class);
+        checkPagingParameter(method, LIMIT, Integer.class);
+        if (!isQueryParameter(method, CURSOR)) {
+            JVar cursor = codeMethod.param(String.class, CURSOR);
+            cursor.annotate(QueryParam.class)
+                .param(VALUE, CURSOR);
+        }
+        if (!isQueryParameter(method, LIMIT)) {
+            JVar limit = codeMethod.param(codeModel.INT, LIMIT);
+            limit.annotate(QueryParam.class)
+                .param(VALUE, LIMIT);
+            limit.annotate(DefaultValue.class)
+                .param(VALUE, pageSize.toString());
+        }
+    }
+
+    /**
+     * Checks that a paging parameter declared in RAML has the Java type of the generated parameter,
+     * since the client page iterator passes the cursor of the next page with this type.
+     */
+    private void checkPagingParameter(Method method, String name, Class<?> expectedType) {
+        for (TypeDeclaration param : method.queryParameters()) {
+            if (param.name()
+                .equals(name)
+                && !context.getJavaType(param)
+                    .boxify()
+                    .fullName()
+                    .equals(expectedType.getName())) {
+                throw new GeneratorException(String.format(
+                    "(paged) requires query parameter %s to be of type %s, found %s", name,
+                    expectedType.getSimpleName(), param.type()));
+            }
+        }
+    }
+
+    private boolean isQueryParameter(Method method, String name) {
+        return method.queryParameters()
+            .stream()
+            .anyMatch(p -> p.name()
+                .equals(name));
+    }
+
+    private JDefinedClass findModelClass(TypeDeclaration body) {
+        if (!(body instanceof ObjectTypeDeclaration)) {
+            return null;
+        }
+        JType javaType = context.getJavaType(body);
+        if (!(javaType instanceof JClass)) {
+            return null;
+        }
+        JClass erasure = ((JClass) javaType).erasure();
+        if (erasure instanceof JDefinedClass && erasure._package() == context.getModelPackage()) {
+            return (JDefinedClass) erasure;
+        }
+        return null;
+    }
+
     private void addPathParameters(Method method, JMethod codeMethod) {
         for (TypeDeclaration pathParam : context.getApiModel()
             .findAllUriParameters(method)) {
@@ -0,0 +1,492 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.common.helper.NameFactory.getAccessorName;
+import static org.ops4j.ramler.common.helper.NameFactory.getCheckerName;
+import static org.ops4j.ramler.common.helper.NameFactory.getGetterName;
+import static org.ops4j.ramler.java.JavaConstants.FIELDS;
+import static org.ops4j.ramler.java.JavaConstants.SPARSE_FIELDSETS;
+import static org.ops4j.ramler.java.JavaConstants.SPARSE_FIELDSET_WRITER;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.raml.v2.api.model.v10.datamodel.BooleanTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates a JAX-RS message body writer for resource methods annotated with
+ * {@code (sparseFieldsets)}.
+ * <p>
+ * For each supported model class, the writer has a precomputed index of the property names, so that
+ * the {@code fields} query parameter can be parsed into a bit set. A generated write method per
+ * class writes only the properties selected by this bit set, plus the discriminator, directly to a
+ * Jackson generator, without building and pruning a tree.
+ * <p>
+ * The writer only applies to methods with the generated {@code SparseFieldsets} marker annotation
+ * and to requests with a {@code fields} query parameter. All other responses are left to the
+ * default providers. The marker annotation is declared on the resource interfaces, so it is looked
+ * up via the {@code ResourceInfo} of the request, once per resource method.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class SparseFieldsetGenerator {
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    private JavaNameFactory nameFactory;
+
+    private JClass classType;
+
+    /**
+     * Creates a sparse fieldset generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public SparseFieldsetGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getModelPackage();
+        this.nameFactory = new JavaNameFactory();
+        this.classType = codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard());
+    }
+
+    /**
+     * Generates the marker annotation for resource methods supporting sparse fieldsets in the API
+     * package.
+     *
+     * @return annotation type
+     */
+    public JDefinedClass generateMarkerAnnotation() {
+        JDefinedClass annotation;
+        try {
+            annotation = context.getApiPackage()
+                ._annotationTypeDeclaration(SPARSE_FIELDSETS);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(annotation);
+        annotation.annotate(Retention.class)
+            .param(VALUE, RetentionPolicy.RUNTIME);
+        annotation.annotate(Target.class)
+            .param(VALUE, ElementType.METHOD);
+        annotation.javadoc()
+            .add("Marks resource methods supporting sparse fieldsets with a {@code fields} query "
+                + "parameter.");
+        return annotation;
+    }
+
+    /**
+     * Generates the sparse fieldset writer in the API package for the given model types.
+     *
+     * @param typeNames
+     *            names of object types
+     * @param marker
+     *            marker annotation for resource methods
+     */
+    public void generateWriter(List<String> typeNames, JDefinedClass marker) {
+        JDefinedClass klass;
+        try {
+            klass = context.getApiPackage()
+                ._class(SPARSE_FIELDSET_WRITER);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(klass);
+        klass.annotate(Provider.class);
+        klass.annotate(Produces.class)
+            .param(VALUE, codeModel.ref(MediaType.class)
+                .staticRef("APPLICATION_JSON"));
+        klass._implements(codeModel.ref(MessageBodyWriter.class)
+            .narrow(Object.class));
+        klass.javadoc()
+            .add("Writes model objects with the properties selected by the {@code fields} query "
+                + "parameter only.");
+
+        JClass indexType = codeModel.ref(Map.class)
+            .narrow(String.class, Integer.class);
+        JFieldVar propertyIndexes = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            codeModel.ref(Map.class)
+                .narrow(classType, indexType),
+            "PROPERTY_INDEXES", JExpr._new(codeModel.ref(HashMap.class)
+                .narrow(classType, indexType)));
+        JFieldVar defaultMapper = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            ObjectMapper.class, "DEFAULT_MAPPER", JExpr._new(codeModel.ref(ObjectMapper.class))
+                .invoke("findAndRegisterModules"));
+        JFieldVar providers = klass.field(JMod.PRIVATE, Providers.class, "providers");
+        providers.annotate(Context.class);
+        JFieldVar uriInfo = klass.field(JMod.PRIVATE, UriInfo.class, "uriInfo");
+        uriInfo.annotate(Context.class);
+
+        JMethod write = klass.method(JMod.PRIVATE | JMod.STATIC, codeModel.VOID, "write");
+        JVar value = write.param(Object.class, VALUE);
+        JVar fields = write.param(BitSet.class, FIELDS);
+        JVar gen = write.param(JsonGenerator.class, "gen");
+        write._throws(IOException.class);
+        JVar type = write.body()
+            .decl(classType, "type", value.invoke("getClass"));
+
+        JBlock init = klass.init();
+        for (String typeName : typeNames) {
+            ObjectTypeDeclaration objectType = (ObjectTypeDeclaration) context.getApiModel()
+                .getDeclaredType(typeName);
+            JDefinedClass pojo = pkg._getClass(typeName);
+            if (objectType == null || pojo == null) {
+                continue;
+            }
+            JMethod writePojo = generateWriteMethod(klass, objectType, pojo, init,
+                propertyIndexes);
+            JBlock then = write.body()
+                ._if(type.eq(pojo.dotclass()))
+                ._then();
+            then.invoke(writePojo)
+                .arg(JExpr.cast(toArgumentType(pojo), value))
+                .arg(fields)
+                .arg(gen);
+            then._return();
+        }
+        write.body()
+            .invoke(gen, "writeObject")
+            .arg(value);
+
+        JMethod isSparseFieldsetMethod = generateIsSparseFieldsetMethod(klass, marker);
+        generateIsWriteable(klass, propertyIndexes, uriInfo, isSparseFieldsetMethod);
+        generateGetSize(klass);
+        JMethod parseFields = generateParseFields(klass);
+        JMethod findMapper = generateFindMapper(klass, providers, defaultMapper);
+        generateWriteTo(klass, propertyIndexes, uriInfo, parseFields, findMapper, write);
+    }
+
+    private JClass toArgumentType(JDefinedClass pojo) {
+        if (pojo.typeParams().length == 0) {
+            return pojo;
+        }
+        JClass[] wildcards = new JClass[pojo.typeParams().length];
+        for (int i = 0; i < wildcards.length; i++) {
+            wildcards[i] = codeModel.wildcard();
+        }
+        return pojo.narrow(wildcards);
+    }
+
+    private JMethod generateWriteMethod(JDefinedClass klass, ObjectTypeDeclaration type,
+        JDefinedClass pojo, JBlock init, JFieldVar propertyIndexes) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, codeModel.VOID,
+            "write" + pojo.name());
+        JVar value = method.param(toArgumentType(pojo), VALUE);
+        JVar fields = method.param(BitSet.class, FIELDS);
+        JVar gen = method.param(JsonGenerator.class, "gen");
+        method._throws(IOException.class);
+        JBlock body = method.body();
+        body.invoke(gen, "writeStartObject");
+
+        JVar indexes = init.decl(codeModel.ref(Map.class)
+            .narrow(String.class, Integer.class),
+            nameFactory.buildVariableName(pojo.name()) + "Indexes",
+            JExpr._new(codeModel.ref(HashMap.class)
+                .narrow(String.class, Integer.class)));
+        int index = 0;
+        for (TypeDeclaration property : type.properties()) {
+            if (property.name()
+                .startsWith("/")) {
+                // additional properties cannot be selected
+                continue;
+            }
+            String fieldName = nameFactory.buildVariableName(property);
+            JFieldVar field = findField(pojo, fieldName);
+            if (property.name()
+                .equals(type.discriminator())) {
+                JExpression getter = (field == null) ? value.invoke(getGetterName(property.name()))
+                    : value.invoke(getGetterName(fieldName));
+                body.invoke(gen, "writeStringField")
+                    .arg(property.name())
+                    .arg(getter);
+                continue;
+            }
+            if (field == null) {
+                continue;
+            }
+            String jsonName = context.getJsonName(property);
+            init.invoke(indexes, "put")
+                .arg(jsonName)
+                .arg(JExpr.lit(index));
+            JBlock selected = body._if(fields.invoke("get")
+                .arg(JExpr.lit(index)))
+                ._then();
+            if (hasPresenceChecker(pojo, fieldName)) {
+                selected = selected._if(value.invoke(getAccessorName("has", fieldName)))
+                    ._then();
+            }
+            String getterName = (property instanceof BooleanTypeDeclaration)
+                ? getCheckerName(fieldName)
+                : getGetterName(fieldName);
+            selected.invoke(gen, "writeObjectField")
+                .arg(jsonName)
+                .arg(value.invoke(getterName));
+            index++;
+        }
+        body.invoke(gen, "writeEndObject");
+        init.invoke(propertyIndexes, "put")
+            .arg(pojo.dotclass())
+            .arg(indexes);
+        return method;
+    }
+
+    private JMethod generateIsSparseFieldsetMethod(JDefinedClass klass, JDefinedClass marker) {
+        JFieldVar resourceInfo = klass.field(JMod.PRIVATE, ResourceInfo.class, "resourceInfo");
+        resourceInfo.annotate(Context.class);
+        JClass cacheType = codeModel.ref(ConcurrentMap.class)
+            .narrow(Method.class, Boolean.class);
+        JFieldVar sparseMethods = klass.field(JMod.PRIVATE | JMod.FINAL, cacheType,
+            "sparseMethods", JExpr._new(codeModel.ref(ConcurrentHashMap.class)
+                .narrow(Method.class, Boolean.class)));
+        JMethod findMarker = new EndpointLookupGenerator(context).generateFindAnnotation(klass,
+            JMod.PRIVATE, marker);
+
+        JMethod method = klass.method(JMod.PRIVATE, codeModel.BOOLEAN, "isSparseFieldsetMethod");
+        method.javadoc()
+            .add("Checks if the current resource method supports sparse fieldsets. The marker "
+                + "annotation is looked up once per resource method.");
+        JBlock body = method.body();
+        body._if(resourceInfo.eq(JExpr._null()))
+            ._then()
+            ._return(JExpr.FALSE);
+        JVar resourceMethod = body.decl(codeModel.ref(Method.class), "resourceMethod",
+            resourceInfo.invoke("getResourceMethod"));
+        body._if(resourceMethod.eq(JExpr._null()))
+            ._then()
+            ._return(JExpr.FALSE);
+        JVar sparse = body.decl(codeModel.ref(Boolean.class), "sparse", sparseMethods
+            .invoke("get")
+            .arg(resourceMethod));
+        JBlock ifNull = body._if(sparse.eq(JExpr._null()))
+            ._then();
+        ifNull.assign(sparse, JExpr.invoke(findMarker)
+            .arg(resourceInfo.invoke("getResourceClass"))
+            .arg(resourceMethod)
+            .ne(JExpr._null()));
+        ifNull.invoke(sparseMethods, "putIfAbsent")
+            .arg(resourceMethod)
+            .arg(sparse);
+        body._return(sparse);
+        return method;
+    }
+
+    private void generateIsWriteable(JDefinedClass klass, JFieldVar propertyIndexes,
+        JFieldVar uriInfo, JMethod isSparseFieldsetMethod) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.BOOLEAN, "isWriteable");
+        method.annotate(Override.class);
+        JVar type = method.param(classType, "type");
+        method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        JBlock body = method.body();
+        body._if(propertyIndexes.invoke("containsKey")
+            .arg(type)
+            .not()
+            .cor(uriInfo.eq(JExpr._null())))
+            ._then()
+            ._return(JExpr.FALSE);
+        body._return(uriInfo.invoke("getQueryParameters")
+            .invoke("containsKey")
+            .arg(FIELDS)
+            .cand(JExpr.invoke(isSparseFieldsetMethod)));
+    }
+
+    private void generateGetSize(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.LONG, "getSize");
+        method.annotate(Override.class);
+        method.param(Object.class, VALUE);
+        method.param(classType, "type");
+        method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        method.body()
+            ._return(JExpr.lit(-1L));
+    }
+
+    private JMethod generateParseFields(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PRIVATE | JMod.STATIC, BitSet.class, "parseFields");
+        JVar indexes = method.param(codeModel.ref(Map.class)
+            .narrow(String.class, Integer.class), "indexes");
+        JVar values = method.param(codeModel.ref(List.class)
+            .narrow(String.class), "values");
+        JBlock body = method.body();
+        JVar fields = body.decl(codeModel.ref(BitSet.class), FIELDS,
+            JExpr._new(codeModel.ref(BitSet.class))
+                .arg(indexes.invoke("size")));
+        JForEach forValues = body.forEach(codeModel.ref(String.class), VALUE, values);
+        JForEach forNames = forValues.body()
+            .forEach(codeModel.ref(String.class), "name", forValues.var()
+                .invoke("split")
+                .arg(","));
+        JVar index = forNames.body()
+            .decl(codeModel.ref(Integer.class), "index", indexes.invoke("get")
+                .arg(forNames.var()
+                    .invoke("trim")));
+        forNames.body()
+            ._if(index.ne(JExpr._null()))
+            ._then()
+            .invoke(fields, "set")
+            .arg(index);
+        body._return(fields);
+        return method;
+    }
+
+    private JMethod generateFindMapper(JDefinedClass klass, JFieldVar providers,
+        JFieldVar defaultMapper) {
+        JMethod method = klass.method(JMod.PRIVATE, ObjectMapper.class, "findMapper");
+        JBlock body = method.body();
+        JVar mapper = body.decl(codeModel.ref(ObjectMapper.class), "mapper", defaultMapper);
+        JClass resolverType = codeModel.ref(ContextResolver.class)
+            .narrow(ObjectMapper.class);
+        JConditional ifProviders = body._if(providers.ne(JExpr._null()));
+        JVar resolver = ifProviders._then()
+            .decl(resolverType, "resolver", providers.invoke("getContextResolver")
+                .arg(codeModel.ref(ObjectMapper.class)
+                    .dotclass())
+                .arg(codeModel.ref(MediaType.class)
+                    .staticRef("APPLICATION_JSON_TYPE")));
+        ifProviders._then()
+            ._if(resolver.ne(JExpr._null()))
+            ._then()
+            .assign(mapper, resolver.invoke("getContext")
+                .arg(codeModel.ref(Object.class)
+                    .dotclass()));
+        body._return(mapper);
+        return method;
+    }
+
+    private void generateWriteTo(JDefinedClass klass, JFieldVar propertyIndexes,
+        JFieldVar uriInfo, JMethod parseFields, JMethod findMapper, JMethod write) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.VOID, "writeTo");
+        method.annotate(Override.class);
+        JVar value = method.param(Object.class, VALUE);
+        JVar type = method.param(classType, "type");
+        method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        method.param(codeModel.ref(MultivaluedMap.class)
+            .narrow(String.class, Object.class), "httpHeaders");
+        JVar entityStream = method.param(OutputStream.class, "entityStream");
+        method._throws(IOException.class);
+
+        JBlock body = method.body();
+        JVar fields = body.decl(codeModel.ref(BitSet.class), FIELDS, JExpr.invoke(parseFields)
+            .arg(propertyIndexes.invoke("get")
+                .arg(type))
+            .arg(uriInfo.invoke("getQueryParameters")
+                .invoke("get")
+                .arg(FIELDS)));
+        JVar gen = body.decl(codeModel.ref(JsonGenerator.class), "gen", JExpr.invoke(findMapper)
+            .invoke("getFactory")
+            .invoke("createGenerator")
+            .arg(entityStream)
+            .invoke("disable")
+            .arg(codeModel.ref(JsonGenerator.Feature.class)
+                .staticRef("AUTO_CLOSE_TARGET")));
+        JTryBlock tryBlock = body._try();
+        tryBlock.body()
+            .invoke(write)
+            .arg(value)
+            .arg(fields)
+            .arg(gen);
+        tryBlock._finally()
+            .invoke(gen, "close");
+    }
+
+    private JFieldVar findField(JDefinedClass klass, String fieldName) {
+        JClass current = klass;
+        while (current instanceof JDefinedClass) {
+            JFieldVar field = ((JDefinedClass) current).fields()
+                .get(fieldName);
+            if (field != null) {
+                return field;
+            }
+            current = current._extends();
+        }
+        return null;
+    }
+
+    private boolean hasPresenceChecker(JDefinedClass klass, String fieldName) {
+        String checkerName = getAccessorName("has", fieldName);
+        JClass current = klass;
+        while (current instanceof JDefinedClass) {
+            if (((JDefinedClass) current).getMethod(checkerName, new JType[0]) != null) {
+                return true;
+            }
+            current = current._extends();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.NDJSON;
+import static org.ops4j.ramler.java.JavaConstants.STREAM_WRITER;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JTryBlock;
+import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
+
+/**
+ * Generates a JAX-RS message body writer for the {@code Stream} results of resource methods
+ * annotated with {@code (streaming)}.
+ * <p>
+ * The writer serializes the stream items one by one with a Jackson {@code SequenceWriter}, either
+ * as a JSON array or as newline delimited JSON, depending on the negotiated media type. The object
+ * mapper is obtained from a {@code ContextResolver}, if the application provides one.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class StreamWriterGenerator {
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    /**
+     * Creates a stream writer generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public StreamWriterGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+    }
+
+    /**
+     * Generates the stream writer class in the API package.
+     */
+    public void generateStreamWriter() {
+        JDefinedClass klass;
+        try {
+            klass = context.getApiPackage()
+                ._class(STREAM_WRITER);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(klass);
+        klass.annotate(Provider.class);
+        klass.annotate(Produces.class)
+            .paramArray(VALUE)
+            .param(codeModel.ref(MediaType.class)
+                .staticRef("APPLICATION_JSON"))
+            .param(NDJSON);
+        JClass streamType = codeModel.ref(Stream.class)
+            .narrow(codeModel.wildcard());
+        klass._implements(codeModel.ref(MessageBodyWriter.class)
+            .narrow(streamType));
+        klass.javadoc()
+            .add("Writes streams of model objects as JSON arrays or as newline delimited JSON.");
+
+        JFieldVar ndjsonType = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            MediaType.class, "NDJSON_TYPE", codeModel.ref(MediaType.class)
+                .staticInvoke("valueOf")
+                .arg(NDJSON));
+        JFieldVar defaultMapper = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            ObjectMapper.class, "DEFAULT_MAPPER", JExpr._new(codeModel.ref(ObjectMapper.class))
+                .invoke("findAndRegisterModules"));
+        JFieldVar providers = klass.field(JMod.PRIVATE, Providers.class, "providers");
+        providers.annotate(Context.class);
+
+        generateIsWriteable(klass);
+        generateGetSize(klass, streamType);
+        JMethod findWriter = generateFindWriter(klass, providers, defaultMapper, ndjsonType);
+        generateWriteTo(klass, streamType, findWriter, ndjsonType);
+    }
+
+    private void generateIsWriteable(JDefinedClass klass) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.BOOLEAN, "isWriteable");
+        method.annotate(Override.class);
+        JVar type = method.param(codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard()), "type");
+        method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        method.body()
+            ._return(codeModel.ref(Stream.class)
+                .dotclass()
+                .invoke("isAssignableFrom")
+                .arg(type));
+    }
+
+    private void generateGetSize(JDefinedClass klass, JClass streamType) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.LONG, "getSize");
+        method.annotate(Override.class);
+        method.param(streamType, "stream");
+        method.param(codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard()), "type");
+        method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        method.param(MediaType.class, "mediaType");
+        method.body()
+            ._return(JExpr.lit(-1L));
+    }
+
+    private JMethod generateFindWriter(JDefinedClass klass, JFieldVar providers,
+        JFieldVar defaultMapper, JFieldVar ndjsonType) {
+        JMethod method = klass.method(JMod.PRIVATE, ObjectWriter.class, "findWriter");
+        JVar mediaType = method.param(MediaType.class, "mediaType");
+
+        JBlock body = method.body();
+        JVar mapper = body.decl(codeModel.ref(ObjectMapper.class), "mapper", defaultMapper);
+        JClass resolverType = codeModel.ref(ContextResolver.class)
+            .narrow(ObjectMapper.class);
+        JConditional ifProviders = body._if(providers.ne(JExpr._null()));
+        JVar resolver = ifProviders._then()
+            .decl(resolverType, "resolver", providers.invoke("getContextResolver")
+                .arg(codeModel.ref(ObjectMapper.class)
+                    .dotclass())
+                .arg(codeModel.ref(MediaType.class)
+                    .staticRef("APPLICATION_JSON_TYPE")));
+        ifProviders._then()
+            ._if(resolver.ne(JExpr._null()))
+            ._then()
+            .assign(mapper, resolver.invoke("getContext")
+                .arg(codeModel.ref(Stream.class)
+                    .dotclass()));
+
+        JVar writer = body.decl(codeModel.ref(ObjectWriter.class), "writer",
+            mapper.invoke("writer")
+                .invoke("without")
+                .arg(codeModel.ref(JsonGenerator.Feature.class)
+                    .staticRef("AUTO_CLOSE_TARGET")));
+        body._return(JOp.cond(mediaType.invoke("isCompatible")
+            .arg(ndjsonType),
+            writer.invoke("withRootValueSeparator")
+                .arg("\n"),
+            writer));
+        return method;
+    }
+
+    private void generateWriteTo(JDefinedClass klass, JClass streamType, JMethod findWriter,
+        JFieldVar ndjsonType) {
+        JMethod method = klass.method(JMod.PUBLIC, codeModel.VOID, "writeTo");
+        method.annotate(Override.class);
+        JVar stream = method.param(streamType, "stream");
+        method.param(codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard()), "type");
+        method.param(Type.class, "genericType");
+        method.param(Annotation[].class, "annotations");
+        JVar mediaType = method.param(MediaType.class, "mediaType");
+        method.param(codeModel.ref(MultivaluedMap.class)
+            .narrow(String.class, Object.class), "httpHeaders");
+        JVar entityStream = method.param(OutputStream.class, "entityStream");
+        method._throws(IOException.class);
+
+        JBlock body = method.body();
+        JVar writer = body.decl(codeModel.ref(ObjectWriter.class), "writer",
+            JExpr.invoke(findWriter)
+                .arg(mediaType));
+        JTryBlock tryStream = body._try();
+        JVar sequence = tryStream.body()
+            .decl(codeModel.ref(SequenceWriter.class), "sequence",
+                JOp.cond(mediaType.invoke("isCompatible")
+                    .arg(ndjsonType),
+                    writer.invoke("writeValues")
+                        .arg(entityStream),
+                    writer.invoke("writeValuesAsArray")
+                        .arg(entityStream)));
+        JTryBlock trySequence = tryStream.body()
+            ._try();
+        JVar iterator = trySequence.body()
+            .decl(codeModel.ref(Iterator.class)
+                .narrow(codeModel.wildcard()), "iterator", stream.invoke("iterator"));
+        JWhileLoop loop = trySequence.body()
+            ._while(iterator.invoke("hasNext"));
+        loop.body()
+            .invoke(sequence, "write")
+            .arg(iterator.invoke("next"));
+        trySequence._finally()
+            .invoke(sequence, "close");
+        tryStream._finally()
+            .invoke(stream, "close");
+    }
+}
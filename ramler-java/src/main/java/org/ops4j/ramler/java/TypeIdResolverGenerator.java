@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.TYPE_ID_RESOLVER_SUFFIX;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.model.ApiModel;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates Jackson type id resolvers for RAML types with discriminators. A resolver maps the
+ * discriminator values of a base type and of all its direct and indirect subtypes to the
+ * corresponding classes by table lookup, so Jackson does not need to scan subtype annotations.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class TypeIdResolverGenerator {
+
+    private static final String CLASSES = "CLASSES";
+
+    private static final String IDS = "IDS";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private JPackage pkg;
+
+    /**
+     * Creates a type id resolver generator with the given context.
+     *
+     * @param context
+     *            generator context
+     */
+    public TypeIdResolverGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.pkg = context.getModelPackage();
+    }
+
+    /**
+     * Generates a type id resolver for the given base type.
+     *
+     * @param type
+     *            object type with discriminator and derived types
+     * @return resolver class
+     */
+    public JDefinedClass generateTypeIdResolver(ObjectTypeDeclaration type) {
+        JDefinedClass resolver;
+        try {
+            resolver = pkg._class(type.name() + TYPE_ID_RESOLVER_SUFFIX);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(resolver);
+        resolver._extends(TypeIdResolverBase.class);
+        resolver.javadoc()
+            .add(String.format("Resolves the discriminator values of {@link %s} and all its "
+                + "subtypes by table lookup.", type.name()));
+
+        JClass classType = codeModel.ref(Class.class)
+            .narrow(codeModel.wildcard());
+        JClass stringType = codeModel.ref(String.class);
+        JFieldVar classes = resolver.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            codeModel.ref(Map.class)
+                .narrow(stringType, classType),
+            CLASSES, JExpr._new(codeModel.ref(HashMap.class)
+                .narrow(stringType, classType)));
+        JFieldVar ids = resolver.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+            codeModel.ref(Map.class)
+                .narrow(classType, stringType),
+            IDS, JExpr._new(codeModel.ref(HashMap.class)
+                .narrow(classType, stringType)));
+
+        ApiModel apiModel = context.getApiModel();
+        List<String> typeNames = new ArrayList<>();
+        typeNames.add(type.name());
+        typeNames.addAll(apiModel.findAllDerivedTypes(type.name()));
+        JBlock init = resolver.init();
+        for (String typeName : typeNames) {
+            JDefinedClass klass = pkg._getClass(typeName);
+            if (klass == null) {
+                continue;
+            }
+            String id = getDiscriminatorValue(apiModel.getDeclaredType(typeName));
+            init.invoke(classes, "put")
+                .arg(JExpr.lit(id))
+                .arg(klass.dotclass());
+            init.invoke(ids, "put")
+                .arg(klass.dotclass())
+                .arg(JExpr.lit(id));
+        }
+
+        generateIdFromValue(resolver);
+        generateIdFromValueAndType(resolver, classType, ids);
+        generateTypeFromId(resolver, classType, classes);
+        generateDescription(resolver, classes);
+
+        JMethod getMechanism = resolver.method(JMod.PUBLIC, JsonTypeInfo.Id.class,
+            "getMechanism");
+        getMechanism.annotate(Override.class);
+        getMechanism.body()
+            ._return(codeModel.ref(JsonTypeInfo.Id.class)
+                .staticRef("CUSTOM"));
+        return resolver;
+    }
+
+    private String getDiscriminatorValue(TypeDeclaration type) {
+        if (type instanceof ObjectTypeDeclaration) {
+            return context.getApiModel()
+                .getDiscriminatorValue((ObjectTypeDeclaration) type);
+        }
+        return type.name();
+    }
+
+    private void generateIdFromValue(JDefinedClass resolver) {
+        JMethod idFromValue = resolver.method(JMod.PUBLIC, String.class, "idFromValue");
+        idFromValue.annotate(Override.class);
+        JVar value = idFromValue.param(Object.class, "value");
+        idFromValue.body()
+            ._return(JExpr.invoke("idFromValueAndType")
+                .arg(value)
+                .arg(value.invoke("getClass")));
+    }
+
+    private void generateIdFromValueAndType(JDefinedClass resolver, JClass classType,
+        JFieldVar ids) {
+        JMethod idFromValueAndType = resolver.method(JMod.PUBLIC, String.class,
+            "idFromValueAndType");
+        idFromValueAndType.annotate(Override.class);
+        idFromValueAndType.param(Object.class, "value");
+        JVar suggestedType = idFromValueAndType.param(classType, "suggestedType");
+        idFromValueAndType.body()
+            ._return(ids.invoke("get")
+                .arg(suggestedType));
+    }
+
+    private void generateTypeFromId(JDefinedClass resolver, JClass classType,
+        JFieldVar classes) {
+        JMethod typeFromId = resolver.method(JMod.PUBLIC, JavaType.class, "typeFromId");
+        typeFromId.annotate(Override.class);
+        JVar ctxt = typeFromId.param(DatabindContext.class, "context");
+        JVar id = typeFromId.param(String.class, "id");
+        typeFromId._throws(IOException.class);
+        JBlock body = typeFromId.body();
+        JVar type = body.decl(classType, "type", classes.invoke("get")
+            .arg(id));
+        body._return(JOp.cond(type.eq(JExpr._null()), JExpr._null(), ctxt.invoke("constructType")
+            .arg(type)));
+    }
+
+    private void generateDescription(JDefinedClass resolver, JFieldVar classes) {
+        JMethod getDescForKnownTypeIds = resolver.method(JMod.PUBLIC, String.class,
+            "getDescForKnownTypeIds");
+        getDescForKnownTypeIds.annotate(Override.class);
+        getDescForKnownTypeIds.body()
+            ._return(classes.invoke("keySet")
+                .invoke("toString"));
+    }
+}
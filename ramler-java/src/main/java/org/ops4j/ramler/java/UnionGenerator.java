@@ -20,23 +20,40 @@ package org.ops4j.ramler.java;
 import static org.ops4j.ramler.java.JavaConstants.VALUE;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.exc.GeneratorException;
 import org.ops4j.ramler.common.helper.NameFactory;
+import org.ops4j.ramler.common.model.CommonConstants;
+import org.ops4j.ramler.common.model.EnumValue;
+import org.raml.v2.api.model.v10.datamodel.BooleanTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.IntegerTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.NumberTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.StringTypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
 import org.raml.v2.api.model.v10.datamodel.UnionTypeDeclaration;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.sun.codemodel.JBlock;
 import com.sun.codemodel.JClass;
 import com.sun.codemodel.JClassAlreadyExistsException;
@@ -49,7 +66,10 @@ import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
 import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JSwitch;
+import com.sun.codemodel.JTypeVar;
 import com.sun.codemodel.JVar;
+import com.sun.codemodel.JWhileLoop;
 
 /**
  * Generates Java class for a RAML union type.
@@ -167,81 +187,504 @@ public class UnionGenerator {
             .invoke("super");
         sup.arg(unionClass.dotclass());
 
-        for (TypeDeclaration variant : type.of()) {
-            generateLooksLikeMethod(deserializer, variant);
-        }
+        JMethod readBuffered = generateReadBufferedMethod(deserializer);
 
         JMethod deserialize = deserializer.method(JMod.PUBLIC, unionClass, "deserialize");
         deserialize.annotate(Override.class);
         JVar parser = deserialize.param(JsonParser.class, "parser");
-        deserialize.param(DeserializationContext.class, "context");
+        JVar ctxt = deserialize.param(DeserializationContext.class, "context");
         deserialize._throws(IOException.class);
 
-        JClass objectMapper = codeModel.ref(ObjectMapper.class);
-        JClass jsonNode = codeModel.ref(JsonNode.class);
         JBlock body = deserialize.body();
+        JVar result = body.decl(unionClass, "result", JExpr._new(unionClass));
+        JVar token = body.decl(codeModel.ref(JsonToken.class), "token",
+            parser.invoke("getCurrentToken"));
 
-        JVar mapper = body.decl(objectMapper, "mapper",
-            JExpr.cast(objectMapper, parser.invoke("getCodec")));
-        JVar node = body.decl(jsonNode, "node", mapper.invoke("readTree")
+        List<ObjectTypeDeclaration> objectVariants = new ArrayList<>();
+        for (TypeDeclaration variant : type.of()) {
+            if (variant instanceof ObjectTypeDeclaration) {
+                objectVariants.add((ObjectTypeDeclaration) variant);
+            }
+        }
+        generateStringCases(body, type, result, token, parser, ctxt);
+        TypeDeclaration integerVariant = findScalarVariant(type, IntegerTypeDeclaration.class);
+        TypeDeclaration numberVariant = findScalarVariant(type, NumberTypeDeclaration.class);
+        returnScalarVariant(body, token.eq(token("VALUE_NUMBER_INT")),
+            (integerVariant == null) ? numberVariant : integerVariant, result, parser, ctxt);
+        returnScalarVariant(body, token.eq(token("VALUE_NUMBER_FLOAT")), numberVariant, result,
+            parser, ctxt);
+        returnScalarVariant(body, token.eq(token("VALUE_TRUE"))
+            .cor(token.eq(token("VALUE_FALSE"))),
+            findScalarVariant(type, BooleanTypeDeclaration.class), result, parser, ctxt);
+
+        JExpression unexpected = JExpr.cast(unionClass, ctxt.invoke("handleUnexpectedToken")
+            .arg(unionClass.dotclass())
             .arg(parser));
-        JVar result = body.decl(unionClass, "result", JExpr._new(unionClass));
+        if (objectVariants.isEmpty()) {
+            body._return(unexpected);
+            return;
+        }
+        body._if(token.eq(token("START_OBJECT")))
+            ._then()
+            .assign(token, parser.invoke("nextToken"));
+        body._if(token.ne(token("FIELD_NAME"))
+            .cand(token.ne(token("END_OBJECT"))))
+            ._then()
+            ._return(unexpected);
+
+        Map<String, Long> propertyBits = buildPropertyBits(type, objectVariants);
+        Map<ObjectTypeDeclaration, Long> discriminatorBits = buildDiscriminatorBits(type,
+            objectVariants, propertyBits);
+        JVar buffer = body.decl(codeModel.ref(TokenBuffer.class), "buffer",
+            JExpr._new(codeModel.ref(TokenBuffer.class))
+                .arg(parser)
+                .arg(ctxt));
+        body.invoke(buffer, "writeStartObject");
+        JVar seen = body.decl(codeModel.LONG, "seen", JExpr.lit(0L));
+        Map<ObjectTypeDeclaration, JExpression> decided = buildDecisionConditions(objectVariants,
+            propertyBits, discriminatorBits, seen);
+
+        JWhileLoop loop = body._while(token.eq(token("FIELD_NAME")));
+        JBlock loopBody = loop.body();
+        JVar name = loopBody.decl(codeModel.ref(String.class), "name",
+            parser.invoke("getCurrentName"));
+        loopBody.invoke(buffer, "copyCurrentStructure")
+            .arg(parser);
+        JSwitch switchBlock = loopBody._switch(name);
+        generateDecisionCases(switchBlock, objectVariants, propertyBits, discriminatorBits,
+            decided, result, seen, readBuffered, parser, buffer, ctxt);
+        loopBody.assign(token, parser.invoke("nextToken"));
+
+        body.invoke(buffer, "writeEndObject");
+        JVar bufferParser = body.decl(codeModel.ref(JsonParser.class), "bufferParser",
+            buffer.invoke("asParser")
+                .arg(parser));
+        body.invoke(bufferParser, "nextToken");
+        List<ObjectTypeDeclaration> candidates = new ArrayList<>(objectVariants);
+        candidates.sort(Comparator.comparingInt(
+            (ObjectTypeDeclaration variant) -> -Long.bitCount(buildRequiredMask(variant,
+                propertyBits))));
+        for (ObjectTypeDeclaration variant : candidates) {
+            JBlock then = body._if(decided.get(variant))
+                ._then();
+            then.invoke(result, NameFactory.getSetterName(variant.name()))
+                .arg(ctxt.invoke("readValue")
+                    .arg(bufferParser)
+                    .arg(pkg._getClass(variant.name())
+                        .dotclass()));
+            then._return(result);
+        }
+        body._return(ctxt.invoke("reportInputMismatch")
+            .arg(JExpr._this())
+            .arg(JExpr.lit("Cannot determine variant of union type " + type.name())));
+    }
 
+    /**
+     * Generates the branch for string tokens. Enum variants are decided by their values, and any
+     * other value is read as the first string variant, if there is one. A value shared by several
+     * enum variants is read as the first of these variants.
+     */
+    private void generateStringCases(JBlock body, UnionTypeDeclaration type, JVar result,
+        JVar token, JVar parser, JVar ctxt) {
+        List<TypeDeclaration> enumVariants = new ArrayList<>();
         for (TypeDeclaration variant : type.of()) {
-            tryVariant(body, result, node, mapper, variant);
+            if (isEnumVariant(variant)) {
+                enumVariants.add(variant);
+            }
+        }
+        TypeDeclaration stringVariant = findScalarVariant(type, StringTypeDeclaration.class);
+        if (enumVariants.isEmpty() && stringVariant == null) {
+            return;
+        }
+        JBlock then = body._if(token.eq(token("VALUE_STRING")))
+            ._then();
+        if (!enumVariants.isEmpty()) {
+            JSwitch valueSwitch = then._switch(parser.invoke("getText"));
+            Set<String> values = new HashSet<>();
+            for (TypeDeclaration variant : enumVariants) {
+                JBlock caseBody = null;
+                for (EnumValue enumValue : context.getApiModel()
+                    .getEnumValues(variant)) {
+                    String value = toJsonValue(enumValue);
+                    if (values.add(value)) {
+                        caseBody = valueSwitch._case(JExpr.lit(value))
+                            .body();
+                    }
+                }
+                if (caseBody != null) {
+                    returnValue(caseBody, variant, result, parser, ctxt);
+                }
+            }
+            valueSwitch._default()
+                .body()
+                ._break();
         }
+        if (stringVariant != null) {
+            returnValue(then, stringVariant, result, parser, ctxt);
+        }
+    }
 
-        body._throw(JExpr._new(codeModel.ref(IOException.class))
-            .arg(JExpr.lit("Cannot determine type of ")
-                .plus(node)));
+    /**
+     * Gets the JSON representation of the given enum value, which is the RAML value with Jackson
+     * property names, or the name of the Java constant otherwise.
+     */
+    private String toJsonValue(EnumValue enumValue) {
+        if (context.getConfig()
+            .isJacksonPropertyName()) {
+            return enumValue.getName();
+        }
+        return JavaNameFactory.buildConstantName(enumValue.getName());
+    }
 
+    /**
+     * Finds the first variant of the given scalar kind. Enum variants are not string variants, and
+     * integer variants are not number variants, since they cannot take a floating point number. An
+     * integral JSON number is read as a number variant if there is no integer variant.
+     *
+     * @return scalar variant, or null
+     */
+    private TypeDeclaration findScalarVariant(UnionTypeDeclaration type,
+        Class<? extends TypeDeclaration> kind) {
+        for (TypeDeclaration variant : type.of()) {
+            if (kind.isInstance(variant) && !isEnumVariant(variant)
+                && (kind == IntegerTypeDeclaration.class
+                    || !(variant instanceof IntegerTypeDeclaration))) {
+                return variant;
+            }
+        }
+        return null;
     }
 
-    private void tryVariant(JBlock body, JVar result, JVar node, JVar mapper,
-        TypeDeclaration variant) {
-        JBlock then = body._if(JExpr.invoke("looksLike" + variant.name())
-            .arg(node))
-            ._then();
-        then.invoke(result, "set" + variant.name())
-            .arg(JExpr.invoke(mapper, "convertValue")
-                .arg(node)
+    private void returnScalarVariant(JBlock body, JExpression condition, TypeDeclaration variant,
+        JVar result, JVar parser, JVar ctxt) {
+        if (variant != null) {
+            returnValue(body._if(condition)
+                ._then(), variant, result, parser, ctxt);
+        }
+    }
+
+    private void returnValue(JBlock block, TypeDeclaration variant, JVar result, JVar parser,
+        JVar ctxt) {
+        block.invoke(result, NameFactory.getSetterName(getVariantName(variant)))
+            .arg(ctxt.invoke("readValue")
+                .arg(parser)
+                .arg(getVariantClass(variant).dotclass()));
+        block._return(result);
+    }
+
+    /**
+     * Generates the cases of the decision tree for the given object variants, switching on the
+     * current property name. Each required property and each discriminator value sets a bit in the
+     * mask of seen properties. A required property declared by a single variant or a discriminator
+     * value decides the variant immediately, as soon as all required properties of this variant
+     * have been seen. Otherwise, the variant is decided at the end of the object.
+     */
+    private void generateDecisionCases(JSwitch switchBlock,
+        List<ObjectTypeDeclaration> objectVariants, Map<String, Long> propertyBits,
+        Map<ObjectTypeDeclaration, Long> discriminatorBits,
+        Map<ObjectTypeDeclaration, JExpression> decided, JVar result, JVar seen,
+        JMethod readBuffered, JVar parser, JVar buffer, JVar ctxt) {
+        String discriminator = findCommonDiscriminator(objectVariants);
+        if (discriminator != null) {
+            JBlock caseBody = switchBlock._case(JExpr.lit(discriminator))
+                .body();
+            markSeen(caseBody, seen, propertyBits.get(discriminator));
+            JSwitch valueSwitch = caseBody._switch(parser.invoke("getText"));
+            for (ObjectTypeDeclaration variant : objectVariants) {
+                String value = context.getApiModel()
+                    .getDiscriminatorValue(variant);
+                JBlock valueBody = valueSwitch._case(JExpr.lit(value))
+                    .body();
+                markSeen(valueBody, seen, discriminatorBits.get(variant));
+                returnVariant(valueBody._if(decided.get(variant))
+                    ._then(), variant, result, readBuffered, parser, buffer, ctxt);
+                valueBody._break();
+            }
+            valueSwitch._default()
+                .body()
+                ._break();
+            caseBody._break();
+        }
+
+        Map<String, ObjectTypeDeclaration> uniqueProperties = findUniqueProperties(
+            objectVariants);
+        Set<String> names = new LinkedHashSet<>(uniqueProperties.keySet());
+        names.addAll(propertyBits.keySet());
+        names.remove(discriminator);
+        for (String propertyName : names) {
+            JBlock caseBody = switchBlock._case(JExpr.lit(propertyName))
+                .body();
+            markSeen(caseBody, seen, propertyBits.get(propertyName));
+            ObjectTypeDeclaration variant = uniqueProperties.get(propertyName);
+            if (variant != null) {
+                returnVariant(caseBody._if(decided.get(variant))
+                    ._then(), variant, result, readBuffered, parser, buffer, ctxt);
+            }
+            caseBody._break();
+        }
+        switchBlock._default()
+            .body()
+            ._break();
+    }
+
+    private void markSeen(JBlock block, JVar seen, Long bit) {
+        if (bit != null) {
+            block.assign(seen, seen.bor(JExpr.lit(bit)));
+        }
+    }
+
+    /**
+     * Builds the condition deciding each of the given variants. A variant is decided when all of
+     * its required properties have been seen, and no property or discriminator value specific to
+     * another variant has been seen.
+     */
+    private Map<ObjectTypeDeclaration, JExpression> buildDecisionConditions(
+        List<ObjectTypeDeclaration> objectVariants, Map<String, Long> propertyBits,
+        Map<ObjectTypeDeclaration, Long> discriminatorBits, JVar seen) {
+        Map<String, ObjectTypeDeclaration> uniqueProperties = findUniqueProperties(
+            objectVariants);
+        Map<ObjectTypeDeclaration, Long> evidence = new LinkedHashMap<>();
+        for (ObjectTypeDeclaration variant : objectVariants) {
+            evidence.put(variant, discriminatorBits.getOrDefault(variant, 0L));
+        }
+        uniqueProperties.forEach((propertyName, variant) -> evidence.merge(variant,
+            propertyBits.getOrDefault(propertyName, 0L), (a, b) -> a | b));
+
+        Map<ObjectTypeDeclaration, JExpression> conditions = new LinkedHashMap<>();
+        for (ObjectTypeDeclaration variant : objectVariants) {
+            long required = buildRequiredMask(variant, propertyBits);
+            long excluded = 0L;
+            for (ObjectTypeDeclaration other : objectVariants) {
+                if (other != variant) {
+                    excluded |= evidence.get(other);
+                }
+            }
+            conditions.put(variant, seen.band(JExpr.lit(required | excluded))
+                .eq(JExpr.lit(required)));
+        }
+        return conditions;
+    }
+
+    private void returnVariant(JBlock block, ObjectTypeDeclaration variant, JVar result,
+        JMethod readBuffered, JVar parser, JVar buffer, JVar ctxt) {
+        block.invoke(result, NameFactory.getSetterName(variant.name()))
+            .arg(JExpr.invoke(readBuffered)
+                .arg(parser)
+                .arg(buffer)
+                .arg(ctxt)
                 .arg(pkg._getClass(variant.name())
                     .dotclass()));
-        then._return(result);
+        block._return(result);
     }
 
-    private void generateLooksLikeMethod(JDefinedClass deserializer, TypeDeclaration variant) {
-        JMethod method = deserializer.method(JMod.PRIVATE, codeModel.BOOLEAN,
-            "looksLike" + variant.name());
-        JVar node = method.param(JsonNode.class, "node");
-        if (variant instanceof ObjectTypeDeclaration) {
-            ObjectTypeDeclaration objectType = (ObjectTypeDeclaration) variant;
-            JExpression conjunction = buildRequiredPropertiesConjunction(objectType, node);
-            method.body()
-                ._return(conjunction);
-        }
-        else {
-            method.body()
-                ._return(JExpr.FALSE);
+    /**
+     * Generates a method continuing deserialization of a variant from the tokens buffered so far
+     * followed by the remaining tokens of the given parser.
+     */
+    private JMethod generateReadBufferedMethod(JDefinedClass deserializer) {
+        JMethod method = deserializer.method(JMod.PRIVATE, codeModel.VOID, "readBuffered");
+        JTypeVar t = method.generify("T");
+        method.type(t);
+        JVar parser = method.param(JsonParser.class, "parser");
+        JVar buffer = method.param(TokenBuffer.class, "buffer");
+        JVar ctxt = method.param(DeserializationContext.class, "context");
+        JVar variantClass = method.param(codeModel.ref(Class.class)
+            .narrow(t), "variantClass");
+        method._throws(IOException.class);
+
+        JBlock body = method.body();
+        body.invoke(parser, "clearCurrentToken");
+        JVar sequence = body.decl(codeModel.ref(JsonParser.class), "sequence",
+            codeModel.ref(JsonParserSequence.class)
+                .staticInvoke("createFlattened")
+                .arg(JExpr.FALSE)
+                .arg(buffer.invoke("asParser")
+                    .arg(parser))
+                .arg(parser));
+        body.invoke(sequence, "nextToken");
+        body._return(ctxt.invoke("readValue")
+            .arg(sequence)
+            .arg(variantClass));
+        return method;
+    }
+
+    /**
+     * Finds the discriminator property shared by all given variants.
+     *
+     * @return discriminator property name, or null
+     */
+    private String findCommonDiscriminator(List<ObjectTypeDeclaration> objectVariants) {
+        String discriminator = objectVariants.get(0)
+            .discriminator();
+        for (ObjectTypeDeclaration variant : objectVariants) {
+            if (variant.discriminator() == null || !variant.discriminator()
+                .equals(discriminator)) {
+                return null;
+            }
         }
+        return discriminator;
     }
 
-    private JExpression buildRequiredPropertiesConjunction(ObjectTypeDeclaration objectType,
-        JVar node) {
-        JExpression conjunction = null;
-        for (TypeDeclaration prop : objectType.properties()) {
-            if (prop.required()) {
-                JInvocation hasProp = JExpr.invoke(node, "has")
-                    .arg(prop.name());
-                if (conjunction == null) {
-                    conjunction = hasProp;
+    /**
+     * Maps each required property name declared by exactly one of the given variants to this
+     * variant. Optional properties do not decide the variant, since their absence from the other
+     * variants may be accidental.
+     */
+    private Map<String, ObjectTypeDeclaration> findUniqueProperties(
+        List<ObjectTypeDeclaration> objectVariants) {
+        Map<String, ObjectTypeDeclaration> uniqueProperties = new LinkedHashMap<>();
+        Set<String> sharedProperties = new HashSet<>();
+        for (ObjectTypeDeclaration variant : objectVariants) {
+            for (TypeDeclaration property : variant.properties()) {
+                String propertyName = property.name();
+                if (isAdditionalProperties(property) || sharedProperties.contains(propertyName)) {
+                    continue;
+                }
+                ObjectTypeDeclaration other = uniqueProperties.put(propertyName, variant);
+                if (other != null && other != variant) {
+                    uniqueProperties.remove(propertyName);
+                    sharedProperties.add(propertyName);
                 }
-                else {
-                    conjunction = conjunction.cand(hasProp);
+            }
+        }
+        for (ObjectTypeDeclaration variant : objectVariants) {
+            for (TypeDeclaration property : variant.properties()) {
+                if (!property.required()) {
+                    uniqueProperties.remove(property.name(), variant);
+                }
+            }
+        }
+        return uniqueProperties;
+    }
+
+    /**
+     * Assigns a bit to each required property of the given variants.
+     *
+     * @throws GeneratorException
+     *             if there are more required properties than bits in a {@code long}
+     */
+    private Map<String, Long> buildPropertyBits(UnionTypeDeclaration type,
+        List<ObjectTypeDeclaration> objectVariants) {
+        Map<String, Long> propertyBits = new LinkedHashMap<>();
+        for (ObjectTypeDeclaration variant : objectVariants) {
+            for (TypeDeclaration property : variant.properties()) {
+                if (property.required() && !isAdditionalProperties(property)
+                    && !propertyBits.containsKey(property.name())) {
+                    if (propertyBits.size() == Long.SIZE) {
+                        throw new GeneratorException(String.format(
+                            "union type %s has more than %d required properties", type.name(),
+                            Long.SIZE));
+                    }
+                    propertyBits.put(property.name(), 1L << propertyBits.size());
                 }
             }
         }
-        return conjunction;
+        return propertyBits;
+    }
+
+    /**
+     * Assigns a bit to the discriminator value of each of the given variants, if they share a
+     * discriminator, following the bits of the required properties.
+     *
+     * @throws GeneratorException
+     *             if several variants have the same discriminator value, or if there are more
+     *             required properties and discriminator values than bits in a {@code long}
+     */
+    private Map<ObjectTypeDeclaration, Long> buildDiscriminatorBits(UnionTypeDeclaration type,
+        List<ObjectTypeDeclaration> objectVariants, Map<String, Long> propertyBits) {
+        Map<ObjectTypeDeclaration, Long> discriminatorBits = new LinkedHashMap<>();
+        if (findCommonDiscriminator(objectVariants) == null) {
+            return discriminatorBits;
+        }
+        Map<String, ObjectTypeDeclaration> values = new HashMap<>();
+        for (ObjectTypeDeclaration variant : objectVariants) {
+            String value = context.getApiModel()
+                .getDiscriminatorValue(variant);
+            ObjectTypeDeclaration other = values.put(value, variant);
+            if (other != null) {
+                throw new GeneratorException(String.format(
+                    "variants %s and %s of union type %s have the same discriminator value %s",
+                    other.name(), variant.name(), type.name(), value));
+            }
+            int index = propertyBits.size() + discriminatorBits.size();
+            if (index == Long.SIZE) {
+                throw new GeneratorException(String.format(
+                    "union type %s has more than %d required properties and discriminator values",
+                    type.name(), Long.SIZE));
+            }
+            discriminatorBits.put(variant, 1L << index);
+        }
+        return discriminatorBits;
+    }
+
+    private long buildRequiredMask(ObjectTypeDeclaration variant,
+        Map<String, Long> propertyBits) {
+        long mask = 0L;
+        for (TypeDeclaration property : variant.properties()) {
+            if (property.required()) {
+                mask |= propertyBits.getOrDefault(property.name(), 0L);
+            }
+        }
+        return mask;
+    }
+
+    private boolean isAdditionalProperties(TypeDeclaration property) {
+        return property.name()
+            .startsWith("/");
+    }
+
+    /**
+     * Gets the Java class of the given variant, which is a generated class for object and enum
+     * variants, or a boxed Java type for scalar variants.
+     *
+     * @throws GeneratorException
+     *             for other kinds of variants
+     */
+    private JClass getVariantClass(TypeDeclaration variant) {
+        JDefinedClass variantClass = pkg._getClass(variant.name());
+        if (variantClass != null) {
+            return variantClass;
+        }
+        if (variant instanceof StringTypeDeclaration || variant instanceof NumberTypeDeclaration
+            || variant instanceof BooleanTypeDeclaration) {
+            return context.getJavaType(variant)
+                .boxify();
+        }
+        throw new GeneratorException(
+            "unsupported variant " + getVariantName(variant) + " of union type");
+    }
+
+    /**
+     * Gets the name of the given variant. Variants with a built-in type are named after this type,
+     * since the name of an inline declaration is the entire union type expression.
+     */
+    private String getVariantName(TypeDeclaration variant) {
+        if (context.getApiModel()
+            .getDeclaredType(variant.name()) != null) {
+            return variant.name();
+        }
+        if (variant instanceof IntegerTypeDeclaration) {
+            return CommonConstants.INTEGER;
+        }
+        if (variant instanceof NumberTypeDeclaration) {
+            return CommonConstants.NUMBER;
+        }
+        if (variant instanceof BooleanTypeDeclaration) {
+            return CommonConstants.BOOLEAN;
+        }
+        if (variant instanceof StringTypeDeclaration) {
+            return CommonConstants.STRING;
+        }
+        return variant.name();
+    }
+
+    private boolean isEnumVariant(TypeDeclaration variant) {
+        return variant instanceof StringTypeDeclaration && pkg._getClass(variant.name()) != null;
+    }
+
+    private JExpression token(String name) {
+        return codeModel.ref(JsonToken.class)
+            .staticRef(name);
     }
 
     private void addJacksonAnnotations(JDefinedClass klass, UnionTypeDeclaration type) {
@@ -265,8 +708,8 @@ public class UnionGenerator {
     }
 
     private void addVariantChecker(JDefinedClass klass, TypeDeclaration variant) {
-        String methodName = JavaNameFactory.getCheckerName(variant.name());
-        JDefinedClass variantClass = pkg._getClass(variant.name());
+        String methodName = JavaNameFactory.getCheckerName(getVariantName(variant));
+        JClass variantClass = getVariantClass(variant);
         JMethod checker = klass.method(JMod.PUBLIC, codeModel.BOOLEAN, methodName);
         checker.body()
             ._return(klass.fields()
@@ -275,8 +718,8 @@ public class UnionGenerator {
     }
 
     private void addVariantGetter(JDefinedClass klass, TypeDeclaration variant) {
-        String methodName = JavaNameFactory.getGetterName(variant.name());
-        JDefinedClass variantClass = pkg._getClass(variant.name());
+        String methodName = JavaNameFactory.getGetterName(getVariantName(variant));
+        JClass variantClass = getVariantClass(variant);
         JMethod getter = klass.method(JMod.PUBLIC, variantClass, methodName);
         getter.body()
             ._return(JExpr.cast(variantClass, klass.fields()
@@ -284,9 +727,9 @@ public class UnionGenerator {
     }
 
     private void addVariantSetter(JDefinedClass klass, TypeDeclaration variant) {
-        String methodName = NameFactory.getSetterName(variant.name());
-        String paramName = nameFactory.buildVariableName(variant.name());
-        JDefinedClass variantClass = pkg._getClass(variant.name());
+        String methodName = NameFactory.getSetterName(getVariantName(variant));
+        String paramName = nameFactory.buildVariableName(getVariantName(variant));
+        JClass variantClass = getVariantClass(variant);
         JMethod setter = klass.method(JMod.PUBLIC, codeModel.VOID, methodName);
         JVar param = setter.param(variantClass, paramName);
         setter.body()
@@ -0,0 +1,512 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.PATTERN_SUFFIX;
+import static org.ops4j.ramler.java.JavaConstants.VALIDATE;
+import static org.ops4j.ramler.java.JavaConstants.VALIDATION_EXCEPTION;
+import static org.ops4j.ramler.java.JavaConstants.VALIDATION_EXCEPTION_MAPPER;
+import static org.ops4j.ramler.java.JavaConstants.VALIDATOR_SUFFIX;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.helper.NameFactory;
+import org.raml.v2.api.model.v10.datamodel.ArrayTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.NumberTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.StringTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+import org.raml.v2.api.model.v10.methods.Method;
+
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JForEach;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Generates validation methods checking the facets of RAML type declarations, i.e. required
+ * properties, string lengths and patterns, numeric ranges and array sizes.
+ * <p>
+ * Each model class gets a {@code validate()} method, and each resource interface gets a validator
+ * class with a static method per resource method with constrained query or path parameters. The
+ * checks are straight-line code without reflection. Regular expressions are compiled once into
+ * static constants. Validation fails fast with a {@code ValidationException} on the first
+ * violation.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class ValidationGenerator {
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private NameFactory nameFactory;
+
+    /**
+     * Creates a validation generator for the given generator context.
+     *
+     * @param context
+     *            generator context
+     */
+    public ValidationGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.nameFactory = new JavaNameFactory();
+    }
+
+    /**
+     * Gets the name of the validator method for the given resource method. Example:
+     * {@code findBooks -> validateFindBooks}
+     *
+     * @param methodName
+     *            resource method name
+     * @return validator method name
+     */
+    public static String getValidatorMethodName(String methodName) {
+        return NameFactory.getAccessorName(VALIDATE, methodName);
+    }
+
+    /**
+     * Generates the validation exception in the model package and an exception mapper in the API
+     * package, mapping the exception to a {@code 400 Bad Request} response.
+     */
+    public void generateValidationSupport() {
+        try {
+            generateValidationException();
+            generateExceptionMapper();
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+    }
+
+    private void generateValidationException() throws JClassAlreadyExistsException {
+        JDefinedClass exceptionClass = context.getModelPackage()
+            ._class(VALIDATION_EXCEPTION);
+        exceptionClass._extends(RuntimeException.class);
+        context.annotateAsGenerated(exceptionClass);
+        exceptionClass.javadoc()
+            .add("Thrown by validation methods on the first violated constraint. The exception "
+                + "has no stack trace, since it reports invalid input, not a programming error.");
+        exceptionClass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, codeModel.LONG,
+            "serialVersionUID", JExpr.lit(1L));
+
+        JMethod constructor = exceptionClass.constructor(JMod.PUBLIC);
+        JVar message = constructor.param(String.class, "message");
+        constructor.body()
+            .invoke("super")
+            .arg(message)
+            .arg(JExpr._null())
+            .arg(JExpr.FALSE)
+            .arg(JExpr.FALSE);
+    }
+
+    private void generateExceptionMapper() throws JClassAlreadyExistsException {
+        JClass exceptionClass = getValidationException();
+        JDefinedClass mapper = context.getApiPackage()
+            ._class(VALIDATION_EXCEPTION_MAPPER);
+        context.annotateAsGenerated(mapper);
+        mapper.annotate(Provider.class);
+        mapper._implements(codeModel.ref(ExceptionMapper.class)
+            .narrow(exceptionClass));
+        mapper.javadoc()
+            .add("Maps validation exceptions to responses with status 400 (Bad Request).");
+
+        JMethod toResponse = mapper.method(JMod.PUBLIC, Response.class, "toResponse");
+        toResponse.annotate(Override.class);
+        JVar exception = toResponse.param(exceptionClass, "exception");
+        toResponse.body()
+            ._return(codeModel.ref(Response.class)
+                .staticInvoke("status")
+                .arg(codeModel.ref(Response.Status.class)
+                    .staticRef("BAD_REQUEST"))
+                .invoke("type")
+                .arg(codeModel.ref(MediaType.class)
+                    .staticRef("TEXT_PLAIN"))
+                .invoke("entity")
+                .arg(exception.invoke("getMessage"))
+                .invoke("build"));
+    }
+
+    /**
+     * Generates the {@code validate()} method of the given model class. Inherited properties are
+     * validated by the base class method.
+     *
+     * @param klass
+     *            generated model class
+     * @param type
+     *            RAML object type
+     */
+    public void generateValidateMethod(JDefinedClass klass, ObjectTypeDeclaration type) {
+        JMethod validate = klass.method(JMod.PUBLIC, codeModel.VOID, VALIDATE);
+        validate.javadoc()
+            .add("Validates this object against the facets of its RAML type, including nested "
+                + "objects.");
+        validate.javadoc()
+            .addThrows(getValidationException())
+            .add("on the first violated constraint");
+
+        JBlock body = validate.body();
+        if (isValidated(klass._extends())) {
+            validate.annotate(Override.class);
+            body.invoke(JExpr._super(), VALIDATE);
+        }
+
+        for (TypeDeclaration property : type.properties()) {
+            if (property.name()
+                .startsWith("/")) {
+                continue;
+            }
+            JFieldVar field = klass.fields()
+                .get(nameFactory.buildVariableName(property));
+            if (field == null) {
+                continue;
+            }
+            String constantName = NameFactory.buildConstantName(field.name());
+            addChecks(klass, body, property, field, field.type(), constantName, true);
+        }
+    }
+
+    /**
+     * Generates a static method validating the query and path parameters and the body of the given
+     * resource method. The method is added to the validator class of the resource interface, which
+     * is created on demand. Nothing is generated if none of the parameters is constrained.
+     *
+     * @param resourceInterface
+     *            generated resource interface
+     * @param codeMethod
+     *            generated resource method
+     * @param method
+     *            RAML method
+     */
+    public void generateParameterValidation(JDefinedClass resourceInterface, JMethod codeMethod,
+        Method method) {
+        List<TypeDeclaration> pathParams = context.getApiModel()
+            .findAllUriParameters(method);
+        List<TypeDeclaration> params = new ArrayList<>(pathParams);
+        params.addAll(method.queryParameters());
+        TypeDeclaration body = method.body()
+            .isEmpty() ? null
+                : method.body()
+                    .get(0);
+
+        List<TypeDeclaration> constrained = new ArrayList<>();
+        for (TypeDeclaration param : params) {
+            JVar codeParam = findParam(codeMethod, nameFactory.buildVariableName(param.name()));
+            boolean checkRequired = !pathParams.contains(param) && param.defaultValue() == null;
+            if (codeParam != null && isConstrained(param, codeParam.type(), checkRequired)) {
+                constrained.add(param);
+            }
+        }
+        JVar bodyParam = null;
+        if (body != null) {
+            bodyParam = findParam(codeMethod, nameFactory.buildVariableName(body.type()));
+        }
+        if (bodyParam != null && !isValidated(bodyParam.type())) {
+            bodyParam = null;
+        }
+        if (constrained.isEmpty() && bodyParam == null) {
+            return;
+        }
+
+        JDefinedClass validator = findValidatorClass(resourceInterface);
+        JMethod validate = validator.method(JMod.PUBLIC | JMod.STATIC, codeModel.VOID,
+            getValidatorMethodName(codeMethod.name()));
+        validate.javadoc()
+            .add(String.format("Validates the parameters of {@link %s#%s}.",
+                resourceInterface.name(), codeMethod.name()));
+
+        JBlock block = validate.body();
+        if (bodyParam != null) {
+            JVar param = validate.param(bodyParam.type(), bodyParam.name());
+            validate.javadoc()
+                .addParam(param)
+                .add("request body");
+            block._if(param.ne(JExpr._null()))
+                ._then()
+                .invoke(param, VALIDATE);
+        }
+        for (TypeDeclaration decl : constrained) {
+            JVar codeParam = findParam(codeMethod, nameFactory.buildVariableName(decl.name()));
+            JVar param = validate.param(codeParam.type(), codeParam.name());
+            validate.javadoc()
+                .addParam(param)
+                .add(decl.name() + " parameter");
+            String constantName = NameFactory.buildConstantName(codeMethod.name()) + "_"
+                + NameFactory.buildConstantName(param.name());
+            boolean checkRequired = !pathParams.contains(decl) && decl.defaultValue() == null;
+            addChecks(validator, block, decl, param, param.type(), constantName, checkRequired);
+        }
+        validate.javadoc()
+            .addThrows(getValidationException())
+            .add("on the first violated constraint");
+    }
+
+    private JDefinedClass findValidatorClass(JDefinedClass resourceInterface) {
+        JPackage pkg = context.getApiPackage();
+        String name = resourceInterface.name() + VALIDATOR_SUFFIX;
+        JDefinedClass validator = pkg._getClass(name);
+        if (validator != null) {
+            return validator;
+        }
+        try {
+            validator = pkg._class(JMod.PUBLIC | JMod.FINAL, name);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        context.annotateAsGenerated(validator);
+        validator.javadoc()
+            .add(String.format("Validates the parameters of {@link %s} methods.",
+                resourceInterface.name()));
+        validator.constructor(JMod.PRIVATE);
+        return validator;
+    }
+
+    private JVar findParam(JMethod codeMethod, String name) {
+        return codeMethod.params()
+            .stream()
+            .filter(p -> p.name()
+                .equals(name))
+            .findFirst()
+            .orElse(null);
+    }
+
+    private boolean isConstrained(TypeDeclaration decl, JType type, boolean checkRequired) {
+        if (checkRequired && isRequired(decl) && !type.isPrimitive()) {
+            return true;
+        }
+        if (decl instanceof StringTypeDeclaration) {
+            StringTypeDeclaration string = (StringTypeDeclaration) decl;
+            return string.minLength() != null || string.maxLength() != null
+                || string.pattern() != null;
+        }
+        if (decl instanceof NumberTypeDeclaration) {
+            NumberTypeDeclaration number = (NumberTypeDeclaration) decl;
+            return number.minimum() != null || number.maximum() != null;
+        }
+        if (decl instanceof ArrayTypeDeclaration) {
+            ArrayTypeDeclaration array = (ArrayTypeDeclaration) decl;
+            return array.minItems() != null || array.maxItems() != null;
+        }
+        return false;
+    }
+
+    private void addChecks(JDefinedClass holder, JBlock body, TypeDeclaration decl,
+        JExpression value, JType type, String constantName, boolean checkRequired) {
+        String name = decl.name();
+        JExpression present = null;
+        if (!type.isPrimitive()) {
+            if (checkRequired && isRequired(decl)) {
+                fail(body, value.eq(JExpr._null()), name + " is required");
+            }
+            else {
+                present = value.ne(JExpr._null());
+            }
+        }
+        else if (!isRequired(decl) && value instanceof JFieldVar) {
+            present = findPresenceChecker(holder, (JFieldVar) value);
+        }
+
+        if (decl instanceof StringTypeDeclaration && type.fullName()
+            .equals(String.class.getName())) {
+            addStringChecks(holder, body, (StringTypeDeclaration) decl, value, present,
+                constantName);
+        }
+        else if (decl instanceof NumberTypeDeclaration && type.unboxify()
+            .isPrimitive()) {
+                addNumberChecks(body, (NumberTypeDeclaration) decl, value, type.unboxify(),
+                    present);
+            }
+        else if (decl instanceof ArrayTypeDeclaration) {
+            addArrayChecks(body, (ArrayTypeDeclaration) decl, value, type, present);
+        }
+        else if (isValidated(type)) {
+            whenPresent(body, present).invoke(value, VALIDATE);
+        }
+    }
+
+    private void addStringChecks(JDefinedClass holder, JBlock body, StringTypeDeclaration decl,
+        JExpression value, JExpression present, String constantName) {
+        String name = decl.name();
+        if (decl.minLength() != null) {
+            check(body, present, value.invoke("length")
+                .lt(JExpr.lit(decl.minLength())),
+                String.format("%s must have at least %d characters", name, decl.minLength()));
+        }
+        if (decl.maxLength() != null) {
+            check(body, present, value.invoke("length")
+                .gt(JExpr.lit(decl.maxLength())),
+                String.format("%s must have at most %d characters", name, decl.maxLength()));
+        }
+        if (decl.pattern() != null) {
+            JFieldVar pattern = holder.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL,
+                Pattern.class, constantName + PATTERN_SUFFIX, codeModel.ref(Pattern.class)
+                    .staticInvoke("compile")
+                    .arg(decl.pattern()));
+            check(body, present, pattern.invoke("matcher")
+                .arg(value)
+                .invoke("find")
+                .not(), String.format("%s must match %s", name, decl.pattern()));
+        }
+    }
+
+    private void addNumberChecks(JBlock body, NumberTypeDeclaration decl, JExpression value,
+        JType primitiveType, JExpression present) {
+        String name = decl.name();
+        if (decl.minimum() != null) {
+            check(body, present, value.lt(toLiteral(decl.minimum(), primitiveType)),
+                String.format("%s must be at least %s", name, format(decl.minimum())));
+        }
+        if (decl.maximum() != null) {
+            check(body, present, value.gt(toLiteral(decl.maximum(), primitiveType)),
+                String.format("%s must be at most %s", name, format(decl.maximum())));
+        }
+    }
+
+    private void addArrayChecks(JBlock body, ArrayTypeDeclaration decl, JExpression value,
+        JType type, JExpression present) {
+        String name = decl.name();
+        JExpression size = type.isArray() ? value.ref("length") : value.invoke("size");
+        if (decl.minItems() != null) {
+            check(body, present, size.lt(JExpr.lit(decl.minItems())),
+                String.format("%s must have at least %d items", name, decl.minItems()));
+        }
+        if (decl.maxItems() != null) {
+            check(body, present, size.gt(JExpr.lit(decl.maxItems())),
+                String.format("%s must have at most %d items", name, decl.maxItems()));
+        }
+        if (type instanceof JClass && ((JClass) type).getTypeParameters()
+            .size() == 1) {
+            JClass itemType = ((JClass) type).getTypeParameters()
+                .get(0);
+            if (isValidated(itemType)) {
+                JForEach forEach = whenPresent(body, present).forEach(itemType, "item", value);
+                forEach.body()
+                    ._if(forEach.var()
+                        .ne(JExpr._null()))
+                    ._then()
+                    .invoke(forEach.var(), VALIDATE);
+            }
+        }
+    }
+
+    private void check(JBlock body, JExpression present, JExpression violated, String message) {
+        fail(body, (present == null) ? violated : present.cand(violated), message);
+    }
+
+    private JBlock whenPresent(JBlock body, JExpression present) {
+        return (present == null) ? body
+            : body._if(present)
+                ._then();
+    }
+
+    private void fail(JBlock body, JExpression condition, String message) {
+        body._if(condition)
+            ._then()
+            ._throw(JExpr._new(getValidationException())
+                .arg(message));
+    }
+
+    private JExpression toLiteral(Double bound, JType primitiveType) {
+        boolean integral = bound == Math.rint(bound);
+        if (integral && primitiveType == codeModel.INT && bound >= Integer.MIN_VALUE
+            && bound <= Integer.MAX_VALUE) {
+            return JExpr.lit(bound.intValue());
+        }
+        if (integral && primitiveType == codeModel.LONG) {
+            return JExpr.lit(bound.longValue());
+        }
+        return JExpr.lit(bound.doubleValue());
+    }
+
+    private String format(Double bound) {
+        if (bound == Math.rint(bound)) {
+            return Long.toString(bound.longValue());
+        }
+        return bound.toString();
+    }
+
+    /**
+     * Finds the presence checker for an optional primitive field of a POJO with presence tracking.
+     *
+     * @param klass
+     *            POJO class
+     * @param field
+     *            primitive field
+     * @return invocation of presence checker, or null
+     */
+    private JExpression findPresenceChecker(JDefinedClass klass, JFieldVar field) {
+        String checkerName = NameFactory.getAccessorName("has", field.name());
+        if (klass.getMethod(checkerName, new JType[0]) == null) {
+            return null;
+        }
+        return JExpr.invoke(checkerName);
+    }
+
+    private boolean isRequired(TypeDeclaration decl) {
+        return Boolean.TRUE.equals(decl.required());
+    }
+
+    /**
+     * Checks if the given type is a generated model class with a {@code validate()} method.
+     *
+     * @param type
+     *            Java type
+     * @return true if type is validated
+     */
+    private boolean isValidated(JType type) {
+        if (!(type instanceof JClass)) {
+            return false;
+        }
+        JClass erasure = ((JClass) type).erasure();
+        if (!(erasure instanceof JDefinedClass) || erasure._package() != context
+            .getModelPackage()) {
+            return false;
+        }
+        TypeDeclaration decl = context.getApiModel()
+            .getDeclaredType(erasure.name());
+        return decl instanceof ObjectTypeDeclaration && !context.getApiModel()
+            .isInternal((ObjectTypeDeclaration) decl);
+    }
+
+    private JClass getValidationException() {
+        return context.getModelPackage()
+            ._getClass(VALIDATION_EXCEPTION);
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.ops4j.ramler.java.JavaConstants.BUILDER;
+import static org.ops4j.ramler.java.JavaConstants.VALUE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.ops4j.ramler.common.exc.Exceptions;
+import org.ops4j.ramler.common.helper.NameFactory;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JConditional;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
+
+/**
+ * Completes a POJO class with final fields as an immutable value class, adding a
+ * {@code @JsonCreator} constructor, a nested builder class, {@code equals()}, {@code hashCode()}
+ * and {@code toString()}.
+ * <p>
+ * The constructor takes the values of all fields, including inherited ones, and wraps lists and
+ * maps in unmodifiable copies. Primitive arrays are copied by the constructor and by the getters.
+ * The hash code is computed on demand and cached in a field.
+ * <p>
+ * Builder setters keep an unmodifiable view of the given list or map, which is copied once by the
+ * constructor on {@code build()}. The builder only copies it before adding items of its own. The
+ * list of a builder can be presized with the expected number of items.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class ValueClassGenerator {
+
+    private static final String HASH_CODE_FIELD = "cachedHashCode";
+
+    private JavaGeneratorContext context;
+
+    private JCodeModel codeModel;
+
+    private NameFactory nameFactory;
+
+    /**
+     * Creates a value class generator with the given context.
+     *
+     * @param context
+     *            generator context
+     */
+    public ValueClassGenerator(JavaGeneratorContext context) {
+        this.context = context;
+        this.codeModel = context.getCodeModel();
+        this.nameFactory = new JavaNameFactory();
+    }
+
+    /**
+     * Adds constructor, builder and value-based methods to the given class, after all fields have
+     * been generated.
+     *
+     * @param klass
+     *            generated Java class
+     * @param type
+     *            RAML object type
+     */
+    public void generateValueClassMembers(JDefinedClass klass, ObjectTypeDeclaration type) {
+        List<JFieldVar> inheritedFields = findInstanceFields(klass._extends());
+        List<JFieldVar> ownFields = findInstanceFields(klass);
+        ownFields.removeAll(inheritedFields);
+        List<JFieldVar> allFields = new ArrayList<>(inheritedFields);
+        allFields.addAll(ownFields);
+        boolean hasBaseClass = klass._extends() instanceof JDefinedClass;
+
+        generateConstructor(klass, type, inheritedFields, ownFields);
+        generateBuilder(klass, allFields);
+        generateEquals(klass, ownFields, hasBaseClass);
+        generateHashCode(klass, ownFields, hasBaseClass);
+        generateToString(klass, allFields);
+    }
+
+    /**
+     * Finds all instance fields of the given class and its generated base classes, base class
+     * fields first.
+     */
+    private List<JFieldVar> findInstanceFields(JClass klass) {
+        List<JFieldVar> fields = new ArrayList<>();
+        if (klass instanceof JDefinedClass) {
+            JDefinedClass definedClass = (JDefinedClass) klass;
+            fields.addAll(findInstanceFields(definedClass._extends()));
+            for (JFieldVar field : definedClass.fields()
+                .values()) {
+                if ((field.mods()
+                    .getValue() & JMod.STATIC) == 0
+                    && !field.name()
+                        .equals(HASH_CODE_FIELD)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private void generateConstructor(JDefinedClass klass, ObjectTypeDeclaration type,
+        List<JFieldVar> inheritedFields, List<JFieldVar> ownFields) {
+        Map<String, String> propertyNames = buildPropertyNames(type);
+
+        JMethod constructor = klass.constructor(JMod.PUBLIC);
+        constructor.annotate(JsonCreator.class);
+        JBlock body = constructor.body();
+        if (!inheritedFields.isEmpty()) {
+            JInvocation sup = body.invoke("super");
+            for (JFieldVar field : inheritedFields) {
+                sup.arg(addCreatorParam(constructor, field, propertyNames));
+            }
+        }
+        for (JFieldVar field : ownFields) {
+            JVar param = addCreatorParam(constructor, field, propertyNames);
+            body.assign(JExpr._this()
+                .ref(field), unmodifiableCopy(field.type(), param));
+        }
+    }
+
+    private JVar addCreatorParam(JMethod constructor, JFieldVar field,
+        Map<String, String> propertyNames) {
+        JVar param = constructor.param(field.type(), field.name());
+        param.annotate(JsonProperty.class)
+            .param(VALUE, propertyNames.getOrDefault(field.name(), field.name()));
+        return param;
+    }
+
+    /**
+     * Maps field names to JSON property names, following the naming rules for the getters and
+     * setters of mutable POJOs.
+     */
+    private Map<String, String> buildPropertyNames(ObjectTypeDeclaration type) {
+        Map<String, String> propertyNames = new HashMap<>();
+        boolean jacksonPropertyName = context.getConfig()
+            .isJacksonPropertyName();
+        for (TypeDeclaration property : type.properties()) {
+            String fieldName = nameFactory.buildVariableName(property);
+            propertyNames.put(fieldName, jacksonPropertyName ? property.name() : fieldName);
+        }
+        return propertyNames;
+    }
+
+    private JExpression unmodifiableCopy(JType type, JExpression value) {
+        JClass collections = codeModel.ref(Collections.class);
+        if (isList(type)) {
+            return JOp.cond(value.eq(JExpr._null()), JExpr._null(),
+                collections.staticInvoke("unmodifiableList")
+                    .arg(newList(type).arg(value)));
+        }
+        if (isMap(type)) {
+            return JOp.cond(value.eq(JExpr._null()), JExpr._null(),
+                collections.staticInvoke("unmodifiableMap")
+                    .arg(newMap(type).arg(value)));
+        }
+        if (type.isArray()) {
+            return JOp.cond(value.eq(JExpr._null()), JExpr._null(), value.invoke("clone"));
+        }
+        return value;
+    }
+
+    private void generateBuilder(JDefinedClass klass, List<JFieldVar> allFields) {
+        JDefinedClass builder;
+        try {
+            builder = klass._class(JMod.PUBLIC | JMod.STATIC | JMod.FINAL, BUILDER);
+        }
+        catch (JClassAlreadyExistsException exc) {
+            throw Exceptions.unchecked(exc);
+        }
+        builder.javadoc()
+            .add("Builder for {@link " + klass.name() + "} instances.");
+
+        JMethod build = builder.method(JMod.PUBLIC, klass, "build");
+        JInvocation newInstance = JExpr._new(klass);
+        build.body()
+            ._return(newInstance);
+
+        for (JFieldVar field : allFields) {
+            JFieldVar builderField = builder.field(JMod.PRIVATE, field.type(), field.name());
+            newInstance.arg(builderField);
+
+            JMethod setter = builder.method(JMod.PUBLIC, builder, field.name());
+            JVar param = setter.param(field.type(), field.name());
+            JExpression value = param;
+            JClass collections = codeModel.ref(Collections.class);
+            if (isList(field.type())) {
+                value = JOp.cond(param.eq(JExpr._null()), JExpr._null(),
+                    collections.staticInvoke("unmodifiableList")
+                        .arg(param));
+                generateAdder(builder, builderField);
+                generatePresizer(builder, builderField);
+            }
+            else if (isMap(field.type())) {
+                value = JOp.cond(param.eq(JExpr._null()), JExpr._null(),
+                    collections.staticInvoke("unmodifiableMap")
+                        .arg(param));
+                generatePutter(builder, builderField);
+            }
+            setter.body()
+                .assign(JExpr._this()
+                    .ref(builderField), value);
+            setter.body()
+                ._return(JExpr._this());
+        }
+    }
+
+    private void generateAdder(JDefinedClass builder, JFieldVar builderField) {
+        JMethod adder = builder.method(JMod.PUBLIC, builder,
+            NameFactory.getAccessorName("addTo", builderField.name()));
+        JVar item = adder.param(itemType(builderField.type()), "item");
+        JBlock body = adder.body();
+        JConditional ifNull = body._if(JExpr._this()
+            .ref(builderField)
+            .eq(JExpr._null()));
+        ifNull._then()
+            .assign(JExpr._this()
+                .ref(builderField), newList(builderField.type()));
+        ifNull._elseif(JExpr._this()
+            .ref(builderField)
+            ._instanceof(codeModel.ref(ArrayList.class))
+            .not())
+            ._then()
+            .assign(JExpr._this()
+                .ref(builderField),
+                newList(builderField.type()).arg(JExpr._this()
+                    .ref(builderField)));
+        body.invoke(JExpr._this()
+            .ref(builderField), "add")
+            .arg(item);
+        body._return(JExpr._this());
+    }
+
+    private void generatePresizer(JDefinedClass builder, JFieldVar builderField) {
+        JMethod presizer = builder.method(JMod.PUBLIC, builder,
+            NameFactory.getAccessorName("presize", builderField.name()));
+        presizer.javadoc()
+            .add(String.format("Reserves space for the given number of items in {@code %s}.",
+                builderField.name()));
+        JVar expectedSize = presizer.param(codeModel.INT, "expectedSize");
+        JBlock body = presizer.body();
+        JVar list = body.decl(builderField.type(), "list", newList(builderField.type())
+            .arg(expectedSize));
+        body._if(JExpr._this()
+            .ref(builderField)
+            .ne(JExpr._null()))
+            ._then()
+            .invoke(list, "addAll")
+            .arg(JExpr._this()
+                .ref(builderField));
+        body.assign(JExpr._this()
+            .ref(builderField), list);
+        body._return(JExpr._this());
+    }
+
+    private void generatePutter(JDefinedClass builder, JFieldVar builderField) {
+        JMethod putter = builder.method(JMod.PUBLIC, builder,
+            NameFactory.getAccessorName("putTo", builderField.name()));
+        List<JClass> typeArgs = ((JClass) builderField.type()).getTypeParameters();
+        JVar key = putter.param(typeArgs.get(0), "key");
+        JVar value = putter.param(typeArgs.get(1), VALUE);
+        JBlock body = putter.body();
+        JConditional ifNull = body._if(JExpr._this()
+            .ref(builderField)
+            .eq(JExpr._null()));
+        ifNull._then()
+            .assign(JExpr._this()
+                .ref(builderField), newMap(builderField.type()));
+        ifNull._elseif(JExpr._this()
+            .ref(builderField)
+            ._instanceof(codeModel.ref(LinkedHashMap.class))
+            .not())
+            ._then()
+            .assign(JExpr._this()
+                .ref(builderField),
+                newMap(builderField.type()).arg(JExpr._this()
+                    .ref(builderField)));
+        body.invoke(JExpr._this()
+            .ref(builderField), "put")
+            .arg(key)
+            .arg(value);
+        body._return(JExpr._this());
+    }
+
+    private void generateEquals(JDefinedClass klass, List<JFieldVar> ownFields,
+        boolean hasBaseClass) {
+        JMethod equals = klass.method(JMod.PUBLIC, codeModel.BOOLEAN, "equals");
+        equals.annotate(Override.class);
+        JVar obj = equals.param(Object.class, "obj");
+
+        JBlock body = equals.body();
+        body._if(JExpr._this()
+            .eq(obj))
+            ._then()
+            ._return(JExpr.TRUE);
+        body._if(obj.eq(JExpr._null())
+            .cor(JExpr.invoke("getClass")
+                .ne(obj.invoke("getClass"))))
+            ._then()
+            ._return(JExpr.FALSE);
+        if (hasBaseClass) {
+            body._if(JExpr._super()
+                .invoke("equals")
+                .arg(obj)
+                .not())
+                ._then()
+                ._return(JExpr.FALSE);
+        }
+        if (ownFields.isEmpty()) {
+            body._return(JExpr.TRUE);
+            return;
+        }
+        JVar other = body.decl(klass, "other", JExpr.cast(klass, obj));
+        JExpression result = null;
+        for (JFieldVar field : ownFields) {
+            JExpression fieldEquals = buildFieldEquals(field, JExpr._this()
+                .ref(field), other.ref(field));
+            result = (result == null) ? fieldEquals : result.cand(fieldEquals);
+        }
+        body._return(result);
+    }
+
+    private JExpression buildFieldEquals(JFieldVar field, JExpression left, JExpression right) {
+        JType type = field.type();
+        if (type == codeModel.FLOAT || type == codeModel.DOUBLE) {
+            return type.boxify()
+                .staticInvoke("compare")
+                .arg(left)
+                .arg(right)
+                .eq(JExpr.lit(0));
+        }
+        if (type.isPrimitive()) {
+            return left.eq(right);
+        }
+        if (type.isArray()) {
+            return codeModel.ref(Arrays.class)
+                .staticInvoke("equals")
+                .arg(left)
+                .arg(right);
+        }
+        return codeModel.ref(Objects.class)
+            .staticInvoke("equals")
+            .arg(left)
+            .arg(right);
+    }
+
+    private void generateHashCode(JDefinedClass klass, List<JFieldVar> ownFields,
+        boolean hasBaseClass) {
+        JFieldVar cachedHashCode = klass.field(JMod.PRIVATE | JMod.TRANSIENT, codeModel.INT,
+            HASH_CODE_FIELD);
+
+        JMethod hashCode = klass.method(JMod.PUBLIC, codeModel.INT, "hashCode");
+        hashCode.annotate(Override.class);
+        JBlock body = hashCode.body();
+        JVar h = body.decl(codeModel.INT, "h", JExpr._this()
+            .ref(cachedHashCode));
+        JBlock then = body._if(h.eq(JExpr.lit(0)))
+            ._then();
+        then.assign(h, hasBaseClass ? JExpr._super()
+            .invoke("hashCode") : JExpr.lit(1));
+        for (JFieldVar field : ownFields) {
+            then.assign(h, JExpr.lit(31)
+                .mul(h)
+                .plus(buildFieldHashCode(field, JExpr._this()
+                    .ref(field))));
+        }
+        then.assign(JExpr._this()
+            .ref(cachedHashCode), h);
+        body._return(h);
+    }
+
+    private JExpression buildFieldHashCode(JFieldVar field, JExpression value) {
+        JType type = field.type();
+        if (type.isPrimitive()) {
+            return type.boxify()
+                .staticInvoke("hashCode")
+                .arg(value);
+        }
+        if (type.isArray()) {
+            return codeModel.ref(Arrays.class)
+                .staticInvoke("hashCode")
+                .arg(value);
+        }
+        return codeModel.ref(Objects.class)
+            .staticInvoke("hashCode")
+            .arg(value);
+    }
+
+    private void generateToString(JDefinedClass klass, List<JFieldVar> allFields) {
+        JMethod toString = klass.method(JMod.PUBLIC, String.class, "toString");
+        toString.annotate(Override.class);
+        JBlock body = toString.body();
+        JVar sb = body.decl(codeModel.ref(StringBuilder.class), "sb",
+            JExpr._new(codeModel.ref(StringBuilder.class))
+                .arg(klass.name() + "["));
+        String separator = "";
+        for (JFieldVar field : allFields) {
+            body.invoke(sb, "append")
+                .arg(separator + field.name() + "=");
+            JExpression value = JExpr.invoke(getGetterName(field));
+            if (field.type()
+                .isArray()) {
+                value = codeModel.ref(Arrays.class)
+                    .staticInvoke("toString")
+                    .arg(value);
+            }
+            body.invoke(sb, "append")
+                .arg(value);
+            separator = ", ";
+        }
+        body._return(sb.invoke("append")
+            .arg("]")
+            .invoke("toString"));
+    }
+
+    private String getGetterName(JFieldVar field) {
+        if (field.type()
+            .unboxify() == codeModel.BOOLEAN) {
+            return NameFactory.getCheckerName(field.name());
+        }
+        return NameFactory.getGetterName(field.name());
+    }
+
+    private boolean isList(JType type) {
+        return type instanceof JClass && ((JClass) type).erasure()
+            .fullName()
+            .equals(List.class.getName());
+    }
+
+    private boolean isMap(JType type) {
+        return type instanceof JClass && ((JClass) type).erasure()
+            .fullName()
+            .equals(Map.class.getName());
+    }
+
+    private JType itemType(JType listType) {
+        return ((JClass) listType).getTypeParameters()
+            .get(0);
+    }
+
+    private JInvocation newList(JType listType) {
+        return JExpr._new(codeModel.ref(ArrayList.class)
+            .narrow(itemType(listType)));
+    }
+
+    private JInvocation newMap(JType mapType) {
+        return JExpr._new(codeModel.ref(LinkedHashMap.class)
+            .narrow(((JClass) mapType).getTypeParameters()));
+    }
+}
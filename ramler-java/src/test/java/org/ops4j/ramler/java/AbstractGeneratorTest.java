@@ -22,10 +22,26 @@ import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.TestInstance;
@@ -53,14 +69,22 @@ public abstract class AbstractGeneratorTest {
     protected Set<String> fieldNames;
     private JCodeModel codeModel;
     private JPackage apiPackage;
+    private JPackage clientPackage;
+    private JPackage delegatorPackage;
+    private JPackage flyweightPackage;
+    private JPackage batchPackage;
+    private ClassLoader generatedClassLoader;
 
     @BeforeAll
-    public void generateJavaModel() {
+    public void generateJavaModel() throws IOException {
+        deleteGeneratedSources();
+
         JavaConfiguration config = new JavaConfiguration();
         config.setSourceFile(String.format("raml/%s.raml", getBasename()));
         config.setBasePackage(String.format("org.ops4j.raml.%s", getBasename()));
         config.setTargetDir(new File("target/generated/raml"));
         config.setJacksonUnion(true);
+        configure(config);
 
         generator = new JavaGenerator(config);
         generator.generate();
@@ -69,10 +93,94 @@ public abstract class AbstractGeneratorTest {
             .getCodeModel();
         modelPackage = codeModel._package(String.format("org.ops4j.raml.%s.model", getBasename()));
         apiPackage = codeModel._package(String.format("org.ops4j.raml.%s.api", getBasename()));
+        clientPackage = codeModel
+            ._package(String.format("org.ops4j.raml.%s.client", getBasename()));
+        delegatorPackage = codeModel
+            ._package(String.format("org.ops4j.raml.%s.delegator", getBasename()));
+        flyweightPackage = codeModel
+            ._package(String.format("org.ops4j.raml.%s.flyweight", getBasename()));
+        batchPackage = codeModel
+            ._package(String.format("org.ops4j.raml.%s.batch", getBasename()));
     }
 
     public abstract String getBasename();
 
+    private void deleteGeneratedSources() throws IOException {
+        deleteRecursively(Paths.get("target/generated/raml/org/ops4j/raml", getBasename()));
+        deleteRecursively(Paths.get("target/generated/raml-classes", getBasename()));
+    }
+
+    private void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder())
+                .collect(toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    protected void configure(JavaConfiguration config) {
+        // empty
+    }
+
+    /**
+     * Compiles the Java sources generated for the current basename and fails on any compiler error.
+     */
+    protected void assertGeneratedSourcesCompile() throws IOException {
+        Path sourceDir = Paths.get("target/generated/raml/org/ops4j/raml", getBasename());
+        Path classesDir = Paths.get("target/generated/raml-classes", getBasename());
+        Files.createDirectories(classesDir);
+
+        List<File> sourceFiles;
+        try (Stream<Path> paths = Files.walk(sourceDir)) {
+            sourceFiles = paths.filter(p -> p.toString()
+                .endsWith(".java"))
+                .map(Path::toFile)
+                .collect(toList());
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics,
+            null, null)) {
+            List<String> options = Arrays.asList("-d", classesDir.toString(), "-classpath",
+                System.getProperty("java.class.path"), "-proc:none", "-nowarn");
+            boolean success = compiler
+                .getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sourceFiles))
+                .call();
+            assertThat(diagnostics.getDiagnostics()).filteredOn(d -> d.getKind()
+                .equals(Diagnostic.Kind.ERROR))
+                .isEmpty();
+            assertThat(success).isTrue();
+        }
+    }
+
+    /**
+     * Loads a class compiled from the generated sources for the current basename, compiling the
+     * sources on first use.
+     *
+     * @param className
+     *            class name relative to the base package, e.g. {@code model.Cat}
+     * @return generated class
+     */
+    protected Class<?> loadGeneratedClass(String className)
+        throws IOException, ClassNotFoundException {
+        if (generatedClassLoader == null) {
+            assertGeneratedSourcesCompile();
+            URL classesUrl = Paths.get("target/generated/raml-classes", getBasename())
+                .toUri()
+                .toURL();
+            generatedClassLoader = new URLClassLoader(new URL[] { classesUrl },
+                getClass().getClassLoader());
+        }
+        return Class.forName(String.format("org.ops4j.raml.%s.%s", getBasename(), className),
+            true, generatedClassLoader);
+    }
+
     protected void assertClasses(String... classNames) {
         assertThat(modelPackage.classes()).toIterable()
             .extracting(JDefinedClass::name)
@@ -91,6 +199,50 @@ public abstract class AbstractGeneratorTest {
             .containsExactlyInAnyOrder(methodNames);
     }
 
+    protected JDefinedClass findApiClass(String className) {
+        return apiPackage._getClass(className);
+    }
+
+    protected void assertClientClasses(String... classNames) {
+        assertThat(clientPackage.classes()).toIterable()
+            .extracting(JDefinedClass::name)
+            .containsExactlyInAnyOrder(classNames);
+    }
+
+    protected JDefinedClass findClientClass(String className) {
+        return clientPackage._getClass(className);
+    }
+
+    protected void assertDelegatorClasses(String... classNames) {
+        assertThat(delegatorPackage.classes()).toIterable()
+            .extracting(JDefinedClass::name)
+            .containsExactlyInAnyOrder(classNames);
+    }
+
+    protected JDefinedClass findDelegatorClass(String className) {
+        return delegatorPackage._getClass(className);
+    }
+
+    protected void assertFlyweightClasses(String... classNames) {
+        assertThat(flyweightPackage.classes()).toIterable()
+            .extracting(JDefinedClass::name)
+            .containsExactlyInAnyOrder(classNames);
+    }
+
+    protected JDefinedClass findFlyweightClass(String className) {
+        return flyweightPackage._getClass(className);
+    }
+
+    protected void assertBatchClasses(String... classNames) {
+        assertThat(batchPackage.classes()).toIterable()
+            .extracting(JDefinedClass::name)
+            .containsExactlyInAnyOrder(classNames);
+    }
+
+    protected JDefinedClass findBatchClass(String className) {
+        return batchPackage._getClass(className);
+    }
+
     protected JMethod findApiMethod(String className, String methodName) {
         JDefinedClass klass = apiPackage._getClass(className);
         return klass.methods()
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+
+public class ApplicationTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "application";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setApplication(true);
+        config.setApplicationName("LibraryApplication");
+        config.setValidation(true);
+        config.setEnumParamConverters(true);
+    }
+
+    @Test
+    public void shouldFindApiClasses() {
+        assertApiClasses("BooksResource", "PublishersResource", "EnumParamConverterProvider",
+            "ValidationExceptionMapper", "LibraryApplication");
+    }
+
+    @Test
+    public void shouldGenerateAbstractApplication() {
+        JDefinedClass app = findApiClass("LibraryApplication");
+        assertThat(app._extends()
+            .name()).isEqualTo("Application");
+        assertThat(app.mods()
+            .getValue() & JMod.ABSTRACT).isNotZero();
+        assertThat(app.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("getBooksResourceClass", "getPublishersResourceClass",
+                "getClasses");
+        assertReturnType(findApiMethod("LibraryApplication", "getBooksResourceClass"),
+            "Class<? extends BooksResource>");
+    }
+
+    @Test
+    public void shouldGenerateClassIndex() {
+        JDefinedClass app = findApiClass("LibraryApplication");
+        assertThat(app.fields()).containsOnlyKeys("RESOURCE_INTERFACES", "PROVIDERS",
+            "MODEL_CLASSES");
+        assertThat(generateInit(app.fields()
+            .get("RESOURCE_INTERFACES"))).contains("BooksResource.class",
+                "PublishersResource.class");
+        assertThat(generateInit(app.fields()
+            .get("PROVIDERS"))).contains("EnumParamConverterProvider.class",
+                "ValidationExceptionMapper.class")
+                .doesNotContain("Resource.class");
+        assertThat(generateInit(app.fields()
+            .get("MODEL_CLASSES"))).contains("Book.class", "Colour.class", "Publisher.class",
+                "ValidationException.class");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private String generateInit(JFieldVar field) {
+        StringWriter writer = new StringWriter();
+        field.bind(new JFormatter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMethod;
+
+public class AsyncResourceTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "async";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setAsyncResources(JavaConstants.ASYNC_COMPLETION_STAGE);
+    }
+
+    @Test
+    public void shouldReturnCompletionStage() {
+        JMethod method = findApiMethod("BooksResource", "findBooks");
+        assertReturnType(method, "CompletionStage<List<Book>>");
+        assertSignature(method);
+
+        method = findApiMethod("BooksResource", "findBook");
+        assertReturnType(method, "CompletionStage<Book>");
+        assertSignature(method, "String");
+    }
+
+    @Test
+    public void shouldReturnCompletionStageOfVoid() {
+        JMethod method = findApiMethod("BooksResource", "deleteBook");
+        assertReturnType(method, "CompletionStage<Void>");
+    }
+
+    @Test
+    public void shouldSuspendAsyncResponse() {
+        JMethod method = findApiMethod("BooksResource", "createBook");
+        assertReturnType(method, "void");
+        assertSignature(method, "Book", "AsyncResponse");
+        assertThat(method.listParams()[1].annotations()).extracting(a -> a.getAnnotationClass()
+            .name())
+            .containsExactly("Suspended");
+    }
+
+    @Test
+    public void shouldOverrideAsyncModeByAnnotation() {
+        JMethod method = findApiMethod("BooksResource", "updateBook");
+        assertReturnType(method, "void");
+        assertSignature(method, "Book", "String");
+    }
+
+    @Test
+    public void shouldGenerateTimeoutConstants() {
+        JDefinedClass klass = findApiClass("BooksResource");
+        assertThat(klass.fields()).containsOnlyKeys("CREATE_BOOK_TIMEOUT", "FIND_BOOK_TIMEOUT");
+        assertThat(klass.fields()
+            .get("CREATE_BOOK_TIMEOUT")
+            .type()
+            .name()).isEqualTo("long");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldExposeTimeoutsAtRuntime() throws Exception {
+        Class<?> resourceClass = loadGeneratedClass("api.BooksResource");
+        assertThat(resourceClass.getField("CREATE_BOOK_TIMEOUT")
+            .getLong(null)).isEqualTo(5000L);
+        assertThat(resourceClass.getField("FIND_BOOK_TIMEOUT")
+            .getLong(null)).isEqualTo(2000L);
+    }
+
+    @Test
+    public void shouldSuspendAsyncResponseAtRuntime() throws Exception {
+        Class<?> resourceClass = loadGeneratedClass("api.BooksResource");
+        Class<?> bookClass = loadGeneratedClass("model.Book");
+        Method method = resourceClass.getMethod("createBook", bookClass, AsyncResponse.class);
+        assertThat(method.getParameterAnnotations()[1]).hasSize(1)
+            .allMatch(Suspended.class::isInstance);
+    }
+
+    @Test
+    public void shouldCompleteStageFromImplementation() throws Exception {
+        Class<?> resourceClass = loadGeneratedClass("api.BooksResource");
+        Class<?> bookClass = loadGeneratedClass("model.Book");
+        Object book = bookClass.getConstructor()
+            .newInstance();
+        bookClass.getMethod("setIsbn", String.class)
+            .invoke(book, "978-3-16-148410-0");
+        Object resource = Proxy.newProxyInstance(resourceClass.getClassLoader(),
+            new Class<?>[] { resourceClass },
+            (proxy, method, args) -> CompletableFuture.completedFuture(book));
+
+        CompletionStage<?> stage = (CompletionStage<?>) resourceClass
+            .getMethod("findBook", String.class)
+            .invoke(resource, "978-3-16-148410-0");
+        assertThat(stage.toCompletableFuture()
+            .get()).isSameAs(book);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class BatchTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "batch";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setColumnarBatches(true);
+    }
+
+    @Test
+    public void shouldSkipTypesWithoutScalarProperties() {
+        assertBatchClasses("ReadingBatch", "ReadingBatchSerializer", "ReadingBatchDeserializer",
+            "SampleBatch", "SampleBatchSerializer", "SampleBatchDeserializer");
+    }
+
+    @Test
+    public void shouldSkipTypesWithDerivedTypes() {
+        assertThat(findBatchClass("MeasurementBatch")).isNull();
+    }
+
+    @Test
+    public void shouldGenerateColumns() {
+        JDefinedClass batch = findBatchClass("ReadingBatch");
+        assertThat(batch.fields()).containsOnlyKeys("DEFAULT_CAPACITY", "size", "capacity",
+            "sensorIdColumn", "temperatureColumn", "humidityColumn", "humidityPresent",
+            "validColumn", "colourColumn", "COLOUR_VALUES", "unitColumn", "unitDictionary",
+            "unitIndex");
+        assertFieldType(batch.fields()
+            .get("sensorIdColumn"), "long[]");
+        assertFieldType(batch.fields()
+            .get("humidityColumn"), "float[]");
+        assertFieldType(batch.fields()
+            .get("validColumn"), "boolean[]");
+        assertFieldType(batch.fields()
+            .get("colourColumn"), "int[]");
+        assertFieldType(batch.fields()
+            .get("unitColumn"), "int[]");
+    }
+
+    @Test
+    public void shouldGenerateAccessors() {
+        JDefinedClass batch = findBatchClass("ReadingBatch");
+        assertThat(batch.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("size", "clear", "addRow", "add", "encode", "getSensorId",
+                "setSensorId", "getSensorIdColumn", "getTemperature", "setTemperature",
+                "getTemperatureColumn", "getHumidity", "hasHumidity", "setHumidity",
+                "getHumidityColumn", "isValid", "setValid", "getValidColumn", "getColour",
+                "setColour", "getColourColumn", "getUnit", "setUnit", "getUnitColumn",
+                "getUnitDictionary");
+        assertReturnType(findMethod(batch, "getHumidity"), "float");
+        assertSignature(findMethod(batch, "setColour"), "int", "Colour");
+        assertThat(generateBody(findMethod(batch, "setUnit")))
+            .contains("encode(value, unitDictionary, unitIndex)");
+        assertThat(generateBody(findMethod(batch, "add")))
+            .contains("if (value.getHumidity()!= null)", "setUnit(row, value.getUnit())");
+    }
+
+    @Test
+    public void shouldIncludeInheritedProperties() {
+        JDefinedClass batch = findBatchClass("SampleBatch");
+        assertThat(batch.fields()).containsKeys("sensorIdColumn", "weightColumn",
+            "weightPresent");
+    }
+
+    @Test
+    public void shouldGenerateStreamingSerializers() {
+        JDefinedClass batch = findBatchClass("ReadingBatch");
+        assertThat(batch.annotations()).extracting(a -> a.getAnnotationClass()
+            .name())
+            .containsExactly("Generated", "JsonSerialize", "JsonDeserialize");
+
+        String serialize = generateBody(findMethod(findBatchClass("ReadingBatchSerializer"),
+            "serialize"));
+        assertThat(serialize).contains("model.Reading.DISCRIMINATOR)",
+            "gen.writeNumber(value.getSensorId(row))", "if (value.hasHumidity(row))");
+
+        String deserialize = generateBody(findMethod(findBatchClass("ReadingBatchDeserializer"),
+            "deserialize"));
+        assertThat(deserialize).contains("result.addRow()", "case \"kind\":",
+            "result.setColour(row, ", "model.Colour.fromString(parser.getText()))",
+            "if (!org.ops4j.raml.batch.model.Reading.DISCRIMINATOR.equals(discriminator))",
+            "context.reportInputMismatch(this");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private void assertFieldType(JFieldVar field, String typeName) {
+        assertThat(field.type()
+            .name()).isEqualTo(typeName);
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
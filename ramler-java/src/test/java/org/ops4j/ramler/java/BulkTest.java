@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class BulkTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "bulk";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setDelegators(true);
+        config.setClients(true);
+        config.setValidation(true);
+    }
+
+    @Test
+    public void shouldGenerateResultClasses() {
+        expectClass("BulkResult", "T");
+        assertProperty(klass, "items", "List<BulkItemResult<T>>", "getItems", "setItems");
+        assertMethod(klass, "hasFailures", "boolean");
+        verifyClass();
+
+        expectClass("BulkItemResult", "T");
+        assertProperty(klass, "status", "int", "getStatus", "setStatus");
+        assertProperty(klass, "value", "T", "getValue", "setValue");
+        assertProperty(klass, "error", "String", "getError", "setError");
+        assertMethod(klass, "hasFailed", "boolean");
+        verifyClass();
+    }
+
+    @Test
+    public void shouldGenerateBulkMethods() {
+        assertApiMethods("BooksResource", "createBook", "createBookBulk", "updateBook",
+            "updateBookBulk", "findBook");
+
+        JMethod method = findApiMethod("BooksResource", "createBookBulk");
+        assertReturnType(method, "CompletionStage<BulkResult<Book>>");
+        assertSignature(method, "List<Book>");
+        assertSimpleAnnotation(method, "Path", "\"/bulk\"");
+
+        method = findApiMethod("BooksResource", "updateBookBulk");
+        assertReturnType(method, "CompletionStage<BulkResult<Void>>");
+        assertSignature(method, "List<Book>", "String");
+        assertSimpleAnnotation(method, "Path", "\"/{isbn}/bulk\"");
+    }
+
+    @Test
+    public void shouldDispatchItemsInDelegator() {
+        JDefinedClass delegator = findDelegatorClass("BooksDelegator");
+        String body = generateBody(findMethod(delegator, "updateBookBulk"));
+        assertThat(body).contains("BulkDispatcher.dispatch(items",
+            "delegate.updateBook(item, isbn);", "CompletableFuture.completedFuture(null)",
+            "bulkExecutor)")
+            .doesNotContain("ForkJoinPool");
+        assertThat(generateBody(findMethod(delegator, "createBookBulk"))).contains(
+            "BooksResourceValidator.validateCreateBook(item);",
+            "ValidationException exc)",
+            "BadRequestException(exc.getMessage(), exc);",
+            "CompletableFuture.completedFuture(delegate.createBook(item))");
+        assertThat(delegator.fields()).containsKeys("CALLING_THREAD", "bulkExecutor");
+        assertThat(generateBody(findMethod(delegator, "findBook")))
+            .contains("return delegate.findBook(isbn);")
+            .doesNotContain("bulkExecutor");
+        assertThat(delegator.constructors()).toIterable()
+            .hasSize(2);
+
+        JDefinedClass dispatcher = findDelegatorClass("BulkDispatcher");
+        assertThat(generateBody(findMethod(dispatcher, "dispatch"))).contains("supplyAsync",
+            "handle(", "CompletableFuture.allOf(");
+    }
+
+    @Test
+    public void shouldBatchCallsInClient() {
+        assertClientClasses("AbstractClient", "BodyCodec", "BooksClient", "BulkBatcher",
+            "ClientException", "JacksonBodyCodec");
+        JDefinedClass client = findClientClass("BooksClient");
+        assertThat(client.methods()).extracting(JMethod::name)
+            .contains("createBookBulk", "createBookBulkAsync", "createBookBatched",
+                "updateBookBulk", "updateBookBulkAsync")
+            .doesNotContain("updateBookBatched");
+        assertThat(client.fields()).containsKey("createBookBatcher");
+
+        JMethod method = findMethod(client, "createBookBatched");
+        assertReturnType(method, "CompletableFuture<Book>");
+        assertSignature(method, "Book");
+
+        String request = generateBody(findMethod(client, "updateBookBulkRequest"));
+        assertThat(request).contains("append(\"/bulk\")");
+
+        JDefinedClass batcher = findClientClass("BulkBatcher");
+        assertThat(generateBody(findMethod(batcher, "submit"))).contains("delayedExecutor");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
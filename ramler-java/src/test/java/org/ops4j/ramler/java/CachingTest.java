@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JAnnotationUse;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class CachingTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "caching";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setClients(true);
+    }
+
+    @Test
+    public void shouldAnnotateCachedMethods() {
+        assertThat(findApiClass("HttpCaching")).isNotNull();
+        assertThat(generateAnnotation(findApiMethod("BooksResource", "findBook")))
+            .contains("maxAge = 60", "etag = true");
+        assertThat(generateAnnotation(findApiMethod("BooksResource", "findBooks")))
+            .contains("maxAge = 10")
+            .doesNotContain("etag");
+        assertThat(findApiMethod("BooksResource", "updateBook").annotations())
+            .extracting(a -> a.getAnnotationClass()
+                .name())
+            .doesNotContain("HttpCaching");
+    }
+
+    @Test
+    public void shouldGenerateCachingFilter() {
+        JDefinedClass filter = findApiClass("HttpCachingFilter");
+        assertThat(filter.fields()).containsKeys("caching", "providers");
+        assertThat(generateBody(findMethod(filter, "filter"))).contains("CACHE_CONTROL",
+            "HttpHeaders.ETAG", "evaluatePreconditions(entityTag)")
+            .doesNotContain("getEntityAnnotations");
+        assertThat(generateBody(findMethod(filter, "computeEntityTag")))
+            .contains("getMessageBodyWriter", "digest.update(", "withoutPadding()");
+    }
+
+    @Test
+    public void shouldRegisterCachingFilterPerMethod() {
+        JDefinedClass feature = findApiClass("HttpCachingFeature");
+        assertThat(feature._implements()).toIterable()
+            .extracting(JClass::name)
+            .containsExactly("DynamicFeature");
+        assertThat(generateBody(findMethod(feature, "configure")))
+            .contains("findHttpCaching(resourceInfo.getResourceClass(), "
+                + "resourceInfo.getResourceMethod())", "HttpCachingFilter(caching, providers)");
+        assertThat(generateBody(findMethod(feature, "findHttpCaching")))
+            .contains("getInterfaces()", "HttpCaching.class)");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldCacheResponsesInClient() {
+        JDefinedClass client = findClientClass("BooksClient");
+        assertThat(generateBody(findMethod(client, "findBook"))).contains("sendCached(", "60L");
+        assertThat(generateBody(findMethod(client, "findBooksAsync")))
+            .contains("sendCachedAsync(", "10L");
+        assertThat(generateBody(findMethod(client, "updateBook"))).doesNotContain("Cached");
+
+        JDefinedClass baseClass = findClientClass("AbstractClient");
+        assertThat(baseClass.methods()).extracting(JMethod::name)
+            .contains("sendCached", "sendCachedAsync");
+        assertThat(baseClass.fields()).containsKey("responseCache");
+        assertThat(generateBody(findMethod(baseClass, "revalidate")))
+            .contains("If-None-Match");
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+
+    private String generateAnnotation(JMethod method) {
+        JAnnotationUse annotationUse = method.annotations()
+            .stream()
+            .filter(a -> a.getAnnotationClass()
+                .name()
+                .equals("HttpCaching"))
+            .findFirst()
+            .get();
+        StringWriter writer = new StringWriter();
+        annotationUse.generate(new JFormatter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+
+public class ClientTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "client";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setClients(true);
+    }
+
+    @Test
+    public void shouldFindClientClasses() {
+        assertClientClasses("AbstractClient", "BodyCodec", "BooksClient", "ClientException",
+            "JacksonBodyCodec");
+    }
+
+    @Test
+    public void shouldFindClientMethods() {
+        JDefinedClass klass = findClientClass("BooksClient");
+        assertThat(klass._extends()
+            .name()).isEqualTo("AbstractClient");
+        assertThat(klass.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("findBooks", "findBooksAsync", "findBooksRequest",
+                "createBook", "createBookAsync", "createBookRequest", "findBook",
+                "findBookAsync", "findBookRequest", "deleteBook", "deleteBookAsync",
+                "deleteBookRequest");
+    }
+
+    @Test
+    public void shouldGenerateSyncAndAsyncMethods() {
+        JDefinedClass klass = findClientClass("BooksClient");
+        JMethod method = findMethod(klass, "findBook");
+        assertReturnType(method, "Book");
+        assertSignature(method, "String");
+
+        method = findMethod(klass, "findBookAsync");
+        assertReturnType(method, "CompletableFuture<Book>");
+        assertSignature(method, "String");
+
+        method = findMethod(klass, "findBooks");
+        assertReturnType(method, "List<Book>");
+        assertSignature(method, "String", "Integer");
+
+        method = findMethod(klass, "deleteBookAsync");
+        assertReturnType(method, "CompletableFuture<Void>");
+
+        method = findMethod(klass, "createBookRequest");
+        assertReturnType(method, "HttpRequest");
+        assertThat(method.mods()
+            .getValue() & JMod.PRIVATE).isEqualTo(JMod.PRIVATE);
+    }
+
+    @Test
+    public void shouldCaptureParameterizedResponseType() {
+        JDefinedClass klass = findClientClass("BooksClient");
+        assertThat(klass.fields()).containsOnlyKeys("FIND_BOOKS_TYPE");
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+
+public class CoalescingTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "coalescing";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setAsyncResources(JavaConstants.ASYNC_COMPLETION_STAGE);
+        config.setDelegators(true);
+        config.setDelegatorCoalescing(true);
+    }
+
+    @Test
+    public void shouldGenerateRequestCoalescer() {
+        assertDelegatorClasses("BooksDelegator", "RequestCoalescer");
+        JDefinedClass coalescer = findDelegatorClass("RequestCoalescer");
+        assertThat(coalescer.typeParams()).extracting(t -> t.name())
+            .containsExactly("K", "V");
+        assertThat(generateBody(findMethod(coalescer, "coalesce"))).contains("putIfAbsent(key",
+            "remove(key, future)");
+    }
+
+    @Test
+    public void shouldCoalesceGetMethods() {
+        JDefinedClass klass = findDelegatorClass("BooksDelegator");
+        assertThat(klass.fields()).containsOnlyKeys("delegate", "findBooksCoalescer",
+            "findBookCoalescer");
+        assertThat(klass.fields()
+            .get("findBookCoalescer")
+            .mods()
+            .getValue() & JMod.STATIC).isZero();
+        assertThat(klass.classes()).toIterable()
+            .extracting(c -> c.name())
+            .containsExactlyInAnyOrder("FindBooksKey", "FindBookKey");
+
+        assertThat(generateBody(findMethod(klass, "findBook")))
+            .contains("findBookCoalescer.coalesce(new ", "BooksDelegator.FindBookKey(isbn)");
+        assertThat(generateBody(findMethod(klass, "findBooks"))).contains(
+            "findBooksCoalescer.coalesce(new ", "BooksDelegator.FindBooksKey(author, limit)");
+        assertThat(generateBody(findMethod(klass, "createBook"))).doesNotContain("coalesce");
+        assertThat(generateBody(findMethod(klass, "deleteBook"))).doesNotContain("coalesce");
+        assertThat(generateBody(findMethod(klass, "updateBook"))).doesNotContain("coalesce");
+    }
+
+    @Test
+    public void shouldPrecomputeKeyHash() {
+        JDefinedClass findBookKey = findNestedClass(findDelegatorClass("BooksDelegator"),
+            "FindBookKey");
+        assertThat(findBookKey.fields()).containsOnlyKeys("precomputedHash", "isbn");
+        assertThat(generateBody(findMethod(findBookKey, "hashCode")))
+            .contains("return precomputedHash;");
+        assertThat(generateBody(findMethod(findBookKey, "equals"))).contains(
+            "(this.precomputedHash == other.precomputedHash)",
+            "Objects.equals(this.isbn, other.isbn)");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private JDefinedClass findNestedClass(JDefinedClass klass, String className) {
+        Iterator<JDefinedClass> it = klass.classes();
+        while (it.hasNext()) {
+            JDefinedClass nested = it.next();
+            if (nested.name()
+                .equals(className)) {
+                return nested;
+            }
+        }
+        throw new AssertionError("no nested class " + className);
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
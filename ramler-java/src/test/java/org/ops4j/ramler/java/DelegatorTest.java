@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JType;
+
+public class DelegatorTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "delegator";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setAsyncResources(JavaConstants.ASYNC_COMPLETION_STAGE);
+        config.setDelegators(true);
+        config.setDelegatorDispatch(JavaConstants.DISPATCH_VIRTUAL_THREADS);
+        config.setDelegatorConcurrency(4);
+    }
+
+    @Test
+    public void shouldFindDelegatorClasses() {
+        assertDelegatorClasses("BooksDelegator", "BoundedExecutor");
+    }
+
+    @Test
+    public void shouldImplementResourceInterface() {
+        JDefinedClass klass = findDelegatorClass("BooksDelegator");
+        assertThat(klass._implements()).toIterable()
+            .extracting(JClass::name)
+            .containsExactly("BooksResource");
+        assertThat(klass.fields()).containsOnlyKeys("delegate", "executor", "VIRTUAL_THREADS",
+            "DEFAULT_CONCURRENCY");
+        assertThat(klass.methods()).extracting(JMethod::name)
+            .contains("createVirtualThreadExecutor");
+        assertThat(klass.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("findBooks", "createBook", "findBook", "updateBook",
+                "deleteBook", "createVirtualThreadExecutor");
+    }
+
+    @Test
+    public void shouldKeepSignatures() {
+        JDefinedClass klass = findDelegatorClass("BooksDelegator");
+        JMethod createBook = findMethod(klass, "createBook");
+        assertReturnType(createBook, "void");
+        assertSignature(createBook, "Book", "AsyncResponse");
+        assertThat(createBook.params()
+            .get(1)
+            .annotations()).isEmpty();
+
+        JMethod findBook = findMethod(klass, "findBook");
+        assertReturnType(findBook, "CompletionStage<Book>");
+        assertThat(findBook.annotations()).extracting(a -> a.getAnnotationClass()
+            .name())
+            .containsExactly("Override");
+    }
+
+    @Test
+    public void shouldGenerateDelegateConstructors() {
+        JDefinedClass klass = findDelegatorClass("BooksDelegator");
+        assertThat(klass.getConstructor(new JType[] { findApiClass("BooksResource") }))
+            .isNotNull();
+        assertThat(klass.getConstructor(
+            new JType[] { findApiClass("BooksResource"), klass.owner()
+                .ref(Executor.class) })).isNotNull();
+        assertThat(klass.getConstructor(
+            new JType[] { findApiClass("BooksResource"), klass.owner()
+                .ref(Executor.class), klass.owner().INT })).isNotNull();
+    }
+
+    @Test
+    public void shouldQueueTasksInBoundedExecutor() {
+        JDefinedClass klass = findDelegatorClass("BoundedExecutor");
+        assertThat(klass.fields()).containsOnlyKeys("executor", "permits", "queue");
+        assertThat(klass.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("execute", "submit", "drain", "release");
+        assertThat(generateBody(findMethod(klass, "submit"))).contains("whenComplete(",
+            "release();", "result.completeExceptionally(exc);");
+
+        JDefinedClass delegator = findDelegatorClass("BooksDelegator");
+        assertThat(delegator.fields()
+            .get("executor")
+            .type()
+            .name()).isEqualTo("BoundedExecutor");
+        assertThat(generateBody(findMethod(delegator, "findBook"))).contains("executor.submit(")
+            .doesNotContain("supplyAsync");
+    }
+
+    @Test
+    public void shouldCreateVirtualThreadsReflectively() {
+        JDefinedClass klass = findDelegatorClass("BooksDelegator");
+        assertThat(generateBody(findMethod(klass, "createVirtualThreadExecutor")))
+            .contains("getMethod(\"newVirtualThreadPerTaskExecutor\")", "newCachedThreadPool()");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldHoldPermitUntilStageCompletes() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        Object boundedExecutor = createBoundedExecutor(executor, 1);
+
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> firstResult = submit(boundedExecutor, () -> first);
+        CompletableFuture<String> secondResult = submit(boundedExecutor,
+            () -> CompletableFuture.completedFuture("second"));
+        assertThat(executor.tasks).hasSize(1);
+
+        executor.runAll();
+        assertThat(executor.tasks).isEmpty();
+        assertThat(secondResult).isNotDone();
+
+        first.complete("first");
+        assertThat(firstResult).isCompletedWithValue("first");
+        executor.runAll();
+        assertThat(secondResult).isCompletedWithValue("second");
+    }
+
+    @Test
+    public void shouldFailQueuedTaskRejectedByExecutor() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        Object boundedExecutor = createBoundedExecutor(executor, 1);
+
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> firstResult = submit(boundedExecutor, () -> first);
+        executor.runAll();
+        CompletableFuture<String> secondResult = submit(boundedExecutor,
+            () -> CompletableFuture.completedFuture("second"));
+
+        // the queued task is submitted and rejected on completion of the first stage
+        executor.rejecting = true;
+        first.complete("first");
+        assertThat(firstResult).isCompletedWithValue("first");
+        assertThat(secondResult).isCompletedExceptionally();
+        assertThat(secondResult.handle((value, exc) -> exc)
+            .get()).isInstanceOf(RejectedExecutionException.class);
+
+        // the permit of the rejected task has been released
+        executor.rejecting = false;
+        CompletableFuture<String> thirdResult = submit(boundedExecutor,
+            () -> CompletableFuture.completedFuture("third"));
+        executor.runAll();
+        assertThat(thirdResult).isCompletedWithValue("third");
+    }
+
+    private Object createBoundedExecutor(Executor executor, int concurrency) throws Exception {
+        return loadGeneratedClass("delegator.BoundedExecutor")
+            .getConstructor(Executor.class, int.class)
+            .newInstance(executor, concurrency);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<String> submit(Object boundedExecutor,
+        Supplier<CompletionStage<String>> supplier) throws Exception {
+        Method submit = boundedExecutor.getClass()
+            .getMethod("submit", Supplier.class);
+        return ((CompletionStage<String>) submit.invoke(boundedExecutor, supplier))
+            .toCompletableFuture();
+    }
+
+    /**
+     * Executor running its tasks on demand, or rejecting them.
+     */
+    private static class ManualExecutor implements Executor {
+
+        private List<Runnable> tasks = new ArrayList<>();
+
+        private boolean rejecting;
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(command);
+        }
+
+        void runAll() {
+            List<Runnable> current = new ArrayList<>(tasks);
+            tasks.clear();
+            current.forEach(Runnable::run);
+        }
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
@@ -37,6 +37,11 @@ public class EnumsTest extends AbstractGeneratorTest {
         return "enums";
     }
 
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setEnumParamConverters(true);
+    }
+
     @Test
     public void shouldFindModelClasses() {
         assertClasses("Colour");
@@ -63,4 +68,10 @@ public class EnumsTest extends AbstractGeneratorTest {
         String literal = (String) FieldUtils.readField(args.get(0), "str", true);
         assertThat(literal).isEqualTo("lightBlue");
     }
+
+    @Test
+    public void shouldFindParamConverterProvider() {
+        assertApiClasses("EnumParamConverterProvider");
+        assertApiMethods("EnumParamConverterProvider", "getConverter");
+    }
 }
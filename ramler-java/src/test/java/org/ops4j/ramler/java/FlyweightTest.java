@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class FlyweightTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "flyweight";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setFlyweights(true);
+    }
+
+    @Test
+    public void shouldSkipTypesWithoutFixedLayout() {
+        assertFlyweightClasses("ReadingFlyweight", "ReadingEncoder", "SampleFlyweight",
+            "SampleEncoder");
+    }
+
+    @Test
+    public void shouldComputeOffsetsFromNumberFormats() {
+        Map<String, JFieldVar> fields = findFlyweightClass("ReadingFlyweight").fields();
+        assertThat(generateInit(fields.get("SENSOR_ID_OFFSET"))).endsWith("= 5");
+        assertThat(generateInit(fields.get("SEQUENCE_OFFSET"))).endsWith("= 13");
+        assertThat(generateInit(fields.get("TEMPERATURE_OFFSET"))).endsWith("= 17");
+        assertThat(generateInit(fields.get("HUMIDITY_OFFSET"))).endsWith("= 25");
+        assertThat(generateInit(fields.get("VALID_OFFSET"))).endsWith("= 29");
+        assertThat(generateInit(fields.get("COLOUR_OFFSET"))).endsWith("= 30");
+        assertThat(generateInit(fields.get("LABEL_OFFSET"))).endsWith("= 34");
+        assertThat(generateInit(fields.get("UNIT_OFFSET"))).endsWith("= 42");
+        assertThat(generateInit(fields.get("FIXED_LENGTH"))).endsWith("= 50");
+    }
+
+    @Test
+    public void shouldIncludeInheritedProperties() {
+        Map<String, JFieldVar> fields = findFlyweightClass("SampleFlyweight").fields();
+        assertThat(generateInit(fields.get("WEIGHT_OFFSET"))).endsWith("= 50");
+        assertThat(generateInit(fields.get("FIXED_LENGTH"))).endsWith("= 54");
+    }
+
+    @Test
+    public void shouldGenerateAccessors() {
+        JDefinedClass flyweight = findFlyweightClass("ReadingFlyweight");
+        assertThat(flyweight.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("wrap", "getEncodedLength", "readString", "getSensorId",
+                "getSequence", "getTemperature", "getHumidity", "hasHumidity", "isValid",
+                "getColour", "hasColour", "getLabel", "getUnit");
+        assertReturnType(findMethod(flyweight, "getSensorId"), "long");
+        assertReturnType(findMethod(flyweight, "getHumidity"), "float");
+        assertReturnType(findMethod(flyweight, "getColour"), "Colour");
+        assertThat(generateBody(findMethod(flyweight, "hasColour"))).contains("offset + 4")
+            .contains("& 2");
+    }
+
+    @Test
+    public void shouldGenerateEncoder() {
+        JDefinedClass encoder = findFlyweightClass("ReadingEncoder");
+        assertThat(encoder.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("wrap", "getEncodedLength", "writeString", "encode",
+                "setSensorId", "setSequence", "setTemperature", "setHumidity", "setValid",
+                "setColour", "setLabel", "setUnit");
+        assertSignature(findMethod(encoder, "setHumidity"), "float");
+        assertSignature(findMethod(encoder, "encode"), "Reading");
+
+        String encode = generateBody(findMethod(encoder, "encode"));
+        assertThat(encode).contains("setSensorId(value.getSensorId())", "setValid(value.isValid())",
+            "if (value.getHumidity()!= null)", "setLabel(value.getLabel())");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldReadEncodedValues() throws Exception {
+        Object reading = new ObjectMapper().readValue("{\"sensorId\":12345678901,\"sequence\":7,"
+            + "\"temperature\":21.5,\"valid\":true,\"colour\":\"GREEN\",\"label\":\"kitchen\","
+            + "\"unit\":\"C\"}", loadGeneratedClass("model.Reading"));
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        Object encoder = loadGeneratedClass("flyweight.ReadingEncoder").getConstructor()
+            .newInstance();
+        invoke(encoder, "wrap", buffer, 16);
+        invoke(encoder, "encode", reading);
+
+        Object flyweight = loadGeneratedClass("flyweight.ReadingFlyweight").getConstructor()
+            .newInstance();
+        invoke(flyweight, "wrap", buffer, 16);
+        assertThat(invoke(flyweight, "getEncodedLength"))
+            .isEqualTo(invoke(encoder, "getEncodedLength"));
+        assertThat(invoke(flyweight, "getSensorId")).isEqualTo(12345678901L);
+        assertThat(invoke(flyweight, "getSequence")).isEqualTo(7);
+        assertThat(invoke(flyweight, "getTemperature")).isEqualTo(21.5);
+        assertThat(invoke(flyweight, "hasHumidity")).isEqualTo(false);
+        assertThat(invoke(flyweight, "isValid")).isEqualTo(true);
+        assertThat(invoke(flyweight, "hasColour")).isEqualTo(true);
+        assertThat(invoke(flyweight, "getColour")).hasToString("green");
+        assertThat(invoke(flyweight, "getLabel")).isEqualTo("kitchen");
+        assertThat(invoke(flyweight, "getUnit")).isEqualTo("C");
+    }
+
+    private Object invoke(Object target, String methodName, Object... args) throws Exception {
+        Method method = Arrays.stream(target.getClass()
+            .getMethods())
+            .filter(m -> m.getName()
+                .equals(methodName) && m.getParameterCount() == args.length)
+            .findFirst()
+            .get();
+        return method.invoke(target, args);
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateInit(JFieldVar field) {
+        StringWriter writer = new StringWriter();
+        field.bind(new JFormatter(writer));
+        return writer.toString();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMethod;
+
+public class JacksonStreamingTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "streaming";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setJacksonStreaming(true);
+    }
+
+    @Test
+    public void shouldFindModelClasses() {
+        assertClasses("Animal", "AnimalDeserializer", "AnimalSerializer", "Cat",
+            "CatDeserializer", "CatSerializer", "Colour", "ColourDeserializer",
+            "ColourSerializer", "JacksonModule", "Owner", "OwnerDeserializer", "OwnerSerializer",
+            "Toy", "ToyDeserializer", "ToySerializer");
+    }
+
+    @Test
+    public void shouldFindSerializer() {
+        JDefinedClass serializer = modelPackage._getClass("CatSerializer");
+        assertThat(serializer._extends()
+            .name()).isEqualTo("StdSerializer<Cat>");
+        assertThat(serializer.fields()).containsKeys("INSTANCE", "KIND", "NAME", "BORN", "LIVES",
+            "COLOUR");
+        assertThat(serializer.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("writeFields", "serialize", "serializeWithType");
+    }
+
+    @Test
+    public void shouldFindDeserializer() {
+        JDefinedClass deserializer = modelPackage._getClass("OwnerDeserializer");
+        assertThat(deserializer._extends()
+            .name()).isEqualTo("StdDeserializer<Owner>");
+        assertThat(deserializer.fields()).containsKeys("INSTANCE");
+        assertThat(deserializer.methods()).extracting(JMethod::name)
+            .containsExactly("deserialize");
+    }
+
+    @Test
+    public void shouldFindEnumDeserializer() {
+        JDefinedClass deserializer = modelPackage._getClass("ColourDeserializer");
+        assertThat(deserializer._extends()
+            .name()).isEqualTo("StdDeserializer<Colour>");
+        assertThat(deserializer.methods()).extracting(JMethod::name)
+            .containsExactly("deserialize");
+    }
+
+    @Test
+    public void shouldFindModule() {
+        JDefinedClass module = modelPackage._getClass("JacksonModule");
+        assertThat(module._extends()
+            .name()).isEqualTo("SimpleModule");
+        assertThat(module.classes()).toIterable()
+            .isEmpty();
+    }
+
+    @Test
+    public void shouldWriteAdditionalPropertiesAsNestedObject() {
+        JDefinedClass serializer = modelPackage._getClass("OwnerSerializer");
+        assertThat(serializer.fields()).containsKeys("ID", "NAME", "ACTIVE", "ANIMALS", "TAGS",
+            "LAST_SEEN", "EXTRAS");
+        assertThat(serializer.fields()
+            .get("EXTRAS")
+            .type()
+            .name()).isEqualTo("SerializedString");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldReadDatabindOutput() throws Exception {
+        Class<?> toyClass = loadGeneratedClass("model.Toy");
+        String json = "{\"name\":\"Ball\",\"colour\":\"LIGHT_BLUE\",\"colours\":[\"RED\",\"LIGHT_BLUE\"]}";
+        ObjectMapper databind = new ObjectMapper();
+        String databindJson = databind.writeValueAsString(databind.readValue(json, toyClass));
+        assertThat(databindJson).contains("\"colour\":\"LIGHT_BLUE\"");
+
+        ObjectMapper streaming = createStreamingMapper();
+        Object toy = streaming.readValue(databindJson, toyClass);
+        assertThat(streaming.readTree(streaming.writeValueAsString(toy)))
+            .isEqualTo(databind.readTree(databindJson));
+    }
+
+    @Test
+    public void shouldWriteDatabindInput() throws Exception {
+        Class<?> toyClass = loadGeneratedClass("model.Toy");
+        String json = "{\"name\":\"Ball\",\"colour\":\"LIGHT_BLUE\",\"colours\":[\"RED\",\"LIGHT_BLUE\"]}";
+        ObjectMapper streaming = createStreamingMapper();
+        String streamingJson = streaming.writeValueAsString(streaming.readValue(json, toyClass));
+        assertThat(streamingJson).contains("\"colour\":\"LIGHT_BLUE\"");
+
+        ObjectMapper databind = new ObjectMapper();
+        Object toy = databind.readValue(streamingJson, toyClass);
+        assertThat(databind.readTree(databind.writeValueAsString(toy)))
+            .isEqualTo(streaming.readTree(streamingJson));
+    }
+
+    private ObjectMapper createStreamingMapper() throws Exception {
+        Module module = (Module) loadGeneratedClass("model.JacksonModule").getConstructor()
+            .newInstance();
+        return new ObjectMapper().registerModule(module);
+    }
+}
@@ -18,6 +18,7 @@
 package org.ops4j.ramler.java;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.IOException;
 
@@ -26,7 +27,10 @@ import org.junit.jupiter.api.Test;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
@@ -34,6 +38,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 public class JacksonUnionTest {
 
@@ -110,29 +115,64 @@ public class JacksonUnionTest {
         @Override
         public Favourite deserialize(JsonParser p, DeserializationContext ctxt)
             throws IOException {
-            ObjectMapper mapper = (ObjectMapper) p.getCodec();
-
-            JsonNode node = mapper.readTree(p);
-
             Favourite favourite = new Favourite();
-            if (looksLikeCity(node)) {
-                favourite.value = mapper.convertValue(node, City.class);
+            JsonToken token = p.getCurrentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = p.nextToken();
+            }
+            if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+                return (Favourite) ctxt.handleUnexpectedToken(Favourite.class, p);
+            }
+            TokenBuffer buffer = new TokenBuffer(p, ctxt);
+            buffer.writeStartObject();
+            long seen = 0L;
+            while (token == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                buffer.copyCurrentStructure(p);
+                switch (name) {
+                    case "population":
+                        seen = seen | 2L;
+                        if ((seen & 7L) == 3L) {
+                            favourite.setCity(readBuffered(p, buffer, ctxt, City.class));
+                            return favourite;
+                        }
+                        break;
+                    case "furColour":
+                        seen = seen | 4L;
+                        if ((seen & 7L) == 5L) {
+                            favourite.setDog(readBuffered(p, buffer, ctxt, Dog.class));
+                            return favourite;
+                        }
+                        break;
+                    case "name":
+                        seen = seen | 1L;
+                        break;
+                    default:
+                        break;
+                }
+                token = p.nextToken();
+            }
+            buffer.writeEndObject();
+            JsonParser bufferParser = buffer.asParser(p);
+            bufferParser.nextToken();
+            if ((seen & 7L) == 3L) {
+                favourite.setCity(ctxt.readValue(bufferParser, City.class));
                 return favourite;
             }
-
-            if (looksLikeDog(node)) {
-                favourite.value = mapper.convertValue(node, Dog.class);
+            if ((seen & 7L) == 5L) {
+                favourite.setDog(ctxt.readValue(bufferParser, Dog.class));
                 return favourite;
             }
-            throw new IOException("Cannot determine type of object" + node);
-        }
-
-        private boolean looksLikeCity(JsonNode node) {
-            return node.has("population");
+            return ctxt.reportInputMismatch(this,
+                "Cannot determine variant of union type Favourite");
         }
 
-        private boolean looksLikeDog(JsonNode node) {
-            return node.has("furColour");
+        private <T> T readBuffered(JsonParser p, TokenBuffer buffer, DeserializationContext ctxt,
+            Class<T> variantClass) throws IOException {
+            p.clearCurrentToken();
+            JsonParser sequence = JsonParserSequence.createFlattened(false, buffer.asParser(p), p);
+            sequence.nextToken();
+            return ctxt.readValue(sequence, variantClass);
         }
     }
 
@@ -261,6 +301,24 @@ public class JacksonUnionTest {
         assertThat(deserialized.getDog().furColour).isEqualTo("black");
     }
 
+    @Test
+    public void shouldRejectDogWithoutName() {
+        String json = "{\"furColour\":\"black\"}";
+
+        assertThatThrownBy(() -> new ObjectMapper().readValue(json, Favourite.class))
+            .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    public void shouldDeserializeDogWithDistinguishingPropertyFirst() throws IOException {
+        String json = "{\"furColour\":\"black\",\"name\":\"Watson\"}";
+
+        Favourite deserialized = new ObjectMapper().readValue(json, Favourite.class);
+        assertThat(deserialized.isDog()).isTrue();
+        assertThat(deserialized.getDog().name).isEqualTo("Watson");
+        assertThat(deserialized.getDog().furColour).isEqualTo("black");
+    }
+
     @Test
     public void shouldSerializeAndDeserializeStringInContainer() throws IOException {
         StringOrNumber stringOrNumber = new StringOrNumber();
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class LoadSheddingTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "loadShedding";
+    }
+
+    @Test
+    public void shouldAnnotateLimitedMethods() {
+        assertSimpleAnnotation(findApiMethod("ReportsResource", "findReports"), "LoadShedding",
+            "0");
+        assertSimpleAnnotation(findApiMethod("ReportsResource", "findReport"), "LoadShedding",
+            "1");
+        assertSimpleAnnotation(findApiMethod("ReportsResource", "findReport1"), "LoadShedding",
+            "1");
+        assertThat(findApiMethod("ReportsResource", "deleteReport").annotations())
+            .extracting(a -> a.getAnnotationClass()
+                .name())
+            .doesNotContain("LoadShedding");
+    }
+
+    @Test
+    public void shouldPrecomputeFiltersPerEndpoint() {
+        JDefinedClass feature = findApiClass("LoadSheddingFeature");
+        StringWriter writer = new StringWriter();
+        feature.fields()
+            .get("filters")
+            .declare(new JFormatter(writer));
+        assertThat(writer.toString()).contains("LoadSheddingFilter(0, 50)",
+            "LoadSheddingFilter(4, 100)");
+    }
+
+    @Test
+    public void shouldRejectSaturatedRequests() {
+        JDefinedClass filter = findApiClass("LoadSheddingFilter");
+        assertThat(generateBody(findFilterMethod(filter, 1))).contains("reject(429)",
+            "reject(503)", "permits.tryAcquire()", "LoadSheddingFilter.Permit(permits)");
+    }
+
+    @Test
+    public void shouldReleasePermitInResponseFilter() {
+        JDefinedClass filter = findApiClass("LoadSheddingFilter");
+        assertThat(generateBody(findFilterMethod(filter, 2)))
+            .contains("LoadSheddingFilter.Permit) permit).release()");
+        assertThat(filter.fields()).containsKeys("PERMIT", "permits")
+            .doesNotContainKeys("LEASE_NANOS", "leases");
+        assertThat(filter.methods()).extracting(JMethod::name)
+            .contains("releaseOnCompletion");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldRefuseRequestsBeyondConcurrencyLimit() throws Exception {
+        Class<?> filterClass = loadGeneratedClass("api.LoadSheddingFilter");
+        Object filter = filterClass.getConstructor(int.class, int.class)
+            .newInstance(2, 0);
+        ContainerRequestFilter requestFilter = (ContainerRequestFilter) filter;
+        ContainerResponseFilter responseFilter = (ContainerResponseFilter) filter;
+
+        StubRequest first = new StubRequest();
+        StubRequest second = new StubRequest();
+        StubRequest third = new StubRequest();
+        requestFilter.filter(first.proxy());
+        requestFilter.filter(second.proxy());
+        requestFilter.filter(third.proxy());
+        assertThat(first.abortStatus).isNull();
+        assertThat(second.abortStatus).isNull();
+        assertThat(third.abortStatus).isEqualTo(503);
+
+        // the response filter of the rejected request must not release a permit
+        responseFilter.filter(third.proxy(), null);
+        StubRequest fourth = new StubRequest();
+        requestFilter.filter(fourth.proxy());
+        assertThat(fourth.abortStatus).isEqualTo(503);
+
+        responseFilter.filter(first.proxy(), null);
+        responseFilter.filter(first.proxy(), null);
+        StubRequest fifth = new StubRequest();
+        StubRequest sixth = new StubRequest();
+        requestFilter.filter(fifth.proxy());
+        requestFilter.filter(sixth.proxy());
+        assertThat(fifth.abortStatus).isNull();
+        assertThat(sixth.abortStatus).isEqualTo(503);
+    }
+
+    private JMethod findFilterMethod(JDefinedClass filter, int numParams) {
+        return filter.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals("filter")
+                && m.params()
+                    .size() == numParams)
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+
+    /**
+     * Minimal request context storing properties and the status of an aborted request.
+     */
+    private static class StubRequest implements InvocationHandler {
+
+        private Map<String, Object> properties = new HashMap<>();
+
+        private Integer abortStatus;
+
+        ContainerRequestContext proxy() {
+            return (ContainerRequestContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ContainerRequestContext.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getProperty":
+                    return properties.get(args[0]);
+                case "setProperty":
+                    properties.put((String) args[0], args[1]);
+                    return null;
+                case "removeProperty":
+                    properties.remove(args[0]);
+                    return null;
+                case "abortWith":
+                    abortStatus = ((Response) args[0]).getStatus();
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+}
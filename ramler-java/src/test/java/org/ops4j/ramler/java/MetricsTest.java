@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JFormatter;
+
+public class MetricsTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "metrics";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setMetrics(true);
+    }
+
+    @Test
+    public void shouldAnnotateEndpoints() {
+        assertSimpleAnnotation(findApiMethod("BooksResource", "createBook"), "MetricsEndpoint",
+            "0");
+        assertSimpleAnnotation(findApiMethod("BooksResource", "createBookBulk"),
+            "MetricsEndpoint", "1");
+        assertSimpleAnnotation(findApiMethod("BooksResource", "updateBook"), "MetricsEndpoint",
+            "2");
+        assertSimpleAnnotation(findApiMethod("BooksResource", "updateBookBulk"),
+            "MetricsEndpoint", "3");
+    }
+
+    @Test
+    public void shouldGenerateEndpointIndex() {
+        JDefinedClass metrics = findApiClass("EndpointMetrics");
+        assertThat(metrics.methods()).extracting(m -> m.name())
+            .contains("record", "recordError", "snapshot", "snapshots", "findEndpoint");
+        assertThat(generateInit(metrics.fields()
+            .get("ENDPOINTS"))).contains(
+                "\"POST /books\", \"POST /books/bulk\", \"PUT /books/{isbn}\", "
+                    + "\"PUT /books/{isbn}/bulk\"");
+        assertThat(generateInit(metrics.fields()
+            .get("HISTOGRAMS"))).contains("AtomicLongArray((4 *BUCKETS))");
+    }
+
+    @Test
+    public void shouldGenerateFilterAndFeature() {
+        assertThat(findApiClass("EndpointMetricsFilter")._implements()).toIterable()
+            .extracting(c -> c.name())
+            .containsExactly("ContainerRequestFilter", "ContainerResponseFilter",
+                "WriterInterceptor");
+        assertThat(findApiClass("EndpointMetricsFeature")._implements()).toIterable()
+            .extracting(c -> c.name())
+            .containsExactly("DynamicFeature");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private String generateInit(JFieldVar field) {
+        StringWriter writer = new StringWriter();
+        field.declare(new JFormatter(writer));
+        return writer.toString();
+    }
+}
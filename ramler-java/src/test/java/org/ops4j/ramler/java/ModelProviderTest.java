@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class ModelProviderTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "modelProvider";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setModelProvider(true);
+        config.setApplication(true);
+    }
+
+    @Test
+    public void shouldGenerateModelProvider() {
+        JDefinedClass provider = findApiClass("ModelMessageBodyProvider");
+        assertThat(provider._implements()).toIterable()
+            .extracting(JClass::name)
+            .containsExactlyInAnyOrder("MessageBodyReader<Object>", "MessageBodyWriter<Object>");
+        assertThat(provider.methods()).extracting(JMethod::name)
+            .contains("isReadable", "isWriteable", "getSize", "readFrom", "writeTo", "getMapper",
+                "findReader", "findWriter");
+    }
+
+    @Test
+    public void shouldIndexModelClasses() {
+        JDefinedClass provider = findApiClass("ModelMessageBodyProvider");
+        assertThat(provider.fields()).containsKeys("MODEL_CLASSES", "DEFAULT_MAPPER", "readers",
+            "writers", "providers", "objectMapper");
+        assertThat(generateInit(provider.fields()
+            .get("MODEL_CLASSES"))).contains("Animal.class", "Result.class",
+                "AnimalResult.class");
+    }
+
+    @Test
+    public void shouldCacheReadersAndWriters() {
+        JDefinedClass provider = findApiClass("ModelMessageBodyProvider");
+        assertThat(generateBody(findMethod(provider, "getMapper"))).contains("MODEL_CLASSES",
+            "readers.putIfAbsent", "writers.putIfAbsent", "getContextResolver");
+        assertThat(generateBody(findMethod(provider, "writeTo")))
+            .contains("findWriter(genericType).writeValue(entityStream, value)");
+        assertThat(generateBody(findMethod(provider, "readFrom")))
+            .contains("findReader(genericType).readValue(entityStream)");
+    }
+
+    @Test
+    public void shouldAcceptCollectionsOfModelTypes() {
+        JDefinedClass provider = findApiClass("ModelMessageBodyProvider");
+        assertThat(generateBody(findMethod(provider, "isReadable")))
+            .contains("MODEL_CLASSES.contains(type)||isModelType(genericType)");
+        assertThat(generateBody(findMethod(provider, "isModelType"))).contains("getRawType",
+            "Collection.class.isAssignableFrom", "isModelType(typeArgs[ 0 ])");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldRegisterModelProvider() {
+        JDefinedClass app = findApiClass("ApiApplication");
+        assertThat(generateInit(app.fields()
+            .get("PROVIDERS"))).contains("ModelMessageBodyProvider.class");
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+
+    private String generateInit(JFieldVar field) {
+        StringWriter writer = new StringWriter();
+        field.bind(new JFormatter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class NativeImageTest extends AbstractGeneratorTest {
+
+    private static final String PACKAGE = "org.ops4j.raml.nativeImage";
+
+    private File resourceDir = new File("target/generated/raml-resources");
+
+    @Override
+    public String getBasename() {
+        return "nativeImage";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setResourceTargetDir(resourceDir);
+        config.setNativeImage(true);
+        config.setJacksonStreaming(true);
+        config.setValueClasses(true);
+        config.setClients(true);
+    }
+
+    @Test
+    public void shouldRegisterGeneratedClassesForReflection() throws IOException {
+        JsonNode config = readConfig("reflect-config.json");
+        assertThat(config.findValuesAsText("name")).contains(PACKAGE + ".model.Book",
+            PACKAGE + ".model.Colour", PACKAGE + ".model.JacksonModule",
+            PACKAGE + ".api.BooksResource")
+            .doesNotContain(PACKAGE + ".client.BooksClient");
+        assertThat(config.get(0)
+            .get("allDeclaredConstructors")
+            .asBoolean()).isTrue();
+    }
+
+    @Test
+    public void shouldRegisterNestedClassesForReflection() throws IOException {
+        JsonNode config = readConfig("reflect-config.json");
+        assertThat(config.findValuesAsText("name")).contains(PACKAGE + ".model.Book$Builder");
+    }
+
+    @Test
+    public void shouldRegisterJacksonModuleAsService() throws IOException {
+        File serviceFile = new File(resourceDir,
+            "META-INF/services/com.fasterxml.jackson.databind.Module");
+        assertThat(new String(Files.readAllBytes(serviceFile.toPath()), StandardCharsets.UTF_8))
+            .isEqualTo(PACKAGE + ".model.JacksonModule\n");
+
+        JsonNode config = readConfig("resource-config.json");
+        assertThat(config.findValuesAsText("pattern"))
+            .containsExactly("\\QMETA-INF/services/com.fasterxml.jackson.databind.Module\\E");
+    }
+
+    private JsonNode readConfig(String fileName) throws IOException {
+        File file = new File(resourceDir, "META-INF/native-image/" + PACKAGE + "/" + fileName);
+        return new ObjectMapper().readTree(file);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.ops4j.ramler.common.exc.GeneratorException;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class PagingTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "paging";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setClients(true);
+    }
+
+    @Test
+    public void shouldGeneratePageClass() {
+        expectClass("Page", "T");
+        assertProperty(klass, "items", "List<T>", "getItems", "setItems");
+        assertProperty(klass, "nextCursor", "String", "getNextCursor", "setNextCursor");
+        assertMethod(klass, "hasNext", "boolean");
+        verifyClass();
+    }
+
+    @Test
+    public void shouldReturnPage() {
+        JMethod method = findApiMethod("BooksResource", "findBooks");
+        assertReturnType(method, "Page<Book>");
+        assertSignature(method, "String", "String", "int");
+        assertThat(method.params()).extracting(p -> p.name())
+            .containsExactly("author", "cursor", "limit");
+        assertThat(method.params()
+            .get(2)
+            .annotations()).extracting(
+                a -> a.getAnnotationClass()
+                    .name())
+                .containsExactly("QueryParam", "DefaultValue");
+
+        method = findApiMethod("BooksResource", "findBook");
+        assertReturnType(method, "Book");
+    }
+
+    @Test
+    public void shouldGenerateClientIterator() {
+        assertClientClasses("AbstractClient", "AuthorsClient", "BodyCodec", "BooksClient",
+            "ClientException", "JacksonBodyCodec", "PageIterator");
+        JDefinedClass client = findClientClass("BooksClient");
+        JMethod method = findMethod(client, "findBooksAsync");
+        assertReturnType(method, "CompletableFuture<Page<Book>>");
+        assertSignature(method, "String", "String", "Integer");
+
+        method = findMethod(client, "findBooksIterator");
+        assertReturnType(method, "Iterator<Book>");
+        assertSignature(method, "String", "Integer");
+        assertThat(generateBody(method)).contains(
+            "client.PageIterator<org.ops4j.raml.paging.model.Book>(",
+            "return findBooksAsync(author, cursor, limit);");
+
+        String request = generateBody(findMethod(client, "findBooksRequest"));
+        assertThat(request).contains("appendQuery(uri, \"cursor\", cursor);",
+            "appendQuery(uri, \"limit\", limit);");
+    }
+
+    @Test
+    public void shouldPrefetchNextPage() {
+        JDefinedClass iterator = findClientClass("PageIterator");
+        assertThat(iterator.typeParams()).extracting(t -> t.name())
+            .containsExactly("T");
+        String body = generateBody(findMethod(iterator, "hasNext"));
+        assertThat(body).contains("fetcher.apply(null)", "next.join()",
+            "fetcher.apply(page.getNextCursor())");
+    }
+
+    @Test
+    public void shouldKeepDeclaredPagingParameters() {
+        JMethod method = findApiMethod("AuthorsResource", "findAuthors");
+        assertReturnType(method, "Page<String>");
+        assertSignature(method, "String", "Integer");
+
+        JDefinedClass client = findClientClass("AuthorsClient");
+        assertSignature(findMethod(client, "findAuthorsIterator"), "Integer");
+    }
+
+    @Test
+    public void shouldRejectNonStringCursor() {
+        JavaConfiguration config = new JavaConfiguration();
+        config.setSourceFile("raml/pagingCursor.raml");
+        config.setBasePackage("org.ops4j.raml.pagingCursor");
+        config.setTargetDir(new File("target/generated/raml"));
+        config.setClients(true);
+        JavaGenerator cursorGenerator = new JavaGenerator(config);
+        assertThatThrownBy(cursorGenerator::generate).isInstanceOf(GeneratorException.class)
+            .hasMessageContaining("cursor");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldIterateOverAllPages() throws Exception {
+        List<String> cursors = new ArrayList<>();
+        Function<String, CompletableFuture<Object>> fetcher = cursor -> {
+            cursors.add(cursor);
+            try {
+                if (cursor == null) {
+                    return CompletableFuture.completedFuture(createPage("p2", "a", "b"));
+                }
+                if (cursor.equals("p2")) {
+                    return CompletableFuture.completedFuture(createPage("p3"));
+                }
+                return CompletableFuture.completedFuture(createPage(null, "c"));
+            }
+            catch (ReflectiveOperationException | IOException exc) {
+                throw new IllegalStateException(exc);
+            }
+        };
+        @SuppressWarnings("unchecked")
+        Iterator<String> iterator = (Iterator<String>) loadGeneratedClass("client.PageIterator")
+            .getConstructor(Function.class)
+            .newInstance(fetcher);
+
+        List<String> items = new ArrayList<>();
+        iterator.forEachRemaining(items::add);
+        assertThat(items).containsExactly("a", "b", "c");
+        assertThat(cursors).containsExactly(null, "p2", "p3");
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    private Object createPage(String nextCursor, String... items)
+        throws ReflectiveOperationException, IOException {
+        Class<?> pageClass = loadGeneratedClass("model.Page");
+        Object page = pageClass.getConstructor()
+            .newInstance();
+        pageClass.getMethod("setItems", List.class)
+            .invoke(page, (items.length == 0) ? Collections.emptyList() : Arrays.asList(items));
+        pageClass.getMethod("setNextCursor", String.class)
+            .invoke(page, nextCursor);
+        return page;
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
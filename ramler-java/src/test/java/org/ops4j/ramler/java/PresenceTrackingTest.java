@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+import org.ops4j.ramler.common.exc.GeneratorException;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class PresenceTrackingTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "presence";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setPresenceTracking(true);
+        config.setJacksonStreaming(true);
+        config.setValidation(true);
+    }
+
+    @Test
+    public void shouldUsePrimitiveFieldsForOptionalScalars() {
+        JDefinedClass reading = modelPackage._getClass("Reading");
+        assertThat(reading.fields()
+            .get("temperature")
+            .type()
+            .name()).isEqualTo("double");
+        assertThat(reading.fields()
+            .get("valid")
+            .type()
+            .name()).isEqualTo("boolean");
+        assertThat(reading.fields()
+            .get("label")
+            .type()
+            .name()).isEqualTo("String");
+        assertThat(reading.fields()).containsKeys("presentProperties", "ID_PRESENT",
+            "TEMPERATURE_PRESENT", "VALID_PRESENT", "LABEL_PRESENT", "TAGS_PRESENT");
+    }
+
+    @Test
+    public void shouldKeepBoxedFieldsInGenericHierarchy() {
+        assertThat(modelPackage._getClass("Page")
+            .fields()
+            .get("offset")
+            .type()
+            .name()).isEqualTo("Integer");
+        assertThat(modelPackage._getClass("Result")
+            .fields()
+            .get("complete")
+            .type()
+            .name()).isEqualTo("Boolean");
+        JDefinedClass readingResult = modelPackage._getClass("ReadingResult");
+        assertThat(readingResult.fields()
+            .get("average")
+            .type()
+            .name()).isEqualTo("Double");
+        assertThat(readingResult.methods()).extracting(JMethod::name)
+            .contains("hasAverage", "merge");
+        assertThat(modelPackage._getClass("ReadingResultSerializer")).isNull();
+    }
+
+    @Test
+    public void shouldTrackPresenceInSetters() {
+        JDefinedClass reading = modelPackage._getClass("Reading");
+        assertThat(reading.methods()).extracting(JMethod::name)
+            .contains("hasId", "hasTemperature", "hasValid", "hasLabel", "hasTags", "merge");
+        assertThat(generateBody(findMethod(reading, "setTemperature")))
+            .contains("presentProperties", "TEMPERATURE_PRESENT");
+        assertThat(generateBody(findMethod(reading, "hasTemperature")))
+            .contains("TEMPERATURE_PRESENT");
+    }
+
+    @Test
+    public void shouldMergeInheritedProperties() {
+        JDefinedClass sample = modelPackage._getClass("Sample");
+        JMethod merge = findMethod(sample, "merge");
+        assertSignature(merge, "Sample");
+        assertThat(generateBody(merge)).contains("super.merge(patch)", "this.weight = patch.weight",
+            "patch.presentProperties");
+        assertThat(generateBody(findMethod(modelPackage._getClass("Reading"), "merge")))
+            .doesNotContain("super.merge");
+    }
+
+    @Test
+    public void shouldSerializePresentPropertiesOnly() {
+        JDefinedClass serializer = modelPackage._getClass("ReadingSerializer");
+        assertThat(generateBody(findMethod(serializer, "writeFields")))
+            .contains("if (value.hasTemperature())", "if (value.hasLabel())");
+
+        JDefinedClass deserializer = modelPackage._getClass("ReadingDeserializer");
+        assertThat(generateBody(findMethod(deserializer, "deserialize"))).contains("VALUE_NULL");
+    }
+
+    @Test
+    public void shouldValidatePresentProperties() {
+        JDefinedClass sample = modelPackage._getClass("Sample");
+        assertThat(generateBody(findMethod(sample, "validate"))).contains("hasWeight()");
+    }
+
+    @Test
+    public void shouldRequireJacksonStreaming() {
+        JavaConfiguration config = new JavaConfiguration();
+        config.setSourceFile("raml/presence.raml");
+        config.setBasePackage("org.ops4j.raml.presence");
+        config.setTargetDir(new File("target/generated/raml"));
+        config.setPresenceTracking(true);
+        JavaGenerator generator = new JavaGenerator(config);
+        assertThatThrownBy(generator::generate).isInstanceOf(GeneratorException.class);
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JPackage;
+
+public class PrimitiveArrayTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "primitiveArray";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setPrimitiveArrays(true);
+    }
+
+    @Test
+    public void shouldFindModelClasses() {
+        assertClasses("Sample");
+    }
+
+    @Test
+    public void shouldFindSampleMembers() {
+        expectClass("Sample");
+        assertProperty(klass, "counts", "int[]", "getCounts", "setCounts");
+        assertProperty(klass, "timestamps", "long[]", "getTimestamps", "setTimestamps");
+        assertProperty(klass, "values", "double[]", "getValues", "setValues");
+        assertProperty(klass, "flags", "boolean[]", "getFlags", "setFlags");
+        assertProperty(klass, "labels", "List<String>", "getLabels", "setLabels");
+        verifyClass();
+    }
+
+    @Test
+    public void shouldKeepListsForObjectArrays() {
+        JavaConfiguration config = new JavaConfiguration();
+        config.setSourceFile("raml/bracketArray.raml");
+        config.setBasePackage("org.ops4j.raml.primitiveArray.bracket");
+        config.setTargetDir(new File("target/generated/raml"));
+        config.setPrimitiveArrays(true);
+        JavaGenerator bracketGenerator = new JavaGenerator(config);
+        bracketGenerator.generate();
+
+        JPackage pkg = bracketGenerator.getContext()
+            .getCodeModel()
+            ._package("org.ops4j.raml.primitiveArray.bracket.model");
+        assertThat(pkg._getClass("ObjectList")
+            .fields()
+            .get("list")
+            .type()
+            .name()).isEqualTo("List<Map<String,Object>>");
+        assertThat(pkg._getClass("PersonList")
+            .fields()
+            .get("list")
+            .type()
+            .name()).isEqualTo("List<Person>");
+        assertThat(pkg._getClass("BooleanList")
+            .fields()
+            .get("list")
+            .type()
+            .name()).isEqualTo("boolean[]");
+        assertThat(pkg._getClass("DigitList")
+            .fields()
+            .get("list")
+            .type()
+            .name()).isEqualTo("int[]");
+    }
+}
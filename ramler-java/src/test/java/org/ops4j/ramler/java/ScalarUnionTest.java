@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JType;
+
+public class ScalarUnionTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "scalarUnion";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setJacksonPropertyName(true);
+    }
+
+    @Test
+    public void shouldFindAnythingMembers() {
+        expectClass("Anything");
+        assertField(klass, "value", "Object");
+        assertMethod(klass, "value", "Object");
+        assertScalarVariant("String", "isString", "getString", "setString");
+        assertScalarVariant("Integer", "isInteger", "getInteger", "setInteger");
+        assertScalarVariant("Boolean", "isBoolean", "getBoolean", "setBoolean");
+        assertVariant(klass, "dog", "Dog", "isDog", "getDog", "setDog");
+        verifyClass();
+    }
+
+    @Test
+    public void shouldBranchOnTokenKind() {
+        String body = generateDeserialize("AnythingDeserializer");
+        assertThat(body).contains("JsonToken.VALUE_STRING", "setString(",
+            "JsonToken.VALUE_NUMBER_INT", "setInteger(", "JsonToken.VALUE_TRUE",
+            "JsonToken.VALUE_FALSE", "setBoolean(", "setDog(")
+            .doesNotContain("VALUE_NUMBER_FLOAT");
+
+        body = generateDeserialize("AmountDeserializer");
+        assertThat(body).contains("JsonToken.VALUE_NUMBER_INT", "JsonToken.VALUE_NUMBER_FLOAT",
+            "setNumber(", "setString(")
+            .doesNotContain("START_OBJECT");
+    }
+
+    @Test
+    public void shouldDecideEnumsByValues() {
+        String body = generateDeserialize("LabelDeserializer");
+        assertThat(body).contains("case \"red\":", "case \"blue\":", "setColour(",
+            "case \"small\":", "case \"large\":", "setSize(")
+            .doesNotContain("setString(");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private void assertScalarVariant(String typeName, String checkerName, String getterName,
+        String setterName) {
+        assertMethod(klass, checkerName, "boolean");
+        assertMethod(klass, getterName, typeName);
+        JMethod setter = klass.getMethod(setterName,
+            new JType[] { klass.owner()
+                .ref("java.lang." + typeName) });
+        assertThat(setter).isNotNull();
+        methodNames.remove(setterName);
+    }
+
+    private String generateDeserialize(String className) {
+        JDefinedClass deserializer = modelPackage._getClass(className);
+        JMethod deserialize = deserializer.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals("deserialize"))
+            .findFirst()
+            .get();
+        StringWriter writer = new StringWriter();
+        deserialize.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class SparseFieldsetTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "fieldsets";
+    }
+
+    @Test
+    public void shouldFindApiClasses() {
+        assertApiClasses("AnimalsResource", "OwnersResource", "SparseFieldsets",
+            "SparseFieldsetWriter");
+    }
+
+    @Test
+    public void shouldAddFieldsParameter() {
+        JMethod method = findApiMethod("AnimalsResource", "getAnimalById");
+        assertSignature(method, "int", "List<String>");
+        assertThat(method.params()
+            .get(1)
+            .name()).isEqualTo("fields");
+        assertMarker(method);
+    }
+
+    @Test
+    public void shouldKeepDeclaredFieldsParameter() {
+        JMethod method = findApiMethod("OwnersResource", "getOwnerById");
+        assertSignature(method, "int", "String");
+        assertMarker(method);
+        assertThat(findApiMethod("OwnersResource", "putOwnerById").annotations())
+            .extracting(a -> a.getAnnotationClass()
+                .name())
+            .doesNotContain("SparseFieldsets");
+    }
+
+    @Test
+    public void shouldIndexPropertiesPerType() {
+        JDefinedClass writer = findApiClass("SparseFieldsetWriter");
+        String init = generateInit(writer);
+        assertThat(init).contains("animalIndexes.put(\"name\", 0)",
+            "animalIndexes.put(\"weight\", 1)", "animalIndexes.put(\"friendly\", 2)",
+            "catIndexes.put(\"lives\", 3)", "ownerIndexes.put(\"animals\", 2)",
+            "model.Cat.class, catIndexes)")
+            .doesNotContain("\"kind\"");
+    }
+
+    @Test
+    public void shouldWriteSelectedProperties() {
+        JDefinedClass writer = findApiClass("SparseFieldsetWriter");
+        assertThat(writer.methods()).extracting(JMethod::name)
+            .contains("isWriteable", "getSize", "writeTo", "write", "writeAnimal", "writeCat",
+                "writeOwner", "parseFields", "findMapper");
+        String body = generateBody(findMethod(writer, "writeCat"));
+        assertThat(body).contains("gen.writeStringField(\"kind\", value.getKind())",
+            "if (fields.get(3))", "gen.writeObjectField(\"lives\", value.getLives())",
+            "value.isFriendly()");
+        assertThat(generateBody(findMethod(writer, "write"))).contains("model.Cat.class",
+            "writeCat(((org.ops4j.raml.fieldsets.model.Cat) value), fields, gen)");
+    }
+
+    @Test
+    public void shouldUseJavaFieldNamesAsJsonNames() {
+        JDefinedClass writer = findApiClass("SparseFieldsetWriter");
+        assertThat(generateInit(writer)).contains("ownerIndexes.put(\"lastVisit\", 3)")
+            .doesNotContain("last-visit");
+        assertThat(generateBody(findMethod(writer, "writeOwner")))
+            .contains("gen.writeObjectField(\"lastVisit\", value.getLastVisit())");
+    }
+
+    @Test
+    public void shouldWriteSameKeysAsDatabind() throws Exception {
+        Class<?> ownerClass = loadGeneratedClass("model.Owner");
+        ObjectMapper mapper = new ObjectMapper();
+        Object owner = mapper.readValue(
+            "{\"id\":7,\"name\":\"Jo\",\"animals\":[],\"lastVisit\":\"today\"}", ownerClass);
+
+        Method writeOwner = loadGeneratedClass("api.SparseFieldsetWriter")
+            .getDeclaredMethod("writeOwner", ownerClass, BitSet.class, JsonGenerator.class);
+        writeOwner.setAccessible(true);
+        BitSet fields = new BitSet();
+        fields.set(0, 4);
+        StringWriter json = new StringWriter();
+        try (JsonGenerator gen = mapper.getFactory()
+            .createGenerator(json)) {
+            writeOwner.invoke(null, owner, fields, gen);
+        }
+        assertThat(mapper.readTree(json.toString()))
+            .isEqualTo(mapper.readTree(mapper.writeValueAsString(owner)));
+    }
+
+    @Test
+    public void shouldLookUpMarkerPerResourceMethod() {
+        JDefinedClass writer = findApiClass("SparseFieldsetWriter");
+        assertThat(writer.fields()).containsKeys("resourceInfo", "sparseMethods");
+        assertThat(generateBody(findMethod(writer, "isWriteable")))
+            .contains("isSparseFieldsetMethod()")
+            .doesNotContain("annotations");
+        assertThat(generateBody(findMethod(writer, "isSparseFieldsetMethod"))).contains(
+            "sparseMethods.get(resourceMethod)",
+            "findSparseFieldsets(resourceInfo.getResourceClass(), resourceMethod)");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private void assertMarker(JMethod method) {
+        assertThat(method.annotations()).extracting(a -> a.getAnnotationClass()
+            .name())
+            .contains("SparseFieldsets");
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+
+    private String generateInit(JDefinedClass klass) {
+        StringWriter writer = new StringWriter();
+        klass.init()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
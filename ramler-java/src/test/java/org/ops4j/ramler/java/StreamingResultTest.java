@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JAnnotationUse;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class StreamingResultTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "streamingResult";
+    }
+
+    @Test
+    public void shouldFindApiClasses() {
+        assertApiClasses("RowsResource", "StreamMessageBodyWriter");
+    }
+
+    @Test
+    public void shouldReturnListWithoutStreaming() {
+        JMethod method = findApiMethod("RowsResource", "findRows");
+        assertReturnType(method, "List<Row>");
+    }
+
+    @Test
+    public void shouldReturnStreamForJsonArray() {
+        JMethod method = findApiMethod("RowsResource", "exportRows");
+        assertReturnType(method, "Stream<Row>");
+    }
+
+    @Test
+    public void shouldReturnStreamForNdjson() {
+        JMethod method = findApiMethod("RowsResource", "exportLines");
+        assertReturnType(method, "Stream<Row>");
+        JAnnotationUse produces = method.annotations()
+            .stream()
+            .filter(a -> a.getAnnotationClass()
+                .name()
+                .equals("Produces"))
+            .findFirst()
+            .get();
+        StringWriter writer = new StringWriter();
+        produces.generate(new JFormatter(writer));
+        assertThat(writer.toString()).contains("\"application/x-ndjson\"", "APPLICATION_JSON");
+    }
+
+    @Test
+    public void shouldFindStreamWriterMethods() {
+        assertApiMethods("StreamMessageBodyWriter", "isWriteable", "getSize", "findWriter",
+            "writeTo");
+    }
+}
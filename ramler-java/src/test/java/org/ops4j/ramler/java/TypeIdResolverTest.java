@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.sun.codemodel.JAnnotationUse;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class TypeIdResolverTest extends AbstractGeneratorTest {
+
+    private static final String MODEL = "org.ops4j.raml.typeIdResolver.model.";
+
+    @Override
+    public String getBasename() {
+        return "typeIdResolver";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setJacksonTypeInfo(true);
+    }
+
+    @Test
+    public void shouldGenerateResolversForBaseTypes() {
+        assertClasses("Circle", "Polygon", "PolygonTypeIdResolver", "Shape", "ShapeTypeIdResolver",
+            "Square");
+    }
+
+    @Test
+    public void shouldUseCustomTypeIdResolver() {
+        JDefinedClass shape = modelPackage._getClass("Shape");
+        assertThat(shape.annotations()).extracting(a -> a.getAnnotationClass()
+            .name())
+            .containsExactlyInAnyOrder("Generated", "JsonTypeInfo", "JsonTypeIdResolver");
+        assertThat(generate(findAnnotation(shape, "JsonTypeInfo"))).contains("Id.CUSTOM",
+            "As.EXISTING_PROPERTY", "\"kind\"");
+        assertThat(generate(findAnnotation(shape, "JsonTypeIdResolver")))
+            .contains("ShapeTypeIdResolver.class");
+    }
+
+    @Test
+    public void shouldMapAllSubtypesByDiscriminatorValue() {
+        JDefinedClass resolver = modelPackage._getClass("ShapeTypeIdResolver");
+        assertThat(resolver._extends()
+            .name()).isEqualTo("TypeIdResolverBase");
+        assertThat(resolver.methods()).extracting(JMethod::name)
+            .contains("idFromValue", "idFromValueAndType", "typeFromId", "getMechanism",
+                "getDescForKnownTypeIds");
+
+        String init = generateInit(resolver);
+        assertThat(init).contains("\"shape\", " + MODEL + "Shape.class",
+            "\"polygon\", " + MODEL + "Polygon.class",
+            "\"square\", " + MODEL + "Square.class", "\"Circle\", " + MODEL + "Circle.class");
+    }
+
+    @Test
+    public void shouldLimitResolverToSubtree() {
+        String init = generateInit(modelPackage._getClass("PolygonTypeIdResolver"));
+        assertThat(init)
+            .contains("\"polygon\", " + MODEL + "Polygon.class",
+                "\"square\", " + MODEL + "Square.class")
+            .doesNotContain("Circle", "Shape.class");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldReadSubtypesByDiscriminatorValue() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Class<?> shapeClass = loadGeneratedClass("model.Shape");
+        Object square = mapper.readValue("{\"kind\":\"square\",\"corners\":4,\"length\":2.0}",
+            shapeClass);
+        assertThat(square).isInstanceOf(loadGeneratedClass("model.Square"));
+        assertThat(square.getClass()
+            .getMethod("getLength")
+            .invoke(square)).isEqualTo(2.0);
+
+        Object circle = mapper.readValue("{\"kind\":\"Circle\",\"radius\":1.5}", shapeClass);
+        assertThat(circle).isInstanceOf(loadGeneratedClass("model.Circle"));
+
+        Object polygon = mapper.readValue("{\"kind\":\"square\",\"corners\":4}",
+            loadGeneratedClass("model.Polygon"));
+        assertThat(polygon).isInstanceOf(loadGeneratedClass("model.Square"));
+    }
+
+    @Test
+    public void shouldRejectUnknownDiscriminatorValue() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Class<?> shapeClass = loadGeneratedClass("model.Shape");
+        assertThatThrownBy(() -> mapper.readValue("{\"kind\":\"hexagon\"}", shapeClass))
+            .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    public void shouldWriteDiscriminatorValue() throws Exception {
+        Object square = loadGeneratedClass("model.Square").getConstructor()
+            .newInstance();
+        String json = new ObjectMapper().writeValueAsString(square);
+        assertThat(json).contains("\"kind\":\"square\"");
+    }
+
+    private JAnnotationUse findAnnotation(JDefinedClass klass, String annotationName) {
+        return klass.annotations()
+            .stream()
+            .filter(a -> a.getAnnotationClass()
+                .name()
+                .equals(annotationName))
+            .findFirst()
+            .get();
+    }
+
+    private String generate(JAnnotationUse annotation) {
+        StringWriter writer = new StringWriter();
+        annotation.generate(new JFormatter(writer));
+        return writer.toString();
+    }
+
+    private String generateInit(JDefinedClass klass) {
+        StringWriter writer = new StringWriter();
+        klass.init()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
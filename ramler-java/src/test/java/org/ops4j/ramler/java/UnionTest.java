@@ -17,7 +17,19 @@
  */
 package org.ops4j.ramler.java;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+
 import org.junit.jupiter.api.Test;
+import org.ops4j.ramler.common.exc.GeneratorException;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMethod;
 
 public class UnionTest extends AbstractGeneratorTest {
 
@@ -26,9 +38,17 @@ public class UnionTest extends AbstractGeneratorTest {
         return "union";
     }
 
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setJacksonTypeInfo(true);
+    }
+
     @Test
     public void shouldFindModelClasses() {
-        assertClasses("City", "Dog", "Favourite", "FavouriteDeserializer", "FavouriteSerializer");
+        assertClasses("Circle", "City", "Dog", "Favourite", "FavouriteDeserializer",
+            "FavouriteSerializer", "Figure", "FigureDeserializer", "FigureSerializer", "Shape",
+            "ShapeTypeIdResolver",
+            "Square");
     }
 
     @Test
@@ -57,4 +77,69 @@ public class UnionTest extends AbstractGeneratorTest {
         verifyClass();
     }
 
+    @Test
+    public void shouldFindStreamingDeserializer() {
+        JDefinedClass deserializer = modelPackage._getClass("FavouriteDeserializer");
+        assertThat(deserializer.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("deserialize", "readBuffered");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldDecideVariantByUniqueProperty() throws Exception {
+        Object favourite = readFavourite("{\"furColour\":\"black\",\"name\":\"Watson\"}");
+        assertThat(favourite.getClass()
+            .getMethod("isDog")
+            .invoke(favourite)).isEqualTo(true);
+
+        favourite = readFavourite("{\"name\":\"Hamburg\",\"population\":1800000}");
+        assertThat(favourite.getClass()
+            .getMethod("isCity")
+            .invoke(favourite)).isEqualTo(true);
+    }
+
+    @Test
+    public void shouldRequireAllRequiredProperties() {
+        assertThatThrownBy(() -> readFavourite("{\"population\":1800000}"))
+            .isInstanceOf(JsonMappingException.class)
+            .hasMessageContaining("Cannot determine variant of union type Favourite");
+        assertThatThrownBy(() -> readFavourite("{\"name\":\"Watson\"}"))
+            .isInstanceOf(JsonMappingException.class);
+        assertThatThrownBy(
+            () -> readFavourite("{\"name\":\"Watson\",\"population\":1,\"furColour\":\"black\"}"))
+                .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    public void shouldDecideVariantByDiscriminatorValue() throws Exception {
+        Class<?> figureClass = loadGeneratedClass("model.Figure");
+        Object figure = new ObjectMapper().readValue("{\"kind\":\"square\",\"length\":2.0}",
+            figureClass);
+        assertThat(figureClass.getMethod("isSquare")
+            .invoke(figure)).isEqualTo(true);
+
+        assertThatThrownBy(
+            () -> new ObjectMapper().readValue("{\"kind\":\"circle\"}", figureClass))
+                .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    public void shouldRejectDuplicateDiscriminatorValues() {
+        JavaConfiguration config = new JavaConfiguration();
+        config.setSourceFile("raml/unionDiscriminator.raml");
+        config.setBasePackage("org.ops4j.raml.unionDiscriminator");
+        config.setTargetDir(new File("target/generated/raml"));
+        config.setJacksonUnion(true);
+        JavaGenerator duplicateGenerator = new JavaGenerator(config);
+        assertThatThrownBy(duplicateGenerator::generate).isInstanceOf(GeneratorException.class)
+            .hasMessageContaining("same discriminator value round");
+    }
+
+    private Object readFavourite(String json) throws Exception {
+        return new ObjectMapper().readValue(json, loadGeneratedClass("model.Favourite"));
+    }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+
+public class ValidationTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "validation";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setValidation(true);
+        config.setDelegators(true);
+    }
+
+    @Test
+    public void shouldFindModelClasses() {
+        assertClasses("Author", "Book", "EBook", "Publisher", "ValidationException");
+    }
+
+    @Test
+    public void shouldFindApiClasses() {
+        assertApiClasses("BooksResource", "BooksResourceValidator", "PublishersResource",
+            "ValidationExceptionMapper");
+    }
+
+    @Test
+    public void shouldCheckRequiredProperties() {
+        String body = generateBody(findValidate(modelPackage._getClass("Publisher")));
+        assertThat(body).contains("\"name is required\"");
+    }
+
+    @Test
+    public void shouldCheckStringFacets() {
+        String body = generateBody(findValidate(modelPackage._getClass("Book")));
+        assertThat(body).contains("\"title must have at least 1 characters\"",
+            "\"title must have at most 200 characters\"", "\"isbn must match ^[0-9]{13}$\"");
+    }
+
+    @Test
+    public void shouldPrecompilePatterns() {
+        JDefinedClass klass = modelPackage._getClass("Book");
+        JFieldVar pattern = klass.fields()
+            .get("ISBN_PATTERN");
+        assertThat(pattern).isNotNull();
+        assertThat(pattern.type()
+            .name()).isEqualTo("Pattern");
+    }
+
+    @Test
+    public void shouldCheckNumberAndArrayFacets() {
+        String body = generateBody(findValidate(modelPackage._getClass("Book")));
+        assertThat(body).contains("\"pages must be at least 1\"",
+            "\"pages must be at most 10000\"", "\"price must be at least 0\"",
+            "\"tags must have at most 10 items\"", "\"authors must have at least 1 items\"");
+    }
+
+    @Test
+    public void shouldValidateNestedObjects() {
+        String body = generateBody(findValidate(modelPackage._getClass("Book")));
+        assertThat(body).contains("item.validate()", "publisher.validate()");
+    }
+
+    @Test
+    public void shouldCallBaseClassValidation() {
+        JMethod validate = findValidate(modelPackage._getClass("EBook"));
+        assertThat(validate.annotations()).extracting(a -> a.getAnnotationClass()
+            .name())
+            .containsExactly("Override");
+        String body = generateBody(validate);
+        assertThat(body).contains("super.validate()", "\"sizeInBytes must be at least 0\"")
+            .doesNotContain("title");
+    }
+
+    @Test
+    public void shouldGenerateParameterValidators() {
+        JDefinedClass validator = findApiClass("BooksResourceValidator");
+        assertThat(validator.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("validateFindBooks", "validateCreateBook",
+                "validateFindBook");
+
+        JMethod findBooks = findMethod(validator, "validateFindBooks");
+        assertSignature(findBooks, "String", "Integer");
+        assertThat(generateBody(findBooks)).contains("\"author must have at least 3 characters\"",
+            "\"limit must be at most 100\"");
+
+        assertSignature(findMethod(validator, "validateCreateBook"), "Book");
+        assertSignature(findMethod(validator, "validateFindBook"), "String");
+        assertThat(validator.fields()).containsOnlyKeys("FIND_BOOK_ISBN_PATTERN");
+    }
+
+    @Test
+    public void shouldValidateInDelegator() {
+        JMethod findBooks = findMethod(findDelegatorClass("BooksDelegator"), "findBooks");
+        assertThat(generateBody(findBooks)).contains("validateFindBooks(author, limit)");
+
+        JMethod findPublishers = findMethod(findDelegatorClass("PublishersDelegator"),
+            "findPublishers");
+        assertThat(generateBody(findPublishers)).doesNotContain("validate");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    @Test
+    public void shouldAcceptValidBook() throws Exception {
+        Object book = createBook("9783161484100", "Moby Dick", "Herman Melville");
+        assertThatCode(() -> invoke(book, "validate")).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void shouldRejectInvalidBook() throws Exception {
+        Object book = createBook("978-3-16", "Moby Dick", "Herman Melville");
+        assertThatThrownBy(() -> invoke(book, "validate"))
+            .isInstanceOf(loadGeneratedClass("model.ValidationException"))
+            .hasMessage("isbn must match ^[0-9]{13}$");
+
+        Object pages = createBook("9783161484100", "Moby Dick", "Herman Melville");
+        invoke(pages, "setPages", 0);
+        assertThatThrownBy(() -> invoke(pages, "validate"))
+            .hasMessage("pages must be at least 1");
+    }
+
+    @Test
+    public void shouldRejectInvalidNestedObject() throws Exception {
+        Object book = createBook("9783161484100", "Moby Dick", "");
+        assertThatThrownBy(() -> invoke(book, "validate"))
+            .isInstanceOf(loadGeneratedClass("model.ValidationException"))
+            .hasMessage("name must have at least 1 characters");
+    }
+
+    @Test
+    public void shouldValidateParametersAtRuntime() throws Exception {
+        Method validateFindBooks = loadGeneratedClass("api.BooksResourceValidator")
+            .getMethod("validateFindBooks", String.class, Integer.class);
+        assertThatCode(() -> invokeStatic(validateFindBooks, null, null))
+            .doesNotThrowAnyException();
+        assertThatCode(() -> invokeStatic(validateFindBooks, "Melville", 100))
+            .doesNotThrowAnyException();
+        assertThatThrownBy(() -> invokeStatic(validateFindBooks, "Me", null))
+            .hasMessage("author must have at least 3 characters");
+        assertThatThrownBy(() -> invokeStatic(validateFindBooks, null, 101))
+            .hasMessage("limit must be at most 100");
+    }
+
+    private Object createBook(String isbn, String title, String authorName) throws Exception {
+        Object author = loadGeneratedClass("model.Author").getConstructor()
+            .newInstance();
+        invoke(author, "setName", authorName);
+        Object book = loadGeneratedClass("model.Book").getConstructor()
+            .newInstance();
+        invoke(book, "setIsbn", isbn);
+        invoke(book, "setTitle", title);
+        invoke(book, "setAuthors", Collections.singletonList(author));
+        return book;
+    }
+
+    private Object invoke(Object target, String methodName, Object... args) throws Exception {
+        for (Method method : target.getClass()
+            .getMethods()) {
+            if (method.getName()
+                .equals(methodName) && method.getParameterCount() == args.length) {
+                return invokeMethod(method, target, args);
+            }
+        }
+        throw new NoSuchMethodException(methodName);
+    }
+
+    private Object invokeStatic(Method method, Object... args) throws Exception {
+        return invokeMethod(method, null, args);
+    }
+
+    private Object invokeMethod(Method method, Object target, Object... args) throws Exception {
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException exc) {
+            throw (Exception) exc.getCause();
+        }
+    }
+
+    private JMethod findValidate(JDefinedClass klass) {
+        return findMethod(klass, JavaConstants.VALIDATE);
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JFormatter;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+
+public class ValueClassTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "valueClasses";
+    }
+
+    @Override
+    protected void configure(JavaConfiguration config) {
+        config.setValueClasses(true);
+        config.setPrimitiveArrays(true);
+    }
+
+    @Test
+    public void shouldFindModelClasses() {
+        assertClasses("Person", "Employee");
+    }
+
+    @Test
+    public void shouldFindPersonMembers() {
+        expectClass("Person");
+        assertThat(klass.mods()
+            .getValue() & JMod.FINAL).isZero();
+        assertDiscriminator(klass, "DISCRIMINATOR", "String", "getObjectType");
+        assertField(klass, "firstName", "String");
+        assertField(klass, "lastName", "String");
+        assertField(klass, "age", "Integer");
+        assertField(klass, "cachedHashCode", "int");
+        assertMethod(klass, "getFirstName", "String");
+        assertMethod(klass, "getLastName", "String");
+        assertMethod(klass, "getAge", "Integer");
+        methodNames.removeAll(Arrays.asList("equals", "hashCode", "toString"));
+        verifyClass();
+        assertThat(klass.fields()
+            .get("firstName")
+            .mods()
+            .getValue() & JMod.FINAL).isEqualTo(JMod.FINAL);
+    }
+
+    @Test
+    public void shouldFindEmployeeMembers() {
+        expectClass("Employee");
+        assertThat(klass.mods()
+            .getValue() & JMod.FINAL).isEqualTo(JMod.FINAL);
+        assertDiscriminator(klass, "DISCRIMINATOR", "String", "getObjectType");
+        assertField(klass, "employeeId", "int");
+        assertField(klass, "active", "boolean");
+        assertField(klass, "skills", "List<String>");
+        assertField(klass, "scores", "int[]");
+        assertField(klass, "rating", "Double");
+        assertField(klass, "cachedHashCode", "int");
+        assertMethod(klass, "getEmployeeId", "int");
+        assertMethod(klass, "isActive", "boolean");
+        assertMethod(klass, "getSkills", "List<String>");
+        assertMethod(klass, "getScores", "int[]");
+        assertMethod(klass, "getRating", "Double");
+        methodNames.removeAll(Arrays.asList("equals", "hashCode", "toString"));
+        verifyClass();
+    }
+
+    @Test
+    public void shouldFindCreatorConstructor() {
+        JDefinedClass employee = modelPackage._getClass("Employee");
+        JMethod constructor = employee.constructors()
+            .next();
+        assertThat(constructor.listParams()).extracting(p -> p.name())
+            .containsExactly("firstName", "lastName", "age", "employeeId", "active", "skills",
+                "scores", "rating");
+        assertThat(employee.constructors()).toIterable()
+            .hasSize(1);
+    }
+
+    @Test
+    public void shouldFindBuilder() {
+        JDefinedClass employee = modelPackage._getClass("Employee");
+        JDefinedClass builder = employee.classes()
+            .next();
+        assertThat(builder.name()).isEqualTo("Builder");
+        assertThat(builder.methods()).extracting(JMethod::name)
+            .containsExactlyInAnyOrder("build", "firstName", "lastName", "age", "employeeId",
+                "active", "skills", "addToSkills", "presizeSkills", "scores", "rating");
+        assertThat(generateBody(findMethod(builder, "skills")))
+            .contains("Collections.unmodifiableList(skills)")
+            .doesNotContain("ArrayList");
+        assertThat(generateBody(findMethod(builder, "addToSkills")))
+            .contains("instanceof java.util.ArrayList", "ArrayList<java.lang.String>(this.skills)");
+        assertThat(generateBody(findMethod(builder, "presizeSkills")))
+            .contains("ArrayList<java.lang.String>(expectedSize)", "list.addAll(this.skills)");
+    }
+
+    @Test
+    public void shouldCopyArrays() {
+        JDefinedClass employee = modelPackage._getClass("Employee");
+        assertThat(generateBody(findMethod(employee, "getScores"))).contains("scores.clone()");
+        assertThat(generateBody(employee.constructors()
+            .next())).contains("scores.clone()");
+    }
+
+    @Test
+    public void shouldCompileGeneratedSources() throws IOException {
+        assertGeneratedSourcesCompile();
+    }
+
+    private JMethod findMethod(JDefinedClass klass, String methodName) {
+        return klass.methods()
+            .stream()
+            .filter(m -> m.name()
+                .equals(methodName))
+            .findFirst()
+            .get();
+    }
+
+    private String generateBody(JMethod method) {
+        StringWriter writer = new StringWriter();
+        method.body()
+            .state(new JFormatter(writer));
+        return writer.toString();
+    }
+}
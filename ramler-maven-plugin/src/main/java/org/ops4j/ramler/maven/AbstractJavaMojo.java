@@ -18,7 +18,9 @@
 package org.ops4j.ramler.maven;
 
 import java.io.File;
+import java.util.List;
 
+import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.ops4j.ramler.common.exc.RamlerException;
@@ -73,15 +75,158 @@ public abstract class AbstractJavaMojo extends AbstractRamlerMojo {
     @Parameter(defaultValue = "false")
     private boolean jacksonUnion;
 
+    /**
+     * Should streaming Jackson serializers and deserializers and a Jackson module be generated for
+     * model types?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean jacksonStreaming;
+
+    /**
+     * Should a JAX-RS parameter converter provider be generated for enumeration types?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean enumParamConverters;
+
+    /**
+     * Should object types be mapped to immutable value classes with builders instead of mutable
+     * beans?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean valueClasses;
+
+    /**
+     * Should array properties with integer, number or boolean items be mapped to primitive Java
+     * arrays instead of lists?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean primitiveArrays;
+
+    /**
+     * Asynchronous mode for generated resource methods. Supported values are {@code none},
+     * {@code completionStage} (methods return a {@code CompletionStage}) and {@code asyncResponse}
+     * (methods take a suspended {@code AsyncResponse} parameter). The mode may be overridden per
+     * method by the {@code (async)} annotation.
+     */
+    @Parameter(defaultValue = "none")
+    private String asyncResources;
+
+    /**
+     * Default timeout in milliseconds for asynchronous resource methods. A value of zero means no
+     * timeout. The timeout may be overridden per method by the {@code (asyncTimeout)} annotation.
+     */
+    @Parameter(defaultValue = "0")
+    private long asyncTimeout;
+
+    /**
+     * Should HTTP client classes based on the JDK HttpClient be generated for all resources?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean clients;
+
+    /**
+     * Should delegator classes be generated for all resource interfaces, forwarding each call to a
+     * delegate implementing the same interface?
+     */
     @Parameter(defaultValue = "false")
     private boolean delegators;
 
+    /**
+     * Suffix for delegator class names. This suffix is appended to the code name of a resource.
+     */
     @Parameter(defaultValue = "Delegator")
     private String delegatorSuffix;
 
+    /**
+     * Name of the delegate field of generated delegator classes.
+     */
     @Parameter(defaultValue = "delegate")
     private String delegateFieldName;
 
+    /**
+     * Dispatch mode of delegators for asynchronous resource methods. Supported values are
+     * {@code direct} (the delegate is called on the container thread), {@code executor} (the
+     * delegate is called on an executor passed to the delegator) and {@code virtualThreads} (like
+     * {@code executor}, with a default executor starting a virtual thread per call).
+     */
+    @Parameter(defaultValue = "direct")
+    private String delegatorDispatch;
+
+    /**
+     * Maximum number of concurrent asynchronous calls dispatched by each delegator. A value of zero
+     * means no limit.
+     */
+    @Parameter(defaultValue = "0")
+    private int delegatorConcurrency;
+
+    /**
+     * Should delegators share a single call of the delegate among concurrent calls of a GET method
+     * with equal arguments?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean delegatorCoalescing;
+
+    /**
+     * Should validation methods be generated, checking the RAML facets of model properties and
+     * parameters?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean validation;
+
+    /**
+     * Should GraalVM native image configuration files be generated for all generated classes?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean nativeImage;
+
+    /**
+     * Should a JAX-RS application class be generated, listing all resources and providers
+     * explicitly?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean application;
+
+    /**
+     * Simple name of the generated JAX-RS application class in the {@code api} package.
+     */
+    @Parameter(defaultValue = "ApiApplication")
+    private String applicationName;
+
+    /**
+     * Should the generator create flyweight accessors and encoders for a binary layout of model
+     * types?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean flyweights;
+
+    /**
+     * Should the generator create columnar batch classes with one array per property for model
+     * types?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean columnarBatches;
+
+    /**
+     * Should the generator track the presence of properties in a bit mask, with primitive fields
+     * for optional scalars?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean presenceTracking;
+
+    /**
+     * Should the generator create a JAX-RS provider reading and writing model types with cached
+     * Jackson readers and writers?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean modelProvider;
+
+    /**
+     * Should the generator create filters recording request counts and latency histograms per
+     * endpoint?
+     */
+    @Parameter(defaultValue = "false")
+    private boolean metrics;
+
     @Override
     protected void generateOutput() throws MojoFailureException {
         getLog().info("Generating Java model from " + model);
@@ -91,11 +236,34 @@ public abstract class AbstractJavaMojo extends AbstractRamlerMojo {
         config.setSourceFile(sourceFile);
         config.setBasePackage(packageName);
         config.setTargetDir(getOutputDir());
+        config.setResourceTargetDir(getResourceOutputDir());
         config.setDiscriminatorMutable(discriminatorMutable);
         config.setInterfaceNameSuffix(interfaceNameSuffix);
         config.setJacksonTypeInfo(jacksonTypeInfo);
         config.setJacksonPropertyName(jacksonPropertyName);
         config.setJacksonUnion(jacksonUnion);
+        config.setJacksonStreaming(jacksonStreaming);
+        config.setEnumParamConverters(enumParamConverters);
+        config.setValueClasses(valueClasses);
+        config.setPrimitiveArrays(primitiveArrays);
+        config.setAsyncResources(asyncResources);
+        config.setAsyncTimeout(asyncTimeout);
+        config.setClients(clients);
+        config.setDelegators(delegators);
+        config.setDelegatorSuffix(delegatorSuffix);
+        config.setDelegateFieldName(delegateFieldName);
+        config.setDelegatorDispatch(delegatorDispatch);
+        config.setDelegatorConcurrency(delegatorConcurrency);
+        config.setDelegatorCoalescing(delegatorCoalescing);
+        config.setValidation(validation);
+        config.setNativeImage(nativeImage);
+        config.setApplication(application);
+        config.setApplicationName(applicationName);
+        config.setFlyweights(flyweights);
+        config.setColumnarBatches(columnarBatches);
+        config.setPresenceTracking(presenceTracking);
+        config.setModelProvider(modelProvider);
+        config.setMetrics(metrics);
 
         try {
             JavaGenerator generator = new JavaGenerator(config);
@@ -109,6 +277,32 @@ public abstract class AbstractJavaMojo extends AbstractRamlerMojo {
     @Override
     public abstract File getOutputDir();
 
+    /**
+     * Gets the output directory for generated resources.
+     *
+     * @return resource output directory
+     */
+    public abstract File getResourceOutputDir();
+
+    /**
+     * Adds the resource output directory to the given list of project resources, if native image
+     * configuration is enabled. Only the generated configuration files are included.
+     *
+     * @param resources
+     *            list of (test) resources of the current project
+     */
+    protected void addResourceOutputDir(List<Resource> resources) {
+        if (!nativeImage) {
+            return;
+        }
+        String resourceRoot = getResourceOutputDir().getAbsolutePath();
+        getLog().info("Adding resource directory " + resourceRoot);
+        Resource resource = new Resource();
+        resource.setDirectory(resourceRoot);
+        resource.addInclude("META-INF/**");
+        resources.add(resource);
+    }
+
     /**
      * Gets the package name for the generated sources.
      *
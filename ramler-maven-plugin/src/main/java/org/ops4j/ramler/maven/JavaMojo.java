@@ -38,15 +38,27 @@ public class JavaMojo extends AbstractJavaMojo {
     @Parameter(defaultValue = "${project.build.directory}/generated-sources/ramler")
     private File outputDir;
 
+    /**
+     * Output directory for generated resources.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-resources/ramler")
+    private File resourceOutputDir;
+
     @Override
     protected void extendProject() {
         String outputRoot = getOutputDir().getAbsolutePath();
         getLog().info("Adding source directory " + outputRoot);
         project.addCompileSourceRoot(outputRoot);
+        addResourceOutputDir(project.getResources());
     }
 
     @Override
     public File getOutputDir() {
         return outputDir;
     }
+
+    @Override
+    public File getResourceOutputDir() {
+        return resourceOutputDir;
+    }
 }
@@ -38,15 +38,27 @@ public class JavaTestMojo extends AbstractJavaMojo {
     @Parameter(defaultValue = "${project.build.directory}/generated-test-sources/ramler")
     private File outputDir;
 
+    /**
+     * Output directory for generated test resources.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-test-resources/ramler")
+    private File resourceOutputDir;
+
     @Override
     protected void extendProject() {
         String outputRoot = getOutputDir().getAbsolutePath();
         getLog().info("Adding test source directory " + outputRoot);
         project.addTestCompileSourceRoot(outputRoot);
+        addResourceOutputDir(project.getTestResources());
     }
 
     @Override
     public File getOutputDir() {
         return outputDir;
     }
+
+    @Override
+    public File getResourceOutputDir() {
+        return resourceOutputDir;
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.maven;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.ops4j.ramler.common.exc.RamlerException;
+import org.ops4j.ramler.schema.SchemaConfiguration;
+import org.ops4j.ramler.schema.SchemaGenerator;
+
+/**
+ * Generates Protobuf and Avro schemas from a RAML model.
+ *
+ * @author Harald Wellmann
+ *
+ */
+@Mojo(name = "schema", defaultPhase = LifecyclePhase.GENERATE_SOURCES)
+public class SchemaMojo extends AbstractRamlerMojo {
+
+    /**
+     * Output directory for generated schemas.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/ramler/schema")
+    private File outputDir;
+
+    /**
+     * Protobuf package and Avro namespace of generated schemas.
+     */
+    @Parameter(name = "package")
+    private String packageName;
+
+    /**
+     * Sidecar file with persistent Protobuf field numbers. This file should be kept under version
+     * control.
+     */
+    @Parameter
+    private File fieldNumberFile;
+
+    /**
+     * Generate Protobuf schema.
+     */
+    @Parameter(defaultValue = "true")
+    private boolean protobuf;
+
+    /**
+     * Generate Avro schema.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean avro;
+
+    @Override
+    protected void generateOutput() throws MojoFailureException {
+        getLog().info("Generating schemas from " + model);
+        String sourceFile = new File(project.getBasedir(), model).getPath();
+
+        SchemaConfiguration config = new SchemaConfiguration();
+        config.setSourceFile(sourceFile);
+        config.setTargetDir(getOutputDir());
+        config.setPackageName(packageName);
+        config.setFieldNumberFile(fieldNumberFile);
+        config.setGenerateProtobuf(protobuf);
+        config.setGenerateAvro(avro);
+
+        SchemaGenerator generator = new SchemaGenerator(config);
+        try {
+            generator.generate();
+        }
+        catch (RamlerException | IOException exc) {
+            throw new MojoFailureException("Schema generation failed", exc);
+        }
+    }
+
+    @Override
+    public File getOutputDir() {
+        return outputDir;
+    }
+}
@@ -1,9 +1,16 @@
 package org.ops4j.ramler.openapi;
 
+import static org.ops4j.ramler.common.model.CommonConstants.BULK_PATH;
+
+import java.util.Collections;
+import java.util.List;
+
 import org.eclipse.microprofile.openapi.models.OpenAPI;
 import org.eclipse.microprofile.openapi.models.Operation;
 import org.eclipse.microprofile.openapi.models.PathItem;
 import org.eclipse.microprofile.openapi.models.media.Content;
+import org.eclipse.microprofile.openapi.models.media.Schema;
+import org.eclipse.microprofile.openapi.models.media.Schema.SchemaType;
 import org.eclipse.microprofile.openapi.models.parameters.Parameter;
 import org.eclipse.microprofile.openapi.models.parameters.Parameter.In;
 import org.eclipse.microprofile.openapi.models.parameters.RequestBody;
@@ -23,6 +30,7 @@ import io.smallrye.openapi.api.models.OperationImpl;
 import io.smallrye.openapi.api.models.PathItemImpl;
 import io.smallrye.openapi.api.models.media.ContentImpl;
 import io.smallrye.openapi.api.models.media.MediaTypeImpl;
+import io.smallrye.openapi.api.models.media.SchemaImpl;
 import io.smallrye.openapi.api.models.parameters.ParameterImpl;
 import io.smallrye.openapi.api.models.parameters.RequestBodyImpl;
 import io.smallrye.openapi.api.models.responses.APIResponseImpl;
@@ -121,6 +129,87 @@ public class OpenApiResourceVisitor implements ApiVisitor {
         addQueryParameters(operation, method);
         addBody(operation, method);
         addResponses(operation, method);
+        if (apiModel.isBulk(method)) {
+            addBulkOperation(method);
+        }
+    }
+
+    /**
+     * Adds the bulk variant of the given method to the bulk path item of the resource. The bulk
+     * operation takes an array of request bodies and returns a result per item.
+     */
+    private void addBulkOperation(Method method) {
+        String path = method.resource()
+            .resourcePath() + BULK_PATH;
+        PathItem bulkPathItem = openApi.getPaths()
+            .get(path);
+        if (bulkPathItem == null) {
+            bulkPathItem = new PathItemImpl();
+            openApi.getPaths()
+                .addPathItem(path, bulkPathItem);
+        }
+        Operation operation = buildOperation(bulkPathItem, method);
+        operation.addTag(findTagName(outerResource));
+        operation.setSummary(method.displayName()
+            .value() + " (bulk)");
+        operation.setDescription("Bulk variant with an array of request bodies and a result per "
+            + "item. Path and query parameters are shared by all items.");
+        addPathParameters(operation, method);
+        addQueryParameters(operation, method);
+
+        TypeDeclaration body = method.body()
+            .get(0);
+        Schema itemsSchema = new SchemaImpl();
+        itemsSchema.setType(SchemaType.ARRAY);
+        itemsSchema.setItems(schemaBuilder.toSchema(body));
+        RequestBody requestBody = new RequestBodyImpl();
+        requestBody.setRequired(true);
+        requestBody.setContent(buildContent(body.name(), itemsSchema));
+        operation.setRequestBody(requestBody);
+
+        List<TypeDeclaration> responseBodies = method.responses()
+            .isEmpty() ? Collections.emptyList()
+                : method.responses()
+                    .get(0)
+                    .body();
+        TypeDeclaration responseBody = responseBodies.isEmpty() ? null : responseBodies.get(0);
+        APIResponse apiResponse = new APIResponseImpl();
+        apiResponse.setDescription("Result per item, in the order of the request");
+        apiResponse.setContent(buildContent(
+            (responseBody == null) ? body.name() : responseBody.name(),
+            buildBulkResultSchema(responseBody)));
+        APIResponses responses = new APIResponsesImpl();
+        responses.addAPIResponse("200", apiResponse);
+        operation.setResponses(responses);
+    }
+
+    private Schema buildBulkResultSchema(TypeDeclaration responseBody) {
+        Schema itemResult = new SchemaImpl();
+        itemResult.setType(SchemaType.OBJECT);
+        itemResult.addProperty("status", new SchemaImpl().type(SchemaType.INTEGER));
+        if (responseBody != null) {
+            itemResult.addProperty("value", schemaBuilder.toSchema(responseBody));
+        }
+        itemResult.addProperty("error", new SchemaImpl().type(SchemaType.STRING));
+        itemResult.addRequired("status");
+
+        Schema items = new SchemaImpl();
+        items.setType(SchemaType.ARRAY);
+        items.setItems(itemResult);
+
+        Schema bulkResult = new SchemaImpl();
+        bulkResult.setType(SchemaType.OBJECT);
+        bulkResult.addProperty("items", items);
+        bulkResult.addRequired("items");
+        return bulkResult;
+    }
+
+    private Content buildContent(String mediaTypeName, Schema schema) {
+        Content content = new ContentImpl();
+        MediaTypeImpl mediaType = new MediaTypeImpl();
+        mediaType.setSchema(schema);
+        content.addMediaType(mediaTypeName, mediaType);
+        return content;
     }
 
     private void addResponses(Operation operation, Method method) {
@@ -130,6 +219,13 @@ public class OpenApiResourceVisitor implements ApiVisitor {
             responses.addAPIResponse(response.code()
                 .value(), convertResponse(response));
         }
+        if (method.responses()
+            .isEmpty()) {
+            // OpenAPI requires at least one response per operation
+            APIResponse defaultResponse = new APIResponseImpl();
+            defaultResponse.setDescription("Default response");
+            responses.setDefaultValue(defaultResponse);
+        }
     }
 
     private void addBody(Operation operation, Method method) {
@@ -179,7 +275,7 @@ public class OpenApiResourceVisitor implements ApiVisitor {
     }
 
     private Operation addOperation(Method method) {
-        Operation operation = buildOperation(method);
+        Operation operation = buildOperation(pathItem, method);
         operation.addTag(findTagName(outerResource));
 
         operation.setSummary(method.displayName()
@@ -191,7 +287,7 @@ public class OpenApiResourceVisitor implements ApiVisitor {
         return operation;
     }
 
-    private Operation buildOperation(Method method) {
+    private Operation buildOperation(PathItem pathItem, Method method) {
         Operation operation = new OperationImpl();
         switch (method.method()) {
             case "delete":
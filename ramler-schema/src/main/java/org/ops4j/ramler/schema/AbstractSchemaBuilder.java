@@ -0,0 +1,275 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.schema;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+
+import org.ops4j.ramler.common.model.ApiModel;
+import org.ops4j.ramler.common.model.Metatype;
+import org.raml.v2.api.model.v10.datamodel.ArrayTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.NumberTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.UnionTypeDeclaration;
+
+/**
+ * Common base class of schema builders, resolving type references of the RAML model.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public abstract class AbstractSchemaBuilder {
+
+    /** Number format for 64 bit integers. */
+    protected static final String INT64 = "int64";
+
+    /** Number format for single precision floating point numbers. */
+    protected static final String FLOAT = "float";
+
+    /** Name of fields for additional properties. */
+    protected static final String ADDITIONAL_PROPERTIES = "additionalProperties";
+
+    /** Extended API model. */
+    protected ApiModel apiModel;
+
+    /**
+     * Creates a schema builder for the given API model.
+     *
+     * @param apiModel
+     *            API model
+     */
+    protected AbstractSchemaBuilder(ApiModel apiModel) {
+        this.apiModel = apiModel;
+    }
+
+    /**
+     * Finds the declared type with the given name.
+     *
+     * @param typeName
+     *            type name, may be null
+     * @return declared type, or null for built-in and inline types
+     */
+    protected TypeDeclaration findDeclaredType(String typeName) {
+        if (typeName == null) {
+            return null;
+        }
+        return apiModel.getDeclaredType(typeName);
+    }
+
+    /**
+     * Resolves the given type declaration, referring to a type with the given name, to the declared
+     * type, if any.
+     *
+     * @param decl
+     *            property, item or variant declaration
+     * @param typeName
+     *            name of referenced type
+     * @return declared type, or the given declaration
+     */
+    protected TypeDeclaration resolve(TypeDeclaration decl, String typeName) {
+        TypeDeclaration declared = findDeclaredType(typeName);
+        return (declared == null) ? decl : declared;
+    }
+
+    /**
+     * Checks if the given declared type maps to a named type of the target schema. These are object
+     * types, enumeration types and union types.
+     *
+     * @param declared
+     *            declared type, may be null
+     * @return true if the type is referenced by name
+     */
+    protected boolean isNamedType(TypeDeclaration declared) {
+        if (declared == null) {
+            return false;
+        }
+        Metatype metatype = apiModel.metatype(declared);
+        return metatype == Metatype.OBJECT || metatype == Metatype.UNION
+            || apiModel.isEnum(declared);
+    }
+
+    /**
+     * Gets the item type of the given array type, resolved to a declared type, if any.
+     *
+     * @param array
+     *            array type
+     * @return item type
+     */
+    protected TypeDeclaration getItemType(ArrayTypeDeclaration array) {
+        return resolve(array.items(), apiModel.getItemType(array));
+    }
+
+    /**
+     * Gets the variants of the given union type, omitting {@code nil}. Each variant is resolved to
+     * a declared type, if any.
+     *
+     * @param union
+     *            union type
+     * @return non-null variants
+     */
+    protected List<TypeDeclaration> getVariants(UnionTypeDeclaration union) {
+        return union.of()
+            .stream()
+            .filter(v -> apiModel.metatype(v) != Metatype.NULL)
+            .map(v -> resolve(v, v.name()))
+            .collect(toList());
+    }
+
+    /**
+     * Checks if the given union type contains {@code nil}.
+     *
+     * @param union
+     *            union type
+     * @return true if union is nullable
+     */
+    protected boolean isNullable(UnionTypeDeclaration union) {
+        return union.of()
+            .stream()
+            .anyMatch(v -> apiModel.metatype(v) == Metatype.NULL);
+    }
+
+    /**
+     * Checks if the given property is a pattern property representing additional properties.
+     *
+     * @param property
+     *            object property
+     * @return true for additional properties
+     */
+    protected boolean isAdditionalProperties(TypeDeclaration property) {
+        return property.name()
+            .startsWith("/");
+    }
+
+    /**
+     * Checks if the given property is required.
+     *
+     * @param property
+     *            object property
+     * @return true if required
+     */
+    protected boolean isRequired(TypeDeclaration property) {
+        return Boolean.TRUE.equals(property.required());
+    }
+
+    /**
+     * Gets the description of the given type or property.
+     *
+     * @param decl
+     *            type declaration
+     * @return description, or null
+     */
+    protected String getDescription(TypeDeclaration decl) {
+        if (decl.description() == null) {
+            return null;
+        }
+        return decl.description()
+            .value();
+    }
+
+    /**
+     * Gets the number format of the given number type.
+     *
+     * @param decl
+     *            type declaration
+     * @return number format, or null
+     */
+    protected String getFormat(TypeDeclaration decl) {
+        if (decl instanceof NumberTypeDeclaration) {
+            return ((NumberTypeDeclaration) decl).format();
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the given number type has a 64 bit integer format.
+     *
+     * @param decl
+     *            number type
+     * @return true for 64 bit integers
+     */
+    protected boolean isLong(TypeDeclaration decl) {
+        String format = getFormat(decl);
+        return INT64.equals(format) || "long".equals(format);
+    }
+
+    /**
+     * Checks if the given number type has an integer format.
+     *
+     * @param decl
+     *            number type
+     * @return true for integer formats
+     */
+    protected boolean isIntegerFormat(TypeDeclaration decl) {
+        String format = getFormat(decl);
+        return (format != null && format.startsWith("int")) || isLong(decl);
+    }
+
+    /**
+     * Converts the given name to a valid identifier, replacing all illegal characters by
+     * underscores.
+     *
+     * @param name
+     *            name
+     * @return identifier
+     */
+    protected static String toIdentifier(String name) {
+        StringBuilder builder = new StringBuilder();
+        for (char c : name.toCharArray()) {
+            builder.append(Character.isLetterOrDigit(c) && c < 128 ? c : '_');
+        }
+        if (builder.length() == 0 || Character.isDigit(builder.charAt(0))) {
+            builder.insert(0, '_');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Converts the given camel case name to a lower case identifier with underscores.
+     *
+     * @param name
+     *            name
+     * @return snake case identifier
+     */
+    protected static String toSnakeCase(String name) {
+        String identifier = toIdentifier(name);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < identifier.length(); i++) {
+            char c = identifier.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0 && isWordStart(identifier, i)
+                    && builder.charAt(builder.length() - 1) != '_') {
+                    builder.append('_');
+                }
+                builder.append(Character.toLowerCase(c));
+            }
+            else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isWordStart(String identifier, int index) {
+        if (!Character.isUpperCase(identifier.charAt(index - 1))) {
+            return true;
+        }
+        return index + 1 < identifier.length()
+            && Character.isLowerCase(identifier.charAt(index + 1));
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.schema;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.ops4j.ramler.common.exc.GeneratorException;
+import org.ops4j.ramler.common.model.ApiModel;
+import org.ops4j.ramler.common.model.EnumValue;
+import org.raml.v2.api.model.v10.datamodel.ArrayTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.UnionTypeDeclaration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Builds an Avro schema from the types of a RAML model.
+ * <p>
+ * The schema is a JSON array with a named schema for each object type and enumeration type. Object
+ * types are mapped to records with all inherited properties. Union types are not named in Avro, so
+ * they are expanded at each usage. Arrays are mapped to Avro arrays and additional properties to
+ * Avro maps.
+ * <p>
+ * Avro requires named types to be defined before they are referenced. Thus, a named type is defined
+ * inline at its first usage, and referenced by name afterwards.
+ * <p>
+ * Optional properties are mapped to a union with {@code null} and a {@code null} default value, so
+ * that readers can resolve records written by older schema versions.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class AvroSchemaBuilder extends AbstractSchemaBuilder {
+
+    private static final String TYPE = "type";
+
+    private static final String NAME = "name";
+
+    private static final String NULL = "null";
+
+    private static final String STRING = "string";
+
+    private JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+    private String namespace;
+
+    private Set<String> definedTypes = new HashSet<>();
+
+    /**
+     * Creates an Avro schema builder.
+     *
+     * @param apiModel
+     *            API model
+     * @param namespace
+     *            Avro namespace, may be null
+     */
+    public AvroSchemaBuilder(ApiModel apiModel, String namespace) {
+        super(apiModel);
+        this.namespace = namespace;
+    }
+
+    /**
+     * Builds the Avro schema for all declared types.
+     *
+     * @return array of named Avro schemas
+     */
+    public ArrayNode buildSchema() {
+        ArrayNode schemas = nodeFactory.arrayNode();
+        for (TypeDeclaration type : apiModel.getTypes()) {
+            if (definedTypes.contains(type.name())) {
+                continue;
+            }
+            ObjectNode schema = null;
+            if (type instanceof ObjectTypeDeclaration) {
+                if (!apiModel.isInternal((ObjectTypeDeclaration) type)) {
+                    schema = buildRecord((ObjectTypeDeclaration) type);
+                }
+            }
+            else if (apiModel.isEnum(type)) {
+                schema = buildEnum(type);
+            }
+            if (schema != null) {
+                if (namespace != null) {
+                    schema.put("namespace", namespace);
+                }
+                schemas.add(schema);
+            }
+        }
+        return schemas;
+    }
+
+    private ObjectNode buildRecord(ObjectTypeDeclaration type) {
+        definedTypes.add(type.name());
+        ObjectNode record = nodeFactory.objectNode();
+        record.put(TYPE, "record");
+        record.put(NAME, type.name());
+        putDoc(record, getDescription(type));
+        ArrayNode fields = record.putArray("fields");
+        for (TypeDeclaration property : type.properties()) {
+            fields.add(buildField(property));
+        }
+        return record;
+    }
+
+    private ObjectNode buildField(TypeDeclaration property) {
+        ObjectNode field = nodeFactory.objectNode();
+        TypeDeclaration type = resolve(property, property.type());
+        JsonNode schema;
+        if (isAdditionalProperties(property)) {
+            field.put(NAME, ADDITIONAL_PROPERTIES);
+            ObjectNode map = nodeFactory.objectNode();
+            map.put(TYPE, "map");
+            map.set("values", toSchema(type));
+            schema = map;
+        }
+        else {
+            field.put(NAME, toIdentifier(property.name()));
+            schema = toSchema(type);
+        }
+        putDoc(field, getDescription(property));
+        if (isRequired(property)) {
+            field.set(TYPE, schema);
+        }
+        else {
+            field.set(TYPE, toNullable(schema));
+            field.set("default", NullNode.getInstance());
+        }
+        return field;
+    }
+
+    private ObjectNode buildEnum(TypeDeclaration type) {
+        definedTypes.add(type.name());
+        ObjectNode enumSchema = nodeFactory.objectNode();
+        enumSchema.put(TYPE, "enum");
+        enumSchema.put(NAME, type.name());
+        putDoc(enumSchema, getDescription(type));
+        ArrayNode symbols = enumSchema.putArray("symbols");
+        for (EnumValue value : apiModel.getEnumValues(type)) {
+            symbols.add(toIdentifier(value.getName()));
+        }
+        return enumSchema;
+    }
+
+    private JsonNode toSchema(TypeDeclaration type) {
+        TypeDeclaration declared = findDeclaredType(type.name());
+        if (declared == type && definedTypes.contains(type.name())) {
+            return TextNode.valueOf(type.name());
+        }
+        if (type instanceof UnionTypeDeclaration) {
+            return toUnionSchema((UnionTypeDeclaration) type);
+        }
+        if (declared == type && type instanceof ObjectTypeDeclaration) {
+            return buildRecord((ObjectTypeDeclaration) type);
+        }
+        if (declared == type && apiModel.isEnum(type)) {
+            return buildEnum(type);
+        }
+        switch (apiModel.metatype(type)) {
+            case STRING:
+            case DATE_ONLY:
+            case DATETIME:
+            case DATETIME_ONLY:
+            case TIME_ONLY:
+            case ANY:
+            case OBJECT:
+                return TextNode.valueOf(STRING);
+            case BOOLEAN:
+                return TextNode.valueOf("boolean");
+            case INTEGER:
+                return TextNode.valueOf(isLong(type) ? "long" : "int");
+            case NUMBER:
+                return TextNode.valueOf(toNumberType(type));
+            case FILE:
+                return TextNode.valueOf("bytes");
+            case ARRAY:
+                return toArraySchema((ArrayTypeDeclaration) type);
+            default:
+                throw new GeneratorException("cannot map type " + type.name() + " to Avro");
+        }
+    }
+
+    private String toNumberType(TypeDeclaration type) {
+        if (isLong(type)) {
+            return "long";
+        }
+        if (isIntegerFormat(type)) {
+            return "int";
+        }
+        return FLOAT.equals(getFormat(type)) ? FLOAT : "double";
+    }
+
+    private ObjectNode toArraySchema(ArrayTypeDeclaration type) {
+        ObjectNode array = nodeFactory.objectNode();
+        array.put(TYPE, "array");
+        array.set("items", toSchema(getItemType(type)));
+        return array;
+    }
+
+    private JsonNode toUnionSchema(UnionTypeDeclaration type) {
+        ArrayNode union = nodeFactory.arrayNode();
+        if (isNullable(type)) {
+            union.add(NULL);
+        }
+        List<TypeDeclaration> variants = getVariants(type);
+        for (TypeDeclaration variant : variants) {
+            JsonNode variantSchema = toSchema(variant);
+            if (variantSchema.isArray()) {
+                union.addAll((ArrayNode) variantSchema);
+            }
+            else {
+                union.add(variantSchema);
+            }
+        }
+        if (union.size() == 1) {
+            return union.get(0);
+        }
+        return union;
+    }
+
+    private JsonNode toNullable(JsonNode schema) {
+        ArrayNode union = nodeFactory.arrayNode();
+        union.add(NULL);
+        if (schema.isArray()) {
+            for (JsonNode variant : schema) {
+                if (!NULL.equals(variant.asText())) {
+                    union.add(variant);
+                }
+            }
+        }
+        else {
+            union.add(schema);
+        }
+        return union;
+    }
+
+    private void putDoc(ObjectNode node, String description) {
+        if (description != null) {
+            node.put("doc", description.trim());
+        }
+    }
+}
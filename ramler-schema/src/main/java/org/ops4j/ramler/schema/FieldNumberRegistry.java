@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.ops4j.ramler.common.exc.GeneratorException;
+import org.ops4j.ramler.common.helper.FileHelper;
+
+/**
+ * Persistent registry of field numbers for binary schemas.
+ * <p>
+ * Binary wire formats identify fields by number, so a field must keep its number for the lifetime
+ * of a schema. The registry is stored in a sidecar properties file with entries like
+ * {@code Book.title=2}, mapping a member of a type to its number. Members are object properties,
+ * enumeration values and union variants.
+ * <p>
+ * New members get the next free number of their type. Numbers are never reused: when a member is
+ * removed from the RAML specification, its entry remains in the registry and its number is reported
+ * as retired.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class FieldNumberRegistry {
+
+    private static final int FIRST_IMPLEMENTATION_RESERVED = 19000;
+
+    private static final int LAST_IMPLEMENTATION_RESERVED = 19999;
+
+    private File file;
+
+    private Map<String, Map<String, Integer>> numbers = new TreeMap<>();
+
+    private Set<String> usedKeys = new HashSet<>();
+
+    private boolean modified;
+
+    /**
+     * Creates a registry backed by the given file.
+     *
+     * @param file
+     *            sidecar file, which need not exist
+     */
+    public FieldNumberRegistry(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the field numbers from the sidecar file, if it exists.
+     */
+    public void load() {
+        if (!file.exists()) {
+            return;
+        }
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        catch (IOException exc) {
+            throw new GeneratorException("cannot read " + file, exc);
+        }
+        for (String key : props.stringPropertyNames()) {
+            int dot = key.indexOf('.');
+            if (dot <= 0) {
+                throw new GeneratorException("invalid key in " + file + ": " + key);
+            }
+            try {
+                int number = Integer.parseInt(props.getProperty(key)
+                    .trim());
+                members(key.substring(0, dot)).put(key.substring(dot + 1), number);
+            }
+            catch (NumberFormatException exc) {
+                throw new GeneratorException("invalid number in " + file + ": " + key, exc);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of the given member of the given type, assigning the next free number if the
+     * member is new. Numbers start at 1.
+     *
+     * @param typeName
+     *            type name
+     * @param member
+     *            member name
+     * @return member number
+     */
+    public int getNumber(String typeName, String member) {
+        usedKeys.add(typeName + "." + member);
+        Map<String, Integer> typeNumbers = members(typeName);
+        Integer number = typeNumbers.get(member);
+        if (number == null) {
+            int next = typeNumbers.values()
+                .stream()
+                .mapToInt(Integer::intValue)
+                .max()
+                .orElse(0) + 1;
+            if (next >= FIRST_IMPLEMENTATION_RESERVED && next <= LAST_IMPLEMENTATION_RESERVED) {
+                next = LAST_IMPLEMENTATION_RESERVED + 1;
+            }
+            number = next;
+            typeNumbers.put(member, number);
+            modified = true;
+        }
+        return number;
+    }
+
+    /**
+     * Gets the retired members of the given type, i.e. all registered members for which
+     * {@link #getNumber(String, String)} has not been called since this registry was loaded.
+     *
+     * @param typeName
+     *            type name
+     * @return map of retired member names to numbers, sorted by number
+     */
+    public Map<String, Integer> getRetiredMembers(String typeName) {
+        Map<String, Integer> retired = new LinkedHashMap<>();
+        members(typeName).entrySet()
+            .stream()
+            .filter(e -> !usedKeys.contains(typeName + "." + e.getKey()))
+            .sorted(Map.Entry.comparingByValue())
+            .forEach(e -> retired.put(e.getKey(), e.getValue()));
+        return retired;
+    }
+
+    /**
+     * Checks if new numbers have been assigned since this registry was loaded.
+     *
+     * @return true if the registry has been modified
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Saves the field numbers to the sidecar file, if the registry has been modified. Entries are
+     * sorted by type name and number, to minimize differences under version control.
+     */
+    public void save() {
+        if (!modified) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("# Field numbers of binary schemas generated by Ramler.\n");
+        builder.append("# Do not change or remove existing entries.\n");
+        for (Map.Entry<String, Map<String, Integer>> type : numbers.entrySet()) {
+            type.getValue()
+                .entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByValue())
+                .forEach(e -> builder.append(escape(type.getKey() + "." + e.getKey()))
+                    .append('=')
+                    .append(e.getValue())
+                    .append('\n'));
+        }
+        File dir = file.getAbsoluteFile()
+            .getParentFile();
+        if (dir != null) {
+            FileHelper.createDirectoryIfNeeded(dir);
+        }
+        FileHelper.writeToFile(builder.toString(), file);
+        modified = false;
+    }
+
+    private Map<String, Integer> members(String typeName) {
+        return numbers.computeIfAbsent(typeName, k -> new LinkedHashMap<>());
+    }
+
+    private static String escape(String key) {
+        StringBuilder builder = new StringBuilder();
+        for (char c : key.toCharArray()) {
+            if (c == '\\' || c == ':' || c == '=' || c == ' ' || c == '#' || c == '!') {
+                builder.append('\\');
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
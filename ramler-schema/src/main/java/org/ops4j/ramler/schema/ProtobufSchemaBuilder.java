@@ -0,0 +1,359 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.schema;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.ops4j.ramler.common.exc.GeneratorException;
+import org.ops4j.ramler.common.model.ApiModel;
+import org.ops4j.ramler.common.model.EnumValue;
+import org.ops4j.ramler.common.model.Metatype;
+import org.raml.v2.api.model.v10.datamodel.ArrayTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.ObjectTypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
+import org.raml.v2.api.model.v10.datamodel.UnionTypeDeclaration;
+
+/**
+ * Builds a Protocol Buffers 3 schema from the types of a RAML model.
+ * <p>
+ * Object types are mapped to messages with all inherited properties, enumeration types to enums and
+ * union types to messages with a {@code oneof} group. Arrays are mapped to repeated fields and
+ * additional properties to maps. Optional scalar properties are declared {@code optional}, to
+ * preserve field presence.
+ * <p>
+ * Field numbers and enumeration value numbers are taken from a {@link FieldNumberRegistry}. Numbers
+ * and names of members removed from the RAML model are declared as reserved.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class ProtobufSchemaBuilder extends AbstractSchemaBuilder {
+
+    private static final String INDENT = "    ";
+
+    private static final String STRUCT_PROTO = "google/protobuf/struct.proto";
+
+    private FieldNumberRegistry registry;
+
+    private String packageName;
+
+    private Set<String> imports = new TreeSet<>();
+
+    private StringBuilder out;
+
+    /**
+     * Creates a Protobuf schema builder.
+     *
+     * @param apiModel
+     *            API model
+     * @param registry
+     *            field number registry
+     * @param packageName
+     *            Protobuf package, may be null
+     */
+    public ProtobufSchemaBuilder(ApiModel apiModel, FieldNumberRegistry registry,
+        String packageName) {
+        super(apiModel);
+        this.registry = registry;
+        this.packageName = packageName;
+    }
+
+    /**
+     * Builds the Protobuf schema for all declared types.
+     *
+     * @return content of {@code .proto} file
+     */
+    public String buildSchema() {
+        out = new StringBuilder();
+        for (TypeDeclaration type : apiModel.getTypes()) {
+            if (type instanceof ObjectTypeDeclaration) {
+                if (!apiModel.isInternal((ObjectTypeDeclaration) type)) {
+                    buildMessage((ObjectTypeDeclaration) type);
+                }
+            }
+            else if (type instanceof UnionTypeDeclaration) {
+                buildUnionMessage((UnionTypeDeclaration) type);
+            }
+            else if (apiModel.isEnum(type)) {
+                buildEnum(type);
+            }
+        }
+
+        StringBuilder header = new StringBuilder("syntax = \"proto3\";\n\n");
+        if (packageName != null) {
+            header.append("package ")
+                .append(packageName)
+                .append(";\n\n");
+        }
+        for (String imported : imports) {
+            header.append("import \"")
+                .append(imported)
+                .append("\";\n");
+        }
+        if (!imports.isEmpty()) {
+            header.append('\n');
+        }
+        return header.append(out)
+            .toString();
+    }
+
+    private void buildMessage(ObjectTypeDeclaration type) {
+        String messageName = type.name();
+        appendComment("", getDescription(type));
+        out.append("message ")
+            .append(messageName)
+            .append(" {\n");
+        for (TypeDeclaration property : type.properties()) {
+            buildField(messageName, property);
+        }
+        appendReserved(messageName, this::toFieldName);
+        out.append("}\n\n");
+    }
+
+    private void buildField(String messageName, TypeDeclaration property) {
+        appendComment(INDENT, getDescription(property));
+        String member = property.name();
+        if (isAdditionalProperties(property)) {
+            String valueType = toSingularType(resolve(property, property.type()));
+            appendField("", "map<string, " + valueType + ">", toFieldName(member),
+                registry.getNumber(messageName, member));
+            return;
+        }
+
+        TypeDeclaration declared = findDeclaredType(property.type());
+        TypeDeclaration type = (declared == null) ? property : declared;
+        boolean optional = !isRequired(property);
+        if (declared == null && type instanceof UnionTypeDeclaration) {
+            UnionTypeDeclaration union = (UnionTypeDeclaration) type;
+            List<TypeDeclaration> variants = getVariants(union);
+            if (variants.size() > 1) {
+                buildOneOf(messageName, member, variants);
+                return;
+            }
+            type = variants.get(0);
+            optional |= isNullable(union);
+        }
+
+        if (type instanceof ArrayTypeDeclaration) {
+            String itemType = toSingularType(getItemType((ArrayTypeDeclaration) type));
+            appendField("repeated ", itemType, toFieldName(member),
+                registry.getNumber(messageName, member));
+        }
+        else {
+            String fieldType = toSingularType(type);
+            String label = optional && !isMessage(type) ? "optional " : "";
+            appendField(label, fieldType, toFieldName(member),
+                registry.getNumber(messageName, member));
+        }
+    }
+
+    private void buildOneOf(String messageName, String member, List<TypeDeclaration> variants) {
+        out.append(INDENT)
+            .append("oneof ")
+            .append(toFieldName(member))
+            .append(" {\n");
+        for (TypeDeclaration variant : variants) {
+            String variantMember = member + "." + variant.name();
+            out.append(INDENT);
+            appendField("", toSingularType(variant), toFieldName(variantMember),
+                registry.getNumber(messageName, variantMember));
+        }
+        out.append(INDENT)
+            .append("}\n");
+    }
+
+    private void buildUnionMessage(UnionTypeDeclaration type) {
+        String messageName = type.name();
+        appendComment("", getDescription(type));
+        out.append("message ")
+            .append(messageName)
+            .append(" {\n");
+        buildOneOfVariants(messageName, getVariants(type));
+        appendReserved(messageName, this::toVariantFieldName);
+        out.append("}\n\n");
+    }
+
+    private void buildOneOfVariants(String messageName, List<TypeDeclaration> variants) {
+        out.append(INDENT)
+            .append("oneof ")
+            .append(toSnakeCase(messageName))
+            .append(" {\n");
+        for (TypeDeclaration variant : variants) {
+            out.append(INDENT);
+            appendField("", toSingularType(variant), toVariantFieldName(variant.name()),
+                registry.getNumber(messageName, variant.name()));
+        }
+        out.append(INDENT)
+            .append("}\n");
+    }
+
+    private void buildEnum(TypeDeclaration type) {
+        String enumName = type.name();
+        String prefix = toSnakeCase(enumName).toUpperCase(Locale.ROOT) + "_";
+        appendComment("", getDescription(type));
+        out.append("enum ")
+            .append(enumName)
+            .append(" {\n");
+        out.append(INDENT)
+            .append(prefix)
+            .append("UNSPECIFIED = 0;\n");
+        for (EnumValue value : apiModel.getEnumValues(type)) {
+            appendComment(INDENT, value.getDescription());
+            out.append(INDENT)
+                .append(prefix)
+                .append(toEnumConstant(value.getName()))
+                .append(" = ")
+                .append(registry.getNumber(enumName, value.getName()))
+                .append(";\n");
+        }
+        appendReserved(enumName, v -> prefix + toEnumConstant(v));
+        out.append("}\n\n");
+    }
+
+    private String toSingularType(TypeDeclaration type) {
+        if (isDeclaredNamedType(type)) {
+            return type.name();
+        }
+        switch (apiModel.metatype(type)) {
+            case STRING:
+            case DATE_ONLY:
+            case DATETIME:
+            case DATETIME_ONLY:
+            case TIME_ONLY:
+                return "string";
+            case BOOLEAN:
+                return "bool";
+            case INTEGER:
+                return isLong(type) ? INT64 : "int32";
+            case NUMBER:
+                return toNumberType(type);
+            case FILE:
+                return "bytes";
+            case ANY:
+                imports.add(STRUCT_PROTO);
+                return "google.protobuf.Value";
+            case OBJECT:
+                imports.add(STRUCT_PROTO);
+                return "google.protobuf.Struct";
+            default:
+                throw new GeneratorException(
+                    "cannot map type " + type.name() + " to Protobuf, nested collections and "
+                        + "inline unions are only supported for properties");
+        }
+    }
+
+    private String toNumberType(TypeDeclaration type) {
+        if (isLong(type)) {
+            return INT64;
+        }
+        if (isIntegerFormat(type)) {
+            return "int32";
+        }
+        return FLOAT.equals(getFormat(type)) ? FLOAT : "double";
+    }
+
+    private boolean isDeclaredNamedType(TypeDeclaration type) {
+        TypeDeclaration declared = findDeclaredType(type.name());
+        return declared == type && isNamedType(declared);
+    }
+
+    private boolean isMessage(TypeDeclaration type) {
+        Metatype metatype = apiModel.metatype(type);
+        return metatype == Metatype.OBJECT || metatype == Metatype.UNION
+            || metatype == Metatype.ANY;
+    }
+
+    private String toFieldName(String member) {
+        if (isAdditionalProperties(member)) {
+            return toSnakeCase(ADDITIONAL_PROPERTIES);
+        }
+        int dot = member.indexOf('.');
+        if (dot > 0) {
+            return toSnakeCase(member.substring(0, dot)) + "_"
+                + toSnakeCase(member.substring(dot + 1));
+        }
+        return toSnakeCase(member);
+    }
+
+    private String toVariantFieldName(String variantName) {
+        String fieldName = toSnakeCase(variantName);
+        return Metatype.isBuiltIn(variantName) ? fieldName + "_value" : fieldName;
+    }
+
+    private boolean isAdditionalProperties(String member) {
+        return member.startsWith("/");
+    }
+
+    private String toEnumConstant(String value) {
+        return toIdentifier(value).toUpperCase(Locale.ROOT);
+    }
+
+    private void appendField(String label, String type, String name, int number) {
+        out.append(INDENT)
+            .append(label)
+            .append(type)
+            .append(' ')
+            .append(name)
+            .append(" = ")
+            .append(number)
+            .append(";\n");
+    }
+
+    private void appendReserved(String typeName, Function<String, String> nameMapper) {
+        Map<String, Integer> retired = registry.getRetiredMembers(typeName);
+        if (retired.isEmpty()) {
+            return;
+        }
+        out.append(INDENT)
+            .append("reserved ")
+            .append(retired.values()
+                .stream()
+                .map(String::valueOf)
+                .collect(joining(", ")))
+            .append(";\n");
+        out.append(INDENT)
+            .append("reserved ")
+            .append(retired.keySet()
+                .stream()
+                .map(nameMapper)
+                .distinct()
+                .map(n -> "\"" + n + "\"")
+                .collect(joining(", ")))
+            .append(";\n");
+    }
+
+    private void appendComment(String indent, String comment) {
+        if (comment == null) {
+            return;
+        }
+        for (String line : comment.trim()
+            .split("\\r?\\n")) {
+            out.append(indent)
+                .append("// ")
+                .append(line.trim())
+                .append('\n');
+        }
+    }
+}
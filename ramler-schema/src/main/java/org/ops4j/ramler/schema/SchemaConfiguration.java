@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.schema;
+
+import java.io.File;
+
+/**
+ * Configuration of the schema generator.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class SchemaConfiguration {
+
+    private String sourceFile;
+
+    private File targetDir;
+
+    private String packageName;
+
+    private File fieldNumberFile;
+
+    private boolean generateProtobuf;
+
+    private boolean generateAvro;
+
+    /**
+     * Gets the RAML source file name.
+     *
+     * @return source file name
+     */
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    /**
+     * Sets the RAML source file name.
+     *
+     * @param sourceFile
+     *            source file name
+     */
+    public void setSourceFile(String sourceFile) {
+        this.sourceFile = sourceFile;
+    }
+
+    /**
+     * Gets the target directory for the generated schema files.
+     *
+     * @return target directory
+     */
+    public File getTargetDir() {
+        return targetDir;
+    }
+
+    /**
+     * Sets the target directory.
+     *
+     * @param targetDir
+     *            target directory
+     */
+    public void setTargetDir(File targetDir) {
+        this.targetDir = targetDir;
+    }
+
+    /**
+     * Gets the Protobuf package and Avro namespace of the generated schemas.
+     *
+     * @return package name, or null
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Sets the Protobuf package and Avro namespace of the generated schemas.
+     *
+     * @param packageName
+     *            package name
+     */
+    public void setPackageName(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * Gets the sidecar file with the persistent field numbers. If not set, the file is located in
+     * the target directory, which is only suitable for one-off generation.
+     *
+     * @return field number file
+     */
+    public File getFieldNumberFile() {
+        return fieldNumberFile;
+    }
+
+    /**
+     * Sets the sidecar file with the persistent field numbers. This file should be kept under
+     * version control together with the RAML specification.
+     *
+     * @param fieldNumberFile
+     *            field number file
+     */
+    public void setFieldNumberFile(File fieldNumberFile) {
+        this.fieldNumberFile = fieldNumberFile;
+    }
+
+    /**
+     * Should the generator create a Protobuf schema?
+     *
+     * @return true if a {@code .proto} file will be created
+     */
+    public boolean isGenerateProtobuf() {
+        return generateProtobuf;
+    }
+
+    /**
+     * Sets the flag for generating a Protobuf schema.
+     *
+     * @param generateProtobuf
+     *            true if a {@code .proto} file will be created
+     */
+    public void setGenerateProtobuf(boolean generateProtobuf) {
+        this.generateProtobuf = generateProtobuf;
+    }
+
+    /**
+     * Should the generator create an Avro schema?
+     *
+     * @return true if an {@code .avsc} file will be created
+     */
+    public boolean isGenerateAvro() {
+        return generateAvro;
+    }
+
+    /**
+     * Sets the flag for generating an Avro schema.
+     *
+     * @param generateAvro
+     *            true if an {@code .avsc} file will be created
+     */
+    public void setGenerateAvro(boolean generateAvro) {
+        this.generateAvro = generateAvro;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.schema;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.ops4j.ramler.common.helper.FileHelper;
+import org.ops4j.ramler.common.model.ApiModel;
+import org.ops4j.ramler.common.model.ApiModelBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Generates binary wire format schemas from the types of a RAML model.
+ * <p>
+ * A Protocol Buffers schema {@code <BASENAME>.proto} and an Avro schema {@code <BASENAME>.avsc} can
+ * be generated, where {@code <BASENAME>} is the base name of the RAML source file. Field numbers
+ * are persisted in a sidecar file, which is updated when new members are added to the RAML model.
+ *
+ * @author Harald Wellmann
+ *
+ */
+public class SchemaGenerator {
+
+    private static Logger log = LoggerFactory.getLogger(SchemaGenerator.class);
+
+    private SchemaConfiguration config;
+
+    /**
+     * Creates a generator with the given configuration.
+     *
+     * @param config
+     *            schema generator configuration
+     */
+    public SchemaGenerator(SchemaConfiguration config) {
+        this.config = config;
+    }
+
+    /**
+     * Generates the configured schemas.
+     *
+     * @throws IOException
+     *             when output cannot be written
+     */
+    public void generate() throws IOException {
+        ApiModel apiModel = new ApiModelBuilder().buildApiModel(config.getSourceFile());
+        FileHelper.createDirectoryIfNeeded(config.getTargetDir());
+
+        String fileName = new File(config.getSourceFile()).getName();
+        String baseName = fileName;
+        int lastDot = fileName.lastIndexOf('.');
+        if (lastDot > 0) {
+            baseName = fileName.substring(0, lastDot);
+        }
+
+        if (config.isGenerateProtobuf()) {
+            File fieldNumberFile = config.getFieldNumberFile();
+            if (fieldNumberFile == null) {
+                fieldNumberFile = new File(config.getTargetDir(), baseName + ".fields");
+            }
+            FieldNumberRegistry registry = new FieldNumberRegistry(fieldNumberFile);
+            registry.load();
+            ProtobufSchemaBuilder builder = new ProtobufSchemaBuilder(apiModel, registry,
+                config.getPackageName());
+            String proto = builder.buildSchema();
+            FileHelper.writeToFile(proto, new File(config.getTargetDir(), baseName + ".proto"));
+            if (registry.isModified()) {
+                log.info("Updating field numbers in {}", fieldNumberFile);
+                registry.save();
+            }
+        }
+
+        if (config.isGenerateAvro()) {
+            AvroSchemaBuilder builder = new AvroSchemaBuilder(apiModel, config.getPackageName());
+            String avro = new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValueAsString(builder.buildSchema());
+            FileHelper.writeToFile(avro, new File(config.getTargetDir(), baseName + ".avsc"));
+        }
+    }
+}
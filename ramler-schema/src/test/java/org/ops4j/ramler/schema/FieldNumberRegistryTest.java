@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FieldNumberRegistryTest {
+
+    private File file = new File("target/generated/schema/registry/test.fields");
+
+    @BeforeEach
+    public void writeRegistry() throws IOException {
+        Files.createDirectories(file.getParentFile()
+            .toPath());
+        Files.write(file.toPath(),
+            Arrays.asList("Book.title=1", "Book.subtitle=2", "Book.author=3"),
+            StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shouldKeepExistingNumbers() {
+        FieldNumberRegistry registry = new FieldNumberRegistry(file);
+        registry.load();
+        assertThat(registry.getNumber("Book", "author")).isEqualTo(3);
+        assertThat(registry.getNumber("Book", "title")).isEqualTo(1);
+        assertThat(registry.isModified()).isFalse();
+    }
+
+    @Test
+    public void shouldNotReuseRetiredNumbers() {
+        FieldNumberRegistry registry = new FieldNumberRegistry(file);
+        registry.load();
+        registry.getNumber("Book", "title");
+        registry.getNumber("Book", "author");
+        assertThat(registry.getNumber("Book", "isbn")).isEqualTo(4);
+        assertThat(registry.getNumber("Author", "name")).isEqualTo(1);
+        assertThat(registry.getRetiredMembers("Book")).containsExactly(entry("subtitle", 2));
+    }
+
+    @Test
+    public void shouldSaveNewNumbers() throws IOException {
+        FieldNumberRegistry registry = new FieldNumberRegistry(file);
+        registry.load();
+        registry.getNumber("Book", "isbn");
+        registry.save();
+
+        assertThat(Files.readAllLines(file.toPath())).containsSubsequence("Book.title=1",
+            "Book.subtitle=2", "Book.author=3", "Book.isbn=4");
+
+        FieldNumberRegistry reloaded = new FieldNumberRegistry(file);
+        reloaded.load();
+        assertThat(reloaded.getNumber("Book", "isbn")).isEqualTo(4);
+        assertThat(reloaded.isModified()).isFalse();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class SchemaGeneratorTest {
+
+    private File targetDir = new File("target/generated/schema/library");
+
+    private File fieldNumberFile = new File(targetDir, "library.fields");
+
+    private String proto;
+
+    private JsonNode avro;
+
+    @BeforeAll
+    public void generate() throws IOException {
+        Files.deleteIfExists(fieldNumberFile.toPath());
+
+        SchemaConfiguration config = new SchemaConfiguration();
+        config.setSourceFile("raml/library.raml");
+        config.setTargetDir(targetDir);
+        config.setPackageName("org.ops4j.ramler.library");
+        config.setFieldNumberFile(fieldNumberFile);
+        config.setGenerateProtobuf(true);
+        config.setGenerateAvro(true);
+        new SchemaGenerator(config).generate();
+
+        proto = new String(Files.readAllBytes(new File(targetDir, "library.proto").toPath()),
+            StandardCharsets.UTF_8);
+        avro = new ObjectMapper().readTree(new File(targetDir, "library.avsc"));
+    }
+
+    @Test
+    public void shouldDeclarePackage() {
+        assertThat(proto).startsWith("syntax = \"proto3\";")
+            .contains("package org.ops4j.ramler.library;")
+            .contains("import \"google/protobuf/struct.proto\";");
+    }
+
+    @Test
+    public void shouldFlattenInheritedFields() {
+        assertThat(proto).contains("message Book {\n" + "    int64 id = 1;\n"
+            + "    string title = 2;\n" + "    string isbn = 3;\n"
+            + "    optional Genre genre = 4;\n" + "    repeated Author authors = 5;\n"
+            + "    repeated string tags = 6;\n" + "    optional float price = 7;\n"
+            + "    optional bytes cover = 8;\n" + "    optional string published = 9;\n"
+            + "    map<string, string> additional_properties = 10;\n" + "}");
+    }
+
+    @Test
+    public void shouldMapEnumWithUnspecifiedDefault() {
+        assertThat(proto).contains("enum Genre {\n" + "    GENRE_UNSPECIFIED = 0;\n"
+            + "    GENRE_FICTION = 1;\n" + "    GENRE_NONFICTION = 2;\n"
+            + "    GENRE_POETRY = 3;\n" + "}");
+    }
+
+    @Test
+    public void shouldMapUnionsToOneOf() {
+        assertThat(proto).contains("message Favourite {\n" + "    oneof favourite {\n"
+            + "        City city = 1;\n" + "        Dog dog = 2;\n" + "    }\n" + "}");
+        assertThat(proto).contains("    optional string nickname = 1;\n"
+            + "    Favourite favourite = 2;\n" + "    oneof pet {\n"
+            + "        City pet_city = 3;\n" + "        Dog pet_dog = 4;\n" + "    }\n"
+            + "    google.protobuf.Value extra = 5;\n");
+    }
+
+    @Test
+    public void shouldPersistFieldNumbers() throws IOException {
+        assertThat(Files.readAllLines(fieldNumberFile.toPath())).contains("Author.name=1",
+            "Author.born=2", "Book.isbn=3", "Book./^x-.*$/=10", "Genre.poetry=3",
+            "Reader.pet.Dog=4");
+    }
+
+    @Test
+    public void shouldDefineAvroRecordsBeforeUse() {
+        assertThat(avro.isArray()).isTrue();
+        JsonNode book = findSchema("Book");
+        assertThat(book.get("namespace")
+            .asText()).isEqualTo("org.ops4j.ramler.library");
+        JsonNode authors = book.get("fields")
+            .get(4);
+        assertThat(authors.get("name")
+            .asText()).isEqualTo("authors");
+        assertThat(authors.get("type")
+            .get("items")
+            .asText()).isEqualTo("Author");
+        assertThat(findSchema("Author")).isNotNull();
+        assertThat(findSchema("Genre")).isNull();
+    }
+
+    @Test
+    public void shouldMapOptionalAvroFieldsToNullableUnions() {
+        JsonNode genre = findSchema("Book").get("fields")
+            .get(3);
+        assertThat(genre.get("type")
+            .get(0)
+            .asText()).isEqualTo("null");
+        assertThat(genre.get("type")
+            .get(1)
+            .get("symbols")).hasSize(3);
+        assertThat(genre.get("default")
+            .isNull()).isTrue();
+    }
+
+    private JsonNode findSchema(String name) {
+        for (JsonNode schema : avro) {
+            if (name.equals(schema.get("name")
+                .asText())) {
+                return schema;
+            }
+        }
+        return null;
+    }
+}
@@ -17,9 +17,15 @@
  */
 package org.ops4j.ramler.typescript;
 
+import static org.ops4j.ramler.typescript.TypeScriptConstants.BULK_BATCHER;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.BULK_RESULT;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.PAGE;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.RESPONSE_CACHE;
+
 import java.util.Collections;
 
 import org.ops4j.ramler.common.exc.GeneratorException;
+import org.ops4j.ramler.common.model.Annotations;
 import org.ops4j.ramler.common.model.ApiTraverser;
 import org.ops4j.ramler.common.model.ApiVisitor;
 import org.raml.v2.api.model.v10.api.Api;
@@ -40,6 +46,10 @@ public class ResourceCreatingApiVisitor implements ApiVisitor {
     private Resource outerResource;
     private Resource innerResource;
     private int numResources;
+    private boolean paged;
+    private boolean bulk;
+    private boolean batched;
+    private boolean cached;
 
     /**
      * Creates a visitor with the given generator context.
@@ -60,6 +70,33 @@ public class ResourceCreatingApiVisitor implements ApiVisitor {
             context.writeToFile(context.getOutput()
                 .toString(), "RestResponse");
         }
+        if (paged) {
+            writeSupportModule("page", PAGE);
+        }
+        if (bulk) {
+            writeSupportModule("bulkResult", BULK_RESULT);
+        }
+        if (batched && context.getConfig()
+            .isAngularService()) {
+            writeSupportModule("bulkBatcher", BULK_BATCHER);
+        }
+        if (cached && context.getConfig()
+            .isAngularService()) {
+            writeSupportModule("responseCache", RESPONSE_CACHE);
+        }
+    }
+
+    private void writeSupportModule(String template, String typeName) {
+        if (context.getApiModel()
+            .getDeclaredType(typeName) != null) {
+            throw new GeneratorException(
+                "type " + typeName + " conflicts with a generated support module");
+        }
+        context.startOutput();
+        context.getMustache(template)
+            .render(context.getOutput(), Collections.emptyMap());
+        context.writeToFile(context.getOutput()
+            .toString(), typeName);
     }
 
     @Override
@@ -88,6 +125,17 @@ public class ResourceCreatingApiVisitor implements ApiVisitor {
         }
 
         for (Method method : resource.methods()) {
+            if (Annotations.findPaged(method) != null) {
+                paged = true;
+            }
+            if (context.getApiModel()
+                .isBulk(method)) {
+                bulk = true;
+                batched |= context.getApiModel()
+                    .isBatched(method);
+            }
+            cached |= context.getApiModel()
+                .isCached(method);
             ResourceMethodApiVisitor bodyVisitor = new ResourceMethodApiVisitor(context);
             traverser.traverse(method, bodyVisitor);
         }
@@ -18,6 +18,10 @@
 package org.ops4j.ramler.typescript;
 
 import static org.ops4j.ramler.java.JavaConstants.TYPE_ARGS;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.BULK_BATCHER;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.BULK_RESULT;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.PAGE;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.RESPONSE_CACHE;
 
 import java.util.Map;
 import java.util.TreeMap;
@@ -43,6 +47,7 @@ public class ResourceImportApiVisitor implements ApiVisitor {
     private Map<String, String> typeToModuleMap = new TreeMap<>();
     private Resource outerResource;
     private Resource innerResource;
+    private boolean service;
 
     /**
      * Creates a visitor with the given generator context.
@@ -51,7 +56,21 @@ public class ResourceImportApiVisitor implements ApiVisitor {
      *            generator context
      */
     public ResourceImportApiVisitor(TypeScriptGeneratorContext context) {
+        this(context, false);
+    }
+
+    /**
+     * Creates a visitor with the given generator context.
+     *
+     * @param context
+     *            generator context
+     * @param service
+     *            true if the imports are for a service module, which also needs the support classes
+     *            of the service implementation
+     */
+    public ResourceImportApiVisitor(TypeScriptGeneratorContext context, boolean service) {
         this.context = context;
+        this.service = service;
     }
 
     @Override
@@ -76,10 +95,35 @@ public class ResourceImportApiVisitor implements ApiVisitor {
             .forEach(this::addTypeToImports);
 
         for (TypeDeclaration body : method.body()) {
-            addTypeToImports(body.type());
-            Annotations.getStringAnnotations(body, TYPE_ARGS)
-                .forEach(this::addTypeToImports);
+            addBodyTypeToImports(body);
         }
+        method.responses()
+            .stream()
+            .limit(1)
+            .flatMap(r -> r.body()
+                .stream())
+            .forEach(this::addBodyTypeToImports);
+        if (Annotations.findPaged(method) != null) {
+            addTypeToImports(PAGE);
+        }
+        if (context.getApiModel()
+            .isBulk(method)) {
+            addTypeToImports(BULK_RESULT);
+        }
+        if (service && context.getApiModel()
+            .isBatched(method)) {
+            addTypeToImports(BULK_BATCHER);
+        }
+        if (service && context.getApiModel()
+            .isCached(method)) {
+            addTypeToImports(RESPONSE_CACHE);
+        }
+    }
+
+    private void addBodyTypeToImports(TypeDeclaration body) {
+        addTypeToImports(body.type());
+        Annotations.getStringAnnotations(body, TYPE_ARGS)
+            .forEach(this::addTypeToImports);
     }
 
     /**
@@ -17,11 +17,20 @@
  */
 package org.ops4j.ramler.typescript;
 
+import static org.ops4j.ramler.common.model.CommonConstants.BULK_SUFFIX;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.BULK_ITEMS;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.BULK_RESULT;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.CURSOR;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.FIELDS;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.LIMIT;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.PAGE;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.ops4j.ramler.common.helper.NameFactory;
+import org.ops4j.ramler.common.model.Annotations;
 import org.ops4j.ramler.common.model.ApiVisitor;
 import org.raml.v2.api.model.v10.bodies.Response;
 import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
@@ -66,12 +75,23 @@ public class ResourceMethodApiVisitor implements ApiVisitor {
         addBodyParameters(body, parameters);
         addPathParameters(method, parameters);
         addQueryParameters(method, parameters);
+        returnType = addSparseFieldsets(method, returnType, parameters);
+        returnType = addPaging(method, returnType, parameters);
 
         Map<String, Object> contextObject = ImmutableMap.of("name", name,
             "returnType", returnType,
             "parameters", parameters);
         context.getMustache("method")
             .render(context.getOutput(), contextObject);
+
+        if (context.getApiModel()
+            .isBulk(method)) {
+            contextObject = ImmutableMap.of("name", name + BULK_SUFFIX,
+                "returnType", getBulkReturnType(returnType),
+                "parameters", getBulkParameters(parameters));
+            context.getMustache("method")
+                .render(context.getOutput(), contextObject);
+        }
     }
 
     protected void addBodyParameters(TypeDeclaration body, List<Parameter> parameters) {
@@ -94,4 +114,85 @@ public class ResourceMethodApiVisitor implements ApiVisitor {
             .map(p -> new Parameter(p.name(), context.typeWithArgs(p)))
             .forEach(parameters::add);
     }
+
+    /**
+     * Adds a {@code fields} parameter for methods annotated with {@code (sparseFieldsets)},
+     * restricted to the property names of the response type, unless there is an explicit query
+     * parameter of this name. The response type is then a {@code Partial} of the original type.
+     *
+     * @param method
+     *            RAML method
+     * @param returnType
+     *            return type
+     * @param parameters
+     *            list of method parameters
+     * @return actual return type
+     */
+    protected String addSparseFieldsets(Method method, String returnType,
+        List<Parameter> parameters) {
+        if (!Annotations.isSparseFieldsets(method) || "void".equals(returnType)) {
+            return returnType;
+        }
+        if (!isQueryParameter(method, FIELDS)) {
+            parameters.add(new Parameter(FIELDS, "(keyof " + returnType + ")[]"));
+        }
+        return "Partial<" + returnType + ">";
+    }
+
+    /**
+     * Adds {@code limit} and {@code cursor} parameters for methods annotated with {@code (paged)},
+     * unless there are explicit query parameters of these names. The cursor is optional and comes
+     * last, so that the first page can be requested without a cursor. The response type is then a
+     * {@code Page} of the item type.
+     *
+     * @param method
+     *            RAML method
+     * @param returnType
+     *            return type
+     * @param parameters
+     *            list of method parameters
+     * @return actual return type
+     */
+    protected String addPaging(Method method, String returnType, List<Parameter> parameters) {
+        if (Annotations.findPaged(method) == null || !returnType.endsWith("[]")) {
+            return returnType;
+        }
+        if (!isQueryParameter(method, LIMIT)) {
+            parameters.add(new Parameter(LIMIT, "number"));
+        }
+        if (!isQueryParameter(method, CURSOR)) {
+            parameters.add(new Parameter(CURSOR + "?", "string"));
+        }
+        return PAGE + "<" + getItemType(returnType) + ">";
+    }
+
+    /**
+     * Gets the parameters of the bulk variant of a method, where the body parameter is replaced by
+     * an array of bodies.
+     *
+     * @param parameters
+     *            parameters of the single-item method, starting with the body
+     * @return parameters of the bulk method
+     */
+    protected List<Parameter> getBulkParameters(List<Parameter> parameters) {
+        List<Parameter> bulkParameters = new ArrayList<>(parameters);
+        Parameter body = bulkParameters.get(0);
+        bulkParameters.set(0, new Parameter(BULK_ITEMS, body.getType() + "[]"));
+        return bulkParameters;
+    }
+
+    protected String getBulkReturnType(String returnType) {
+        return BULK_RESULT + "<" + returnType + ">";
+    }
+
+    protected String getItemType(String arrayType) {
+        return arrayType.substring(0, arrayType.length() - 2);
+    }
+
+    protected boolean isQueryParameter(Method method, String name) {
+        return method.queryParameters()
+            .stream()
+            .anyMatch(p -> p.name()
+                .equals(name));
+    }
 }
@@ -64,7 +64,7 @@ public class ServiceCreatingApiVisitor implements ApiVisitor {
             String serviceName = buildServiceName(resource) + config.getServiceNameSuffix();
             String resourceName = buildResourceInterfaceName(resource, config);
 
-            ResourceImportApiVisitor importVisitor = new ResourceImportApiVisitor(context);
+            ResourceImportApiVisitor importVisitor = new ResourceImportApiVisitor(context, true);
             importVisitor.addTypeToImports(resourceName);
             traverser.traverse(resource, importVisitor);
             output.append("\n");
@@ -74,7 +74,10 @@ public class ServiceCreatingApiVisitor implements ApiVisitor {
                     "serviceName", serviceName,
                     "resourceName", resourceName,
                     "baseUrlToken", config.getAngularBaseUrlToken()));
-
+            if (hasCachedMethods(resource)) {
+                context.getMustache("serviceCache")
+                    .render(context.getOutput(), Collections.emptyMap());
+            }
         }
         else if (innerResource == null) {
             innerResource = resource;
@@ -89,6 +92,15 @@ public class ServiceCreatingApiVisitor implements ApiVisitor {
         }
     }
 
+    private boolean hasCachedMethods(Resource resource) {
+        return resource.methods()
+            .stream()
+            .anyMatch(context.getApiModel()::isCached)
+            || resource.resources()
+                .stream()
+                .anyMatch(this::hasCachedMethods);
+    }
+
     @Override
     public void visitResourceEnd(Resource resource) {
         if (innerResource != null) {
@@ -17,11 +17,20 @@
  */
 package org.ops4j.ramler.typescript;
 
+import static java.util.stream.Collectors.toList;
+import static org.ops4j.ramler.common.model.CommonConstants.BULK_PATH;
+import static org.ops4j.ramler.common.model.CommonConstants.BULK_SUFFIX;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.BULK_ITEMS;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.CURSOR;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.FIELDS;
+import static org.ops4j.ramler.typescript.TypeScriptConstants.LIMIT;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.ops4j.ramler.common.helper.NameFactory;
+import org.ops4j.ramler.common.model.Annotations;
 import org.raml.v2.api.model.v10.bodies.Response;
 import org.raml.v2.api.model.v10.datamodel.TypeDeclaration;
 import org.raml.v2.api.model.v10.methods.Method;
@@ -64,6 +73,10 @@ public class ServiceMethodApiVisitor extends ResourceMethodApiVisitor {
         addBodyParameters(body, parameters);
         addPathParameters(method, parameters);
         addQueryParameters(method, parameters);
+        boolean paged = Annotations.findPaged(method) != null && returnType.endsWith("[]");
+        String itemType = paged ? getItemType(returnType) : null;
+        returnType = addSparseFieldsets(method, returnType, parameters);
+        returnType = addPaging(method, returnType, parameters);
 
         String bodyArg = (body == null) ? "" : ", body";
         String path = method.resource()
@@ -74,33 +87,138 @@ public class ServiceMethodApiVisitor extends ResourceMethodApiVisitor {
             url = "this.baseUrl";
         }
 
+        List<String> queryParams = method.queryParameters()
+            .stream()
+            .map(TypeDeclaration::name)
+            .collect(toList());
+        if (Annotations.isSparseFieldsets(method) && !responseBody.isEmpty()
+            && !isQueryParameter(method, FIELDS)) {
+            queryParams.add(FIELDS);
+        }
+        if (paged && !isQueryParameter(method, LIMIT)) {
+            queryParams.add(LIMIT);
+        }
+        if (paged && !isQueryParameter(method, CURSOR)) {
+            queryParams.add("...(" + CURSOR + " ? { " + CURSOR + " } : {})");
+        }
         StringBuilder options = new StringBuilder();
-        if (!method.queryParameters()
-            .isEmpty()) {
+        if (!queryParams.isEmpty()) {
             options.append(", { params: {");
-            boolean first = true;
-            for (TypeDeclaration param : method.queryParameters()) {
-                if (first) {
-                    first = false;
-                }
-                else {
-                    options.append(", ");
-                }
-                options.append(param.name());
-            }
+            options.append(String.join(", ", queryParams));
             options.append("} }");
         }
 
+        if (context.getApiModel()
+            .isCached(method)) {
+            addCached(method, name, returnType, parameters, url, queryParams);
+        }
+        else {
+            Map<String, Object> contextObject = ImmutableMap.<String, Object> builder()
+                .put("name", name)
+                .put("returnType", returnType)
+                .put("parameters", parameters)
+                .put("httpMethod", method.method())
+                .put("url", url)
+                .put("body", bodyArg)
+                .put("options", options)
+                .build();
+            context.getMustache("serviceMethod")
+                .render(context.getOutput(), contextObject);
+        }
+
+        if (paged) {
+            addIterator(method, name, itemType, parameters);
+        }
+        if (context.getApiModel()
+            .isBulk(method)) {
+            addBulk(method, name, returnType, parameters, path, options);
+        }
+    }
+
+    /**
+     * Adds a method returning cached responses within their maximum age and revalidating them with
+     * the entity tag of the cached response afterwards.
+     */
+    private void addCached(Method method, String name, String returnType,
+        List<Parameter> parameters, String url, List<String> queryParams) {
+        Long maxAge = Annotations.findCacheable(method);
         Map<String, Object> contextObject = ImmutableMap.<String, Object> builder()
             .put("name", name)
             .put("returnType", returnType)
             .put("parameters", parameters)
-            .put("httpMethod", method.method())
             .put("url", url)
-            .put("body", bodyArg)
+            .put("params", "{" + String.join(", ", queryParams) + "}")
+            .put("maxAge", (maxAge == null) ? 0L : maxAge)
+            .build();
+        context.getMustache("serviceCached")
+            .render(context.getOutput(), contextObject);
+    }
+
+    /**
+     * Adds the bulk variant of a method, posting an array of bodies to the bulk path of the
+     * resource, and a method collecting single-item calls into bulk requests, if enabled.
+     */
+    private void addBulk(Method method, String name, String returnType,
+        List<Parameter> parameters, String path, CharSequence options) {
+        String bulkPath = (path.equals("/") ? "" : path) + BULK_PATH;
+        String bulkReturnType = getBulkReturnType(returnType);
+        Map<String, Object> contextObject = ImmutableMap.<String, Object> builder()
+            .put("name", name + BULK_SUFFIX)
+            .put("returnType", bulkReturnType)
+            .put("parameters", getBulkParameters(parameters))
+            .put("httpMethod", method.method())
+            .put("url", "`${this.baseUrl}" + bulkPath + "`")
+            .put("body", ", " + BULK_ITEMS)
             .put("options", options)
             .build();
         context.getMustache("serviceMethod")
             .render(context.getOutput(), contextObject);
+
+        if (context.getApiModel()
+            .isBatched(method)) {
+            contextObject = ImmutableMap.<String, Object> builder()
+                .put("name", name)
+                .put("itemType", parameters.get(0)
+                    .getType())
+                .put("resultType", returnType)
+                .put("window", Annotations.findBulk(method))
+                .build();
+            context.getMustache("serviceBatched")
+                .render(context.getOutput(), contextObject);
+        }
+    }
+
+    /**
+     * Adds an async generator method iterating over all items of a paged collection. The next page
+     * is requested before the items of the current page are yielded.
+     */
+    private void addIterator(Method method, String name, String itemType,
+        List<Parameter> parameters) {
+        boolean declaredCursor = isQueryParameter(method, CURSOR);
+        List<Parameter> iteratorParameters = new ArrayList<>();
+        List<String> firstArgs = new ArrayList<>();
+        List<String> nextArgs = new ArrayList<>();
+        for (Parameter parameter : parameters) {
+            String paramName = parameter.getName();
+            if (paramName.equals(CURSOR + "?") || (declaredCursor && paramName.equals(CURSOR))) {
+                firstArgs.add("undefined");
+                nextArgs.add("page.nextCursor");
+            }
+            else {
+                iteratorParameters.add(parameter);
+                firstArgs.add(paramName);
+                nextArgs.add(paramName);
+            }
+        }
+
+        Map<String, Object> contextObject = ImmutableMap.<String, Object> builder()
+            .put("name", name)
+            .put("itemType", itemType)
+            .put("parameters", iteratorParameters)
+            .put("firstArgs", String.join(", ", firstArgs))
+            .put("nextArgs", String.join(", ", nextArgs))
+            .build();
+        context.getMustache("serviceIterator")
+            .render(context.getOutput(), contextObject);
     }
 }
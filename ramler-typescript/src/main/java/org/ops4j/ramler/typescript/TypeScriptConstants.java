@@ -30,6 +30,14 @@ public class TypeScriptConstants {
     public static final String STRING = "string";
     public static final String ANY = "any";
     public static final String NULL = "null";
+    public static final String FIELDS = "fields";
+    public static final String PAGE = "Page";
+    public static final String CURSOR = "cursor";
+    public static final String LIMIT = "limit";
+    public static final String BULK_RESULT = "BulkResult";
+    public static final String BULK_BATCHER = "BulkBatcher";
+    public static final String BULK_ITEMS = "items";
+    public static final String RESPONSE_CACHE = "ResponseCache";
 
     private TypeScriptConstants() {
         // hidden utility class constructor
@@ -0,0 +1,41 @@
+import { BulkItemResult, BulkResult } from './bulk-result';
+
+interface PendingItem<T, R> {
+    item: T;
+    resolve: (value: R) => void;
+    reject: (reason: any) => void;
+}
+
+export class BulkBatcher<T, R> {
+
+    private pending: PendingItem<T, R>[] = [];
+
+    constructor(private send: (items: T[]) => Promise<BulkResult<R>>, private windowMillis: number) { }
+
+    submit(item: T): Promise<R> {
+        return new Promise<R>((resolve, reject) => {
+            this.pending.push({ item, resolve, reject });
+            if (this.pending.length === 1) {
+                setTimeout(() => this.flush(), this.windowMillis);
+            }
+        });
+    }
+
+    flush(): void {
+        const batch = this.pending;
+        this.pending = [];
+        if (batch.length === 0) {
+            return;
+        }
+        this.send(batch.map(entry => entry.item)).then(result => {
+            batch.forEach((entry, index) => {
+                const itemResult: BulkItemResult<R> = result.items[index];
+                if (itemResult && itemResult.status >= 200 && itemResult.status < 300) {
+                    entry.resolve(itemResult.value as R);
+                } else {
+                    entry.reject(itemResult);
+                }
+            });
+        }, reason => batch.forEach(entry => entry.reject(reason)));
+    }
+}
@@ -0,0 +1,9 @@
+export interface BulkItemResult<T> {
+    status: number;
+    value?: T;
+    error?: string;
+}
+
+export interface BulkResult<T> {
+    items: BulkItemResult<T>[];
+}
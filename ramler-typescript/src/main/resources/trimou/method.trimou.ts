@@ -1 +1 @@
-    {{name}}({{>parameters}}): RestResponse<{{returnType}}>;
+    {{name}}({{>parameters}}): RestResponse<{{& returnType}}>;
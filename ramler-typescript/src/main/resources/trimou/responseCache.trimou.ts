@@ -0,0 +1,47 @@
+import { HttpClient, HttpErrorResponse, HttpHeaders } from '@angular/common/http';
+
+interface CachedResponse {
+    etag: string | null;
+    body: any;
+    expires: number;
+}
+
+export class ResponseCache {
+
+    private entries = new Map<string, CachedResponse>();
+
+    constructor(private maxEntries: number = 256) { }
+
+    get<T>(httpClient: HttpClient, url: string, params: { [param: string]: any }, maxAgeSeconds: number): Promise<T> {
+        const key = url + ' ' + JSON.stringify(params);
+        const cached = this.entries.get(key);
+        if (cached && cached.expires > Date.now()) {
+            return Promise.resolve(cached.body as T);
+        }
+        let headers = new HttpHeaders();
+        if (cached && cached.etag) {
+            headers = headers.set('If-None-Match', cached.etag);
+        }
+        return httpClient.get<T>(url, { headers, params, observe: 'response' }).toPromise().then(response => {
+            const etag = response.headers.get('ETag');
+            if (etag || maxAgeSeconds > 0) {
+                this.store(key, { etag, body: response.body, expires: Date.now() + maxAgeSeconds * 1000 });
+            }
+            return response.body as T;
+        }, error => {
+            if (cached && error instanceof HttpErrorResponse && error.status === 304) {
+                this.store(key, { ...cached, expires: Date.now() + maxAgeSeconds * 1000 });
+                return cached.body as T;
+            }
+            throw error;
+        });
+    }
+
+    private store(key: string, entry: CachedResponse): void {
+        this.entries.delete(key);
+        if (this.entries.size >= this.maxEntries) {
+            this.entries.delete(this.entries.keys().next().value);
+        }
+        this.entries.set(key, entry);
+    }
+}
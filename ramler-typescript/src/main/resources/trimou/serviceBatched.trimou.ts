@@ -0,0 +1,6 @@
+    private {{name}}Batcher = new BulkBatcher<{{itemType}}, {{resultType}}>(items => this.{{name}}Bulk(items), {{window}});
+
+    {{name}}Batched(body: {{itemType}}): Promise<{{resultType}}> {
+        return this.{{name}}Batcher.submit(body);
+    }
+
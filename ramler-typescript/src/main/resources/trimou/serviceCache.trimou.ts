@@ -0,0 +1,2 @@
+    private responseCache = new ResponseCache();
+
@@ -0,0 +1,4 @@
+    {{name}}({{>parameters}}): RestResponse<{{returnType}}> {
+        return this.responseCache.get<{{returnType}}>(this.httpClient, {{url}}, {{params}}, {{maxAge}});
+    }
+
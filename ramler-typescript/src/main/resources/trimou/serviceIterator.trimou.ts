@@ -0,0 +1,12 @@
+    async *{{name}}Iterator({{>parameters}}): AsyncIterableIterator<{{itemType}}> {
+        let page = await this.{{name}}({{firstArgs}});
+        while (true) {
+            const next = page.nextCursor ? this.{{name}}({{nextArgs}}) : undefined;
+            yield* page.items || [];
+            if (!next) {
+                return;
+            }
+            page = await next;
+        }
+    }
+
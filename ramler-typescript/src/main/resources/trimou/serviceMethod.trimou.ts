@@ -1,4 +1,4 @@
-    {{name}}({{>parameters}}): RestResponse<{{returnType}}> {
-        return this.httpClient.{{httpMethod}}<{{returnType}}>({{url}}{{body}}{{options}}).toPromise();
+    {{name}}({{>parameters}}): RestResponse<{{& returnType}}> {
+        return this.httpClient.{{httpMethod}}<{{& returnType}}>({{url}}{{body}}{{options}}).toPromise();
     }
 
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.typescript;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+public class BulkTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "bulk";
+    }
+
+    @Test
+    public void shouldFindModules() {
+        assertModules("book", "book-resource", "book.service", "bulk-batcher", "bulk-result",
+            "rest-response");
+    }
+
+    @Test
+    public void shouldAddBulkMethodsToResource() throws IOException {
+        assertThat(readModule("book-resource"))
+            .contains("import { BulkResult } from './bulk-result';")
+            .contains("createBookBulk(items: Book[]): RestResponse<BulkResult<Book>>;")
+            .contains("updateBookBulk(items: Book[], isbn: string): "
+                + "RestResponse<BulkResult<void>>;");
+    }
+
+    @Test
+    public void shouldPostToBulkPathInService() throws IOException {
+        assertThat(readModule("book.service"))
+            .contains("this.httpClient.post<BulkResult<Book>>(`${this.baseUrl}/book/bulk`, items)")
+            .contains("this.httpClient.put<BulkResult<void>>("
+                + "`${this.baseUrl}/book/${isbn}/bulk`, items)");
+    }
+
+    @Test
+    public void shouldBatchCallsInService() throws IOException {
+        assertThat(readModule("book.service"))
+            .contains("import { BulkBatcher } from './bulk-batcher';")
+            .contains("new BulkBatcher<Book, Book>(items => this.createBookBulk(items), 10)")
+            .contains("createBookBatched(body: Book): Promise<Book>")
+            .doesNotContain("updateBookBatched");
+    }
+
+    private String readModule(String baseName) throws IOException {
+        return new String(Files.readAllBytes(Paths.get("target/generated/ts", getBasename(),
+            baseName + ".ts")), UTF_8);
+    }
+}
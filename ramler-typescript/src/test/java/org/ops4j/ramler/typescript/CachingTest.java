@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.typescript;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+public class CachingTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "caching";
+    }
+
+    @Test
+    public void shouldFindModules() {
+        assertModules("book", "book-resource", "book.service", "response-cache",
+            "rest-response");
+    }
+
+    @Test
+    public void shouldCacheResponsesInService() throws IOException {
+        assertThat(readModule("book.service"))
+            .contains("import { ResponseCache } from './response-cache';")
+            .contains("private responseCache = new ResponseCache();")
+            .contains("return this.responseCache.get<Book[]>(this.httpClient, "
+                + "`${this.baseUrl}/book`, {title}, 10);")
+            .contains("return this.responseCache.get<Book>(this.httpClient, "
+                + "`${this.baseUrl}/book/${isbn}`, {}, 0);");
+    }
+
+    @Test
+    public void shouldRevalidateWithEntityTag() throws IOException {
+        assertThat(readModule("response-cache")).contains("'If-None-Match'")
+            .contains("error.status === 304");
+    }
+
+    private String readModule(String baseName) throws IOException {
+        return new String(Files.readAllBytes(Paths.get("target/generated/ts", getBasename(),
+            baseName + ".ts")), UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.typescript;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+public class FieldsetsTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "fieldsets";
+    }
+
+    @Test
+    public void shouldFindModules() {
+        assertModules("animal", "animal-resource", "animal.service", "rest-response");
+    }
+
+    @Test
+    public void shouldReturnPartialInResource() throws IOException {
+        assertThat(readModule("animal-resource"))
+            .contains("findAnimal(id: number, fields: (keyof Animal)[]): "
+                + "RestResponse<Partial<Animal>>");
+    }
+
+    @Test
+    public void shouldPassFieldsInService() throws IOException {
+        assertThat(readModule("animal.service"))
+            .contains("findAnimal(id: number, fields: (keyof Animal)[]): "
+                + "RestResponse<Partial<Animal>>")
+            .contains("{ params: {fields} }");
+    }
+
+    private String readModule(String baseName) throws IOException {
+        return new String(Files.readAllBytes(Paths.get("target/generated/ts", getBasename(),
+            baseName + ".ts")), UTF_8);
+    }
+}
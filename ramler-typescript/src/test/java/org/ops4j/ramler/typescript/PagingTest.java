@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 OPS4J Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.ramler.typescript;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+public class PagingTest extends AbstractGeneratorTest {
+
+    @Override
+    public String getBasename() {
+        return "paging";
+    }
+
+    @Test
+    public void shouldFindModules() {
+        assertModules("book", "book-resource", "book.service", "page", "rest-response");
+    }
+
+    @Test
+    public void shouldReturnPageInResource() throws IOException {
+        assertThat(readModule("book-resource")).contains("import { Page } from './page';")
+            .contains("findBooks(author: string, limit: number, cursor?: string): "
+                + "RestResponse<Page<Book>>");
+    }
+
+    @Test
+    public void shouldPassCursorInService() throws IOException {
+        assertThat(readModule("book.service"))
+            .contains("{ params: {author, limit, ...(cursor ? { cursor } : {})} }");
+    }
+
+    @Test
+    public void shouldIterateInService() throws IOException {
+        assertThat(readModule("book.service"))
+            .contains("async *findBooksIterator(author: string, limit: number): "
+                + "AsyncIterableIterator<Book>")
+            .contains("let page = await this.findBooks(author, limit, undefined);")
+            .contains("this.findBooks(author, limit, page.nextCursor)");
+    }
+
+    @Test
+    public void shouldGeneratePageModule() throws IOException {
+        assertThat(readModule("page")).contains("export interface Page<T> {", "items: T[];",
+            "nextCursor?: string;");
+    }
+
+    private String readModule(String baseName) throws IOException {
+        return new String(Files.readAllBytes(Paths.get("target/generated/ts", getBasename(),
+            baseName + ".ts")), UTF_8);
+    }
+}